@@ -0,0 +1,188 @@
+package backend.export;
+
+import backend.helpers.ExportListener;
+import backend.helpers.ToJSON;
+import backend.helpers.ToPDF;
+import backend.process.Result;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A job that exports a list of Results to a File (as JSON, with ToJSON, or as a PDF, with ToPDF), to be run on a worker
+ * Thread (see ExportJobs). The export is written to a temporary File in the same directory, which is then moved onto
+ * the File with an atomic rename, so the File is never left half written if the export fails or is cancelled.
+ */
+public class ExportJob implements Runnable {
+    private final static long PROGRESS_INTERVAL = 100;//min ms between progress updates to the callback
+    private final List<Result> results;
+    private final File file;
+    private final ToPDF.Layout layout;//null when exporting to JSON
+    private final ExportJobCallback callback;
+    private volatile boolean cancelled = false;
+    private volatile int pages = 0;
+    private long lastProgress = 0;
+
+    /**
+     * Create an ExportJob.
+     *
+     * @param results  the Results to export.
+     * @param file     the File to export to.
+     * @param layout   the Layout of the PDF, or null to export to JSON.
+     * @param callback the ExportJobCallback to inform of the progress.
+     */
+    private ExportJob(List<Result> results, File file, ToPDF.Layout layout, ExportJobCallback callback) {
+        this.results = new ArrayList<>(results);//the Timeline can change while the job is running
+        this.file = file;
+        this.layout = layout;
+        this.callback = callback;
+    }
+
+    /**
+     * Create an ExportJob that writes the given Results as JSON to the given File (the format is picked from the name
+     * of the File, see ToJSON.write).
+     *
+     * @param results  the Results to export.
+     * @param file     the File to export to.
+     * @param callback the ExportJobCallback to inform of the progress.
+     * @return the ExportJob, to be submitted to ExportJobs.
+     */
+    public static ExportJob toJSON(List<Result> results, File file, ExportJobCallback callback) {
+        return new ExportJob(results, file, null, callback);
+    }
+
+    /**
+     * Create an ExportJob that draws the given Results as a PDF, in the given Layout, to the given File.
+     *
+     * @param results  the Results to export.
+     * @param file     the File to export to.
+     * @param layout   the Layout of the PDF.
+     * @param callback the ExportJobCallback to inform of the progress.
+     * @return the ExportJob, to be submitted to ExportJobs.
+     */
+    public static ExportJob toPDF(List<Result> results, File file, ToPDF.Layout layout, ExportJobCallback callback) {
+        return new ExportJob(results, file, layout, callback);
+    }
+
+    /**
+     * Run the export: write to a temporary File, then move it onto the File. The callback is informed of the progress,
+     * and of whether the job finished, was cancelled or failed.
+     */
+    @Override
+    public void run() {
+        File tempFile = null;
+        try {
+            if (cancelled) {//cancelled before it started running
+                throw new CancellationException();
+            }
+            //same directory so the rename is atomic, and ending with the name of the File so ToJSON picks the same format
+            tempFile = File.createTempFile(".export-", "-" + file.getName(), file.getAbsoluteFile().getParentFile());
+            ExportListener exportListener = new ExportListener() {
+                @Override
+                public void written(int written, int total) {
+                    long now = System.currentTimeMillis();
+                    if (now - lastProgress >= PROGRESS_INTERVAL || written == total) {
+                        lastProgress = now;
+                        callback.progress(ExportJob.this, written, total, pages);
+                    }
+                }
+
+                @Override
+                public void pageStarted(int pages) {
+                    ExportJob.this.pages = pages;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return cancelled;
+                }
+            };
+            if (layout != null) {
+                new ToPDF(layout).saveToPDF(results, tempFile, exportListener);
+            } else {
+                ToJSON.write(results, tempFile, exportListener);
+            }
+            if (cancelled) {//cancelled while the File was being saved
+                throw new CancellationException();
+            }
+            moveOnto(tempFile, file);
+            System.out.println("Exported " + results.size() + " Results to: " + file);
+            callback.finished(this);
+        } catch (CancellationException e) {
+            System.out.println("Export to: " + file + " cancelled");
+            callback.cancelled(this);
+        } catch (Exception e) {
+            e.printStackTrace();
+            callback.failed(this, e);
+        } finally {
+            if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Move the given temporary File onto the given File, replacing it. The move is atomic if the file system supports
+     * it.
+     *
+     * @param tempFile the temporary File.
+     * @param file     the File to replace.
+     * @throws IOException if the File could not be replaced.
+     */
+    private static void moveOnto(File tempFile, File file) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Cancel the ExportJob. If it is running it stops after the Result being written, and the File is left as it was.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Whether or not the ExportJob has been cancelled.
+     *
+     * @return true if cancel has been called; false otherwise.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Get the File the ExportJob writes to.
+     *
+     * @return the File being exported to.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the List of Results the ExportJob writes (a copy of the List it was created with).
+     *
+     * @return the List of Results being exported.
+     */
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Get the Layout of the PDF the ExportJob draws.
+     *
+     * @return the Layout of the PDF, or null if it exports to JSON.
+     */
+    public ToPDF.Layout getLayout() {
+        return layout;
+    }
+}
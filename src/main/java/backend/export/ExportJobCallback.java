@@ -0,0 +1,39 @@
+package backend.export;
+
+/**
+ * Interface to be implemented, to inform the Listener of an ExportJob of its progress and of how it ended. The methods
+ * are called from the worker Thread running the ExportJob.
+ */
+public interface ExportJobCallback {
+    /**
+     * Inform the Listener of how far the ExportJob has got. Called at most a few times a second.
+     *
+     * @param exportJob the ExportJob.
+     * @param written   the number of Results written so far.
+     * @param total     the number of Results being written.
+     * @param pages     the number of pages written so far (0 unless exporting to PDF).
+     */
+    void progress(ExportJob exportJob, int written, int total, int pages);
+
+    /**
+     * Inform the Listener that the ExportJob finished, and its File has been written.
+     *
+     * @param exportJob the ExportJob.
+     */
+    void finished(ExportJob exportJob);
+
+    /**
+     * Inform the Listener that the ExportJob was cancelled, and its File has been left as it was.
+     *
+     * @param exportJob the ExportJob.
+     */
+    void cancelled(ExportJob exportJob);
+
+    /**
+     * Inform the Listener that the ExportJob failed, and its File has been left as it was.
+     *
+     * @param exportJob the ExportJob.
+     * @param exception the reason it failed.
+     */
+    void failed(ExportJob exportJob, Exception exception);
+}
@@ -0,0 +1,49 @@
+package backend.export;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of worker Threads that run ExportJobs, so that exporting a Timeline does not block the Thread that asked for it
+ * (i.e. the UI Thread). The workers are daemon Threads, so a running export does not stop the program from closing.
+ */
+public class ExportJobs {
+    private final ExecutorService executorService;
+
+    /**
+     * Create the pool of workers.
+     *
+     * @param noOfWorkers the max number of ExportJobs that run at the same time (the others wait in a queue).
+     */
+    public ExportJobs(int noOfWorkers) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        executorService = Executors.newFixedThreadPool(noOfWorkers, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "export-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Submit the given ExportJob to be run by one of the workers.
+     *
+     * @param exportJob the given ExportJob.
+     * @return the given ExportJob (so that it can be cancelled).
+     */
+    public ExportJob submit(ExportJob exportJob) {
+        executorService.execute(exportJob);
+        return exportJob;
+    }
+
+    /**
+     * Stop accepting ExportJobs. The ExportJobs already submitted are still run.
+     */
+    public void shutdown() {
+        executorService.shutdown();
+    }
+}
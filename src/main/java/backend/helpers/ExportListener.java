@@ -0,0 +1,30 @@
+package backend.helpers;
+
+/**
+ * Interface to be implemented to follow the progress of ToJSON and ToPDF while they write a list of Results, and to stop
+ * them part way through.
+ */
+public interface ExportListener {
+    /**
+     * Inform the Listener that another Result has been written.
+     *
+     * @param written the number of Results written so far.
+     * @param total   the number of Results being written.
+     */
+    void written(int written, int total);
+
+    /**
+     * Inform the Listener that another page has been started (only called when writing a PDF).
+     *
+     * @param pages the number of pages so far.
+     */
+    default void pageStarted(int pages) {
+    }
+
+    /**
+     * Checked after each Result is written. If it returns true the export stops by throwing a CancellationException.
+     *
+     * @return true if the export should stop; false otherwise.
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,222 @@
+package backend.helpers;
+
+import backend.process.FileData;
+import backend.process.Result;
+import backend.process.TimelineDate;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class used to turn JSON produced by ToJSON back into a list of Results (i.e. to import a Timeline that was exported).
+ * As ToJSON does not export the path of the files, the FileData of the imported Results use the filename as their path.
+ */
+public class FromJSON {
+    /**
+     * For the given JSON String (as produced by ToJSON.toJSON), produce the List of Results it represents.
+     *
+     * @param json the given JSON String.
+     * @return the List of Results in the JSON, in the order they appear.
+     * @throws IOException if the JSON is not an array of Results in the format of ToJSON.
+     */
+    public static List<Result> fromJSON(String json) throws IOException {
+        return fromJSON(new StringReader(json));
+    }
+
+    /**
+     * For the given File of JSON (as written by ToJSON.write), produce the List of Results it represents. Files ending
+     * with ".gz" are decompressed with gzip.
+     *
+     * @param file the given File.
+     * @return the List of Results in the File, in the order they appear.
+     * @throws IOException if the File could not be read, or it does not hold Results in the format of ToJSON.
+     */
+    public static List<Result> fromJSON(File file) throws IOException {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        if (file.getName().toLowerCase().endsWith(".gz")) {
+            inputStream = new GZIPInputStream(inputStream, 1 << 16);
+        }
+        try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            return fromJSON(reader);
+        }
+    }
+
+    /**
+     * For the given Reader of JSON (as produced by ToJSON), produce the List of Results it represents. Both a JSON
+     * array of Results and newline delimited JSON (one Result per line) are accepted. The JSON is read as a stream, so
+     * the whole document does not need to be held in memory.
+     *
+     * @param reader the given Reader of JSON.
+     * @return the List of Results in the JSON, in the order they appear.
+     * @throws IOException if the JSON does not hold Results in the format of ToJSON.
+     */
+    public static List<Result> fromJSON(Reader reader) throws IOException {
+        SimpleDateFormat dayMonthYearFormat = new SimpleDateFormat("dd-MM-yyyy G");
+        Map<String, FileData> fileDatas = new HashMap<>();//Results from the same file share their FileData
+        List<Result> toReturn = new ArrayList<>();
+        try (JsonReader jsonReader = new JsonReader(reader)) {
+            jsonReader.setLenient(true);//allows more than one top-level value (newline delimited JSON)
+            if (jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    toReturn.add(readResult(jsonReader, dayMonthYearFormat, fileDatas));
+                }
+                jsonReader.endArray();
+            } else {
+                while (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                    toReturn.add(readResult(jsonReader, dayMonthYearFormat, fileDatas));
+                }
+            }
+        } catch (IllegalStateException | ParseException e) {
+            throw new IOException("Not a valid Timeline JSON: " + e.getMessage(), e);
+        }
+        return toReturn;
+    }
+
+    /**
+     * Get the FileData of the given Results (each FileData once, in the order they are first found).
+     *
+     * @param results the given Results.
+     * @return the List of FileData linked to the Results.
+     */
+    public static List<FileData> getFileDatas(List<Result> results) {
+        Set<FileData> found = Collections.newSetFromMap(new IdentityHashMap<FileData, Boolean>());
+        List<FileData> toReturn = new ArrayList<>();
+        for (Result result : results) {
+            if (result.getFileData() != null && found.add(result.getFileData())) {
+                toReturn.add(result.getFileData());
+            }
+        }
+        return toReturn;
+    }
+
+    /**
+     * Read one Result object from the JSON.
+     *
+     * @param jsonReader         the reader positioned at the start of a Result object.
+     * @param dayMonthYearFormat the format of the dates in the JSON.
+     * @param fileDatas          the FileData already created, by their filename and base date.
+     * @return the Result read.
+     * @throws IOException    if the JSON could not be read.
+     * @throws ParseException if one of the dates is not in the format dd-MM-yyyy G.
+     */
+    private static Result readResult(JsonReader jsonReader, SimpleDateFormat dayMonthYearFormat, Map<String, FileData> fileDatas) throws IOException, ParseException {
+        Result result = new Result();
+        TimelineDate timelineDate = result.getTimelineDate();
+        List<FileData> alsoFrom = new ArrayList<>();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "date1":
+                    timelineDate.setDate1(dayMonthYearFormat.parse(jsonReader.nextString()));
+                    break;
+                case "date2":
+                    timelineDate.setDate2(dayMonthYearFormat.parse(jsonReader.nextString()));
+                    break;
+                case "subjects":
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        result.addSubject(jsonReader.nextString());
+                    }
+                    jsonReader.endArray();
+                    break;
+                case "event":
+                    result.setEvent(jsonReader.nextString());
+                    break;
+                case "from":
+                    result.setFileData(readFileData(jsonReader, fileDatas));
+                    break;
+                case "alsoFrom":
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        FileData fileData = readFileData(jsonReader, fileDatas);
+                        if (fileData != null) {
+                            alsoFrom.add(fileData);
+                        }
+                    }
+                    jsonReader.endArray();
+                    break;
+                default://not produced by ToJSON, ignore it
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        if (!alsoFrom.isEmpty()) {//merged from Results of several files, of which only the event was exported
+            List<Result> mergedResults = new ArrayList<>();
+            mergedResults.add(copyFrom(result, result.getFileData()));
+            for (FileData fileData : alsoFrom) {
+                mergedResults.add(copyFrom(result, fileData));
+            }
+            result.setMergedResults(mergedResults);
+        }
+        return result;
+    }
+
+    /**
+     * Copy the given Result, as found in the given file.
+     *
+     * @param result   the given Result.
+     * @param fileData the FileData of the file.
+     * @return the copy of the Result.
+     */
+    private static Result copyFrom(Result result, FileData fileData) {
+        try {
+            Result copy = (Result) result.clone();
+            copy.setFileData(fileData);
+            return copy;
+        } catch (CloneNotSupportedException e) {//Result supports clone
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read the "from" object of a Result, and get the FileData it represents.
+     *
+     * @param jsonReader the reader positioned at the start of the "from" object.
+     * @param fileDatas  the FileData already created, by their filename and base date.
+     * @return the FileData for the filename and base date, or null if the object is empty.
+     * @throws IOException if the JSON could not be read.
+     */
+    private static FileData readFileData(JsonReader jsonReader, Map<String, FileData> fileDatas) throws IOException {
+        String filename = null;
+        String baseDate = null;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+            } else if (name.equals("filename")) {
+                filename = jsonReader.nextString();
+            } else if (name.equals("baseDate")) {
+                baseDate = jsonReader.nextString();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        if (filename == null) {
+            return null;
+        }
+        String key = filename + "\n" + baseDate;
+        FileData fileData = fileDatas.get(key);
+        if (fileData == null) {
+            fileData = new FileData(filename, filename);//the path is not exported, so the filename is all we have
+            if (baseDate != null) {
+                fileData.setCreationDate(baseDate);
+            }
+            fileDatas.put(key, fileData);
+        }
+        return fileData;
+    }
+}
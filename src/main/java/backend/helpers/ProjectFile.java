@@ -0,0 +1,474 @@
+package backend.helpers;
+
+import backend.process.FileData;
+import backend.process.Result;
+import backend.process.TimelineDate;
+import backend.ranges.Range;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Used to save a Timeline (its Results, the FileData of the documents loaded and optionally its forest of Ranges) to a
+ * binary project file, and to load it back without having to process the documents again.
+ * <p>
+ * The file is written as a stream (each Result is written as it is visited), and read into a buffer in one go.
+ * Its layout is:
+ * <ul>
+ * <li>header: magic number, format version, flags (whether a Range forest follows),</li>
+ * <li>FileData table: count, then for each its name, path and creation date,</li>
+ * <li>Results: count, then for each the index of its FileData, its dates, duration data, event, original sentence,
+ * the offsets of the sentence in its file and its page (from version 2), the parse tree of the sentence (from version
+ * 3), subjects, the String dates that produced it and the Results it was merged from (from version 4, each
+ * written in the same way, recursive),</li>
+ * <li>Range forest (optional): count of trees, then each Range by its dates, the indexes of its Results and its
+ * children (recursive).</li>
+ * </ul>
+ * Strings are written as their length in UTF-8 bytes (-1 for null) followed by the bytes, and Dates as their time in
+ * ms (NO_DATE for null).
+ */
+public class ProjectFile {
+    public final static String EXTENSION = "tlp";
+    private final static int MAGIC = 0x544C5046;//"TLPF"
+    private final static int VERSION = 4;//2: offsets and page of the original sentence, 3: its parse tree, 4: merged Results
+    private final static int FLAG_HAS_FOREST = 1;
+    private final static long NO_DATE = Long.MIN_VALUE;
+    private List<Result> results;
+    private List<FileData> fileDatas;
+    private List<Range> trees;
+
+    /**
+     * Create a ProjectFile with the data loaded from a file.
+     *
+     * @param results   the Results loaded.
+     * @param fileDatas the FileData of the documents loaded.
+     * @param trees     the Range forest loaded, or null if it was not saved.
+     */
+    private ProjectFile(List<Result> results, List<FileData> fileDatas, List<Range> trees) {
+        this.results = results;
+        this.fileDatas = fileDatas;
+        this.trees = trees;
+    }
+
+    /**
+     * Create a ProjectFile for Results that were not loaded from a project file (i.e. imported from JSON), so they
+     * can be handled in the same way.
+     *
+     * @param results   the given Results.
+     * @param fileDatas the FileData of the given Results.
+     * @return a ProjectFile holding the given data, with no Range forest.
+     */
+    public static ProjectFile of(List<Result> results, List<FileData> fileDatas) {
+        return new ProjectFile(results, fileDatas, null);
+    }
+
+    /**
+     * Get the Results that were saved in the project file.
+     *
+     * @return the List of Results loaded.
+     */
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Get the FileData of the documents that were loaded when the project file was saved.
+     *
+     * @return the List of FileData loaded.
+     */
+    public List<FileData> getFileDatas() {
+        return fileDatas;
+    }
+
+    /**
+     * Get the forest of Range trees that was saved with the project file. Its Ranges hold the same Result objects as
+     * getResults().
+     *
+     * @return the List of Range trees, or null if no forest was saved.
+     */
+    public List<Range> getTrees() {
+        return trees;
+    }
+
+    /**
+     * Save the given Timeline to the given File.
+     *
+     * @param file      the File to save to.
+     * @param results   the Results of the Timeline (as edited by the user).
+     * @param fileDatas the FileData of the documents loaded (FileData only referenced by a Result are also saved).
+     * @param trees     the forest of Range trees produced from the Results, or null to not save it.
+     * @throws IOException if the File could not be written.
+     */
+    public static void save(File file, List<Result> results, List<FileData> fileDatas, List<Range> trees) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            write(out, results, fileDatas, trees);
+        }
+        System.out.println("Saved " + results.size() + " Results to: " + file);
+    }
+
+    /**
+     * Get the given Results (and the FileData they reference) in the layout of a project file, without a Range
+     * forest, so they can be sent to another process (see backend.shard.ShardWorker) and read back by fromBytes.
+     *
+     * @param results   the given Results.
+     * @param fileDatas the FileData of the documents of the Results.
+     * @return the bytes of the project file.
+     */
+    public static byte[] toBytes(List<Result> results, List<FileData> fileDatas) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, results, fileDatas, null);
+        } catch (IOException e) {//a ByteArrayOutputStream is never closed or full
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write the given Timeline in the layout of a project file.
+     *
+     * @param out       the stream to write to.
+     * @param results   the Results of the Timeline.
+     * @param fileDatas the FileData of the documents loaded (FileData only referenced by a Result are also written).
+     * @param trees     the forest of Range trees produced from the Results, or null to not write it.
+     * @throws IOException if the stream could not be written to.
+     */
+    private static void write(DataOutputStream out, List<Result> results, List<FileData> fileDatas, List<Range> trees) throws IOException {
+        //FileData is shared by all the Results of a document, so it is saved once and referenced by index
+        List<FileData> fileDataTable = new ArrayList<>(fileDatas);
+        Map<FileData, Integer> fileDataIndexes = new IdentityHashMap<>();
+        for (int i = 0; i < fileDataTable.size(); i++) {
+            fileDataIndexes.put(fileDataTable.get(i), i);
+        }
+        for (Result result : results) {
+            for (FileData fileData : result.getSources()) {//including those of the Results it was merged from
+                if (!fileDataIndexes.containsKey(fileData)) {
+                    fileDataIndexes.put(fileData, fileDataTable.size());
+                    fileDataTable.add(fileData);
+                }
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt((trees != null) ? FLAG_HAS_FOREST : 0);
+        //FileData table
+        out.writeInt(fileDataTable.size());
+        for (FileData fileData : fileDataTable) {
+            writeString(out, fileData.getFileName());
+            writeString(out, fileData.getFilePath());
+            writeDate(out, fileData.getCreationDate());
+        }
+        //Results
+        Map<Result, Integer> resultIndexes = new IdentityHashMap<>();
+        out.writeInt(results.size());
+        for (Result result : results) {
+            resultIndexes.put(result, resultIndexes.size());
+            writeResult(out, result, fileDataIndexes);
+        }
+        //Range forest
+        if (trees != null) {
+            out.writeInt(trees.size());
+            for (Range range : trees) {
+                writeRange(out, range, resultIndexes);
+            }
+        }
+    }
+
+    /**
+     * Load a Timeline from the given project File.
+     *
+     * @param file the project File.
+     * @return the ProjectFile holding the data loaded.
+     * @throws IOException if the File could not be read, or is not a project file of a version that can be read.
+     */
+    public static ProjectFile load(File file) throws IOException {
+        ByteBuffer in;
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("The file: " + file.getName() + " is too large to be a project file.");
+            }
+            //read rather than mapped, so the file is not held open by the mapping and can be saved over straight away
+            in = ByteBuffer.allocate((int) size);
+            while (in.hasRemaining()) {
+                if (fileChannel.read(in) < 0) {
+                    throw new EOFException("The file: " + file.getName() + " was truncated while being read.");
+                }
+            }
+            in.flip();
+        }
+        try {
+            return read(in);
+        } catch (RuntimeException e) {//reading past the end of the buffer, negative counts, etc.
+            throw new IOException("The file: " + file.getName() + " is not a valid project file.", e);
+        }
+    }
+
+    /**
+     * Read the project data written by toBytes.
+     *
+     * @param bytes the bytes of a project file.
+     * @return the ProjectFile holding the data read.
+     * @throws IOException if the bytes are not those of a valid project file.
+     */
+    public static ProjectFile fromBytes(byte[] bytes) throws IOException {
+        try {
+            return read(ByteBuffer.wrap(bytes));
+        } catch (RuntimeException e) {
+            throw new IOException("Not a valid project file.", e);
+        }
+    }
+
+    /**
+     * Read the project data from the given buffer.
+     *
+     * @param in the buffer holding the contents of a project file.
+     * @return the ProjectFile holding the data read.
+     * @throws IOException if the buffer does not hold a project file of a version that can be read.
+     */
+    private static ProjectFile read(ByteBuffer in) throws IOException {
+        if (in.remaining() < 12 || in.getInt() != MAGIC) {
+            throw new IOException("Not a project file.");
+        }
+        int version = in.getInt();
+        if (version > VERSION) {
+            throw new IOException("The project file was saved by a newer version (" + version + ").");
+        }
+        int flags = in.getInt();
+        //FileData table
+        int fileDataCount = readCount(in);
+        List<FileData> fileDatas = new ArrayList<>(fileDataCount);
+        for (int i = 0; i < fileDataCount; i++) {
+            FileData fileData = new FileData(readString(in), readString(in));
+            fileData.setCreationDate(readDate(in));
+            fileDatas.add(fileData);
+        }
+        //Results
+        int resultCount = readCount(in);
+        List<Result> results = new ArrayList<>(resultCount);
+        for (int i = 0; i < resultCount; i++) {
+            results.add(readResult(in, version, fileDatas));
+        }
+        //Range forest
+        List<Range> trees = null;
+        if ((flags & FLAG_HAS_FOREST) != 0) {
+            int treeCount = readCount(in);
+            trees = new ArrayList<>(treeCount);
+            for (int i = 0; i < treeCount; i++) {
+                trees.add(readRange(in, results));
+            }
+        }
+        return new ProjectFile(results, fileDatas, trees);
+    }
+
+    /**
+     * Write the given Result and the Results it was merged from (recursive).
+     *
+     * @param out             the stream to write to.
+     * @param result          the given Result.
+     * @param fileDataIndexes the index of each FileData in the FileData table.
+     * @throws IOException if the stream could not be written to.
+     */
+    private static void writeResult(DataOutputStream out, Result result, Map<FileData, Integer> fileDataIndexes) throws IOException {
+        Integer fileDataIndex = (result.getFileData() != null) ? fileDataIndexes.get(result.getFileData()) : null;
+        out.writeInt((fileDataIndex != null) ? fileDataIndex : -1);
+        TimelineDate timelineDate = result.getTimelineDate();
+        writeDate(out, timelineDate.getDate1());
+        writeDate(out, timelineDate.getDate2());
+        writeString(out, timelineDate.getDurationData());
+        writeString(out, result.getEvent());
+        writeString(out, result.getOriginalString());
+        out.writeInt(result.getBeginOffset());
+        out.writeInt(result.getEndOffset());
+        out.writeInt(result.getPage());
+        writeString(out, result.getParseTree());
+        out.writeInt(result.getSubjects().size());
+        for (String subject : result.getSubjects()) {
+            writeString(out, subject);
+        }
+        out.writeInt(result.getDates().size());
+        for (String date : result.getDates()) {
+            writeString(out, date);
+        }
+        out.writeInt(result.getMergedResults().size());
+        for (Result mergedResult : result.getMergedResults()) {
+            writeResult(out, mergedResult, fileDataIndexes);
+        }
+    }
+
+    /**
+     * Read a Result and the Results it was merged from (recursive).
+     *
+     * @param in        the buffer to read from.
+     * @param version   the format version of the project file.
+     * @param fileDatas the FileData table already read, which the Result points to by index.
+     * @return the Result read.
+     */
+    private static Result readResult(ByteBuffer in, int version, List<FileData> fileDatas) {
+        Result result = new Result();
+        int fileDataIndex = in.getInt();
+        if (fileDataIndex >= 0) {
+            result.setFileData(fileDatas.get(fileDataIndex));
+        }
+        TimelineDate timelineDate = result.getTimelineDate();//a new Result already has an empty TimelineDate
+        timelineDate.setDate1(readDate(in));
+        timelineDate.setDate2(readDate(in));
+        timelineDate.setDurationData(readString(in));
+        result.setEvent(readString(in));
+        result.setOriginalString(readString(in));
+        if (version >= 2) {
+            int beginOffset = in.getInt();
+            result.setOffsets(beginOffset, in.getInt());
+            result.setPage(in.getInt());
+        }
+        if (version >= 3) {
+            result.setParseTree(readString(in));
+        }
+        int subjectCount = in.getInt();
+        for (int i = 0; i < subjectCount; i++) {
+            result.addSubject(readString(in));
+        }
+        int dateCount = in.getInt();
+        for (int i = 0; i < dateCount; i++) {
+            result.addDate(readString(in));
+        }
+        if (version >= 4) {
+            int mergedCount = readCount(in);
+            if (mergedCount > 0) {
+                List<Result> mergedResults = new ArrayList<>(mergedCount);
+                for (int i = 0; i < mergedCount; i++) {
+                    mergedResults.add(readResult(in, version, fileDatas));
+                }
+                result.setMergedResults(mergedResults);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write the given Range and its children (recursive).
+     *
+     * @param out           the stream to write to.
+     * @param range         the given Range.
+     * @param resultIndexes the index of each Result written.
+     * @throws IOException if the stream could not be written to.
+     */
+    private static void writeRange(DataOutputStream out, Range range, Map<Result, Integer> resultIndexes) throws IOException {
+        writeDate(out, range.getDate1());
+        writeDate(out, range.getDate2());
+        List<Integer> indexes = new ArrayList<>(range.getResults().size());
+        for (Result result : range.getResults()) {
+            Integer index = resultIndexes.get(result);
+            if (index != null) {//a Range can only point to Results that are saved
+                indexes.add(index);
+            }
+        }
+        out.writeInt(indexes.size());
+        for (int index : indexes) {
+            out.writeInt(index);
+        }
+        out.writeInt(range.getChildren().size());
+        for (Range child : range.getChildren()) {
+            writeRange(out, child, resultIndexes);
+        }
+    }
+
+    /**
+     * Read a Range and its children (recursive).
+     *
+     * @param in      the buffer to read from.
+     * @param results the Results already read, which the Range points to by index.
+     * @return the Range read.
+     */
+    private static Range readRange(ByteBuffer in, List<Result> results) {
+        Range range = new Range(readDate(in), readDate(in));
+        int resultCount = in.getInt();
+        for (int i = 0; i < resultCount; i++) {
+            range.getResults().add(results.get(in.getInt()));
+        }
+        int childCount = in.getInt();
+        for (int i = 0; i < childCount; i++) {
+            range.getChildren().add(readRange(in, results));
+        }
+        return range;
+    }
+
+    /**
+     * Read the number of items that follow, checking it against the bytes left (each item takes at least one byte), so
+     * that a corrupt count does not allocate a List larger than the file.
+     *
+     * @param in the buffer to read from.
+     * @return the number of items.
+     */
+    private static int readCount(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    /**
+     * Write the given String as its length in bytes followed by its UTF-8 bytes.
+     *
+     * @param out    the stream to write to.
+     * @param string the given String (can be null).
+     * @throws IOException if the stream could not be written to.
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read a String written by writeString.
+     *
+     * @param in the buffer to read from.
+     * @return the String read, or null if a null String was written.
+     */
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {//a corrupt or truncated file, rather than a String that large
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write the given Date as its time in ms.
+     *
+     * @param out  the stream to write to.
+     * @param date the given Date (can be null).
+     * @throws IOException if the stream could not be written to.
+     */
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeLong((date != null) ? date.getTime() : NO_DATE);
+    }
+
+    /**
+     * Read a Date written by writeDate.
+     *
+     * @param in the buffer to read from.
+     * @return the Date read, or null if a null Date was written.
+     */
+    private static Date readDate(ByteBuffer in) {
+        long time = in.getLong();
+        return (time != NO_DATE) ? new Date(time) : null;
+    }
+}
@@ -1,34 +1,250 @@
 package backend.helpers;
 
 import backend.process.Result;
+import backend.process.SortKey;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 /**
  * Class that holds the sorting methods used throughout the project.
+ * <p>
+ * Results are sorted by the SortKey of their TimelineDate, which is only worked out again when their dates change,
+ * and is taken once from each Result before sorting, so the sort only compares primitive values. Results with the same
+ * key keep their order (the sorts are stable).
  */
 public class Sort {
+    private final static int PARALLEL_THRESHOLD = 1 << 13;//lists at least this long are sorted on all the cores
+
+    /**
+     * A Result with the key it is sorted by.
+     */
+    private static class KeyedResult implements Comparable<KeyedResult> {
+        private final long key;
+        private final Result result;
+
+        /**
+         * Create a KeyedResult for the given Result, with the time of its date1 as its key.
+         *
+         * @param result the given Result.
+         */
+        KeyedResult(Result result) {
+            this.key = getKey(result);
+            this.result = result;
+        }
+
+        /**
+         * Compare the keys of this and the other KeyedResult.
+         *
+         * @param o the other KeyedResult.
+         * @return a negative number, zero or a positive number as the key of this is less than, equal to or greater
+         * than that of the other.
+         */
+        @Override
+        public int compareTo(KeyedResult o) {
+            return Long.compare(key, o.key);
+        }
+    }
+
+    /**
+     * A Result with the SortKey of its dates.
+     */
+    private static class RangeKeyedResult implements Comparable<RangeKeyedResult> {
+        private final SortKey sortKey;
+        private final Result result;
+
+        /**
+         * Create a RangeKeyedResult for the given Result.
+         *
+         * @param result the given Result.
+         */
+        RangeKeyedResult(Result result) {
+            this.sortKey = result.getTimelineDate().getSortKey();
+            this.result = result;
+        }
+
+        /**
+         * Compare the SortKeys of this and the other RangeKeyedResult.
+         *
+         * @param o the other RangeKeyedResult.
+         * @return a negative number, zero or a positive number as the SortKey of this is less than, equal to or greater
+         * than that of the other.
+         */
+        @Override
+        public int compareTo(RangeKeyedResult o) {
+            return sortKey.compareTo(o.sortKey);
+        }
+    }
+
     /**
-     * Sort the given List by their Date1 (in their TimelineDate)
+     * The position reached in one of the sorted Lists being merged.
+     */
+    private static class Run implements Comparable<Run> {
+        private final List<Result> results;
+        private final int order;//the position of the List, so Results with the same key keep the order of their Lists
+        private int index;
+        private long key;//of the Result at index
+
+        /**
+         * Create a Run at the start of the given sorted List.
+         *
+         * @param results the given List (not empty).
+         * @param order   the position of the List in the Lists being merged.
+         */
+        Run(List<Result> results, int order) {
+            this.results = results;
+            this.order = order;
+            this.key = getKey(results.get(0));
+        }
+
+        /**
+         * Take the Result at the position reached, and move to the next.
+         *
+         * @return the Result taken.
+         */
+        Result next() {
+            Result result = results.get(index++);
+            if (index < results.size()) {
+                key = getKey(results.get(index));
+            }
+            return result;
+        }
+
+        /**
+         * @return whether there are Results left to take.
+         */
+        boolean hasNext() {
+            return index < results.size();
+        }
+
+        /**
+         * Compare the keys of the Results at the positions reached by this and the other Run.
+         *
+         * @param o the other Run.
+         * @return a negative number, zero or a positive number as the key of this is less than, equal to or greater
+         * than that of the other (by their order if they are equal).
+         */
+        @Override
+        public int compareTo(Run o) {
+            int comparison = Long.compare(key, o.key);
+            return (comparison != 0) ? comparison : Integer.compare(order, o.order);
+        }
+    }
+
+    /**
+     * Sort the given List by their Date1 (in their TimelineDate). Results with the same date1 keep their order. Lists
+     * of at least PARALLEL_THRESHOLD Results are sorted in parallel.
      *
      * @param resultList the given List.
      * @return the given List sorted in ascending order.
      */
     public static List<Result> sortByDate1(List<Result> resultList) {
-        Collections.sort(resultList, new Comparator<Result>() {//will sort in ascending order
-            @Override
-            public int compare(Result o1, Result o2) {
-                if (o1.getTimelineDate().getDate1() != null && o2.getTimelineDate().getDate1() != null) {
-                    return o1.getTimelineDate().getDate1().compareTo(o2.getTimelineDate().getDate1());
-                }
-                if (o1.getTimelineDate().getDate1() == null) {
-                    return -1;
-                }
-                return 1;
+        int size = resultList.size();
+        KeyedResult[] keyedResults = new KeyedResult[size];
+        boolean sorted = true;
+        for (int i = 0; i < size; i++) {
+            keyedResults[i] = new KeyedResult(resultList.get(i));
+            if (i > 0 && keyedResults[i].key < keyedResults[i - 1].key) {
+                sorted = false;
+            }
+        }
+        if (sorted) {//i.e. the Results of ProcessFiles, which are merged in order
+            return resultList;
+        }
+        if (size >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(keyedResults);
+        } else {
+            Arrays.sort(keyedResults);
+        }
+        for (int i = 0; i < size; i++) {
+            resultList.set(i, keyedResults[i].result);
+        }
+        return resultList;
+    }
+
+    /**
+     * Sort the given List by their Date1 (in their TimelineDate) in descending order, as the Timeline shows them. A
+     * List already in that order (i.e. shown before) is only checked.
+     *
+     * @param resultList the given List.
+     * @return the given List sorted in descending order.
+     */
+    public static List<Result> sortByDate1Descending(List<Result> resultList) {
+        for (int i = 1; i < resultList.size(); i++) {
+            if (getKey(resultList.get(i)) > getKey(resultList.get(i - 1))) {
+                sortByDate1(resultList);
+                Collections.reverse(resultList);
+                break;
             }
-        });
+        }
+        return resultList;
+    }
+
+    /**
+     * Sort the given List by the size of the range of their dates, then their date1, then their date2 (their SortKey).
+     * Lists of at least PARALLEL_THRESHOLD Results are sorted in parallel.
+     *
+     * @param resultList the given List.
+     * @return the given List sorted in ascending order.
+     */
+    public static List<Result> sortByRange(List<Result> resultList) {
+        int size = resultList.size();
+        RangeKeyedResult[] keyedResults = new RangeKeyedResult[size];
+        for (int i = 0; i < size; i++) {
+            keyedResults[i] = new RangeKeyedResult(resultList.get(i));
+        }
+        if (size >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(keyedResults);
+        } else {
+            Arrays.sort(keyedResults);
+        }
+        for (int i = 0; i < size; i++) {
+            resultList.set(i, keyedResults[i].result);
+        }
         return resultList;
     }
+
+    /**
+     * Merge the given Lists, each already sorted by their Date1, into one List sorted by their Date1 (a k-way merge,
+     * that only compares the next Result of each List). Results with the same date1 are in the order of their Lists.
+     *
+     * @param sortedLists the given sorted Lists (they are not changed).
+     * @return a new List with the Results of all the given Lists, in ascending order.
+     */
+    public static List<Result> mergeByDate1(List<? extends List<Result>> sortedLists) {
+        int size = 0;
+        PriorityQueue<Run> runs = new PriorityQueue<>(Math.max(1, sortedLists.size()));
+        for (List<Result> sortedList : sortedLists) {
+            if (!sortedList.isEmpty()) {
+                runs.add(new Run(sortedList, runs.size()));
+                size += sortedList.size();
+            }
+        }
+        List<Result> merged = new ArrayList<>(size);
+        if (runs.size() == 1) {//nothing to merge
+            merged.addAll(runs.peek().results);
+            return merged;
+        }
+        while (!runs.isEmpty()) {
+            Run run = runs.poll();
+            merged.add(run.next());
+            if (run.hasNext()) {
+                runs.add(run);//with the key of its next Result
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Get the key the given Result is sorted by.
+     *
+     * @param result the given Result.
+     * @return the time of its date1 in ms, or SortKey.NO_DATE (less than any other) if it does not have one.
+     */
+    private static long getKey(Result result) {
+        return result.getTimelineDate().getSortKey().getDate1();
+    }
 }
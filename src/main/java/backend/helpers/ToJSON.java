@@ -2,63 +2,259 @@ package backend.helpers;
 
 import backend.process.FileData;
 import backend.process.Result;
-import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Class used to turn a list of Results into a JSON String.
+ * Class used to turn a list of Results into JSON. The JSON is written as a stream (one Result at a time), so a Timeline
+ * can be exported to a File without holding its whole JSON in memory.
  */
 public class ToJSON {
+    private final static int BUFFER_SIZE = 1 << 16;//bytes/chars held before they are written out
+
+    /**
+     * The formats the list of Results can be written in.
+     */
+    public enum Format {
+        /**
+         * One JSON array, where each index corresponds to one Result.
+         */
+        JSON,
+        /**
+         * Newline delimited JSON, where each line is the JSON object of one Result.
+         */
+        NDJSON
+    }
+
     /**
      * For the given List of Result objects, produce a JSON String of an array, where each index corresponds to one Result
      * in the list. Each Result is given by its range (date1, date2), its subjects (array of subjects), its event, and its
-     * FileData (the filename, and base date used for processing the file), represented as a JsonObject from.
+     * FileData (the filename, and base date used for processing the file), represented as a JsonObject from. If the
+     * Result was merged from the Results of several files (see EventClusterer), the other files are given the same way
+     * in an array alsoFrom.
      * <p>
      * Whenever a value of data in a Result object is null, its corresponding key-pair will not be included in the final
      * JSON string. Such that, a completely empty Result object would be represented by: {subjects:[], event:"", from:{}}.
+     * <p>
+     * The given List is not modified (the Results are written sorted by date1, in ascending order).
      *
      * @param results the given List of Result objects.
      * @return the JSON String representing the list of Result objects.
      */
     public static String toJSON(List<Result> results) {
-        //sort the list in ascending order
-        List<Result> sortedList = Sort.sortByDate1(results);
-        String toReturn;
-        final GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.excludeFieldsWithoutExposeAnnotation();
-        gsonBuilder.registerTypeAdapter(Result.class, new JsonSerializer<Result>() {
+        StringWriter stringWriter = new StringWriter();
+        try {
+            write(results, stringWriter, Format.JSON);
+        } catch (IOException e) {//a StringWriter does not throw IOExceptions
+            throw new UncheckedIOException(e);
+        }
+        return stringWriter.toString();
+    }
+
+    /**
+     * Write the given List of Results to the given File. The format is picked from the name of the File: ".ndjson" for
+     * newline delimited JSON (JSON otherwise), and if it ends with ".gz" the output is compressed with gzip (i.e.
+     * "timeline.ndjson.gz").
+     *
+     * @param results the given List of Result objects.
+     * @param file    the File to write to.
+     * @throws IOException if the File could not be written.
+     */
+    public static void write(List<Result> results, File file) throws IOException {
+        write(results, file, null);
+    }
+
+    /**
+     * Write the given List of Results to the given File (the format is picked from the name of the File, see
+     * write(List, File)), informing the given ExportListener as each Result is written.
+     *
+     * @param results  the given List of Result objects.
+     * @param file     the File to write to.
+     * @param listener the ExportListener to inform of the progress, or null.
+     * @throws IOException           if the File could not be written.
+     * @throws CancellationException if the ExportListener cancelled the export.
+     */
+    public static void write(List<Result> results, File file, ExportListener listener) throws IOException {
+        String name = file.getName().toLowerCase();
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - ".gz".length());
+        }
+        Format format = name.endsWith(".ndjson") ? Format.NDJSON : Format.JSON;
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            write(results, outputStream, format, gzip, listener);
+        }
+    }
+
+    /**
+     * Write the given List of Results to the given OutputStream (in UTF-8). The OutputStream is not closed.
+     *
+     * @param results      the given List of Result objects.
+     * @param outputStream the OutputStream to write to.
+     * @param format       the Format to write the Results in.
+     * @param gzip         whether or not to compress the output with gzip.
+     * @throws IOException if the OutputStream could not be written to.
+     */
+    public static void write(List<Result> results, OutputStream outputStream, Format format, boolean gzip) throws IOException {
+        write(results, outputStream, format, gzip, null);
+    }
+
+    /**
+     * Write the given List of Results to the given OutputStream (in UTF-8), informing the given ExportListener as each
+     * Result is written. The OutputStream is not closed.
+     *
+     * @param results      the given List of Result objects.
+     * @param outputStream the OutputStream to write to.
+     * @param format       the Format to write the Results in.
+     * @param gzip         whether or not to compress the output with gzip.
+     * @param listener     the ExportListener to inform of the progress, or null.
+     * @throws IOException           if the OutputStream could not be written to.
+     * @throws CancellationException if the ExportListener cancelled the export.
+     */
+    public static void write(List<Result> results, OutputStream outputStream, Format format, boolean gzip, ExportListener listener) throws IOException {
+        OutputStream out = new FilterOutputStream(outputStream) {//so closing the writers does not close the given stream
             @Override
-            public JsonElement serialize(Result src, Type typeOfSrc, JsonSerializationContext context) {
-                JsonObject jsonObject = new JsonObject();
-                //adding the range dates (which can be null)
-                //whenever a value is null, the key-pair will not be included in the final JSON
-                jsonObject.addProperty("date1", src.getTimelineDate().getDate1FormattedDayMonthYear());
-                jsonObject.addProperty("date2", src.getTimelineDate().getDate2FormattedDayMonthYear());
-                //adding the subjects
-                JsonArray subjectJsonArray = new JsonArray();
-                for (String subject : src.getSubjects()) {
-                    subjectJsonArray.add(subject);
-                }
-                jsonObject.add("subjects", subjectJsonArray);
-                //adding the event
-                jsonObject.addProperty("event", src.getEvent());
-                //adding the file data (excluding the path, since this can be used on other system where files are elsewhere)
-                JsonObject fromJsonObject = new JsonObject();
-                FileData fileData = src.getFileData();
-                if (fileData != null) {
-                    fromJsonObject.addProperty("filename", fileData.getFileName());
-                    fromJsonObject.addProperty("baseDate", fileData.getCreationDateFormattedDayMonthYear());
-                }
-                jsonObject.add("from", fromJsonObject);
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+            }
 
-                return jsonObject;
+            @Override
+            public void close() throws IOException {
+                flush();
             }
-        });
-        //gsonBuilder.setPrettyPrinting();
-        final Gson gson = gsonBuilder.create();
-        toReturn = gson.toJson(sortedList);
-        return toReturn;
+        };
+        if (gzip) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            write(results, writer, format, listener);
+        }//closing finishes the gzip stream, and flushes what is left in the buffers
+    }
+
+    /**
+     * Write the given List of Results to the given Writer, in the given Format. The Writer is flushed but not closed.
+     *
+     * @param results the given List of Result objects.
+     * @param writer  the Writer to write to.
+     * @param format  the Format to write the Results in.
+     * @throws IOException if the Writer could not be written to.
+     */
+    public static void write(List<Result> results, Writer writer, Format format) throws IOException {
+        write(results, writer, format, null);
+    }
+
+    /**
+     * Write the given List of Results to the given Writer, in the given Format, informing the given ExportListener as
+     * each Result is written. The Writer is flushed but not closed.
+     *
+     * @param results  the given List of Result objects.
+     * @param writer   the Writer to write to.
+     * @param format   the Format to write the Results in.
+     * @param listener the ExportListener to inform of the progress, or null.
+     * @throws IOException           if the Writer could not be written to.
+     * @throws CancellationException if the ExportListener cancelled the export.
+     */
+    public static void write(List<Result> results, Writer writer, Format format, ExportListener listener) throws IOException {
+        //sort a copy in ascending order, so the order of the caller's list is kept
+        List<Result> sortedList = Sort.sortByDate1(new ArrayList<>(results));
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setHtmlSafe(true);//escape the same characters as Gson.toJson does
+        if (format == Format.NDJSON) {
+            jsonWriter.setLenient(true);//allows one top-level value per line
+            for (int i = 0; i < sortedList.size(); i++) {
+                writeResult(jsonWriter, sortedList.get(i));
+                writer.write('\n');
+                informListener(listener, i + 1, sortedList.size());
+            }
+        } else {
+            jsonWriter.beginArray();
+            for (int i = 0; i < sortedList.size(); i++) {
+                writeResult(jsonWriter, sortedList.get(i));
+                informListener(listener, i + 1, sortedList.size());
+            }
+            jsonWriter.endArray();
+        }
+        jsonWriter.flush();
+    }
+
+    /**
+     * Inform the given ExportListener (if any) that another Result has been written, and stop if it cancelled the
+     * export.
+     *
+     * @param listener the given ExportListener, or null.
+     * @param written  the number of Results written so far.
+     * @param total    the number of Results being written.
+     * @throws CancellationException if the ExportListener cancelled the export.
+     */
+    private static void informListener(ExportListener listener, int written, int total) {
+        if (listener != null) {
+            listener.written(written, total);
+            if (listener.isCancelled()) {
+                throw new CancellationException("Export to JSON cancelled");
+            }
+        }
+    }
+
+    /**
+     * Write the JSON object of the given Result. Whenever a value is null, its key-pair is not written.
+     *
+     * @param jsonWriter the JsonWriter to write to.
+     * @param result     the given Result.
+     * @throws IOException if the JsonWriter could not be written to.
+     */
+    private static void writeResult(JsonWriter jsonWriter, Result result) throws IOException {
+        jsonWriter.beginObject();
+        //adding the range dates (which can be null)
+        writeProperty(jsonWriter, "date1", result.getTimelineDate().getDate1FormattedDayMonthYear());
+        writeProperty(jsonWriter, "date2", result.getTimelineDate().getDate2FormattedDayMonthYear());
+        //adding the subjects
+        jsonWriter.name("subjects").beginArray();
+        for (String subject : result.getSubjects()) {
+            jsonWriter.value(subject);
+        }
+        jsonWriter.endArray();
+        //adding the event
+        writeProperty(jsonWriter, "event", result.getEvent());
+        //adding the file data (excluding the path, since this can be used on other system where files are elsewhere)
+        jsonWriter.name("from").beginObject();
+        FileData fileData = result.getFileData();
+        if (fileData != null) {
+            writeProperty(jsonWriter, "filename", fileData.getFileName());
+            writeProperty(jsonWriter, "baseDate", fileData.getCreationDateFormattedDayMonthYear());
+        }
+        jsonWriter.endObject();
+        //adding the other files the event was found in, if it was merged from Results of several files
+        List<FileData> sources = result.getSources();
+        if (fileData != null && sources.size() > 1) {
+            jsonWriter.name("alsoFrom").beginArray();
+            for (FileData source : sources.subList(1, sources.size())) {
+                jsonWriter.beginObject();
+                writeProperty(jsonWriter, "filename", source.getFileName());
+                writeProperty(jsonWriter, "baseDate", source.getCreationDateFormattedDayMonthYear());
+                jsonWriter.endObject();
+            }
+            jsonWriter.endArray();
+        }
+        jsonWriter.endObject();
+    }
+
+    /**
+     * Write the given key-pair, unless the value is null.
+     *
+     * @param jsonWriter the JsonWriter to write to.
+     * @param name       the key.
+     * @param value      the value (can be null).
+     * @throws IOException if the JsonWriter could not be written to.
+     */
+    private static void writeProperty(JsonWriter jsonWriter, String name, String value) throws IOException {
+        if (value != null) {
+            jsonWriter.name(name).value(value);
+        }
     }
 }
@@ -1,28 +1,80 @@
 package backend.helpers;
 
+import backend.process.FileData;
 import backend.process.Result;
+import backend.ranges.ProduceRanges;
+import backend.ranges.Range;
 import org.apache.commons.lang3.text.WordUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
- * Class used to represent a list of Results in a PDF.
+ * Class used to represent a list of Results in a PDF. The Results can be drawn in one of the Layouts:
+ * <ul>
+ * <li>TIMELINE: the Results drawn in boxes either side of a vertical line (like on the Application but without the
+ * buttons), five per page,</li>
+ * <li>COMPACT: the Results written as text in columns, to fit many Results per page,</li>
+ * <li>RANGE_TREE: the Results grouped by the Ranges produced by ProduceRanges, with the sub-ranges of a Range indented
+ * under it.</li>
+ * </ul>
+ * The content of the pages is kept in a temporary file (not in memory) while the PDF is produced, and each page's content
+ * stream is closed as soon as the page is full, so large timelines can be saved without running out of memory.
  */
 public class ToPDF {
+    /**
+     * The different ways the Results can be drawn in the PDF.
+     */
+    public enum Layout {
+        TIMELINE("Timeline"),
+        COMPACT("Compact (two columns)"),
+        RANGE_TREE("Range tree");
+
+        private final String name;
+
+        Layout(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the name of the Layout to show to the user.
+         */
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
     private static int widthOfRectangle = 275;
     private static int heightOfRectangle = 150;
     private static int strokeWidthOfLine = 2;
     private static int padding = 7;
     private static int fontSize = 15;
     private static int maxNoOfCharacters = 40;//max number of characters per line in the event box
+    private static float textFontSize = 9;//font size for the text layouts (COMPACT and RANGE_TREE)
+    private static float textLeading = 11;//space between lines in the text layouts
+    private static float margin = 36;
+    private static float columnGap = 18;
+    private static float indentWidth = 14;//indent of each level of sub-ranges
+    private static int maxIndentLevel = 10;//deeper sub-ranges are not indented further (would run off the page)
+    private static int compactColumns = 2;
+    private final Layout layout;
+    private final PDFont font = PDType1Font.TIMES_ROMAN;//standard fonts, so the same font resource is used by every page
+    private final PDFont boldFont = PDType1Font.TIMES_BOLD;
+    private final BitSet checkedCharacters = new BitSet();//characters already checked against the font encoding
+    private final BitSet encodableCharacters = new BitSet();//characters that the fonts can show
     private int currentX = 0;
     private int currentY = 0;
     private float widthOfPage;
@@ -30,58 +82,118 @@ public class ToPDF {
     private PDDocument pdDocument;
     private PDPage currentPage;
     private PDPageContentStream contentStream;
+    private int noOfColumns;//columns of the text layouts
+    private int currentColumn;
+    private float columnWidth;
+    private float textY;//y of the next line in the text layouts
+    private ExportListener listener;
+    private int noOfPages;
+    private int written;
+    private int total;
 
     /**
-     * Constructor called to prepare for the creation of the PDF.
+     * Constructor called to prepare for the creation of a PDF with the TIMELINE Layout.
      */
     public ToPDF() {
-        pdDocument = new PDDocument();
+        this(Layout.TIMELINE);
+    }
+
+    /**
+     * Constructor called to prepare for the creation of a PDF with the given Layout.
+     *
+     * @param layout the Layout to draw the Results with.
+     */
+    public ToPDF(Layout layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * For the given Results, produce a PDF File that has all the given Results displayed in the Layout of this ToPDF.
+     * The given List is not modified (the Results are drawn sorted by date1, in ascending order).
+     *
+     * @param results the list of given Results.
+     * @param file    the File where we are storing the timeline.
+     * @throws IOException due to working with streams.(I.e. trying to read or remove a file that is already open).
+     */
+    public void saveToPDF(List<Result> results, File file) throws IOException {
+        saveToPDF(results, file, null);
+    }
+
+    /**
+     * For the given Results, produce a PDF File that has all the given Results displayed in the Layout of this ToPDF,
+     * informing the given ExportListener as each Result is drawn and each page is started.
+     *
+     * @param results  the list of given Results.
+     * @param file     the File where we are storing the timeline.
+     * @param listener the ExportListener to inform of the progress, or null.
+     * @throws IOException           due to working with streams.(I.e. trying to read or remove a file that is already open).
+     * @throws CancellationException if the ExportListener cancelled the export.
+     */
+    public void saveToPDF(List<Result> results, File file, ExportListener listener) throws IOException {
+        this.listener = listener;
+        noOfPages = 0;
+        written = 0;
+        total = results.size();
+        List<Result> sortedList = Sort.sortByDate1(new ArrayList<>(results));//sort a copy in ascending order
+        pdDocument = new PDDocument(MemoryUsageSetting.setupTempFileOnly());//page content is buffered on disk
         try {
-            reset();
-        } catch (IOException e) {
-            e.printStackTrace();
+            switch (layout) {
+                case COMPACT:
+                    drawCompact(sortedList);
+                    break;
+                case RANGE_TREE:
+                    drawRangeTree(sortedList);
+                    break;
+                default:
+                    drawTimeline(sortedList);
+            }
+            closeContentStream();
+            pdDocument.save(file);
+        } finally {
+            pdDocument.close();//also removes the temporary file
+            pdDocument = null;
+            contentStream = null;
         }
     }
 
     /**
-     * Will set all the global variables, and close any open streams.
+     * Start a new page in the PDF, closing the content stream of the previous page (so its content is written out).
      *
-     * @throws IOException when closing a stream that could be open or closed.
+     * @throws IOException when closing or opening a content stream.
      */
-    private void reset() throws IOException {
+    private void newPage() throws IOException {
+        closeContentStream();
         currentPage = new PDPage(PDRectangle.A4);
         pdDocument.addPage(currentPage);
-        if (contentStream != null) {
-            contentStream.close();
-            contentStream = null;
+        noOfPages++;
+        if (listener != null) {
+            listener.pageStarted(noOfPages);
         }
         contentStream = new PDPageContentStream(pdDocument, currentPage);
-        contentStream.setStrokingColor(Color.black);
-        contentStream.setLineWidth(strokeWidthOfLine);
-
         widthOfPage = currentPage.getMediaBox().getWidth();
         heightOfPage = currentPage.getMediaBox().getHeight();
-
-        currentX = 0;
-        currentY = (int) heightOfPage;
-
-        contentStream.moveTo(widthOfPage / 2, heightOfPage);
-        contentStream.lineTo(widthOfPage / 2, 0);
-        contentStream.stroke();
     }
 
-
     /**
-     * For the given Results, produce a PDF File that has all the given Results displayed in a timeline (like on the
-     * Application but without the buttons).
+     * Close the content stream of the current page, if there is one open.
      *
-     * @param results the list of given Results.
-     * @param file    the File where we are storing the timeline.
-     * @throws IOException due to working with streams.(I.e. trying to read or remove a file that is already open).
+     * @throws IOException when closing the stream.
      */
-    public void saveToPDF(List<Result> results, File file) throws IOException {
-        List<Result> sortedList = Sort.sortByDate1(results);//sort the list in ascending order
+    private void closeContentStream() throws IOException {
+        if (contentStream != null) {
+            contentStream.close();
+            contentStream = null;
+        }
+    }
 
+    /**
+     * Draw the given Results with the TIMELINE Layout.
+     *
+     * @param sortedList the Results sorted by date1.
+     * @throws IOException due to writing to streams.
+     */
+    private void drawTimeline(List<Result> sortedList) throws IOException {
+        reset();
         int counterOfEvents = 0;
         for (int i = 0; i < sortedList.size(); i++) {
             if (counterOfEvents >= 5) {//start a new page
@@ -94,12 +206,27 @@ public class ToPDF {
                 drawOddEvent(sortedList.get(i), contentStream, i);
             }
             counterOfEvents++;
+            resultWritten();
         }
-        if (contentStream != null) {
-            contentStream.close();
-        }
-        pdDocument.save(file);
-        pdDocument.close();
+    }
+
+    /**
+     * Start a new page of the TIMELINE Layout, with the vertical line of the timeline drawn.
+     *
+     * @throws IOException when closing a stream that could be open or closed.
+     */
+    private void reset() throws IOException {
+        newPage();
+        contentStream.setStrokingColor(Color.black);
+        contentStream.setLineWidth(strokeWidthOfLine);
+        contentStream.setFont(font, fontSize);
+
+        currentX = 0;
+        currentY = (int) heightOfPage;
+
+        contentStream.moveTo(widthOfPage / 2, heightOfPage);
+        contentStream.lineTo(widthOfPage / 2, 0);
+        contentStream.stroke();
     }
 
     /**
@@ -162,7 +289,7 @@ public class ToPDF {
 
     /**
      * For the given Result and stream, write at the current x and y position (in new lines) the data held by the
-     * Result object.
+     * Result object. The font is set once per page (in reset).
      *
      * @param result        the given Result.
      * @param contentStream the stream we are drawing to.
@@ -173,7 +300,6 @@ public class ToPDF {
     private void writeText(Result result, PDPageContentStream contentStream, int xOffset, int position) throws IOException {
         contentStream.beginText();
         contentStream.newLineAtOffset(2 * padding + xOffset, currentY - (fontSize + padding));//pad it horizontally and give vertical space for text
-        contentStream.setFont(PDType1Font.TIMES_ROMAN, fontSize);
         contentStream.showText("Event #" + (position + 1));//show the position of the event (1st being the latest event)
         contentStream.newLineAtOffset(0, -(fontSize + padding));
         wrapText("Date: " + result.getTimelineDate(), contentStream);
@@ -182,8 +308,7 @@ public class ToPDF {
         contentStream.newLineAtOffset(0, -(fontSize + padding));
         wrapText("Event: " + result.getEvent(), contentStream);
         contentStream.newLineAtOffset(0, -(fontSize + padding));
-        wrapText("From: " + result.getFileData().getFileName() + " (" +
-                result.getFileData().getCreationDateFormattedDayMonthYear() + ")", contentStream);
+        wrapText("From: " + getFrom(result), contentStream);
         contentStream.endText();
     }
 
@@ -197,6 +322,7 @@ public class ToPDF {
      * @throws IOException due to writing to streams.
      */
     private void wrapText(String text, PDPageContentStream contentStream) throws IOException {
+        text = toShowable(text);
         if (text.length() > maxNoOfCharacters) {//we have text worth wrapping
             String[] wrappedText = WordUtils.wrap(text, maxNoOfCharacters).split("\\r?\\n");
             for (int i = 0; i < wrappedText.length; i++) {
@@ -224,5 +350,271 @@ public class ToPDF {
         contentStream.stroke();
     }
 
+    /**
+     * Draw the given Results with the COMPACT Layout: each Result is a block of text (its date and subjects, its event
+     * and the file it is from), written in columns.
+     *
+     * @param sortedList the Results sorted by date1.
+     * @throws IOException due to writing to streams.
+     */
+    private void drawCompact(List<Result> sortedList) throws IOException {
+        startTextPage(compactColumns);
+        for (Result result : sortedList) {
+            List<Line> block = new ArrayList<>();
+            addLines(block, result.getTimelineDate() + "  " + result.getSubjectsAsString(), boldFont, 0);
+            addLines(block, result.getEvent(), font, indentWidth);
+            addLines(block, "From: " + getFrom(result), font, indentWidth);
+            writeBlock(block);
+            resultWritten();
+        }
+    }
+
+    /**
+     * Draw the given Results with the RANGE_TREE Layout: the Range forest of the Results is produced (see
+     * ProduceRanges), and each Range is written with its Results, followed by its sub-ranges indented under it.
+     *
+     * @param sortedList the Results sorted by date1 (this List is re-ordered when producing the Ranges).
+     * @throws IOException due to writing to streams.
+     */
+    private void drawRangeTree(List<Result> sortedList) throws IOException {
+        ProduceRanges produceRanges = new ProduceRanges();
+        produceRanges.produceRanges(sortedList);
+        startTextPage(1);
+        for (Range tree : produceRanges.getTrees()) {
+            drawRange(tree, 0);
+        }
+    }
+
+    /**
+     * Write the given Range, its Results and its children (recursive, each level indented further).
+     *
+     * @param range the given Range.
+     * @param depth how deep the Range is in its tree (0 for a root).
+     * @throws IOException due to writing to streams.
+     */
+    private void drawRange(Range range, int depth) throws IOException {
+        float indent = Math.min(depth, maxIndentLevel) * indentWidth;
+        List<Line> heading = new ArrayList<>();
+        addLines(heading, range.getDateRange(), boldFont, indent);
+        writeBlock(heading);
+        for (Result result : range.getResults()) {
+            List<Line> block = new ArrayList<>();
+            String subjects = result.getSubjectsAsString();
+            addLines(block, "- " + result.getEvent() + (subjects.isEmpty() ? "" : " (" + subjects + ")"), font, indent + indentWidth);
+            writeBlock(block);
+            resultWritten();
+        }
+        for (Range child : range.getChildren()) {
+            drawRange(child, depth + 1);
+        }
+    }
 
+    /**
+     * Called after each Result is drawn, to inform the ExportListener (if any), and stop if it cancelled the export.
+     *
+     * @throws CancellationException if the ExportListener cancelled the export.
+     */
+    private void resultWritten() {
+        written++;
+        if (listener != null) {
+            listener.written(written, total);
+            if (listener.isCancelled()) {
+                throw new CancellationException("Export to PDF cancelled");
+            }
+        }
+    }
+
+    /**
+     * Start a new page for the text Layouts, with the given number of columns.
+     *
+     * @param noOfColumns the number of columns to write the text in.
+     * @throws IOException when closing or opening a content stream.
+     */
+    private void startTextPage(int noOfColumns) throws IOException {
+        newPage();
+        this.noOfColumns = noOfColumns;
+        columnWidth = (widthOfPage - 2 * margin - (noOfColumns - 1) * columnGap) / noOfColumns;
+        currentColumn = 0;
+        textY = heightOfPage - margin;
+    }
+
+    /**
+     * Write the given block of lines in the current column, moving to the next column (or page) first if the block does
+     * not fit in what is left of the current one. A block is only split if it is taller than a whole column.
+     *
+     * @param block the lines to write.
+     * @throws IOException due to writing to streams.
+     */
+    private void writeBlock(List<Line> block) throws IOException {
+        float blockHeight = block.size() * textLeading;
+        if (textY - blockHeight < margin && textY < heightOfPage - margin) {//doesnt fit, and the column is not empty
+            nextColumn();
+        }
+        for (Line line : block) {
+            if (textY - textLeading < margin) {
+                nextColumn();
+            }
+            textY -= textLeading;
+            float x = margin + currentColumn * (columnWidth + columnGap) + line.indent;
+            contentStream.beginText();
+            contentStream.setFont(line.font, textFontSize);
+            contentStream.newLineAtOffset(x, textY);
+            contentStream.showText(line.text);
+            contentStream.endText();
+        }
+        textY -= textLeading / 2;//space between blocks
+    }
+
+    /**
+     * Move to the top of the next column, or to a new page if this was the last column of the page.
+     *
+     * @throws IOException when starting a new page.
+     */
+    private void nextColumn() throws IOException {
+        currentColumn++;
+        if (currentColumn >= noOfColumns) {
+            startTextPage(noOfColumns);
+        } else {
+            textY = heightOfPage - margin;
+        }
+    }
+
+    /**
+     * Wrap the given text to the width of a column (less the given indent), and add its lines to the given block.
+     *
+     * @param block  the block of lines to add to.
+     * @param text   the given text.
+     * @param font   the font the text is written in.
+     * @param indent the indent of the text in the column.
+     * @throws IOException if the width of the text could not be measured.
+     */
+    private void addLines(List<Line> block, String text, PDFont font, float indent) throws IOException {
+        float maxWidth = columnWidth - indent;
+        StringBuilder line = new StringBuilder();
+        float lineWidth = 0;
+        float spaceWidth = getWidth(" ", font);
+        for (String word : toShowable(text).split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            float wordWidth = getWidth(word, font);
+            if (line.length() > 0 && lineWidth + spaceWidth + wordWidth > maxWidth) {//start a new line
+                block.add(new Line(line.toString(), font, indent));
+                line.setLength(0);
+                lineWidth = 0;
+            }
+            while (wordWidth > maxWidth && word.length() > 1) {//a word longer than the column, split it
+                int end = word.length() - 1;
+                while (end > 1 && getWidth(word.substring(0, end), font) > maxWidth) {
+                    end--;
+                }
+                block.add(new Line(word.substring(0, end), font, indent));
+                word = word.substring(end);
+                wordWidth = getWidth(word, font);
+            }
+            if (line.length() > 0) {
+                line.append(' ');
+                lineWidth += spaceWidth;
+            }
+            line.append(word);
+            lineWidth += wordWidth;
+        }
+        if (line.length() > 0 || block.isEmpty()) {
+            block.add(new Line(line.toString(), font, indent));
+        }
+    }
+
+    /**
+     * Get the width of the given text when written with the given font, at the font size of the text Layouts.
+     *
+     * @param text the given text (only characters the font can show).
+     * @param font the given font.
+     * @return the width of the text.
+     * @throws IOException if the font could not measure the text.
+     */
+    private float getWidth(String text, PDFont font) throws IOException {
+        return font.getStringWidth(text) / 1000 * textFontSize;
+    }
+
+    /**
+     * Get the file that the given Result is from, with its base date.
+     *
+     * @param result the given Result.
+     * @return the name of the File and its base date, or an empty String if the Result has no FileData.
+     */
+    private String getFrom(Result result) {
+        FileData fileData = result.getFileData();
+        if (fileData == null) {
+            return "";
+        }
+        return fileData.getFileName() + " (" + fileData.getCreationDateFormattedDayMonthYear() + ")";
+    }
+
+    /**
+     * Replace the characters of the given text that can not be written with the fonts used (i.e. not in their encoding,
+     * or control characters such as new lines) so writing the text does not fail. Whitespace is replaced by a space, and
+     * other characters by '?'. Which characters can be written is remembered, so each character is only checked once.
+     *
+     * @param text the given text (can be null).
+     * @return the text with only characters that can be written.
+     */
+    private String toShowable(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder toReturn = null;//only created if a character needs to be replaced
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            boolean isShowable = character >= ' ' && canEncode(character);
+            if (!isShowable && toReturn == null) {
+                toReturn = new StringBuilder(text.length());
+                toReturn.append(text, 0, i);
+            }
+            if (toReturn != null) {
+                toReturn.append(isShowable ? character : (Character.isWhitespace(character) ? ' ' : '?'));
+            }
+        }
+        return (toReturn != null) ? toReturn.toString() : text;
+    }
+
+    /**
+     * Check whether the given character can be written with the fonts used (both use the same encoding).
+     *
+     * @param character the given character.
+     * @return true if the character can be written; false otherwise.
+     */
+    private boolean canEncode(char character) {
+        if (!checkedCharacters.get(character)) {
+            checkedCharacters.set(character);
+            try {
+                font.encode(String.valueOf(character));
+                encodableCharacters.set(character);
+            } catch (IllegalArgumentException | IOException e) {
+                //not in the encoding of the font, so it stays unset
+            }
+        }
+        return encodableCharacters.get(character);
+    }
+
+    /**
+     * A line of text to write in the text Layouts.
+     */
+    private static class Line {
+        private final String text;
+        private final PDFont font;
+        private final float indent;
+
+        /**
+         * Create a line of text.
+         *
+         * @param text   the text of the line (only characters the font can show).
+         * @param font   the font to write it with.
+         * @param indent the indent of the line in its column.
+         */
+        Line(String text, PDFont font, float indent) {
+            this.text = text;
+            this.font = font;
+            this.indent = indent;
+        }
+    }
 }
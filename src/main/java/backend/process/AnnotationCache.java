@@ -0,0 +1,108 @@
+package backend.process;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the DocumentAnnotations of the Files processed, so that when a File is processed again with only its base
+ * date changed, the dates of its events are resolved again (see Engine.resolveDates) instead of the whole text being
+ * annotated again. The DocumentAnnotations are kept for the Files used most recently, and are dropped if the File
+ * changes (its last modified time or size is different).
+ */
+public class AnnotationCache {
+    private final static int DEFAULT_MAX_FILES = 64;
+    private static AnnotationCache annotationCache;
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * The DocumentAnnotations of a File, and what the File was like when it was annotated.
+     */
+    private static class Entry {
+        private final DocumentAnnotations documentAnnotations;
+        private final FileFingerprint fileFingerprint;
+
+        /**
+         * Create an Entry.
+         *
+         * @param documentAnnotations the DocumentAnnotations of the File.
+         * @param file                the File (as it was when it was annotated).
+         */
+        Entry(DocumentAnnotations documentAnnotations, File file) {
+            this.documentAnnotations = documentAnnotations;
+            this.fileFingerprint = new FileFingerprint(file);
+        }
+    }
+
+    /**
+     * Create an AnnotationCache that holds the DocumentAnnotations of at most the given number of Files.
+     *
+     * @param maxFiles the max number of Files held.
+     */
+    public AnnotationCache(final int maxFiles) {
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {//ordered by last access
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxFiles;
+            }
+        };
+    }
+
+    /**
+     * Get the AnnotationCache shared by the System.
+     *
+     * @return the shared AnnotationCache.
+     */
+    public static synchronized AnnotationCache getInstance() {
+        if (annotationCache == null) {
+            annotationCache = new AnnotationCache(DEFAULT_MAX_FILES);
+        }
+        return annotationCache;
+    }
+
+    /**
+     * Get the DocumentAnnotations of the given File, if they are held and the File has not changed since.
+     *
+     * @param file the given File.
+     * @return the DocumentAnnotations of the File, or null if they are not held.
+     */
+    public synchronized DocumentAnnotations get(File file) {
+        String key = file.getAbsolutePath();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.fileFingerprint.isValidFor(file)) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.documentAnnotations;
+    }
+
+    /**
+     * Hold the DocumentAnnotations of the given File (replacing any held before). If the DocumentAnnotations of more
+     * than the max number of Files are held, those of the File used least recently are dropped.
+     *
+     * @param file                the given File.
+     * @param documentAnnotations the DocumentAnnotations of the File.
+     */
+    public synchronized void put(File file, DocumentAnnotations documentAnnotations) {
+        entries.put(file.getAbsolutePath(), new Entry(documentAnnotations, file));
+    }
+
+    /**
+     * Drop all the DocumentAnnotations held.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Get the number of Files whose DocumentAnnotations are held.
+     *
+     * @return the number of Files held.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
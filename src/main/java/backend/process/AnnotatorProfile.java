@@ -0,0 +1,66 @@
+package backend.process;
+
+/**
+ * The sets of StanfordCoreNLP annotators an Engine can run over text. The Engine only needs the named entities (for the
+ * dates and subjects) and the parse (for the events), so coreference is only run by the FULL profile.
+ * <p>
+ * The annotators are split in three: those that split the text into sentences, those run over one sentence at a time
+ * (so that the Engine can stop between sentences), and those that need the whole document (or null if there are none).
+ */
+public enum AnnotatorProfile {
+    STANDARD("tokenize,ssplit", "pos,lemma,ner,entitymentions,parse", null),
+    FULL("tokenize,ssplit", "pos,lemma,ner,entitymentions,parse", "dcoref");
+
+    private final String splitAnnotators;
+    private final String sentenceAnnotators;
+    private final String documentAnnotators;
+
+    /**
+     * Create an AnnotatorProfile.
+     *
+     * @param splitAnnotators    the annotators that split the text into sentences.
+     * @param sentenceAnnotators the annotators run over each sentence.
+     * @param documentAnnotators the annotators run over the whole document once its sentences are annotated, or null.
+     */
+    AnnotatorProfile(String splitAnnotators, String sentenceAnnotators, String documentAnnotators) {
+        this.splitAnnotators = splitAnnotators;
+        this.sentenceAnnotators = sentenceAnnotators;
+        this.documentAnnotators = documentAnnotators;
+    }
+
+    /**
+     * Get the annotators run by this profile.
+     *
+     * @return the annotators, as given to the StanfordCoreNLP "annotators" property.
+     */
+    public String getAnnotators() {
+        return splitAnnotators + "," + sentenceAnnotators + (documentAnnotators != null ? "," + documentAnnotators : "");
+    }
+
+    /**
+     * Get the annotators that split the text into sentences.
+     *
+     * @return the annotators, as given to the StanfordCoreNLP "annotators" property.
+     */
+    public String getSplitAnnotators() {
+        return splitAnnotators;
+    }
+
+    /**
+     * Get the annotators run over each sentence, once the text is split into sentences.
+     *
+     * @return the annotators, as given to the StanfordCoreNLP "annotators" property.
+     */
+    public String getSentenceAnnotators() {
+        return sentenceAnnotators;
+    }
+
+    /**
+     * Get the annotators run over the whole document, once each of its sentences is annotated.
+     *
+     * @return the annotators, as given to the StanfordCoreNLP "annotators" property, or null if there are none.
+     */
+    public String getDocumentAnnotators() {
+        return documentAnnotators;
+    }
+}
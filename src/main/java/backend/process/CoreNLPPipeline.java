@@ -0,0 +1,94 @@
+package backend.process;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.RuntimeInterruptedException;
+
+import java.util.Collections;
+import java.util.Properties;
+
+/**
+ * The StanfordCoreNLP annotators of an AnnotatorProfile, run over a document one sentence at a time, so that the Thread
+ * annotating it can be stopped (by interrupting it) between sentences. The text is first split into sentences (which
+ * is fast), then each sentence is annotated on its own (so the longest a Thread interrupted keeps going is the time to
+ * annotate one sentence, whose parse is limited by parse.maxtime), and then the annotators that need the whole document
+ * (i.e. dcoref), which can not be stopped, are run over it.
+ * <p>
+ * The parser catches an interrupt itself (and gives the sentence a flat tree), so the interrupt is checked by this
+ * class after each sentence, instead of relying on it being thrown. A CoreNLPPipeline can annotate any number of
+ * documents at the same time, in separate Threads.
+ */
+public class CoreNLPPipeline {
+    private final StanfordCoreNLP splitter;
+    private final StanfordCoreNLP sentenceAnnotator;
+    private final StanfordCoreNLP documentAnnotator;//or null, if the profile has no annotators for the whole document
+
+    /**
+     * Load the annotators of the given AnnotatorProfile, with the given properties (for all but the "annotators").
+     *
+     * @param profile    the given AnnotatorProfile.
+     * @param properties the properties of the annotators (i.e. ner.model, parse.maxlen), not changed.
+     */
+    public CoreNLPPipeline(AnnotatorProfile profile, Properties properties) {
+        splitter = new StanfordCoreNLP(withAnnotators(properties, profile.getSplitAnnotators()));
+        //the sentences are already split, so the requirements of these annotators are met without running them again
+        sentenceAnnotator = new StanfordCoreNLP(withAnnotators(properties, profile.getSentenceAnnotators()), false);
+        documentAnnotator = (profile.getDocumentAnnotators() != null) ?
+                new StanfordCoreNLP(withAnnotators(properties, profile.getDocumentAnnotators()), false) : null;
+    }
+
+    /**
+     * Get a copy of the given properties, with the given annotators.
+     *
+     * @param properties the given properties.
+     * @param annotators the given annotators.
+     * @return the copy.
+     */
+    private static Properties withAnnotators(Properties properties, String annotators) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        copy.setProperty("annotators", annotators);
+        return copy;
+    }
+
+    /**
+     * Annotate the given text, one sentence at a time, with the given base date.
+     *
+     * @param text the given text.
+     * @param date the base date (yyyy-MM-dd), from which relative dates (eg Yesterday) are resolved.
+     * @return the Annotation of the text, with its sentences annotated.
+     * @throws RuntimeInterruptedException if the Thread is interrupted, checked after each sentence.
+     */
+    public Annotation annotate(String text, String date) {
+        Annotation annotation = new Annotation(text);
+        annotation.set(CoreAnnotations.DocDateAnnotation.class, date);//setting a reference so that when it finds a normalazied entity tag that isnt complete will determine it
+        splitter.annotate(annotation);
+        for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
+            checkInterrupted();
+            //the whole text is kept, as the offsets of the tokens are in it; the annotations are added to the sentence itself
+            Annotation sentenceAnnotation = new Annotation(text);
+            sentenceAnnotation.set(CoreAnnotations.SentencesAnnotation.class, Collections.singletonList(sentence));
+            sentenceAnnotation.set(CoreAnnotations.TokensAnnotation.class, sentence.get(CoreAnnotations.TokensAnnotation.class));
+            sentenceAnnotation.set(CoreAnnotations.DocDateAnnotation.class, date);
+            sentenceAnnotator.annotate(sentenceAnnotation);
+        }
+        checkInterrupted();
+        if (documentAnnotator != null) {
+            documentAnnotator.annotate(annotation);
+        }
+        return annotation;
+    }
+
+    /**
+     * Throw if the Thread is interrupted (i.e. the document took too long).
+     *
+     * @throws RuntimeInterruptedException if the Thread is interrupted.
+     */
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeInterruptedException();
+        }
+    }
+}
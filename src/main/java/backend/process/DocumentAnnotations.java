@@ -0,0 +1,274 @@
+package backend.process;
+
+import edu.stanford.nlp.ling.CoreLabel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the Engine found when it annotated the text of a document, kept so that the dates of its events can be resolved
+ * again against a different base date without running the whole StanfordCoreNLP pipeline again (see
+ * Engine.resolveDates). Only the sentences that produced a Result are kept: their tokens (as needed by SUTime), their
+ * DATE mentions, and the rest of the data of their Result (which does not depend on the base date).
+ */
+public class DocumentAnnotations {
+    private final String baseDate;
+    private final EngineOptions options;
+    private final List<DatedSentence> datedSentences = new ArrayList<>();
+    private int[] pageStarts;
+    private int sentences;//annotated in the document, with or without dates
+
+    /**
+     * A DATE mention in a sentence: its text, where it is, and what it was normalized to against the base date.
+     */
+    public static class DateMention {
+        private final String text;
+        private final String normalized;
+        private final int beginOffset;
+        private final int endOffset;
+
+        /**
+         * Create a DateMention.
+         *
+         * @param text        the text of the mention.
+         * @param normalized  the normalized date of the mention (against the base date the text was annotated with).
+         * @param beginOffset the character offset where the mention begins in the text of the document.
+         * @param endOffset   the character offset just after the mention ends.
+         */
+        public DateMention(String text, String normalized, int beginOffset, int endOffset) {
+            this.text = text;
+            this.normalized = normalized;
+            this.beginOffset = beginOffset;
+            this.endOffset = endOffset;
+        }
+
+        /**
+         * Get the text of the mention.
+         *
+         * @return the text of the mention.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Get the normalized date of the mention (against the base date the text was annotated with).
+         *
+         * @return the normalized date.
+         */
+        public String getNormalized() {
+            return normalized;
+        }
+
+        /**
+         * Get the character offset where the mention begins in the text of the document.
+         *
+         * @return the begin offset.
+         */
+        public int getBeginOffset() {
+            return beginOffset;
+        }
+
+        /**
+         * Get the character offset just after the mention ends in the text of the document.
+         *
+         * @return the end offset.
+         */
+        public int getEndOffset() {
+            return endOffset;
+        }
+    }
+
+    /**
+     * A sentence that produced a Result: its tokens and DATE mentions, and the data of its Result that does not depend
+     * on the base date.
+     */
+    public static class DatedSentence {
+        private final String originalString;
+        private final int beginOffset;
+        private final int endOffset;
+        private final String event;
+        private final List<String> subjects;
+        private final String parseTree;
+        private final List<CoreLabel> tokens;
+        private final List<DateMention> dateMentions;
+
+        /**
+         * Create a DatedSentence from the Result it produced.
+         *
+         * @param result       the Result produced by the sentence (with its event, subjects and dates set).
+         * @param tokens       the tokens of the sentence.
+         * @param dateMentions the DATE mentions of the sentence, in the order their dates were added to the Result.
+         */
+        public DatedSentence(Result result, List<CoreLabel> tokens, List<DateMention> dateMentions) {
+            this.originalString = result.getOriginalString();
+            this.beginOffset = result.getBeginOffset();
+            this.endOffset = result.getEndOffset();
+            this.event = result.getEvent();
+            this.subjects = new ArrayList<>(result.getSubjects());
+            this.parseTree = result.getParseTree();
+            this.tokens = tokens;
+            this.dateMentions = dateMentions;
+        }
+
+        /**
+         * Make a new Result with the data of the sentence that does not depend on the base date (its dates are not
+         * resolved yet).
+         *
+         * @return a new Result.
+         */
+        public Result toResult() {
+            Result result = new Result();
+            result.setOriginalString(originalString);
+            result.setOffsets(beginOffset, endOffset);
+            result.setEvent(event);
+            result.setParseTree(parseTree);
+            for (String subject : subjects) {
+                result.addSubject(subject);
+            }
+            for (DateMention dateMention : dateMentions) {
+                result.addDate(dateMention.getText());
+            }
+            return result;
+        }
+
+        /**
+         * Get the original text of the sentence.
+         *
+         * @return the original text of the sentence.
+         */
+        public String getOriginalString() {
+            return originalString;
+        }
+
+        /**
+         * Get the character offset where the sentence begins in the text of the document.
+         *
+         * @return the begin offset (-1 if unknown).
+         */
+        public int getBeginOffset() {
+            return beginOffset;
+        }
+
+        /**
+         * Get the character offset just after the sentence ends in the text of the document.
+         *
+         * @return the end offset (-1 if unknown).
+         */
+        public int getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * Get the tokens of the sentence.
+         *
+         * @return the tokens of the sentence.
+         */
+        public List<CoreLabel> getTokens() {
+            return tokens;
+        }
+
+        /**
+         * Get the DATE mentions of the sentence.
+         *
+         * @return the DATE mentions, in the order their dates were added to the Result.
+         */
+        public List<DateMention> getDateMentions() {
+            return dateMentions;
+        }
+    }
+
+    /**
+     * Create an empty DocumentAnnotations.
+     *
+     * @param baseDate the base date the text of the document was annotated with (yyyy-MM-dd).
+     * @param options  the options of the Engine that annotated the text.
+     */
+    public DocumentAnnotations(String baseDate, EngineOptions options) {
+        this.baseDate = baseDate;
+        this.options = options;
+    }
+
+    /**
+     * Add a sentence that produced a Result.
+     *
+     * @param datedSentence the sentence.
+     */
+    public void add(DatedSentence datedSentence) {
+        datedSentences.add(datedSentence);
+    }
+
+    /**
+     * Get the sentences that produced a Result, in the order they are in the document.
+     *
+     * @return the (unmodifiable) List of sentences.
+     */
+    public List<DatedSentence> getDatedSentences() {
+        return Collections.unmodifiableList(datedSentences);
+    }
+
+    /**
+     * Set the number of sentences annotated in the document (with or without dates).
+     *
+     * @param sentences the number of sentences.
+     */
+    public void setSentences(int sentences) {
+        this.sentences = sentences;
+    }
+
+    /**
+     * Get the number of sentences annotated in the document (with or without dates), when it was annotated.
+     *
+     * @return the number of sentences.
+     */
+    public int getSentences() {
+        return sentences;
+    }
+
+    /**
+     * Get the base date the text of the document was annotated with.
+     *
+     * @return the base date (yyyy-MM-dd).
+     */
+    public String getBaseDate() {
+        return baseDate;
+    }
+
+    /**
+     * Get the threshold the events of the sentences were summarized to (if it is not the threshold used now, the events
+     * are trimmed again from the parse trees of the sentences).
+     *
+     * @return the threshold.
+     */
+    public int getThreshold() {
+        return options.getThreshold();
+    }
+
+    /**
+     * Get the options of the Engine that annotated the text of the document.
+     *
+     * @return the options.
+     */
+    public EngineOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Get the offsets in the text of the document where each page starts.
+     *
+     * @return the offsets, or null if the document is not a PDF.
+     */
+    public int[] getPageStarts() {
+        return pageStarts;
+    }
+
+    /**
+     * Set the offsets in the text of the document where each page starts.
+     *
+     * @param pageStarts the offsets, or null if the document is not a PDF.
+     */
+    public void setPageStarts(int[] pageStarts) {
+        this.pageStarts = pageStarts;
+    }
+}
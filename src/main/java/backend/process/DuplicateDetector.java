@@ -0,0 +1,216 @@
+package backend.process;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the documents of a load that are copies of a document seen before it (i.e. the same wire story syndicated by
+ * several sources), from their text alone, so that the copies can be left out before they reach the StanfordCoreNLP
+ * pipeline.
+ * <p>
+ * A document is an exact copy if its text is the same once whitespace and case are ignored (compared by a SHA-256 hash
+ * of that text). It is a near copy if the MinHash signatures of the sets of its sentences (split at the end of
+ * sentence punctuation, with whitespace and case ignored) estimate that at least the given fraction of the sentences of
+ * the two documents are the same (their Jaccard similarity), i.e. a copy with a different headline or byline. Each
+ * signature is NUM_HASHES ints, so what is held for each document seen does not depend on the length of its text.
+ * <p>
+ * Comparing a document to every document seen before would be quadratic over a load, so (as in EventClusterer) the
+ * signatures are cut into BANDS bands of ROWS hashes, and a document is only compared to those that have the same
+ * hashes in at least one band. The signature is worked out before the lock is taken, which is only held to look up
+ * and update the buckets.
+ */
+public class DuplicateDetector {
+    public final static double DEFAULT_SIMILARITY = 0.8;
+    private final static int NUM_HASHES = 128;
+    private final static int BANDS = 32;
+    private final static int ROWS = NUM_HASHES / BANDS;//documents with a similarity of 0.8 share a bucket nearly always, of 0.1 0.3% of the time
+    private final static int MIN_SENTENCES = 3;//documents with fewer sentences are only compared by their exact hash
+    private final static Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])[\"')\\]]*\\s+");
+    private final static Pattern WHITESPACE = Pattern.compile("\\s+");
+    private final static long[] SEEDS = Hashing.makeSeeds(0x9E3779B97F4A7C15L, NUM_HASHES);
+    private final double similarity;
+    private final Map<String, String> exactHashes = new HashMap<>();//hash of the text -> name of the document
+    private final List<int[]> signatures = new ArrayList<>();
+    private final List<String> signatureNames = new ArrayList<>();
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();//key of a band -> indexes of the signatures
+
+    /**
+     * Create a DuplicateDetector that has not seen any document.
+     *
+     * @param similarity the fraction of sentences two documents must share to be near copies (0 to 1).
+     */
+    public DuplicateDetector(double similarity) {
+        this.similarity = similarity;
+    }
+
+    /**
+     * Create a DuplicateDetector that has not seen any document, that finds near copies that share at least
+     * DEFAULT_SIMILARITY of their sentences.
+     */
+    public DuplicateDetector() {
+        this(DEFAULT_SIMILARITY);
+    }
+
+    /**
+     * Check whether the given text is a copy of the text of a document seen before. If it is not, the document is
+     * remembered, so later copies of it are found. Can be called by many Threads at the same time: of two copies
+     * checked at the same time, the first to be checked is kept.
+     *
+     * @param name the name of the document (to report which document it is a copy of).
+     * @param text the text of the document.
+     * @return the name of the document the text is a copy of, or null if it is not a copy.
+     */
+    public String findDuplicate(String name, String text) {
+        String normalized = normalize(text);
+        String exactHash = Hashing.sha256(normalized);
+        int[] signature = null;
+        long[] bandKeys = null;
+        Set<String> sentences = getSentences(normalized);
+        if (sentences.size() >= MIN_SENTENCES) {
+            signature = getSignature(sentences);
+            bandKeys = getBandKeys(signature);
+        }
+        synchronized (this) {
+            String original = exactHashes.get(exactHash);
+            if (original != null) {
+                return original;
+            }
+            if (signature != null) {
+                Set<Integer> compared = new HashSet<>();
+                for (long bandKey : bandKeys) {
+                    List<Integer> bucket = buckets.get(bandKey);
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (int i : bucket) {
+                        if (compared.add(i) && estimateSimilarity(signature, signatures.get(i)) >= similarity) {
+                            return signatureNames.get(i);
+                        }
+                    }
+                }
+            }
+            exactHashes.put(exactHash, name);
+            if (signature != null) {
+                for (long bandKey : bandKeys) {
+                    List<Integer> bucket = buckets.get(bandKey);
+                    if (bucket == null) {
+                        bucket = new ArrayList<>();
+                        buckets.put(bandKey, bucket);
+                    }
+                    bucket.add(signatures.size());
+                }
+                signatures.add(signature);
+                signatureNames.add(name);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Get the key of the bucket of each band of the given signature.
+     *
+     * @param signature the given signature.
+     * @return the key of each band.
+     */
+    static long[] getBandKeys(int[] signature) {
+        long[] bandKeys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = Hashing.mix(key * 31 + signature[band * ROWS + row]);
+            }
+            bandKeys[band] = key;
+        }
+        return bandKeys;
+    }
+
+    /**
+     * Estimate the Jaccard similarity of the sets of sentences of two documents from their MinHash signatures: the
+     * fraction of the hash functions whose minimum is the same.
+     *
+     * @param signature1 the signature of one document.
+     * @param signature2 the signature of the other document.
+     * @return the estimated similarity (0 to 1).
+     */
+    static double estimateSimilarity(int[] signature1, int[] signature2) {
+        int same = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (signature1[i] == signature2[i]) {
+                same++;
+            }
+        }
+        return same / (double) NUM_HASHES;
+    }
+
+    /**
+     * Get the MinHash signature of the given set of sentences: for each of the NUM_HASHES hash functions, the minimum
+     * hash of the sentences.
+     *
+     * @param sentences the given set of sentences.
+     * @return the signature.
+     */
+    static int[] getSignature(Set<String> sentences) {
+        int[] signature = new int[NUM_HASHES];
+        for (int i = 0; i < NUM_HASHES; i++) {
+            signature[i] = Integer.MAX_VALUE;
+        }
+        for (String sentence : sentences) {
+            long sentenceHash = hash64(sentence);
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int hash = (int) (Hashing.mix(sentenceHash ^ SEEDS[i]) >>> 33);//positive, so MAX_VALUE is the largest
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Get the distinct sentences of the given normalized text.
+     *
+     * @param normalized the given text, with whitespace and case normalized.
+     * @return the set of its sentences.
+     */
+    static Set<String> getSentences(String normalized) {
+        Set<String> sentences = new HashSet<>();
+        for (String sentence : SENTENCE_END.split(normalized)) {
+            if (!sentence.isEmpty()) {
+                sentences.add(sentence);
+            }
+        }
+        return sentences;
+    }
+
+    /**
+     * Normalize the given text so copies that only differ by whitespace or case are the same: lower case, with every
+     * run of whitespace made one space.
+     *
+     * @param text the given text.
+     * @return the normalized text.
+     */
+    static String normalize(String text) {
+        return WHITESPACE.matcher(text).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Get a 64 bit hash of the given String (FNV-1a over its chars, then mixed).
+     *
+     * @param string the given String.
+     * @return the hash.
+     */
+    private static long hash64(String string) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < string.length(); i++) {
+            hash ^= string.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return Hashing.mix(hash);
+    }
+}
@@ -2,19 +2,24 @@ package backend.process;
 
 import backend.system.BackEndSystem;
 import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.Label;
 import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.semgraph.SemanticGraph;
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
 import edu.stanford.nlp.semgraph.SemanticGraphEdge;
+import edu.stanford.nlp.time.TimeAnnotations;
+import edu.stanford.nlp.time.Timex;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.TreeCoreAnnotations;
 import edu.stanford.nlp.util.CoreMap;
 import edu.stanford.nlp.util.Pair;
+import edu.stanford.nlp.util.RuntimeInterruptedException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * backend.process.Engine class that text in text as input and produces a list of backend.process.Result objects, which are events depicted in the text. An event is only picked out, if it has a date
@@ -23,19 +28,67 @@ import java.util.List;
  * Uses the algorithm proposed in: Bonnie Dorr, David Zajic and Richard Schwartz. Hedge Trimmer: A Parse-and-Trim Approach to Headline
  * Generation. Proceedings of the HLT-NAACL 03 on Text summarization Workshop-Volume 5. Association for
  * Computational Linguistics, pp. 1–8.
+ * <p>
+ * Sentences with more words than the options allow, or that take too long to parse, are not parsed (StanfordCoreNLP
+ * gives them a flat tree instead), so that a table or list taken from a PDF as one enormous sentence does not hold up a
+ * Thread for minutes or use up the heap. Their events are taken from the words around their first date instead, and they
+ * are counted in the EngineMetrics of the System.
+ * <p>
+ * A document is annotated one sentence at a time (see CoreNLPPipeline), so that a Thread interrupted (i.e. as its
+ * document took too long) stops after the sentence it is annotating, instead of after the whole document.
  */
 public class Engine {
-    private static int threshold;
-    private StanfordCoreNLP coreNLP;
-    private String baseDate;
+    private final static String UNPARSED_ROOT = "X";//the label of the root of the flat tree of a sentence not parsed
+    private final EngineOptions options;
+    private final int threshold;
+    private final CoreNLPPipeline coreNLP;
 
     /**
-     * Set up the StanfordCoreNLP to analyze text.
+     * Set up the StanfordCoreNLP to analyze text, with the options in the Settings of the System.
      */
     public Engine() {
-        coreNLP = BackEndSystem.getInstance().getCoreNLP();//can have it like before as the models will already be  loaded, but this avoids having to check that
-        threshold = BackEndSystem.getInstance().getSettings().getThresholdSummary();
-        System.out.println("Using a threshold value of: " + threshold);
+        this(EngineOptions.fromSettings(BackEndSystem.getInstance().getSettings()));
+    }
+
+    /**
+     * Set up the StanfordCoreNLP to analyze text, summarizing events to the given threshold.
+     *
+     * @param threshold the number of words events are summarized to (when possible).
+     */
+    public Engine(int threshold) {
+        this(new EngineOptions(threshold));
+    }
+
+    /**
+     * Set up the StanfordCoreNLP to analyze text with the given options. An Engine holds no state other than its
+     * (unchangeable) options, so one Engine can process any number of texts at the same time, in separate Threads.
+     *
+     * @param options the given options.
+     */
+    public Engine(EngineOptions options) {
+        this(options, BackEndSystem.getInstance().getCoreNLP(options));//shared by all the Engines with the same annotators
+        System.out.println("Using options: " + options);
+    }
+
+    /**
+     * Create an Engine with the given options, that analyzes text with the given StanfordCoreNLP.
+     *
+     * @param options the given options.
+     * @param coreNLP the CoreNLPPipeline to analyze text with, or null for an Engine that only trims parse trees.
+     */
+    private Engine(EngineOptions options, CoreNLPPipeline coreNLP) {
+        this.options = options;
+        this.threshold = options.getThreshold();
+        this.coreNLP = coreNLP;
+    }
+
+    /**
+     * Get the options this Engine processes text with.
+     *
+     * @return the options of this Engine.
+     */
+    public EngineOptions getOptions() {
+        return options;
     }
 
     /**
@@ -46,18 +99,37 @@ public class Engine {
      * @return list of Results produced from events depicted in the text passed in, using the base date.
      */
     public ArrayList<Result> getResults(String input, String date) {
+        return getResults(input, date, null);
+    }
+
+    /**
+     * Produces a list of Results based on the text passed in, adding what was found when annotating it to the given
+     * DocumentAnnotations, so that the dates of the Results can later be resolved against a different base date with
+     * resolveDates.
+     *
+     * @param input               The text for which we want to produce events for.
+     * @param date                The base date, from which we can determine exact dates from relative dates (eg Yesterday).
+     * @param documentAnnotations the DocumentAnnotations to add to, or null if they are not needed.
+     * @return list of Results produced from events depicted in the text passed in, using the base date.
+     * @throws RuntimeInterruptedException if the Thread is interrupted (i.e. the document took too long), checked
+     *                                     after annotating each sentence, and between the sentences annotated.
+     */
+    public ArrayList<Result> getResults(String input, String date, DocumentAnnotations documentAnnotations) {
         ArrayList<Result> results = new ArrayList<>();
-        baseDate = date;
-        System.out.println("Base Date: " + baseDate);
-        Annotation annotation;
-        annotation = new Annotation(input);
-        annotation.set(CoreAnnotations.DocDateAnnotation.class, date);//setting a reference so that when it finds a normalazied entity tag that isnt complete will determine it
-        coreNLP.annotate(annotation);
-        //coreNLP.prettyPrint(annotation, new PrintWriter(System.out));
-
-        for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
+        System.out.println("Base Date: " + date);
+        Annotation annotation = coreNLP.annotate(input, date);//one sentence at a time, stopping if interrupted
+
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        BackEndSystem.getInstance().getEngineMetrics().countSentences(sentences.size());
+        if (documentAnnotations != null) {
+            documentAnnotations.setSentences(sentences.size());
+        }
+        for (CoreMap sentence : sentences) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeInterruptedException();
+            }
             System.out.println(sentence);
-            Result result = getResult(sentence);
+            Result result = getResult(sentence, date, documentAnnotations);
             if (result != null) {
                 results.add(result);
             }
@@ -65,40 +137,254 @@ public class Engine {
         return results;
     }
 
+    /**
+     * Produces a list of Results from the DocumentAnnotations of a text that has already been annotated, with their
+     * dates resolved against the given base date. Only SUTime is run again (on the tokens of the sentences that produced
+     * Results), to resolve the relative dates (eg Yesterday) against the new base date; the rest of the Results (their
+     * events and subjects) does not depend on the base date, so it is taken as it is.
+     *
+     * @param documentAnnotations what was found when the text was annotated.
+     * @param date                the new base date (yyyy-MM-dd).
+     * @return list of Results produced from the events depicted in the text, using the new base date.
+     */
+    public ArrayList<Result> resolveDates(DocumentAnnotations documentAnnotations, String date) {
+        System.out.println("Resolving dates again with Base Date: " + date);
+        List<DocumentAnnotations.DatedSentence> datedSentences = documentAnnotations.getDatedSentences();
+        List<List<CoreMap>> timexes = null;//null when the base date has not changed, so the dates found before are used
+        if (!date.equals(documentAnnotations.getBaseDate())) {
+            timexes = getTimexes(datedSentences, date);
+        }
+        ArrayList<Result> results = new ArrayList<>(datedSentences.size());
+        for (int i = 0; i < datedSentences.size(); i++) {
+            DocumentAnnotations.DatedSentence datedSentence = datedSentences.get(i);
+            Result result = datedSentence.toResult();
+            for (DocumentAnnotations.DateMention dateMention : datedSentence.getDateMentions()) {
+                String date_1 = timexes == null ? dateMention.getNormalized() : getNormalized(dateMention, timexes.get(i));
+                result.addDate_1(date_1, date);
+            }
+            if (documentAnnotations.getThreshold() != threshold && result.getParseTree() != null) {//summarized to another threshold
+                result.setEvent(trim(Tree.valueOf(result.getParseTree()), result));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Whether or not the dates of the given DocumentAnnotations can be resolved again by this Engine (with resolveDates)
+     * to give the same Results as annotating the text again would: the text must have been annotated with the same
+     * annotators and subject types (the threshold can differ, as the events are trimmed again).
+     *
+     * @param documentAnnotations the given DocumentAnnotations.
+     * @return true if resolveDates can be used for the DocumentAnnotations; false if the text must be annotated again.
+     */
+    public boolean canResolveDates(DocumentAnnotations documentAnnotations) {
+        EngineOptions annotatedWith = documentAnnotations.getOptions();
+        return annotatedWith.getAnnotatorProfile() == options.getAnnotatorProfile() &&
+                annotatedWith.getSubjectTypes().equals(options.getSubjectTypes());
+    }
+
+    /**
+     * Trim the events of the given Results again, to the given threshold, from the parse trees of their original
+     * sentences (so that the summary length can be changed without annotating the text again). No StanfordCoreNLP is
+     * needed (or loaded) for this. The Results are trimmed in parallel, and are not changed: their new events are
+     * returned instead.
+     *
+     * @param results   the given Results.
+     * @param threshold the number of words events are summarized to (when possible).
+     * @return the new event of each Result (at the same index), or null for a Result without a parse tree (i.e. its
+     * event was edited, or it was imported from JSON).
+     */
+    public static String[] retrimEvents(final List<Result> results, int threshold) {
+        final Engine engine = new Engine(new EngineOptions(threshold), null);//trimming only uses the threshold
+        final String[] events = new String[results.size()];
+        IntStream.range(0, results.size()).parallel().forEach(new IntConsumer() {
+            @Override
+            public void accept(int i) {
+                Result result = results.get(i);
+                if (result.getParseTree() != null) {
+                    events[i] = engine.trim(Tree.valueOf(result.getParseTree()), result);
+                }
+            }
+        });
+        return events;
+    }
+
+    /**
+     * Run SUTime over the tokens of the given sentences, with the given base date.
+     *
+     * @param datedSentences the given sentences.
+     * @param date           the base date (yyyy-MM-dd).
+     * @return for each sentence, the time expressions SUTime found in it.
+     */
+    private List<List<CoreMap>> getTimexes(List<DocumentAnnotations.DatedSentence> datedSentences, String date) {
+        List<CoreMap> sentences = new ArrayList<>(datedSentences.size());
+        for (DocumentAnnotations.DatedSentence datedSentence : datedSentences) {
+            Annotation sentence = new Annotation(datedSentence.getOriginalString());
+            sentence.set(CoreAnnotations.TokensAnnotation.class, datedSentence.getTokens());
+            sentence.set(CoreAnnotations.CharacterOffsetBeginAnnotation.class, datedSentence.getBeginOffset());
+            sentence.set(CoreAnnotations.CharacterOffsetEndAnnotation.class, datedSentence.getEndOffset());
+            sentences.add(sentence);
+        }
+        Annotation annotation = new Annotation("");
+        annotation.set(CoreAnnotations.SentencesAnnotation.class, sentences);
+        annotation.set(CoreAnnotations.DocDateAnnotation.class, date);
+        BackEndSystem.getInstance().getTimeAnnotator().annotate(annotation);
+        List<List<CoreMap>> timexes = new ArrayList<>(sentences.size());
+        for (CoreMap sentence : sentences) {
+            List<CoreMap> sentenceTimexes = sentence.get(TimeAnnotations.TimexAnnotations.class);
+            timexes.add(sentenceTimexes != null ? sentenceTimexes : new ArrayList<CoreMap>());
+        }
+        return timexes;
+    }
+
+    /**
+     * Get the normalized date of the given DATE mention from the time expression (found by SUTime) that overlaps it.
+     *
+     * @param dateMention the given DATE mention.
+     * @param timexes     the time expressions found in the sentence of the mention.
+     * @return the normalized date of the time expression, or the normalized date found before if none overlaps it.
+     */
+    private String getNormalized(DocumentAnnotations.DateMention dateMention, List<CoreMap> timexes) {
+        for (CoreMap timexMap : timexes) {
+            Integer begin = timexMap.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
+            Integer end = timexMap.get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
+            Timex timex = timexMap.get(TimeAnnotations.TimexAnnotation.class);
+            if (begin != null && end != null && timex != null && begin < dateMention.getEndOffset() &&
+                    end > dateMention.getBeginOffset()) {
+                String value = timex.value() != null ? timex.value() : timex.altVal();
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        return dateMention.getNormalized();
+    }
+
+    /**
+     * Copy the tokens of the given sentence, keeping only what SUTime needs from each (so the rest of the annotations
+     * of the sentence can be dropped).
+     *
+     * @param sentence the given sentence.
+     * @return the copied tokens.
+     */
+    private List<CoreLabel> copyTokens(CoreMap sentence) {
+        List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+        List<CoreLabel> copies = new ArrayList<>(tokens.size());
+        for (CoreLabel token : tokens) {
+            CoreLabel copy = new CoreLabel();
+            copy.setWord(token.word());
+            copy.setValue(token.value());
+            copy.setOriginalText(token.originalText());
+            copy.setBefore(token.before());
+            copy.setAfter(token.after());
+            copy.setTag(token.tag());
+            copy.setLemma(token.lemma());
+            copy.setIndex(token.index());
+            copy.setBeginPosition(token.beginPosition());
+            copy.setEndPosition(token.endPosition());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
     /**
      * Returns a backend.process.Result object if the sentence contains a date, else returns null.
      * The backend.process.Result object will include a list of subjects as well as a summary (or the entire text, depending on the
      * length of text) of the sentence.
      *
-     * @param sentence the CoreMap that contains the Sentence we want to produce a backend.process.Result for (if it has a date)
+     * @param sentence            the CoreMap that contains the Sentence we want to produce a backend.process.Result for (if it has a date)
+     * @param baseDate            the base date of the text of the sentence.
+     * @param documentAnnotations the DocumentAnnotations to add the sentence to if it produces a Result, or null.
      * @return a backend.process.Result object if the sentence contained a Date; null instead.
      */
-    private Result getResult(CoreMap sentence) {
+    private Result getResult(CoreMap sentence, String baseDate, DocumentAnnotations documentAnnotations) {
         Result result = new Result();
         result.setOriginalString(sentence.toString());
-        setDatesAndSubjectsNET(sentence, result);
+        Integer beginOffset = sentence.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
+        Integer endOffset = sentence.get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
+        if (beginOffset != null && endOffset != null) {//where the sentence is in the text, so it can be found again
+            result.setOffsets(beginOffset, endOffset);
+        }
+        List<DocumentAnnotations.DateMention> dateMentions = new ArrayList<>();
+        setDatesAndSubjectsNET(sentence, result, dateMentions, baseDate);
 
         if (result.getDates().size() > 0) {//we have found dates, so lets find more subjects and the event of the sentence
             //setGrammaticalSubjects(sentence,result);//setting grammatical subjects in the result object
-            setEvent(sentence, result);//set the summarized sentence as the event depicted in the sentence
+            Tree tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
+            if (tree != null && !UNPARSED_ROOT.equals(tree.value())) {
+                BackEndSystem.getInstance().getEngineMetrics().countParsed();
+                result.setParseTree(tree.toString());//before it is trimmed, so it can be trimmed again to another threshold
+                result.setEvent(trim(tree, result));//set the summarized sentence as the event depicted in the sentence
+            } else {//it was not parsed, so there is no tree to trim
+                List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+                if (tokens.size() > options.getMaxSentenceLength()) {
+                    BackEndSystem.getInstance().getEngineMetrics().countTooLong();
+                } else {
+                    BackEndSystem.getInstance().getEngineMetrics().countTimedOut();
+                }
+                System.out.println("Sentence of " + tokens.size() + " words not parsed, taking its event from around its date");
+                result.setEvent(getDateWindow(tokens, dateMentions.get(0)));
+            }
+            if (documentAnnotations != null) {
+                documentAnnotations.add(new DocumentAnnotations.DatedSentence(result, copyTokens(sentence), dateMentions));
+            }
             return result;
         }
         return null;
     }
 
+    /**
+     * Get the event of a sentence that was not parsed: the words around the given DATE mention (threshold words at
+     * most, half of them before it where possible), without the words of the mention itself.
+     *
+     * @param tokens      the tokens of the sentence.
+     * @param dateMention the DATE mention the event is taken around.
+     * @return the words around the DATE mention.
+     */
+    private String getDateWindow(List<CoreLabel> tokens, DocumentAnnotations.DateMention dateMention) {
+        int begin = 0;//the index of the first token of the mention
+        while (begin < tokens.size() && tokens.get(begin).endPosition() <= dateMention.getBeginOffset()) {
+            begin++;
+        }
+        int end = begin;//the index just after the last token of the mention
+        while (end < tokens.size() && tokens.get(end).beginPosition() < dateMention.getEndOffset()) {
+            end++;
+        }
+        int before = Math.min(begin, threshold / 2);
+        int after = Math.min(tokens.size() - end, threshold - before);
+        before = Math.min(begin, threshold - after);//use what is left after the mention, if it is near the end
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = begin - before; i < end + after; i++) {
+            if (i < begin || i >= end) {
+                if (stringBuilder.length() > 0) {
+                    stringBuilder.append(' ');
+                }
+                String word = tokens.get(i).originalText();
+                stringBuilder.append(word != null ? word : tokens.get(i).word());
+            }
+        }
+        return stringBuilder.toString();
+    }
+
     /**
      * Set the Dates and Subjects for the backend.process.Result based on Named-Entity Tags from the CoreMap passed in.
-     * Dates have a DATE Named-Entity Tag. Subjects are LOCATIONs, ORGANIZATIONs, PERSONs, and MONEY.
+     * Dates have a DATE Named-Entity Tag. Subjects are the mentions with the subject types of the options (by default
+     * LOCATIONs, ORGANIZATIONs, PERSONs, MONEY and MISC).
      *
-     * @param sentence a CoreMap that holds the sentence we want to extract data from.
-     * @param result   the backend.process.Result object that we are determining the data for.
+     * @param sentence     a CoreMap that holds the sentence we want to extract data from.
+     * @param result       the backend.process.Result object that we are determining the data for.
+     * @param dateMentions the List the DATE mentions found are added to (so their dates can be resolved again later).
+     * @param baseDate     the base date of the text of the sentence.
      */
-    private void setDatesAndSubjectsNET(CoreMap sentence, Result result) {
+    private void setDatesAndSubjectsNET(CoreMap sentence, Result result, List<DocumentAnnotations.DateMention> dateMentions,
+                                        String baseDate) {
         for (CoreMap mention : sentence.get(CoreAnnotations.MentionsAnnotation.class)) {
             String namedEntityTag = mention.get(CoreAnnotations.NamedEntityTagAnnotation.class);
             System.out.println(namedEntityTag + ": " + mention.get(CoreAnnotations.TextAnnotation.class));
+            EntityType entityType = EntityType.fromTag(namedEntityTag);//one lookup, rather than comparing with each tag
 
-            if (namedEntityTag.equals("DATE")) {
+            if (entityType == EntityType.DATE) {
                 //found a date for the result object
                 String date_1 = mention.get(CoreAnnotations.NormalizedNamedEntityTagAnnotation.class);
                 System.out.println("About to print time for the sentence: " + sentence);
@@ -107,9 +393,11 @@ public class Engine {
                 System.out.println("We are storing date: " + date);
                 result.addDate(date);
                 result.addDate_1(date_1, baseDate);
+                Integer begin = mention.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
+                Integer end = mention.get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
+                dateMentions.add(new DocumentAnnotations.DateMention(date, date_1, begin != null ? begin : -1, end != null ? end : -1));
 
-            } else if (namedEntityTag.equals("LOCATION") || namedEntityTag.equals("ORGANIZATION") ||
-                    namedEntityTag.equals("PERSON") || namedEntityTag.equals("MONEY") || namedEntityTag.equals("MISC")) {
+            } else if (entityType != null && options.getSubjectTypes().contains(entityType)) {
                 //found a subject for the result object
                 String subject = mention.get(CoreAnnotations.TextAnnotation.class);
                 result.addSubject(subject);
@@ -135,16 +423,17 @@ public class Engine {
     }
 
     /**
-     * For the sentence passed in, summarize it and set it as the event of the backend.process.Result object.
+     * For the parse tree of the sentence passed in, summarize it (to the threshold of this Engine) to get its event.
      * <p>
      * Following the algorithm proposed in: Bonnie Dorr, David Zajic and Richard Schwartz. Hedge Trimmer: A
      * Parse-and-Trim Approach to Headline Generation. Proceedings of the HLT-NAACL 03 on Text summarization
      * Workshop-Volume 5. Association for Computational Linguistics, pp. 1–8.
      *
-     * @param sentence a CoreMap that holds the sentence we want to summarize to get the event for.
+     * @param tree   the parse tree of the sentence we want to summarize to get the event for (it is changed).
+     * @param result the Result of the sentence (holding the time expressions found in it).
+     * @return the summarized sentence.
      */
-    private void setEvent(CoreMap sentence, Result result) {
-        Tree tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
+    private String trim(Tree tree, Result result) {
         tree = getLeftmostLowestS(tree);//get leftmost-lowest S
         //remove time expressions
         removeTimeExpressions(tree, result);
@@ -153,8 +442,7 @@ public class Engine {
         xpBeforeNP(tree);//apply removal of XPs before NP rule
         cleanUp(tree);//remove any punctuation that could be left over
         tree = lastShorten(tree);//shorten the tree with the last two rules, removePPs and removeSBARs
-        String event = produceString(tree);
-        result.setEvent(event);
+        return produceString(tree);
     }
 
     /**
@@ -0,0 +1,100 @@
+package backend.process;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the sentences annotated by the Engines of the System, and how those with dates were summarized: from their
+ * parse tree, or (when they could not be parsed) from the words around their dates. A sentence is not parsed if it has
+ * more words than the EngineOptions allow (i.e. a table or list taken from a PDF as one sentence), or if parsing it took
+ * too long. The counts can be updated by any number of Threads at the same time.
+ */
+public class EngineMetrics {
+    private final AtomicLong sentences = new AtomicLong();
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong tooLong = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    /**
+     * Count the given number of sentences annotated (with or without dates).
+     *
+     * @param count the number of sentences annotated.
+     */
+    public void countSentences(int count) {
+        sentences.addAndGet(count);
+    }
+
+    /**
+     * Count a sentence summarized from its parse tree.
+     */
+    public void countParsed() {
+        parsed.incrementAndGet();
+    }
+
+    /**
+     * Count a sentence that was not parsed, as it had too many words.
+     */
+    public void countTooLong() {
+        tooLong.incrementAndGet();
+    }
+
+    /**
+     * Count a sentence that was not parsed, as parsing it took too long.
+     */
+    public void countTimedOut() {
+        timedOut.incrementAndGet();
+    }
+
+    /**
+     * Get the number of sentences annotated (with or without dates).
+     *
+     * @return the number of sentences annotated.
+     */
+    public long getSentences() {
+        return sentences.get();
+    }
+
+    /**
+     * Get the number of sentences summarized from their parse tree.
+     *
+     * @return the number of sentences parsed.
+     */
+    public long getParsed() {
+        return parsed.get();
+    }
+
+    /**
+     * Get the number of sentences not parsed as they had too many words.
+     *
+     * @return the number of sentences too long.
+     */
+    public long getTooLong() {
+        return tooLong.get();
+    }
+
+    /**
+     * Get the number of sentences not parsed as parsing them took too long.
+     *
+     * @return the number of sentences timed out.
+     */
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * Get the number of sentences summarized from the words around their dates, as they were not parsed.
+     *
+     * @return the number of sentences too long or timed out.
+     */
+    public long getFallbacks() {
+        return tooLong.get() + timedOut.get();
+    }
+
+    /**
+     * @return a String showing the counts.
+     */
+    @Override
+    public String toString() {
+        return String.format("sentences: %d, parsed: %d, too long: %d, timed out: %d", getSentences(), getParsed(), getTooLong(),
+                getTimedOut());
+    }
+}
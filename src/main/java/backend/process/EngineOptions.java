@@ -0,0 +1,226 @@
+package backend.process;
+
+import backend.system.Settings;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * How an Engine processes text: the threshold events are summarized to, the StanfordCoreNLP annotators it runs, the
+ * named entity types kept as the subjects of events (only the NER models that tag those types are run), and the limits
+ * on parsing a sentence (the most words parsed, and the most time spent parsing it).
+ * EngineOptions can not be changed once made (the with methods make a new one), so an Engine made with them can be
+ * shared by any number of Threads.
+ */
+public final class EngineOptions {
+    public final static Set<EntityType> DEFAULT_SUBJECT_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            EntityType.PERSON, EntityType.LOCATION, EntityType.ORGANIZATION, EntityType.MONEY, EntityType.MISC));
+    public final static int DEFAULT_MAX_SENTENCE_LENGTH = 100;
+    public final static long DEFAULT_MAX_PARSE_TIME = 10000;
+    private final int threshold;
+    private final AnnotatorProfile annotatorProfile;
+    private final Set<EntityType> subjectTypes;
+    private final int maxSentenceLength;
+    private final long maxParseTime;
+
+    /**
+     * Create EngineOptions.
+     *
+     * @param threshold         the number of words events are summarized to (when possible).
+     * @param annotatorProfile  the StanfordCoreNLP annotators run.
+     * @param subjectTypes      the named entity types (eg PERSON) of the mentions kept as subjects (DATE is ignored).
+     * @param maxSentenceLength the most words (tokens) of a sentence that is parsed; longer sentences are not parsed.
+     * @param maxParseTime      the most time (in ms) spent parsing a sentence, before parsing it is given up.
+     */
+    public EngineOptions(int threshold, AnnotatorProfile annotatorProfile, Set<EntityType> subjectTypes, int maxSentenceLength,
+                         long maxParseTime) {
+        this.threshold = threshold;
+        this.annotatorProfile = annotatorProfile;
+        EnumSet<EntityType> types = EnumSet.noneOf(EntityType.class);
+        types.addAll(subjectTypes);
+        types.remove(EntityType.DATE);//DATEs are the dates of events, not subjects
+        this.subjectTypes = Collections.unmodifiableSet(types);
+        this.maxSentenceLength = maxSentenceLength;
+        this.maxParseTime = maxParseTime;
+    }
+
+    /**
+     * Create EngineOptions with the default limits on parsing a sentence.
+     *
+     * @param threshold        the number of words events are summarized to (when possible).
+     * @param annotatorProfile the StanfordCoreNLP annotators run.
+     * @param subjectTypes     the named entity types (eg PERSON) of the mentions kept as subjects (DATE is ignored).
+     */
+    public EngineOptions(int threshold, AnnotatorProfile annotatorProfile, Set<EntityType> subjectTypes) {
+        this(threshold, annotatorProfile, subjectTypes, DEFAULT_MAX_SENTENCE_LENGTH, DEFAULT_MAX_PARSE_TIME);
+    }
+
+    /**
+     * Create EngineOptions with the given threshold, the STANDARD annotators and the default subject types.
+     *
+     * @param threshold the number of words events are summarized to (when possible).
+     */
+    public EngineOptions(int threshold) {
+        this(threshold, AnnotatorProfile.STANDARD, DEFAULT_SUBJECT_TYPES);
+    }
+
+    /**
+     * Create EngineOptions from the given Settings.
+     *
+     * @param settings the given Settings.
+     * @return the EngineOptions of the Settings.
+     */
+    public static EngineOptions fromSettings(Settings settings) {
+        return new EngineOptions(settings.getThresholdSummary(), AnnotatorProfile.STANDARD, settings.getSubjectTypes(),
+                settings.getMaxSentenceLength(), settings.getMaxParseTime());
+    }
+
+    /**
+     * Get the number of words events are summarized to (when possible).
+     *
+     * @return the threshold.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Get the StanfordCoreNLP annotators run.
+     *
+     * @return the AnnotatorProfile.
+     */
+    public AnnotatorProfile getAnnotatorProfile() {
+        return annotatorProfile;
+    }
+
+    /**
+     * Get the named entity types of the mentions kept as subjects.
+     *
+     * @return the (unmodifiable) Set of named entity types.
+     */
+    public Set<EntityType> getSubjectTypes() {
+        return subjectTypes;
+    }
+
+    /**
+     * Get the most words (tokens) of a sentence that is parsed.
+     *
+     * @return the most words of a sentence parsed.
+     */
+    public int getMaxSentenceLength() {
+        return maxSentenceLength;
+    }
+
+    /**
+     * Get the most time spent parsing a sentence.
+     *
+     * @return the most time spent parsing a sentence, in ms.
+     */
+    public long getMaxParseTime() {
+        return maxParseTime;
+    }
+
+    /**
+     * Get the NER models that have to be run to tag the subject types (in the order StanfordCoreNLP runs them by
+     * default). If no subject type needs a model, the model of PERSONs is run, as the NER annotator needs one.
+     *
+     * @return the paths of the NER models, separated by commas (as given to the "ner.model" property).
+     */
+    public String getNERModels() {
+        Set<String> models = new LinkedHashSet<>();
+        for (EntityType entityType : EntityType.values()) {//in order, so the models are too
+            if (subjectTypes.contains(entityType) && entityType.getNERModel() != null) {
+                models.add(entityType.getNERModel());
+            }
+        }
+        if (models.isEmpty()) {
+            models.add(EntityType.PERSON.getNERModel());
+        }
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String model : models) {
+            if (stringBuilder.length() > 0) {
+                stringBuilder.append(',');
+            }
+            stringBuilder.append(model);
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Make a copy of these EngineOptions with the given threshold.
+     *
+     * @param threshold the given threshold.
+     * @return the new EngineOptions.
+     */
+    public EngineOptions withThreshold(int threshold) {
+        return new EngineOptions(threshold, annotatorProfile, subjectTypes, maxSentenceLength, maxParseTime);
+    }
+
+    /**
+     * Make a copy of these EngineOptions with the given AnnotatorProfile.
+     *
+     * @param annotatorProfile the given AnnotatorProfile.
+     * @return the new EngineOptions.
+     */
+    public EngineOptions withAnnotatorProfile(AnnotatorProfile annotatorProfile) {
+        return new EngineOptions(threshold, annotatorProfile, subjectTypes, maxSentenceLength, maxParseTime);
+    }
+
+    /**
+     * Make a copy of these EngineOptions with the given subject types.
+     *
+     * @param subjectTypes the given named entity types.
+     * @return the new EngineOptions.
+     */
+    public EngineOptions withSubjectTypes(Set<EntityType> subjectTypes) {
+        return new EngineOptions(threshold, annotatorProfile, subjectTypes, maxSentenceLength, maxParseTime);
+    }
+
+    /**
+     * Make a copy of these EngineOptions with the given limits on parsing a sentence.
+     *
+     * @param maxSentenceLength the most words (tokens) of a sentence that is parsed.
+     * @param maxParseTime      the most time (in ms) spent parsing a sentence.
+     * @return the new EngineOptions.
+     */
+    public EngineOptions withParseLimits(int maxSentenceLength, long maxParseTime) {
+        return new EngineOptions(threshold, annotatorProfile, subjectTypes, maxSentenceLength, maxParseTime);
+    }
+
+    /**
+     * Checks whether the given input is equal to this object.
+     *
+     * @param obj the Object to check equality with this object.
+     * @return true if obj are EngineOptions with the same threshold, annotators, subject types and parse limits; false
+     * otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof EngineOptions)) {
+            return false;
+        }
+        EngineOptions other = (EngineOptions) obj;
+        return threshold == other.threshold && annotatorProfile == other.annotatorProfile && subjectTypes.equals(other.subjectTypes)
+                && maxSentenceLength == other.maxSentenceLength && maxParseTime == other.maxParseTime;
+    }
+
+    /**
+     * @return a hash code consistent with equals.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(threshold, annotatorProfile, subjectTypes, maxSentenceLength, maxParseTime);
+    }
+
+    /**
+     * @return a String showing the options.
+     */
+    @Override
+    public String toString() {
+        return String.format("threshold: %d, annotators: %s, subjects: %s, longest sentence parsed: %d, parse time: %dms",
+                threshold, annotatorProfile, subjectTypes, maxSentenceLength, maxParseTime);
+    }
+}
@@ -0,0 +1,70 @@
+package backend.process;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The named entity types (as tagged by StanfordCoreNLP) the Engine makes use of: DATEs give the dates of events, and the
+ * others can be kept as the subjects of events (which ones is chosen in the Settings). The tag of a mention is mapped
+ * to its EntityType once (see fromTag), instead of being compared against each tag in turn.
+ */
+public enum EntityType {
+    DATE("DATE", null),//found by SUTime, which is always run
+    PERSON("PERSON", EntityType.MODEL_3CLASS),
+    LOCATION("LOCATION", EntityType.MODEL_3CLASS),
+    ORGANIZATION("ORGANIZATION", EntityType.MODEL_3CLASS),
+    MONEY("MONEY", EntityType.MODEL_7CLASS),
+    MISC("MISC", EntityType.MODEL_4CLASS);
+
+    private final static String MODEL_3CLASS = "edu/stanford/nlp/models/ner/english.all.3class.distsim.crf.ser.gz";
+    private final static String MODEL_7CLASS = "edu/stanford/nlp/models/ner/english.muc.7class.distsim.crf.ser.gz";
+    private final static String MODEL_4CLASS = "edu/stanford/nlp/models/ner/english.conll.4class.distsim.crf.ser.gz";
+    private final static Map<String, EntityType> byTag = new HashMap<>();
+    private final String tag;
+    private final String nerModel;
+
+    static {
+        for (EntityType entityType : values()) {
+            byTag.put(entityType.tag, entityType);
+        }
+    }
+
+    /**
+     * Create an EntityType.
+     *
+     * @param tag      the named entity tag of the type.
+     * @param nerModel the NER model that tags mentions of the type, or null if they are found by SUTime.
+     */
+    EntityType(String tag, String nerModel) {
+        this.tag = tag;
+        this.nerModel = nerModel;
+    }
+
+    /**
+     * Get the EntityType of the given named entity tag.
+     *
+     * @param tag the given named entity tag (eg PERSON).
+     * @return the EntityType, or null if the tag is not of a type the Engine makes use of (eg NUMBER).
+     */
+    public static EntityType fromTag(String tag) {
+        return tag == null ? null : byTag.get(tag);
+    }
+
+    /**
+     * Get the named entity tag of this type.
+     *
+     * @return the named entity tag.
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Get the NER model that tags mentions of this type.
+     *
+     * @return the path of the model, or null if the mentions are found by SUTime (i.e. DATEs).
+     */
+    public String getNERModel() {
+        return nerModel;
+    }
+}
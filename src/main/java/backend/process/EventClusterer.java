@@ -0,0 +1,365 @@
+package backend.process;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Merges the Results of the same event found in different Files (i.e. an inauguration reported by dozens of articles)
+ * into one Result, which keeps the Results it was merged from (see Result.getMergedResults), so the Timeline shows the
+ * event once but still knows every File it was found in.
+ * <p>
+ * Two Results are of the same event if they come from different Files, their dates overlap, the words of their events
+ * are similar enough (Jaccard similarity of their sets of words, leaving out the most common English words), and so
+ * are their subjects (unless neither has any). Results of the same event are merged transitively (if A is the same
+ * event as B, and B as C, the three are merged).
+ * <p>
+ * Comparing every pair of Results would be quadratic, so the pairs compared are found with locality sensitive hashing:
+ * the MinHash signature of the words of each event is cut into BANDS bands of ROWS hashes, and only Results that have
+ * the same hashes in at least one band (i.e. are likely to be similar) share a bucket. The Results of a bucket are
+ * sorted by their first date, and each is only compared to those after it that start before it ends.
+ */
+public class EventClusterer {
+    public final static double DEFAULT_EVENT_SIMILARITY = 0.5;
+    public final static double DEFAULT_SUBJECT_SIMILARITY = 0.25;
+    private final static int BANDS = 16;
+    private final static int ROWS = 4;//with 16 bands, Results whose events have a similarity of 0.5 share a bucket 64% of the time, and of 0.7 98%
+    private final static Pattern WORD_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private final static Set<String> STOP_WORDS = new HashSet<>(Arrays.asList("a", "an", "and", "are", "as", "at", "be",
+            "by", "for", "from", "has", "have", "he", "her", "his", "in", "is", "it", "its", "of", "on", "or", "she",
+            "that", "the", "their", "they", "this", "to", "was", "were", "will", "with"));
+    private final static long[] SEEDS = Hashing.makeSeeds(0x2545F4914F6CDD1DL, BANDS * ROWS);
+    private final double eventSimilarity;
+    private final double subjectSimilarity;
+
+    /**
+     * Create an EventClusterer.
+     *
+     * @param eventSimilarity   how similar the words of two events must be for them to be merged (0 to 1).
+     * @param subjectSimilarity how similar the subjects of two events must be for them to be merged (0 to 1).
+     */
+    public EventClusterer(double eventSimilarity, double subjectSimilarity) {
+        this.eventSimilarity = eventSimilarity;
+        this.subjectSimilarity = subjectSimilarity;
+    }
+
+    /**
+     * Create an EventClusterer with the default similarities.
+     */
+    public EventClusterer() {
+        this(DEFAULT_EVENT_SIMILARITY, DEFAULT_SUBJECT_SIMILARITY);
+    }
+
+    /**
+     * Merge the Results of the same event in the given List. The given Results are not changed: each group of Results
+     * of the same event is replaced by a new Result (a copy of the Result of the group with the most precise dates,
+     * with the subjects and dates of all of them) that holds the Results it was merged from.
+     *
+     * @param results the given Results.
+     * @return the Results, with each group of Results of the same event merged into one (where the first Result of the
+     * group was).
+     */
+    public List<Result> cluster(List<Result> results) {
+        return cluster(results, 0);
+    }
+
+    /**
+     * Merge the given Results added to a Timeline (i.e. of documents added to a folder watched) with the events already
+     * in it, and with each other. The events already in the Timeline were merged before, so they are not compared with
+     * each other again. An event an added Result is merged into is replaced by a new Result holding the Results of both.
+     *
+     * @param existing the Results in the Timeline (not changed).
+     * @param added    the Results added (not changed).
+     * @return the events of the Timeline (in their order), then the added Results that were not merged into one of them.
+     */
+    public List<Result> cluster(List<Result> existing, List<Result> added) {
+        List<Result> results = new ArrayList<>(existing.size() + added.size());
+        results.addAll(existing);
+        results.addAll(added);
+        return cluster(results, existing.size());
+    }
+
+    /**
+     * Merge the Results of the same event in the given List, leaving out the pairs of Results before firstAdded.
+     *
+     * @param results    the given Results.
+     * @param firstAdded the index of the first Result to compare with the others (the Results before it are not
+     *                   compared with each other).
+     * @return the Results, with each group of Results of the same event merged into one (where the first Result of the
+     * group was).
+     */
+    private List<Result> cluster(List<Result> results, int firstAdded) {
+        int size = results.size();
+        List<Set<String>> words = new ArrayList<>(size);
+        for (Result result : results) {
+            words.add(getWords(result.getEvent()));
+        }
+        int[] parents = new int[size];//union-find forest of the groups
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+        }
+        int compared = 0;
+        for (List<Integer> bucket : getBuckets(results, words).values()) {
+            if (bucket.size() < 2) {
+                continue;
+            }
+            sortByDate1(bucket, results);
+            for (int i = 0; i < bucket.size(); i++) {
+                Result result = results.get(bucket.get(i));
+                Date end = getEnd(result.getTimelineDate());
+                for (int j = i + 1; j < bucket.size(); j++) {
+                    Result other = results.get(bucket.get(j));
+                    if (other.getTimelineDate().getDate1().after(end)) {
+                        break;//sorted by date1, so none of the rest overlap
+                    }
+                    if (bucket.get(i) < firstAdded && bucket.get(j) < firstAdded) {
+                        continue;//both were merged before
+                    }
+                    compared++;
+                    if (find(parents, bucket.get(i)) != find(parents, bucket.get(j))
+                            && isSameEvent(result, other, words.get(bucket.get(i)), words.get(bucket.get(j)))) {
+                        parents[find(parents, bucket.get(j))] = find(parents, bucket.get(i));
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Result>> groups = new LinkedHashMap<>();//in the order of their first Result
+        for (int i = 0; i < size; i++) {
+            int root = find(parents, i);
+            List<Result> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(root, group);
+            }
+            group.add(results.get(i));
+        }
+        List<Result> toReturn = new ArrayList<>(groups.size());
+        for (List<Result> group : groups.values()) {
+            toReturn.add(group.size() == 1 ? group.get(0) : merge(group));
+        }
+        System.out.println("Merged " + size + " Results into " + toReturn.size() + " events (" + compared + " pairs compared)");
+        return toReturn;
+    }
+
+    /**
+     * Put the Results with dates into the buckets of the bands of the MinHash signatures of their events.
+     *
+     * @param results the Results.
+     * @param words   the words of the event of each Result.
+     * @return the indexes of the Results in each bucket.
+     */
+    private static Map<Long, List<Integer>> getBuckets(List<Result> results, List<Set<String>> words) {
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (words.get(i).isEmpty() || results.get(i).getTimelineDate().getDate1() == null) {
+                continue;//can not be compared
+            }
+            long[] signature = getSignature(words.get(i));
+            for (int band = 0; band < BANDS; band++) {
+                long key = band;
+                for (int row = 0; row < ROWS; row++) {
+                    key = Hashing.mix(key * 31 + signature[band * ROWS + row]);
+                }
+                List<Integer> bucket = buckets.get(key);
+                if (bucket == null) {
+                    bucket = new ArrayList<>();
+                    buckets.put(key, bucket);
+                }
+                bucket.add(i);
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Check whether two Results (whose dates overlap) are of the same event.
+     *
+     * @param result the one Result.
+     * @param other  the other Result.
+     * @param words1 the words of the event of the one Result.
+     * @param words2 the words of the event of the other Result.
+     * @return true if they come from different Files and have similar events and subjects; false otherwise.
+     */
+    private boolean isSameEvent(Result result, Result other, Set<String> words1, Set<String> words2) {
+        FileData fileData = result.getFileData();
+        if (fileData != null && (fileData == other.getFileData() || fileData.equals(other.getFileData()))) {
+            return false;//two sentences of the same File are taken as different events
+        }
+        if (jaccard(words1, words2) < eventSimilarity) {
+            return false;
+        }
+        Set<String> subjects1 = normalize(result.getSubjects());
+        Set<String> subjects2 = normalize(other.getSubjects());
+        return (subjects1.isEmpty() && subjects2.isEmpty()) || jaccard(subjects1, subjects2) >= subjectSimilarity;
+    }
+
+    /**
+     * Merge a group of Results of the same event into a new Result: a copy of the Result with the most precise dates
+     * (the shortest range, then the most subjects), with the subjects and dates of all of them, that holds the Results
+     * of the group. A Result of the group that was merged before is replaced by the Results it was merged from.
+     *
+     * @param results the Results of the same event.
+     * @return the merged Result.
+     */
+    private static Result merge(List<Result> results) {
+        List<Result> group = new ArrayList<>();
+        for (Result result : results) {
+            if (result.getMergedResults().isEmpty()) {
+                group.add(result);
+            } else {
+                group.addAll(result.getMergedResults());
+            }
+        }
+        Result best = group.get(0);
+        for (Result result : group) {
+            int range = result.getTimelineDate().getRange();
+            int bestRange = best.getTimelineDate().getRange();
+            if (range < bestRange || (range == bestRange && result.getSubjects().size() > best.getSubjects().size())) {
+                best = result;
+            }
+        }
+        Result merged;
+        try {
+            merged = (Result) best.clone();
+        } catch (CloneNotSupportedException e) {//Result supports clone
+            throw new IllegalStateException(e);
+        }
+        for (Result result : group) {
+            for (String subject : result.getSubjects()) {
+                merged.addSubject(subject);
+            }
+            for (String date : result.getDates()) {
+                if (!merged.hasDate(date)) {
+                    merged.addDate(date);
+                }
+            }
+        }
+        merged.setMergedResults(group);
+        return merged;
+    }
+
+    /**
+     * Sort the given bucket of indexes by the first date of their Results.
+     *
+     * @param bucket  the given bucket.
+     * @param results the Results the indexes are of.
+     */
+    private static void sortByDate1(List<Integer> bucket, final List<Result> results) {
+        Collections.sort(bucket, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare(results.get(o1).getTimelineDate().getSortKey().getDate1(),
+                        results.get(o2).getTimelineDate().getSortKey().getDate1());
+            }
+        });
+    }
+
+    /**
+     * Get the last date of the given TimelineDate.
+     *
+     * @param timelineDate the given TimelineDate.
+     * @return date2 if it has one; date1 otherwise.
+     */
+    private static Date getEnd(TimelineDate timelineDate) {
+        return (timelineDate.getDate2() != null) ? timelineDate.getDate2() : timelineDate.getDate1();
+    }
+
+    /**
+     * Find the root of the group of the given index (making the path to it shorter on the way).
+     *
+     * @param parents the union-find forest.
+     * @param index   the given index.
+     * @return the root of its group.
+     */
+    private static int find(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    /**
+     * Get the words of the given event, in lower case and leaving out the most common English words.
+     *
+     * @param event the given event (can be null).
+     * @return the set of its words.
+     */
+    static Set<String> getWords(String event) {
+        Set<String> words = new HashSet<>();
+        if (event != null) {
+            for (String word : WORD_SPLIT.split(event.toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty() && !STOP_WORDS.contains(word)) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Get the given subjects in lower case.
+     *
+     * @param subjects the given subjects.
+     * @return the set of the subjects in lower case.
+     */
+    private static Set<String> normalize(Set<String> subjects) {
+        Set<String> normalized = new HashSet<>();
+        for (String subject : subjects) {
+            normalized.add(subject.trim().toLowerCase(Locale.ROOT));
+        }
+        return normalized;
+    }
+
+    /**
+     * Get the Jaccard similarity of two sets: the size of their intersection over the size of their union.
+     *
+     * @param set1 the one set.
+     * @param set2 the other set.
+     * @return the similarity (0 to 1, 0 if both are empty).
+     */
+    static double jaccard(Set<String> set1, Set<String> set2) {
+        if (set1.isEmpty() && set2.isEmpty()) {
+            return 0;
+        }
+        int intersection = 0;
+        for (String item : set1) {
+            if (set2.contains(item)) {
+                intersection++;
+            }
+        }
+        return intersection / (double) (set1.size() + set2.size() - intersection);
+    }
+
+    /**
+     * Get the MinHash signature of the given words: for each hash function, the minimum hash of the words.
+     *
+     * @param words the given words (not empty).
+     * @return the signature.
+     */
+    private static long[] getSignature(Set<String> words) {
+        long[] signature = new long[SEEDS.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String word : words) {
+            long wordHash = Hashing.mix(word.hashCode() * 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < SEEDS.length; i++) {
+                long hash = Hashing.mix(wordHash ^ SEEDS[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+}
@@ -11,6 +11,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.Date;
+import java.util.Objects;
 
 /**
  * Class that holds the relevant data (for this project) of a File. In this case, the File's name and path in the System.
@@ -105,6 +106,17 @@ public class FileData implements Comparable<FileData> {
         }
     }
 
+    /**
+     * Get the hash code of this FileData, from the same data equals compares (so FileData can be looked up in a
+     * HashSet instead of a List).
+     *
+     * @return the hash code of this FileData.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(fileName, filePath, creationDate);
+    }
+
     /**
      * The creationDate (or baseDate) of the File this is representing.
      *
@@ -128,6 +140,15 @@ public class FileData implements Comparable<FileData> {
         }
     }
 
+    /**
+     * Set the creation date for the File this FileData is representing.
+     *
+     * @param creationDate the creation date as a Date object.
+     */
+    public void setCreationDate(Date creationDate) {
+        this.creationDate = creationDate;
+    }
+
     /**
      * Get the creation date in the format of day, followed by month, followed by year.
      *
@@ -0,0 +1,55 @@
+package backend.process;
+
+import java.io.File;
+
+/**
+ * What a File was like at some point (its last modified time and size), so that what was worked out from it (its text,
+ * its annotations, its Results) can be dropped or done again once the File changes.
+ */
+public class FileFingerprint {
+    private final long lastModified;
+    private final long length;
+
+    /**
+     * Create the FileFingerprint of the given File as it is now.
+     *
+     * @param file the given File.
+     */
+    public FileFingerprint(File file) {
+        this.lastModified = file.lastModified();
+        this.length = file.length();
+    }
+
+    /**
+     * Whether or not the given File is as it was when this FileFingerprint was taken.
+     *
+     * @param file the given File.
+     * @return true if the File has the same last modified time and size; false otherwise.
+     */
+    public boolean isValidFor(File file) {
+        return file.lastModified() == lastModified && file.length() == length;
+    }
+
+    /**
+     * Checks whether the given input is equal to this object.
+     *
+     * @param obj the Object to check equality with this object.
+     * @return true if obj is a FileFingerprint with the same last modified time and size; false otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FileFingerprint)) {
+            return false;
+        }
+        FileFingerprint other = (FileFingerprint) obj;
+        return lastModified == other.lastModified && length == other.length;
+    }
+
+    /**
+     * @return a hash code consistent with equals.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(lastModified) * 31 + Long.hashCode(length);
+    }
+}
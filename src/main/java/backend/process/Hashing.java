@@ -0,0 +1,76 @@
+package backend.process;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The hashing shared by the classes that compare or look up texts: the seeds and bit mixing of the MinHash signatures
+ * (DuplicateDetector, EventClusterer), and the SHA-256 hashes of texts and request bodies (DuplicateDetector,
+ * ExtractionServer).
+ */
+public class Hashing {
+
+    /**
+     * Mix the bits of the given value (the finalizer of MurmurHash3), so that values that differ by a few bits give
+     * hashes that are independent of each other.
+     *
+     * @param value the given value.
+     * @return the mixed value.
+     */
+    public static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB93FE1A85B2BL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Make the seeds of the given number of hash functions (one for each hash of a MinHash signature), from the given
+     * initial seed, so each class can have hash functions of its own.
+     *
+     * @param initialSeed the given initial seed.
+     * @param count       the given number of hash functions.
+     * @return the seeds.
+     */
+    public static long[] makeSeeds(long initialSeed, int count) {
+        long[] seeds = new long[count];
+        long seed = initialSeed;
+        for (int i = 0; i < count; i++) {
+            seed = mix(seed + i);
+            seeds[i] = seed;
+        }
+        return seeds;
+    }
+
+    /**
+     * Get the SHA-256 hash of the given text (encoded as UTF-8).
+     *
+     * @param text the given text.
+     * @return the hash, in hexadecimal.
+     */
+    public static String sha256(String text) {
+        return sha256(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the SHA-256 hash of the given bytes.
+     *
+     * @param bytes the given bytes.
+     * @return the hash, in hexadecimal.
+     */
+    public static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder stringBuilder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                stringBuilder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return stringBuilder.toString();
+        } catch (NoSuchAlgorithmException e) {//every JVM has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
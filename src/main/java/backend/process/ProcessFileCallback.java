@@ -12,6 +12,7 @@ public interface ProcessFileCallback {
      *
      * @param results the Results from processing the given File passed into the ProcessFile Thread.
      * @param fileData the File Data of the File that produced these Results.
+     * @param sentences the number of sentences annotated in the given File (0 if its annotations were reused).
      */
-    void callBack(ArrayList<Result> results, FileData fileData);
+    void callBack(ArrayList<Result> results, FileData fileData, int sentences);
 }
@@ -1,8 +1,12 @@
 package backend.process;
 
+import backend.helpers.Sort;
 import backend.system.BackEndSystem;
+import backend.system.Settings;
+import backend.system.SettingsListener;
 import backend.system.SystemState;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
@@ -11,21 +15,47 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
  * Handles the parsing of files, and the multi-threading of the backend.process.Engine.
+ * <p>
+ * While Files are being processed, the Settings can be changed: a new maximum number of Threads is adopted straight
+ * away (by the Files that have not started yet), and new options for the Engine are used for the Files started after
+ * the change (those already started keep the Engine they started with).
+ * <p>
+ * If the Settings leave the number of Threads to the System (Settings.isAutoThreads), a ThreadTuner resizes the
+ * semaphore while the Files are processed, from the available processors and the heap.
+ * <p>
+ * Each File has a deadline (Settings.getMaxDocumentTime): a File not processed by then is given up on (its Thread is
+ * interrupted, and it is counted as done), so that a document that hangs PDFBox, POI or the parser does not stop the
+ * load from finishing. Interrupting is only cooperative: the Engine annotates one sentence at a time and stops after
+ * the sentence it is on, but PDFBox and POI do not check it, so a Thread given up on while extracting text keeps running
+ * (holding its document) until the text is extracted. Its permit is only released when it stops running, so there are
+ * never more Threads running than the semaphore allows, and the ThreadTuner counts them too.
+ * Files that time out or throw are recorded in the Quarantine, and Files quarantined are skipped.
+ * <p>
+ * The progress of the Files (see ProcessProgress) is updated as each is done, and passed to the ProgressListener.
  */
-public class ProcessFiles implements ProcessFileCallback {
-    private static int maxNoOfThreads;//this value is determined by the settings of the System (by default 2)
-    private Semaphore semaphore;//will use the maxNoOfThreads to control how many Threads will be running in parallel
+public class ProcessFiles implements ProcessFileCallback, SettingsListener {
+    private ResizableSemaphore semaphore;//the maximum number of Threads (from the Settings) running in parallel
+    private ThreadTuner threadTuner;//while the number of Threads is chosen by the System, else null
     private Semaphore semaphoreFinished = new Semaphore(0);//so that we wait until all threads finish
-    private ArrayList<Result> results = new ArrayList<>();
+    private List<List<Result>> sortedRuns = new ArrayList<>();//the Results of each File, sorted by their date1
     private int filesToGo;//to notify the listener when it is done
+    private Engine engine;//shared by the ProcessFile Threads started with the same options
+    private volatile EngineOptions engineOptions;//the options of the Settings, for the next Files started
+    private DuplicateDetector duplicateDetector;//so copies of the same document in a load are only processed once
+    private volatile ProcessProgress progress;//of the Files being processed, null until they are started
+    private ProgressListener progressListener;//informed of the progress, or null
 
     /**
      * For the list of Files passed in, it will process each in separate threads, while respecting the maximum number
@@ -38,59 +68,111 @@ public class ProcessFiles implements ProcessFileCallback {
      * @param files     the list of File objects that contain text that needs to be processed (atm only processes .docx/.pdf/.txt files)
      * @param fileDatas the list of FileData objects, where the index corresponds the File in the same index in the files list, that
      *                  contains the needed data for each File.
+     * @return the Results of all the Files, sorted by their date1 in ascending order, or null if Files are already being
+     * processed.
      */
     public List<Result> processFiles(List<File> files, List<FileData> fileDatas) {
-        maxNoOfThreads = BackEndSystem.getInstance().getSettings().getMaxNoOfThreads();//get the Settings value
-        semaphore = new Semaphore(maxNoOfThreads);//set the Max number of Threads that can run in parallel
+        Settings settings = BackEndSystem.getInstance().getSettings();
+        int maxNoOfThreads = settings.isAutoThreads() ? ThreadTuner.getInitialThreads() : settings.getMaxNoOfThreads();//get the Settings value
+        semaphore = new ResizableSemaphore(maxNoOfThreads);//set the Max number of Threads that can run in parallel
+        engineOptions = EngineOptions.fromSettings(settings);
+        engine = new Engine(engineOptions);//with the Settings as they are now, until they change
+        duplicateDetector = new DuplicateDetector();
         //should only run if we are not Processing
         //this will also set up the StanfordCoreNLP (when GUI is implemented, it will already by set up, as it will be the first thing ran)
         System.out.println("Will try to run, with maxNoOfThreads: " + maxNoOfThreads + " and available permits: " + semaphore.availablePermits());
         if (BackEndSystem.getInstance().getSystemState() != SystemState.PROCESSING && files.size() == fileDatas.size()) {//if we arent processing, then we can begin to do that
-            filesToGo = files.size();//and when we need to call
-            BackEndSystem.getInstance().setSystemState(SystemState.PROCESSING);
+            List<Integer> toProcess = new ArrayList<>();//the indices of the Files that are not quarantined
             for (int i = 0; i < files.size(); i++) {
+                if (Quarantine.getInstance().isQuarantined(files.get(i))) {
+                    System.out.println("Not processing " + files.get(i).getName() + " as it is quarantined");
+                } else {
+                    toProcess.add(i);
+                }
+            }
+            filesToGo = toProcess.size();//and when we need to call
+            long bytesTotal = 0;
+            for (int i : toProcess) {
+                bytesTotal += files.get(i).length();
+            }
+            progress = new ProcessProgress(toProcess.size(), bytesTotal);
+            BackEndSystem.getInstance().setSystemState(SystemState.PROCESSING);
+            BackEndSystem.getInstance().addSettingsListener(this);//to adopt changes of the Settings while processing
+            if (settings.isAutoThreads()) {
+                startThreadTuner();
+            }
+            final long maxDocumentTime = settings.getMaxDocumentTime();
+            Timer deadlines = new Timer("ProcessFiles-deadlines", true);
+            for (int i : toProcess) {
                 File file = files.get(i);
                 FileData fileData = fileDatas.get(i);//should be the same
                 //check they are the same?
                 //acquire from the semaphore
                 try {
                     semaphore.acquire();//will wait if there is already maxnoofthreads running, until one finishes: then it gets to run
+                    EngineOptions options = engineOptions;
+                    if (!options.equals(engine.getOptions())) {//the Settings changed, so the Files started from now on use them
+                        System.out.println("Settings changed, processing the remaining Files with: " + options);
+                        engine = new Engine(options);
+                    }
                     //process file
-                    Thread thread = new ProcessFile(file, this, fileData);//pass a reference so that the thread can call this when it finishes processing the file
-                    thread.start();//start processing this file(get its text and pass it to the backend.process.Engine)
+                    final ProcessFile processFile = new ProcessFile(file, this, fileData, engine, duplicateDetector, semaphore);//pass a reference so that the thread can call this when it finishes processing the file
+                    processFile.setDaemon(true);//if it is given up on, it does not keep the program running
+                    processFile.start();//start processing this file(get its text and pass it to the backend.process.Engine)
+                    deadlines.schedule(new TimerTask() {
+                        @Override
+                        public void run() {
+                            processFile.timeOut(maxDocumentTime);
+                        }
+                    }, maxDocumentTime);
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                     //should release semaphore and reduce filesToGo count if the Thread is interrupted
                 }
             }
-            try {
-                semaphoreFinished.acquire();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            if (toProcess.isEmpty()) {//every File is quarantined, so there is nothing to wait for
+                BackEndSystem.getInstance().setSystemState(SystemState.PROCESSED);
+                BackEndSystem.getInstance().setSystemState(SystemState.FINISHED);
+            } else {
+                try {
+                    semaphoreFinished.acquire();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
             }
-            return results;
+            deadlines.cancel();
+            BackEndSystem.getInstance().removeSettingsListener(this);
+            stopThreadTuner();
+            System.out.println("Engine metrics: " + BackEndSystem.getInstance().getEngineMetrics());
+            //each File's Results were sorted by its own Thread, so they only need to be merged
+            return Sort.mergeByDate1(sortedRuns);
         }
         return null;
     }
 
     /**
      * Called when the ProcessFile Thread has finished processing a file. It is synchronized to avoid two separate threads
-     * trying to add to the list of Results at the same time.
-     * Enforces the rule of releasing the semaphore, as this Thread finished running, to then allow waiting Threads to run.
+     * trying to add to the list of sorted runs at the same time.
+     * The permit of the Thread is not released here, but by the Thread when it stops running (it can still be running
+     * if it was given up on).
      * Will inform the CallbackResult object when it finishes processing all Files.
      *
-     * @param results  the backend.process.Result objects produced by Processing the given file in the Thread.
-     * @param fileData the data of the File that produced these Results
+     * @param results   the backend.process.Result objects produced by Processing the given file in the Thread, sorted by
+     *                  their date1.
+     * @param fileData  the data of the File that produced these Results
+     * @param sentences the number of sentences annotated in the File.
      */
-    public synchronized void callBack(ArrayList<Result> results, FileData fileData) {
+    public synchronized void callBack(ArrayList<Result> results, FileData fileData, int sentences) {
         //we finished processing a file
         filesToGo--;//one less to look at
-        System.out.println("Files to go: " + filesToGo);
-        //add the results to the list held
-        this.results.addAll(results);
-        //release semaphore
-        System.out.println("Released semaphore from Thread: " + Thread.currentThread().toString());
-        semaphore.release();
+        progress.documentDone((fileData.getFilePath() != null) ? new File(fileData.getFilePath()).length() : 0);
+        progress.addSentences(sentences);//counted per File, as the System also annotates for other loads
+        System.out.println("Progress: " + progress);
+        if (progressListener != null) {
+            progressListener.progressChanged(progress);
+        }
+        //hold the sorted results, to be merged with the others once every file has been processed
+        sortedRuns.add(results);
         //check if we have processed everything, if so release the finished semaphore
         if (filesToGo == 0) {
             //has processed
@@ -102,13 +184,90 @@ public class ProcessFiles implements ProcessFileCallback {
     }
 
     /**
-     * Called to return the text of a given File.
+     * Set who to inform of the progress as each File is done. Should be set before the Files are processed.
+     *
+     * @param progressListener who to inform of the progress, or null.
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Get the progress of the Files being processed (i.e. to show it periodically).
+     *
+     * @return the progress, or null if the Files have not been started.
+     */
+    public ProcessProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Called when the Settings are changed while the Files are being processed. The new maximum number of Threads is
+     * applied to the semaphore straight away (if it is lower, no File is started until enough have finished), and the
+     * new options for the Engine are used from the next File started (the Engine is not made here, as loading its
+     * models can take a while and this is called on the Thread that changed the Settings). If the number of Threads is
+     * now chosen by the System, a ThreadTuner resizes the semaphore instead.
+     *
+     * @param oldSettings the Settings used before.
+     * @param newSettings the Settings used from now on.
+     */
+    @Override
+    public synchronized void settingsChanged(Settings oldSettings, Settings newSettings) {
+        if (newSettings.isAutoThreads()) {
+            startThreadTuner();//the semaphore is resized by it from now on
+        } else if (threadTuner != null || newSettings.getMaxNoOfThreads() != semaphore.getPermits()) {
+            stopThreadTuner();
+            System.out.println("Maximum number of Threads changed from " + semaphore.getPermits() + " to " + newSettings.getMaxNoOfThreads());
+            semaphore.setPermits(newSettings.getMaxNoOfThreads());
+        }
+        engineOptions = EngineOptions.fromSettings(newSettings);
+    }
+
+    /**
+     * Start a ThreadTuner to resize the semaphore, if one is not running already.
+     */
+    private synchronized void startThreadTuner() {
+        if (threadTuner == null) {
+            threadTuner = new ThreadTuner(semaphore);
+            threadTuner.start();
+        }
+    }
+
+    /**
+     * Stop the ThreadTuner resizing the semaphore, if one is running.
+     */
+    private synchronized void stopThreadTuner() {
+        if (threadTuner != null) {
+            threadTuner.stop();
+            threadTuner = null;
+        }
+    }
+
+    /**
+     * Called to return the text of a given File. The text is taken from the TextCache if it was extracted before (i.e.
+     * when the File was processed), otherwise it is extracted and then held in the TextCache.
      *
      * @param file the given File.
      * @return the text of the given File.
      */
     public String getTextInFile(File file) {
-        return new ProcessFile(file, null, null).getText(file);
+        String text = TextCache.getInstance().get(file);
+        if (text == null) {
+            text = extractText(file);
+            TextCache.getInstance().put(file, text);
+        }
+        return text;
+    }
+
+    /**
+     * Called to extract the text of a given File, without the TextCache (i.e. for a temporary File that will not be
+     * shown in the document reader).
+     *
+     * @param file the given File (.docx/.pdf/.txt).
+     * @return the text of the given File, or an empty String if it was not possible to get text from it.
+     */
+    public String extractText(File file) {
+        return new ProcessFile(file, null, null, null, null, null).getText(file);
     }
 
     /**
@@ -119,6 +278,13 @@ public class ProcessFiles implements ProcessFileCallback {
         File file;
         ProcessFileCallback processFileCallback;
         FileData fileData;
+        Engine engine;
+        DuplicateDetector duplicateDetector;
+        ResizableSemaphore semaphore;//the permit of this Thread is released to it when the Thread stops running
+        int sentences;//annotated in the File by this Thread
+        int[] pageStarts;//the offsets in the text where each page starts (only when the text is from a PDF)
+        volatile Quarantine.Stage stage = Quarantine.Stage.EXTRACTING;//what is being done to the File
+        final AtomicBoolean reported = new AtomicBoolean();//whether the callback was told (it is only told once)
 
         /**
          * Create a ProcessFile object that holds the data needed: the File to process and who to callback when the
@@ -126,37 +292,117 @@ public class ProcessFiles implements ProcessFileCallback {
          *
          * @param file                the File to process.
          * @param processFileCallback who to inform when the backend.process.Engine finished processing the given file.
+         * @param fileData            the FileData of the File to process.
+         * @param engine              the Engine that processes the text (shared with the other ProcessFile Threads).
+         * @param duplicateDetector   finds if the text is a copy of a File processed before it in the same load (shared
+         *                            with the other ProcessFile Threads), or null to process it anyway.
+         * @param semaphore           the semaphore this Thread acquired a permit from, to release it when it stops.
          */
-        ProcessFile(File file, ProcessFileCallback processFileCallback, FileData fileData) {//hold sempahore
+        ProcessFile(File file, ProcessFileCallback processFileCallback, FileData fileData, Engine engine, DuplicateDetector duplicateDetector, ResizableSemaphore semaphore) {//hold sempahore
             this.file = file;
             this.processFileCallback = processFileCallback;
             this.fileData = fileData;
+            this.engine = engine;
+            this.duplicateDetector = duplicateDetector;
+            this.semaphore = semaphore;
         }
 
         /**
          * What starts running on a separate Thread. Will first get the Text for the given file, and then pass it to the
          * backend.process.Engine, which will return a list of Results that is passed to the backend.process.ProcessFileCallback.
+         * If processing the File throws, it is recorded in the Quarantine and the callback is passed no Results.
+         * The permit of the Thread is released when it stops, even if it was given up on before.
          */
         @Override
         public void run() {
             super.run();
             System.out.println("For: " + file + " in Thread: " + Thread.currentThread().toString());//for logging purposes
+            try {
+                ArrayList<Result> toReturnResults;
+                try {
+                    toReturnResults = process();
+                } catch (RuntimeException | StackOverflowError e) {//i.e. a malformed document
+                    if (reported.compareAndSet(false, true)) {//else it timed out, and this is the Engine giving up
+                        e.printStackTrace();
+                        Quarantine.getInstance().recordFailure(file, stage, e.toString());
+                        processFileCallback.callBack(new ArrayList<Result>(), fileData, sentences);
+                    }
+                    return;
+                }
+                Sort.sortByDate1(toReturnResults);//sorted in this Thread, so only a merge is left once all the Files are processed
+                //call the backend.process.ProcessFileCallback that we finished processing and return the results of processing that one File.
+                if (reported.compareAndSet(false, true)) {
+                    Quarantine.getInstance().recordSuccess(file);
+                    processFileCallback.callBack(toReturnResults, fileData, sentences);
+                }
+            } finally {
+                //release semaphore, only now that this Thread is no longer running
+                System.out.println("Released semaphore from Thread: " + Thread.currentThread().toString());
+                semaphore.release();
+            }
+        }
+
+        /**
+         * Called when the deadline of the File is reached. If it has not been processed yet, it is given up on: it is
+         * recorded in the Quarantine, its Thread is interrupted (so the Engine stops after the sentence it is on), and
+         * the callback is passed no Results (so the load can finish). The Thread keeps its permit until it stops, as
+         * PDFBox and POI do not stop when interrupted.
+         *
+         * @param maxDocumentTime the time the File was given to be processed, in ms.
+         */
+        void timeOut(long maxDocumentTime) {
+            if (reported.compareAndSet(false, true)) {
+                Quarantine.getInstance().recordFailure(file, stage, "Timed out after " + maxDocumentTime / 1000 + "s");
+                interrupt();
+                processFileCallback.callBack(new ArrayList<Result>(), fileData, 0);
+            }
+        }
+
+        /**
+         * Get the text for the given file, and pass it to the backend.process.Engine (or resolve the dates of its
+         * annotations again, if it was annotated before).
+         *
+         * @return the Results of the File, not sorted.
+         */
+        private ArrayList<Result> process() {
             ArrayList<Result> toReturnResults = new ArrayList<>();//initially no results
             //check file exists in system
             if (fileExists(file)) {
-                //fileData = new FileData(file.getName(), file.getAbsolutePath());
-                //get the text for that file
-                String toProcess = getText(file);//will get the text for the file considering its extension
-                //run engine on this
-                if (!toProcess.equals("")) {//if we actually have text to process, don't waste time attempting to process else
-                    String baseDate = fileData.getCreationDateFormattedYearMonthDay();//since we will need to process, get a base date to use
-                    System.out.println("Base Date for " + file.getName() + " is: " + baseDate);
-                    toReturnResults = new Engine().getResults(toProcess, baseDate);//pass in file data, so each result holds it
+                String baseDate = fileData.getCreationDateFormattedYearMonthDay();
+                DocumentAnnotations documentAnnotations = AnnotationCache.getInstance().get(file);
+                if (documentAnnotations != null && engine.canResolveDates(documentAnnotations)) {
+                    stage = Quarantine.Stage.ANNOTATING;
+                    //annotated before, so only the dates need to be resolved again (the base date could have changed),
+                    //and the events trimmed again if the threshold changed
+                    System.out.println("Reusing the annotations of " + file.getName() + " with Base Date: " + baseDate);
+                    toReturnResults = engine.resolveDates(documentAnnotations, baseDate);
+                    pageStarts = documentAnnotations.getPageStarts();
                     addFileData(fileData, toReturnResults);
+                    addPages(toReturnResults);
+                } else {
+                    //fileData = new FileData(file.getName(), file.getAbsolutePath());
+                    //get the text for that file
+                    String toProcess = getText(file);//will get the text for the file considering its extension
+                    TextCache.getInstance().put(file, toProcess);//so the document reader shows the same text, without extracting it again
+                    //a copy of a File already processed (i.e. the same story from another source) would only add the same events again
+                    String original = (duplicateDetector != null && !toProcess.equals("")) ? duplicateDetector.findDuplicate(file.getName(), toProcess) : null;
+                    //run engine on this
+                    if (original != null) {
+                        System.out.println("Not processing " + file.getName() + " as it is a copy of " + original);
+                    } else if (!toProcess.equals("") && !isInterrupted()) {//if we actually have text to process, don't waste time attempting to process else
+                        stage = Quarantine.Stage.ANNOTATING;
+                        System.out.println("Base Date for " + file.getName() + " is: " + baseDate);
+                        documentAnnotations = new DocumentAnnotations(baseDate, engine.getOptions());
+                        toReturnResults = engine.getResults(toProcess, baseDate, documentAnnotations);//pass in file data, so each result holds it
+                        sentences = documentAnnotations.getSentences();
+                        documentAnnotations.setPageStarts(pageStarts);
+                        AnnotationCache.getInstance().put(file, documentAnnotations);//so a change of base date does not annotate it again
+                        addFileData(fileData, toReturnResults);
+                        addPages(toReturnResults);
+                    }
                 }
             }
-            //call the backend.process.ProcessFileCallback that we finished processing and return the results of processing that one File.
-            processFileCallback.callBack(toReturnResults, fileData);
+            return toReturnResults;
         }
 
         /**
@@ -171,6 +417,45 @@ public class ProcessFiles implements ProcessFileCallback {
             }
         }
 
+        /**
+         * For the list passed in, set the page each Result's sentence starts on (from its offset in the text), if the
+         * text is from a PDF.
+         *
+         * @param results the Results for which the page needs to be set.
+         */
+        private void addPages(ArrayList<Result> results) {
+            if (pageStarts != null && pageStarts.length > 0) {
+                for (Result result : results) {
+                    if (result.hasOffsets()) {
+                        result.setPage(getPage(result.getBeginOffset()));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Get the page (starting at 1) that the given offset in the text of the PDF is on, by a binary search of the
+         * offsets where the pages start. Empty pages start at the same offset as the page after them.
+         *
+         * @param offset the given offset.
+         * @return the page of the offset.
+         */
+        private int getPage(int offset) {
+            int low = 0;
+            int high = pageStarts.length - 1;
+            int page = 0;//the last page starting at or before the offset
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (pageStarts[middle] <= offset) {
+                    page = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return page + 1;
+        }
+
         /**
          * Check that we can actually use the given File.
          *
@@ -213,7 +498,8 @@ public class ProcessFiles implements ProcessFileCallback {
 
 
         /**
-         * Get the text for a PDF File using the appropriate library (Apache PDFBox).
+         * Get the text for a PDF File using the appropriate library (Apache PDFBox). The offsets in the text where each
+         * page starts are recorded (in pageStarts), so the page of each Result can be found.
          *
          * @param file PDF File to get text from.
          * @return the text in the PDF File, or an empty String if it was not possible.
@@ -222,10 +508,32 @@ public class ProcessFiles implements ProcessFileCallback {
             String toReturn = "";//base text, if it fails we just return empty text
             try {
                 PDDocument pdDocument = PDDocument.load(file);//create Document that has processed the bytes in the pdf file
-                PDFTextStripper pdfTextStripper = new PDFTextStripper();
+                StringWriter rawText = new StringWriter();
+                List<Integer> rawPageStarts = new ArrayList<>();
+                PDFTextStripper pdfTextStripper = new PDFTextStripper() {
+                    @Override
+                    protected void startPage(PDPage page) throws IOException {
+                        rawPageStarts.add(rawText.getBuffer().length());//the text of the previous page has been written
+                        super.startPage(page);
+                    }
+                };
                 //pdfTextStripper.setSortByPosition(true);//in the case the program that created the page, didnt place the text in the order it is shown (so could read text in wrong order)
-                toReturn = pdfTextStripper.getText(pdDocument).replaceAll(pdfTextStripper.getLineSeparator(), "");//to then get its text
+                pdfTextStripper.writeText(pdDocument, rawText);//to then get its text
                 pdDocument.close();//always remember to close the stream, or document in this case
+                //remove the line separators page by page, to know where the pages start in the text without them
+                String raw = rawText.toString();
+                String lineSeparator = pdfTextStripper.getLineSeparator();
+                StringBuilder text = new StringBuilder(raw.length());
+                int[] starts = new int[rawPageStarts.size()];
+                int from = 0;
+                for (int i = 0; i < starts.length; i++) {
+                    text.append(raw.substring(from, rawPageStarts.get(i)).replace(lineSeparator, ""));
+                    starts[i] = text.length();
+                    from = rawPageStarts.get(i);
+                }
+                text.append(raw.substring(from).replace(lineSeparator, ""));
+                pageStarts = starts;
+                toReturn = text.toString();
             } catch (IOException e) {
                 e.printStackTrace();
             }
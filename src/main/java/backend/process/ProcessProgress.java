@@ -0,0 +1,239 @@
+package backend.process;
+
+import java.util.Locale;
+
+/**
+ * The progress of processing a batch of documents: the documents and bytes done and remaining, the sentences annotated,
+ * how fast the documents are being processed, and when they should all be done. It can be updated and read by any
+ * number of Threads at the same time.
+ * <p>
+ * The throughput (bytes of the documents per second) is smoothed over the recent rates, weighting each rate by how long
+ * it was measured over (an exponentially weighted moving average, where a rate from SMOOTHING_MS ago counts for about a
+ * third as much as the latest), so the estimated time left follows changes in speed (i.e. a run of large PDFs) without
+ * jumping around with each document.
+ */
+public class ProcessProgress {
+    public final static long UNKNOWN = -1;
+    private final static double SMOOTHING_MS = 30000;
+    private final int documentsTotal;
+    private final long bytesTotal;
+    private final long startTime;
+    private int documentsDone;
+    private long bytesDone;
+    private long sentences;
+    private long lastTime;//when the rate was last measured
+    private long lastBytes;//the bytes done then
+    private double rate = UNKNOWN;//smoothed, in bytes per ms
+
+    /**
+     * Create the ProcessProgress of a batch starting now.
+     *
+     * @param documentsTotal the number of documents in the batch.
+     * @param bytesTotal     the total size of the documents in the batch, in bytes.
+     */
+    public ProcessProgress(int documentsTotal, long bytesTotal) {
+        this(documentsTotal, bytesTotal, System.currentTimeMillis());
+    }
+
+    /**
+     * Create the ProcessProgress of a batch.
+     *
+     * @param documentsTotal the number of documents in the batch.
+     * @param bytesTotal     the total size of the documents in the batch, in bytes.
+     * @param startTime      when the batch started, in ms.
+     */
+    public ProcessProgress(int documentsTotal, long bytesTotal, long startTime) {
+        this.documentsTotal = documentsTotal;
+        this.bytesTotal = bytesTotal;
+        this.startTime = startTime;
+        this.lastTime = startTime;
+    }
+
+    /**
+     * Record that a document of the batch is done (processed, or given up on) now.
+     *
+     * @param bytes the size of the document, in bytes.
+     */
+    public void documentDone(long bytes) {
+        documentDone(bytes, System.currentTimeMillis());
+    }
+
+    /**
+     * Record that a document of the batch is done (processed, or given up on), and measure the rate since the last time
+     * it was measured.
+     *
+     * @param bytes the size of the document, in bytes.
+     * @param now   when it was done, in ms.
+     */
+    public synchronized void documentDone(long bytes, long now) {
+        documentsDone++;
+        bytesDone += bytes;
+        long elapsed = now - lastTime;
+        if (elapsed > 0) {//documents done in the same ms are measured with the next
+            double recentRate = (double) (bytesDone - lastBytes) / elapsed;
+            double weight = 1 - Math.exp(-elapsed / SMOOTHING_MS);
+            rate = (rate == UNKNOWN) ? recentRate : rate + weight * (recentRate - rate);
+            lastTime = now;
+            lastBytes = bytesDone;
+        }
+    }
+
+    /**
+     * Count the given number of sentences annotated in the batch (i.e. those of a document done).
+     *
+     * @param count the number of sentences annotated.
+     */
+    public synchronized void addSentences(long count) {
+        sentences += count;
+    }
+
+    /**
+     * Get the number of documents done.
+     *
+     * @return the number of documents done.
+     */
+    public synchronized int getDocumentsDone() {
+        return documentsDone;
+    }
+
+    /**
+     * Get the number of documents in the batch.
+     *
+     * @return the number of documents in the batch.
+     */
+    public int getDocumentsTotal() {
+        return documentsTotal;
+    }
+
+    /**
+     * Get the size of the documents done.
+     *
+     * @return the bytes done.
+     */
+    public synchronized long getBytesDone() {
+        return bytesDone;
+    }
+
+    /**
+     * Get the total size of the documents in the batch.
+     *
+     * @return the bytes in the batch.
+     */
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    /**
+     * Get the number of sentences annotated so far.
+     *
+     * @return the number of sentences annotated.
+     */
+    public synchronized long getSentences() {
+        return sentences;
+    }
+
+    /**
+     * Get the time since the batch started.
+     *
+     * @param now the time now, in ms.
+     * @return the time elapsed, in ms.
+     */
+    public long getElapsed(long now) {
+        return now - startTime;
+    }
+
+    /**
+     * Get the share of the batch done, by bytes (or by documents, if the documents are empty).
+     *
+     * @return the share done, from 0 to 1.
+     */
+    public synchronized double getFraction() {
+        if (bytesTotal > 0) {
+            return (double) bytesDone / bytesTotal;
+        }
+        return (documentsTotal > 0) ? (double) documentsDone / documentsTotal : 1;
+    }
+
+    /**
+     * Get how fast the documents are being processed lately.
+     *
+     * @return the smoothed throughput, in bytes per second, or UNKNOWN before a document is done.
+     */
+    public synchronized long getThroughput() {
+        return (rate == UNKNOWN) ? UNKNOWN : Math.round(rate * 1000);
+    }
+
+    /**
+     * Get the estimated time left until every document is done, at the smoothed throughput.
+     *
+     * @return the time left in ms, or UNKNOWN if it can not be estimated yet.
+     */
+    public synchronized long getEta() {
+        if (documentsDone >= documentsTotal) {
+            return 0;
+        }
+        if (rate <= 0) {
+            return UNKNOWN;
+        }
+        return Math.round((bytesTotal - bytesDone) / rate);
+    }
+
+    /**
+     * @return a String showing the progress, i.e. "3/10 documents, 1.2/4.0 MB, 812 sentences, 20.5 KB/s, 2m 30s left"
+     * (without the time left once every document is done).
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(documentsDone).append('/').append(documentsTotal).append(" documents, ");
+        stringBuilder.append(formatBytes(bytesDone)).append('/').append(formatBytes(bytesTotal));
+        if (sentences > 0) {
+            stringBuilder.append(", ").append(sentences).append(" sentences");
+        }
+        long throughput = getThroughput();
+        if (throughput != UNKNOWN) {
+            stringBuilder.append(", ").append(formatBytes(throughput)).append("/s");
+        }
+        if (documentsDone < documentsTotal) {
+            long eta = getEta();
+            stringBuilder.append(", ").append((eta == UNKNOWN) ? "time left unknown" : formatDuration(eta) + " left");
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Format the given number of bytes, i.e. "1.2 MB".
+     *
+     * @param bytes the given number of bytes.
+     * @return the formatted bytes.
+     */
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+    }
+
+    /**
+     * Format the given duration, i.e. "1h 5m", "2m 30s" or "12s".
+     *
+     * @param ms the given duration, in ms.
+     * @return the formatted duration.
+     */
+    public static String formatDuration(long ms) {
+        long seconds = Math.round(ms / 1000.0);
+        if (seconds >= 3600) {
+            return (seconds / 3600) + "h " + (seconds % 3600) / 60 + "m";
+        } else if (seconds >= 60) {
+            return (seconds / 60) + "m " + (seconds % 60) + "s";
+        }
+        return seconds + "s";
+    }
+}
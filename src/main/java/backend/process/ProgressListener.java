@@ -0,0 +1,14 @@
+package backend.process;
+
+/**
+ * Interface to be implemented, to inform the Listener of the progress of processing a batch of Files. It is called on
+ * the Thread that finished processing a File.
+ */
+public interface ProgressListener {
+    /**
+     * Inform the Listener that a File of the batch is done (processed, or given up on).
+     *
+     * @param progress the progress of the batch.
+     */
+    void progressChanged(ProcessProgress progress);
+}
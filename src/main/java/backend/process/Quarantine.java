@@ -0,0 +1,331 @@
+package backend.process;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The documents that could not be processed (they took longer than the Settings allow, or processing them threw), with
+ * the stage they failed at and why, kept in the "quarantine.json" File so they are known across runs. A document that
+ * failed MAX_FAILURES times is quarantined: it is skipped by ProcessFiles, so that one broken document does not hold up
+ * every load it is part of, until the user retries it (or it changes, i.e. its last modified time or size is different).
+ * A document that is processed is taken out of the quarantine.
+ * <p>
+ * The File can be shared by many processes (i.e. the ShardWorkers): each change is made while holding a lock on
+ * "<file>.lock", to the Entries read again from the File (so the changes of the others are kept), and the File is
+ * written whole to a temporary File that is then moved over it, so it is never seen half written.
+ */
+public class Quarantine {
+    public final static int MAX_FAILURES = 2;
+    private final static String QUARANTINE_FILE = "quarantine.json";
+    private static Quarantine quarantine;
+    private final File file;
+    private final File lockFile;//locked by the process changing the File
+    private final Map<String, Entry> entries = new LinkedHashMap<>();//by the absolute path of the document
+
+    /**
+     * What was being done to a document when it failed.
+     */
+    public enum Stage {
+        EXTRACTING,//getting the text of the document (PDFBox, POI)
+        ANNOTATING//finding the events in the text (StanfordCoreNLP)
+    }
+
+    /**
+     * A document that failed, and why it failed the last time.
+     */
+    public static class Entry {
+        private String path;
+        private String name;
+        private Stage stage;
+        private String reason;
+        private int failures;
+        private long lastModified;
+        private long length;
+
+        /**
+         * Create an Entry for the given document (as it is now), that has not failed yet.
+         *
+         * @param document the given document.
+         */
+        Entry(File document) {
+            this.path = document.getAbsolutePath();
+            this.name = document.getName();
+            this.lastModified = document.lastModified();
+            this.length = document.length();
+        }
+
+        /**
+         * Whether or not the given document is as it was when it failed.
+         *
+         * @param document the given document.
+         * @return true if the document has not changed; false otherwise.
+         */
+        boolean isValidFor(File document) {
+            return document.lastModified() == lastModified && document.length() == length;
+        }
+
+        /**
+         * Get the absolute path of the document.
+         *
+         * @return the path of the document.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the name of the document.
+         *
+         * @return the name of the document.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get what was being done to the document when it last failed.
+         *
+         * @return the Stage it failed at.
+         */
+        public Stage getStage() {
+            return stage;
+        }
+
+        /**
+         * Get why the document last failed.
+         *
+         * @return the reason it failed.
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Get the number of times the document failed.
+         *
+         * @return the number of failures.
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * Whether or not the document failed often enough to be skipped.
+         *
+         * @return true if it failed at least MAX_FAILURES times; false otherwise.
+         */
+        public boolean isQuarantined() {
+            return failures >= MAX_FAILURES;
+        }
+    }
+
+    /**
+     * Create a Quarantine kept in the given File, with the documents already in it (if it exists).
+     *
+     * @param file the File the Quarantine is kept in.
+     */
+    public Quarantine(File file) {
+        this.file = file;
+        this.lockFile = new File(file.getPath() + ".lock");
+        load();
+    }
+
+    /**
+     * Get the Quarantine shared by the System (kept in "quarantine.json").
+     *
+     * @return the shared Quarantine.
+     */
+    public static synchronized Quarantine getInstance() {
+        if (quarantine == null) {
+            quarantine = new Quarantine(new File(QUARANTINE_FILE));
+        }
+        return quarantine;
+    }
+
+    /**
+     * Whether or not the given document is quarantined, so it should not be processed. A document that changed since
+     * it failed is taken out of the quarantine.
+     *
+     * @param document the given document.
+     * @return true if the document failed at least MAX_FAILURES times and has not changed since; false otherwise.
+     */
+    public synchronized boolean isQuarantined(File document) {
+        Entry entry = getEntry(document);
+        return entry != null && entry.isQuarantined();
+    }
+
+    /**
+     * Record that the given document failed.
+     *
+     * @param document the given document.
+     * @param stage    what was being done to it when it failed.
+     * @param reason   why it failed.
+     */
+    public synchronized void recordFailure(File document, Stage stage, String reason) {
+        try (FileChannel locked = lock()) {//null if it could not be locked, then the change is still made
+            Entry entry = getEntry(document);
+            if (entry == null) {
+                entry = new Entry(document);
+                entries.put(entry.path, entry);
+            }
+            entry.stage = stage;
+            entry.reason = reason;
+            entry.failures++;
+            System.out.println("Failed to process " + document.getName() + " (" + entry.failures + " times) while " + stage + ": " + reason);
+            save();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Record that the given document was processed, taking it out of the quarantine.
+     *
+     * @param document the given document.
+     */
+    public synchronized void recordSuccess(File document) {
+        if (!entries.containsKey(document.getAbsolutePath())) {
+            return;//there is nothing to take out (unless another process put it in since, and then it failed there)
+        }
+        try (FileChannel locked = lock()) {
+            if (entries.remove(document.getAbsolutePath()) != null) {
+                save();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Take the documents with the given paths out of the quarantine, so they are processed the next time they are
+     * loaded.
+     *
+     * @param paths the absolute paths of the documents.
+     */
+    public synchronized void retry(Collection<String> paths) {
+        try (FileChannel locked = lock()) {
+            boolean changed = false;
+            for (String path : paths) {
+                changed |= entries.remove(path) != null;
+            }
+            if (changed) {
+                save();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Get the Entries of those of the given documents that failed (and have not changed since).
+     *
+     * @param documents the given documents.
+     * @return the Entries of the documents that failed, in the order of the documents.
+     */
+    public synchronized List<Entry> getEntries(Collection<File> documents) {
+        List<Entry> found = new ArrayList<>();
+        for (File document : documents) {
+            Entry entry = getEntry(document);
+            if (entry != null) {
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get the Entry of the given document, unless the document changed since it failed (the Entry is then replaced
+     * when the document fails again, or dropped when it is processed).
+     *
+     * @param document the given document.
+     * @return the Entry of the document, or null if it has not failed (or changed since).
+     */
+    private Entry getEntry(File document) {
+        Entry entry = entries.get(document.getAbsolutePath());
+        return (entry != null && entry.isValidFor(document)) ? entry : null;
+    }
+
+    /**
+     * Lock the File against the other processes changing it (waiting for them to finish), and read the Entries again,
+     * so that a change is made to the latest Entries.
+     *
+     * @return the channel holding the lock (closing it releases the lock), or null if the File could not be locked.
+     */
+    private FileChannel lock() {
+        try {
+            FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                channel.lock();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            load();
+            return channel;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Read the Entries kept in the File, if it exists, in place of those read before.
+     */
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            List<Entry> loaded = new Gson().fromJson(reader, new TypeToken<List<Entry>>() {
+            }.getType());
+            entries.clear();
+            if (loaded != null) {
+                for (Entry entry : loaded) {
+                    entries.put(entry.path, entry);
+                }
+            }
+        } catch (Exception e) {//an unreadable quarantine is written again from the Entries read before
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write the Entries to a temporary File, and move it over the File.
+     */
+    private void save() {
+        File temporary = new File(file.getPath() + ".tmp");//only written while holding the lock
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporary), StandardCharsets.UTF_8)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(new ArrayList<>(entries.values()), writer);
+            }
+            try {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package backend.process;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A Semaphore whose number of permits can be changed while Threads hold and wait for them (i.e. when the maximum
+ * number of Threads is changed in the Settings while Files are being processed). If the number of permits is reduced
+ * below the number held, no Thread acquires a permit until enough of them are released.
+ */
+public class ResizableSemaphore extends Semaphore {
+    private int permits;//the total number of permits, held or not
+
+    /**
+     * Create a ResizableSemaphore with the given number of permits.
+     *
+     * @param permits the given number of permits (at least 1).
+     */
+    public ResizableSemaphore(int permits) {
+        super(permits);
+        this.permits = permits;
+    }
+
+    /**
+     * Change the total number of permits. Permits added can be acquired straight away, permits removed are taken from
+     * those available first, and then from those held as they are released.
+     *
+     * @param permits the new number of permits (at least 1).
+     */
+    public synchronized void setPermits(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("There must be at least 1 permit: " + permits);
+        }
+        int difference = permits - this.permits;
+        if (difference > 0) {
+            release(difference);
+        } else if (difference < 0) {
+            reducePermits(-difference);
+        }
+        this.permits = permits;
+    }
+
+    /**
+     * Get the total number of permits, held or not.
+     *
+     * @return the total number of permits.
+     */
+    public synchronized int getPermits() {
+        return permits;
+    }
+}
@@ -1,8 +1,12 @@
 package backend.process;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -15,6 +19,11 @@ public class Result implements Comparable<Result>, Cloneable {
     private TimelineDate timelineDate;
     private FileData fileData;
     private String originalString;
+    private int beginOffset = -1;//character offsets of the original sentence in the text of its file (-1 if unknown)
+    private int endOffset = -1;
+    private int page = -1;//page of the file the original sentence starts on (-1 if unknown, or not a PDF)
+    private String parseTree;//parse of the original sentence before it was trimmed (null if unknown, or the event was edited)
+    private List<Result> mergedResults = Collections.emptyList();//the Results this one was merged from (see EventClusterer)
 
     /**
      * Initialises variables.
@@ -216,6 +225,10 @@ public class Result implements Comparable<Result>, Cloneable {
         copyResult.setFileData(fileData);//all results of the same file point to the same filedata (not a unique one)
         //set the original sentence
         copyResult.setOriginalString(originalString);
+        copyResult.setOffsets(beginOffset, endOffset);
+        copyResult.setPage(page);
+        copyResult.setParseTree(parseTree);
+        copyResult.mergedResults = mergedResults;//not changed, only replaced
         return copyResult;
     }
 
@@ -232,6 +245,17 @@ public class Result implements Comparable<Result>, Cloneable {
         return false;
     }
 
+    /**
+     * Get the hash code of this Result, from the same data equals compares (so equal Results can be found in a HashSet).
+     * It changes if the Result is edited, so a Result must not be edited while it is held in a hashed collection.
+     *
+     * @return the hash code of this Result.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(subjects, event, originalString, fileData, timelineDate);
+    }
+
     /**
      * Get the original sentence that produced this Result object.
      *
@@ -249,4 +273,115 @@ public class Result implements Comparable<Result>, Cloneable {
     public void setOriginalString(String originalString) {
         this.originalString = originalString;
     }
+
+    /**
+     * Set where the original sentence that produced this Result is in the text of its File.
+     *
+     * @param beginOffset the character offset where the sentence begins (-1 if unknown).
+     * @param endOffset   the character offset just after the sentence ends (-1 if unknown).
+     */
+    public void setOffsets(int beginOffset, int endOffset) {
+        this.beginOffset = beginOffset;
+        this.endOffset = endOffset;
+    }
+
+    /**
+     * Get the character offset where the original sentence begins in the text of its File.
+     *
+     * @return the offset, or -1 if it is unknown (i.e. the Result was imported from JSON).
+     */
+    public int getBeginOffset() {
+        return beginOffset;
+    }
+
+    /**
+     * Get the character offset just after the original sentence ends in the text of its File.
+     *
+     * @return the offset, or -1 if it is unknown.
+     */
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Whether or not it is known where the original sentence is in the text of its File.
+     *
+     * @return true if the offsets of the sentence have been set; false otherwise.
+     */
+    public boolean hasOffsets() {
+        return beginOffset >= 0 && endOffset >= beginOffset;
+    }
+
+    /**
+     * Get the page (starting at 1) of the File the original sentence starts on.
+     *
+     * @return the page, or -1 if it is unknown (or the File is not a PDF).
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Set the page (starting at 1) of the File the original sentence starts on.
+     *
+     * @param page the page, or -1 if it is unknown.
+     */
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    /**
+     * Get the parse tree of the original sentence, before it was trimmed to produce the event. It is kept so that the
+     * event can be trimmed again to a different threshold (see Engine.retrimEvents).
+     *
+     * @return the parse tree in Penn Treebank form, or null if it is unknown (or the event was edited by the user).
+     */
+    public String getParseTree() {
+        return parseTree;
+    }
+
+    /**
+     * Set the parse tree of the original sentence, before it was trimmed to produce the event.
+     *
+     * @param parseTree the parse tree in Penn Treebank form, or null if the event should not be trimmed again.
+     */
+    public void setParseTree(String parseTree) {
+        this.parseTree = parseTree;
+    }
+
+    /**
+     * Get the Results (of the same event, from different Files) that this Result was merged from.
+     *
+     * @return the (unmodifiable) List of Results merged, empty if this Result was not merged from others.
+     */
+    public List<Result> getMergedResults() {
+        return mergedResults;
+    }
+
+    /**
+     * Set the Results (of the same event, from different Files) that this Result was merged from.
+     *
+     * @param mergedResults the Results merged, or an empty List if this Result was not merged from others.
+     */
+    public void setMergedResults(List<Result> mergedResults) {
+        this.mergedResults = Collections.unmodifiableList(new ArrayList<>(mergedResults));
+    }
+
+    /**
+     * Get the FileData of every File this Result was found in: its own, and those of the Results it was merged from.
+     *
+     * @return the FileData of the Files, each once, starting with that of this Result.
+     */
+    public List<FileData> getSources() {
+        Set<FileData> sources = new LinkedHashSet<>();
+        if (fileData != null) {
+            sources.add(fileData);
+        }
+        for (Result mergedResult : mergedResults) {
+            if (mergedResult.getFileData() != null) {
+                sources.add(mergedResult.getFileData());
+            }
+        }
+        return new ArrayList<>(sources);
+    }
 }
@@ -0,0 +1,81 @@
+package backend.process;
+
+import org.joda.time.DateTime;
+import org.joda.time.Days;
+
+import java.util.Date;
+
+/**
+ * The key the Results of a TimelineDate are sorted by, taken from its dates once (see TimelineDate.getSortKey) so
+ * that sorting only compares primitive values. It is immutable: when the dates change the TimelineDate makes a new one.
+ * <p>
+ * Keys are ordered by the size of their range of dates (in days), then by date1, then by date2. Keys without a date1 or
+ * date2 come before those with one.
+ */
+public final class SortKey implements Comparable<SortKey> {
+    public final static long NO_DATE = Long.MIN_VALUE;
+    private final int range;
+    private final long date1;
+    private final long date2;
+
+    /**
+     * Create the SortKey of the given dates.
+     *
+     * @param date1 the first date (can be null).
+     * @param date2 the second date (can be null).
+     */
+    SortKey(Date date1, Date date2) {
+        this.date1 = (date1 != null) ? date1.getTime() : NO_DATE;
+        this.date2 = (date2 != null) ? date2.getTime() : NO_DATE;
+        if (date1 != null && date2 != null) {
+            this.range = Days.daysBetween(new DateTime(date1), new DateTime(date2)).getDays();
+        } else {
+            this.range = 0;
+        }
+    }
+
+    /**
+     * Get the number of days between date1 and date2.
+     *
+     * @return the number of days between date1 and date2 (0 if either is null).
+     */
+    public int getRange() {
+        return range;
+    }
+
+    /**
+     * Get the time of date1.
+     *
+     * @return the time of date1 in ms, or NO_DATE if there is no date1.
+     */
+    public long getDate1() {
+        return date1;
+    }
+
+    /**
+     * Get the time of date2.
+     *
+     * @return the time of date2 in ms, or NO_DATE if there is no date2.
+     */
+    public long getDate2() {
+        return date2;
+    }
+
+    /**
+     * Compare this SortKey with the other, by their range, then date1, then date2.
+     *
+     * @param o the other SortKey.
+     * @return a negative number, zero or a positive number as this is less than, equal to or greater than the other.
+     */
+    @Override
+    public int compareTo(SortKey o) {
+        int comparison = Integer.compare(range, o.range);
+        if (comparison == 0) {
+            comparison = Long.compare(date1, o.date1);
+            if (comparison == 0) {
+                comparison = Long.compare(date2, o.date2);
+            }
+        }
+        return comparison;
+    }
+}
@@ -0,0 +1,130 @@
+package backend.process;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the text extracted from Files (see ProcessFiles.getTextInFile), so that the text of a document is not
+ * extracted again (which for a long PDF takes seconds) every time it is read. The text is kept for the Files used most
+ * recently, up to a maximum number of characters overall, and it is dropped if the File changes (its last modified time
+ * or size is different).
+ */
+public class TextCache {
+    private final static long DEFAULT_MAX_CHARS = 32L * 1024 * 1024;//64MB of chars
+    private static TextCache textCache;
+    private final long maxChars;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);//ordered by last access
+    private long chars = 0;
+
+    /**
+     * The text extracted from a File, and what the File was like when it was extracted.
+     */
+    private static class Entry {
+        private final String text;
+        private final FileFingerprint fileFingerprint;
+
+        /**
+         * Create an Entry.
+         *
+         * @param text the text extracted from the File.
+         * @param file the File (as it was when the text was extracted).
+         */
+        Entry(String text, File file) {
+            this.text = text;
+            this.fileFingerprint = new FileFingerprint(file);
+        }
+    }
+
+    /**
+     * Create a TextCache that holds at most the given number of characters.
+     *
+     * @param maxChars the max number of characters held (over all the Files).
+     */
+    public TextCache(long maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Get the TextCache shared by the System.
+     *
+     * @return the shared TextCache.
+     */
+    public static synchronized TextCache getInstance() {
+        if (textCache == null) {
+            textCache = new TextCache(DEFAULT_MAX_CHARS);
+        }
+        return textCache;
+    }
+
+    /**
+     * Get the text extracted from the given File, if it is held and the File has not changed since.
+     *
+     * @param file the given File.
+     * @return the text of the File, or null if it is not held.
+     */
+    public synchronized String get(File file) {
+        String key = file.getAbsolutePath();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.fileFingerprint.isValidFor(file)) {
+            remove(key);
+            return null;
+        }
+        return entry.text;
+    }
+
+    /**
+     * Hold the text extracted from the given File. If more than the max number of characters are held, the text of the
+     * Files used least recently is dropped.
+     *
+     * @param file the given File.
+     * @param text the text extracted from the File.
+     */
+    public synchronized void put(File file, String text) {
+        if (text == null || text.length() > maxChars) {
+            return;
+        }
+        String key = file.getAbsolutePath();
+        remove(key);
+        entries.put(key, new Entry(text, file));
+        chars += text.length();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (chars > maxChars && iterator.hasNext()) {//least recently used first
+            chars -= iterator.next().getValue().text.length();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drop the text held for the File with the given path.
+     *
+     * @param key the absolute path of the File.
+     */
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            chars -= entry.text.length();
+        }
+    }
+
+    /**
+     * Drop all the text held.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        chars = 0;
+    }
+
+    /**
+     * Get the number of characters held.
+     *
+     * @return the number of characters held (over all the Files).
+     */
+    public synchronized long size() {
+        return chars;
+    }
+}
@@ -0,0 +1,269 @@
+package backend.process;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+
+/**
+ * Chooses how many Files are processed in parallel when the Settings leave it to the System (Settings.isAutoThreads),
+ * by resizing the ResizableSemaphore of ProcessFiles while they are processed.
+ * <p>
+ * The heap is looked at every SAMPLE_MS, along with the share of that time spent collecting garbage. Only the live heap
+ * is looked at (what was left after the last collection, see MemoryPools), as the heap used at any given time also
+ * holds the garbage not collected yet, and would take a Thread away just before each ordinary young collection. The
+ * heap each Thread uses is estimated from how much more is live than before the Files were started. One
+ * Thread is taken away as soon as the heap is nearly full or the garbage collector is busy (so that the Threads left
+ * have room, before an OutOfMemoryError), and one is added while every Thread is running, there is room in the heap for
+ * another, and the garbage collector is not busy. There are never more Threads than available processors.
+ */
+public class ThreadTuner implements Runnable {
+    public final static long SAMPLE_MS = 2000;
+    public final static long DEFAULT_THREAD_HEAP = 256L * 1024 * 1024;//until the heap of a Thread has been seen
+    public final static int MAX_THREADS = 20;//as in the Settings
+    private final static double BACK_OFF_HEAP = 0.85;//of the max heap used, to take a Thread away
+    private final static double BACK_OFF_GC = 0.25;//of the time spent collecting garbage, to take a Thread away
+    private final static double RAMP_UP_HEAP = 0.70;//of the max heap that can be used with another Thread, to add one
+    private final static double RAMP_UP_GC = 0.10;//of the time spent collecting garbage, below which one can be added
+    private final static double SMOOTHING = 0.3;//of each new estimate of the heap of a Thread
+    private final ResizableSemaphore semaphore;
+    private final Heap heap;
+    private final long baseline;//the live heap before the Files were started
+    private long threadHeap = DEFAULT_THREAD_HEAP;
+    private long lastTime;//when the time spent collecting garbage was last looked at
+    private long lastGcTime;//the time spent collecting garbage then
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * What the ThreadTuner looks at to choose the number of Threads.
+     */
+    public interface Heap {
+        /**
+         * Get the heap used by the objects that were live at the last collection.
+         *
+         * @return the live heap, in bytes.
+         */
+        long getLive();
+
+        /**
+         * Get the most heap that can be used.
+         *
+         * @return the max heap, in bytes.
+         */
+        long getMax();
+
+        /**
+         * Get the total time spent collecting garbage since the program started.
+         *
+         * @return the time in ms.
+         */
+        long getGcTime();
+    }
+
+    /**
+     * The Heap of this JVM, from its memory pools and garbage collectors. The live heap is what the young pools (eden
+     * and survivor, which do not support usage thresholds) held right after their last collection, plus what the
+     * tenured pool holds now: objects only get there by surviving a collection, whereas its own collection usage is only
+     * updated by the (rare) collections of the tenured pool, so it would leave out everything promoted since.
+     */
+    private static class MemoryPools implements Heap {
+        private final List<MemoryPoolMXBean> memoryPoolMXBeans = ManagementFactory.getMemoryPoolMXBeans();
+        private final List<GarbageCollectorMXBean> garbageCollectorMXBeans = ManagementFactory.getGarbageCollectorMXBeans();
+
+        @Override
+        public long getLive() {
+            long live = 0;
+            for (MemoryPoolMXBean memoryPoolMXBean : memoryPoolMXBeans) {
+                if (memoryPoolMXBean.getType() != MemoryType.HEAP || !memoryPoolMXBean.isValid()) {
+                    continue;
+                }
+                MemoryUsage usage = memoryPoolMXBean.isUsageThresholdSupported() ? memoryPoolMXBean.getUsage() :
+                        memoryPoolMXBean.getCollectionUsage();//a young pool, as it was after its last collection
+                if (usage != null) {
+                    live += usage.getUsed();
+                }
+            }
+            return live;
+        }
+
+        @Override
+        public long getMax() {
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            return (heap.getMax() > 0) ? heap.getMax() : heap.getCommitted();//the committed heap if there is no max
+        }
+
+        @Override
+        public long getGcTime() {
+            long gcTime = 0;
+            for (GarbageCollectorMXBean garbageCollectorMXBean : garbageCollectorMXBeans) {
+                gcTime += Math.max(0, garbageCollectorMXBean.getCollectionTime());//-1 if it is not reported
+            }
+            return gcTime;
+        }
+    }
+
+    /**
+     * Create a ThreadTuner for the given semaphore, looking at the heap of this JVM. It does not change the semaphore
+     * until it is started.
+     *
+     * @param semaphore the semaphore that limits how many Files are processed in parallel.
+     */
+    public ThreadTuner(ResizableSemaphore semaphore) {
+        this(semaphore, new MemoryPools());
+    }
+
+    /**
+     * Create a ThreadTuner for the given semaphore, looking at the given Heap. It does not change the semaphore until
+     * it is started (or sampled).
+     *
+     * @param semaphore the semaphore that limits how many Files are processed in parallel.
+     * @param heap      the given Heap.
+     */
+    public ThreadTuner(ResizableSemaphore semaphore, Heap heap) {
+        this.semaphore = semaphore;
+        this.heap = heap;
+        this.baseline = heap.getLive();
+    }
+
+    /**
+     * Get the number of Threads to start with: as many as there are available processors, and as there is room in the
+     * heap for (with DEFAULT_THREAD_HEAP each).
+     *
+     * @return the number of Threads to start with (at least 1).
+     */
+    public static int getInitialThreads() {
+        Heap heap = new MemoryPools();
+        long free = heap.getMax() - heap.getLive();
+        return clamp((int) Math.min(free / DEFAULT_THREAD_HEAP, Integer.MAX_VALUE), getMaxThreads());
+    }
+
+    /**
+     * Get the most Threads that can be chosen.
+     *
+     * @return the number of available processors (at most MAX_THREADS).
+     */
+    public static int getMaxThreads() {
+        return Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS);
+    }
+
+    /**
+     * Choose the number of Threads, from the number allowed now and what the heap and garbage collector look like.
+     *
+     * @param threads     the number of Threads allowed now.
+     * @param busy        the number of Threads running now.
+     * @param used        the live heap, in bytes.
+     * @param max         the most heap that can be used, in bytes.
+     * @param threadHeap  the heap each Thread is expected to use, in bytes.
+     * @param gcFraction  the share of the time spent collecting garbage lately (0 to 1).
+     * @param maxThreads  the most Threads that can be chosen.
+     * @return the number of Threads to allow, which is at most one more or one less than now (and at least 1).
+     */
+    public static int chooseThreads(int threads, int busy, long used, long max, long threadHeap, double gcFraction, int maxThreads) {
+        if (used > max * BACK_OFF_HEAP || gcFraction > BACK_OFF_GC) {
+            return clamp(threads - 1, maxThreads);
+        }
+        if (busy >= threads && used + threadHeap < max * RAMP_UP_HEAP && gcFraction < RAMP_UP_GC) {
+            return clamp(threads + 1, maxThreads);
+        }
+        return clamp(threads, maxThreads);
+    }
+
+    /**
+     * Start looking at the heap on a separate Thread, resizing the semaphore as needed.
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this, "ThreadTuner");
+        thread.setDaemon(true);//does not keep the program running
+        thread.start();
+    }
+
+    /**
+     * Stop resizing the semaphore.
+     */
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();//wakes up the Thread waiting for the next sample
+        }
+    }
+
+    /**
+     * What runs on the Thread of the ThreadTuner: sample every SAMPLE_MS, until stopped.
+     */
+    @Override
+    public void run() {
+        startSampling(System.currentTimeMillis());
+        while (running) {
+            try {
+                Thread.sleep(SAMPLE_MS);
+            } catch (InterruptedException e) {
+                break;//stopped
+            }
+            if (running) {
+                sample(System.currentTimeMillis(), getMaxThreads());
+            }
+        }
+    }
+
+    /**
+     * Start measuring the time spent collecting garbage from the given time.
+     *
+     * @param now the given time, in ms.
+     */
+    public synchronized void startSampling(long now) {
+        lastTime = now;
+        lastGcTime = heap.getGcTime();
+    }
+
+    /**
+     * Estimate the heap of a Thread (from the live heap shared by the Threads running now) and the share of the time
+     * spent collecting garbage since the last sample, and resize the semaphore by the number of Threads chosen.
+     *
+     * @param now        the time now, in ms.
+     * @param maxThreads the most Threads that can be chosen.
+     */
+    public synchronized void sample(long now, int maxThreads) {
+        long gcTime = heap.getGcTime();
+        double gcFraction = (now > lastTime) ? (double) (gcTime - lastGcTime) / (now - lastTime) : 0;
+        lastTime = now;
+        lastGcTime = gcTime;
+
+        long live = heap.getLive();
+        int threads = semaphore.getPermits();
+        int busy = Math.max(0, threads - semaphore.availablePermits());
+        if (busy > 0 && live > baseline) {
+            long observed = (live - baseline) / busy;
+            threadHeap = (long) (SMOOTHING * observed + (1 - SMOOTHING) * threadHeap);
+        }
+        int chosen = chooseThreads(threads, busy, live, heap.getMax(), threadHeap, gcFraction, maxThreads);
+        if (chosen != threads) {
+            System.out.println("Threads changed from " + threads + " to " + chosen + " (live heap: " + live / (1024 * 1024)
+                    + "MB, per Thread: " + threadHeap / (1024 * 1024) + "MB, time collecting garbage: " + Math.round(gcFraction * 100) + "%)");
+            semaphore.setPermits(chosen);
+        }
+    }
+
+    /**
+     * Get the heap each Thread is expected to use, as estimated so far.
+     *
+     * @return the heap of a Thread, in bytes.
+     */
+    public synchronized long getThreadHeap() {
+        return threadHeap;
+    }
+
+    /**
+     * Keep the given number of Threads between 1 and the given maximum.
+     *
+     * @param threads    the given number of Threads.
+     * @param maxThreads the given maximum.
+     * @return the number of Threads, between 1 and maxThreads.
+     */
+    private static int clamp(int threads, int maxThreads) {
+        return Math.max(1, Math.min(threads, maxThreads));
+    }
+}
@@ -1,8 +1,6 @@
 package backend.process;
 
 import edu.stanford.nlp.util.Pair;
-import org.joda.time.DateTime;
-import org.joda.time.Days;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -21,8 +19,8 @@ public class TimelineDate implements Comparable<TimelineDate> {
     private static final Map<String, Pair<String, String>> seasonMap;
     private static final Map<Character, String> durationMap;
     private static final Map<Character, String> timeMap;
-    private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd G");
-    private final SimpleDateFormat dayMonthYearFormat = new SimpleDateFormat("dd-MM-yyyy G");
+    private SimpleDateFormat simpleDateFormat;//formats are created when first needed, as TimelineDates that are set
+    private SimpleDateFormat dayMonthYearFormat;//directly (e.g. loaded from a project file) may never use them
 
     static {
         /*
@@ -76,14 +74,13 @@ public class TimelineDate implements Comparable<TimelineDate> {
     private String baseDate;
     private String durationData;//holds the latest duration data (additional info to show with event)
     //have a pair of list dates and duration string, if you use the dates pass in the string as additional info
-    private int range = -1;
+    private SortKey sortKey;//taken from the dates when first needed, and again only after they change
 
     /**
-     * Initialises the Calendar used to determine dates based on week number.
+     * Creates an empty TimelineDate. The Calendar used to determine dates based on week number, and the formats used to
+     * parse dates, are only initialised when they are first needed.
      */
     public TimelineDate() {
-        calendar = Calendar.getInstance();
-        simpleDateFormat.setLenient(false);//can only create correct dates
     }
 
     /**
@@ -189,6 +186,9 @@ public class TimelineDate implements Comparable<TimelineDate> {
      * @return a list of exact Dates formed from the input.
      */
     private ArrayList<Date> getDate(String date) {
+        if (calendar == null) {
+            calendar = Calendar.getInstance();
+        }
         calendar.clear();
         ArrayList<Date> toReturn = new ArrayList<>();
         String year1 = year;
@@ -382,7 +382,7 @@ public class TimelineDate implements Comparable<TimelineDate> {
         String date = returnDate(year, month, day, isBC);
         System.out.println("Trying to create date for: " + date);
         try {
-            toReturn = simpleDateFormat.parse(date);
+            toReturn = getSimpleDateFormat().parse(date);
         } catch (ParseException e) {
             //e.printStackTrace();//could comment this out
             System.out.println("Couldnt create date, so trying for a lower value");
@@ -429,22 +429,48 @@ public class TimelineDate implements Comparable<TimelineDate> {
                     durationData = dateDurationPair.second();
                 }
             }
-            updateRange();
+            sortKey = null;//the dates could have changed
         }
     }
 
     /**
-     * Updates the int value of the range based on the date1 and date2 values. If date2 is null then the range is 0, ie
-     * the size of the range of dates is 0.
+     * Get the format used to parse dates of the form yyyy-MM-dd G, creating it if needed.
+     *
+     * @return the (non lenient) format for yyyy-MM-dd G.
      */
-    private void updateRange() {
-        if (date1 != null && date2 != null) {
-            DateTime dateTime1 = new DateTime(date1);
-            DateTime dateTime2 = new DateTime(date2);
-            range = Days.daysBetween(dateTime1, dateTime2).getDays();
-        } else {
-            range = 0;
+    private SimpleDateFormat getSimpleDateFormat() {
+        if (simpleDateFormat == null) {
+            simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd G");
+            simpleDateFormat.setLenient(false);//can only create correct dates
+        }
+        return simpleDateFormat;
+    }
+
+    /**
+     * Get the format used to output dates of the form dd-MM-yyyy G, creating it if needed.
+     *
+     * @return the format for dd-MM-yyyy G.
+     */
+    private SimpleDateFormat getDayMonthYearFormat() {
+        if (dayMonthYearFormat == null) {
+            dayMonthYearFormat = new SimpleDateFormat("dd-MM-yyyy G");
+        }
+        return dayMonthYearFormat;
+    }
+
+    /**
+     * Get the SortKey of the dates, which is only made again after they change (so sorting does not work out the range
+     * of the dates on every comparison).
+     *
+     * @return the SortKey of date1 and date2.
+     */
+    public SortKey getSortKey() {
+        SortKey key = sortKey;
+        if (key == null) {
+            key = new SortKey(date1, date2);
+            sortKey = key;
         }
+        return key;
     }
 
     /**
@@ -453,8 +479,7 @@ public class TimelineDate implements Comparable<TimelineDate> {
      * @return the number of days between date1 and date2 (0 if date2 == null)
      */
     public int getRange() {
-        updateRange();
-        return range;
+        return getSortKey().getRange();
     }
 
     /**
@@ -506,30 +531,14 @@ public class TimelineDate implements Comparable<TimelineDate> {
     }
 
     /**
-     * Compares two TimelineDates based on their start date.
+     * Compares two TimelineDates by their SortKeys: the size of their range of dates, then their date1, then their date2.
      *
      * @param o the other backend.process.TimelineDate that is being compared to.
-     * @return the comparison of this date1 to the other's date1, or -1 if the other result does not have a date1, or 1 if this does not have a date1.
+     * @return a negative number, zero or a positive number as this is less than, equal to or greater than the other.
      */
     @Override
     public int compareTo(TimelineDate o) {
-        if (range == -1) {
-            updateRange();
-        }
-/*        if (o.date1 != null && this.date1 != null) {
-            return o.date1.compareTo(this.date1);
-        }
-        if (this.date1 == null) {
-            return -1;
-        }
-        return 1;*/
-        if (range > o.range) {
-            return 1;
-        } else if (range < o.range) {
-            return -1;
-        } else {
-            return 0;
-        }
+        return getSortKey().compareTo(o.getSortKey());
     }
 
     /**
@@ -555,6 +564,16 @@ public class TimelineDate implements Comparable<TimelineDate> {
         return toReturn;
     }
 
+    /**
+     * Get the hash code of this TimelineDate, from its dates (as compared by equals).
+     *
+     * @return the hash code of this TimelineDate.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(date1, date2);
+    }
+
     /**
      * Set the Date for date1.
      *
@@ -562,7 +581,7 @@ public class TimelineDate implements Comparable<TimelineDate> {
      */
     public void setDate1(Date date1) {
         this.date1 = date1;
-        updateRange();
+        sortKey = null;
     }
 
     /**
@@ -572,7 +591,7 @@ public class TimelineDate implements Comparable<TimelineDate> {
      */
     public void setDate2(Date date2) {
         this.date2 = date2;
-        updateRange();
+        sortKey = null;
     }
 
     /**
@@ -602,6 +621,15 @@ public class TimelineDate implements Comparable<TimelineDate> {
         return durationData;
     }
 
+    /**
+     * Set the additional duration data for a date (i.e. when restoring a TimelineDate that was saved).
+     *
+     * @param durationData String representing the duration an event occurred for (every when it repeated).
+     */
+    public void setDurationData(String durationData) {
+        this.durationData = durationData;
+    }
+
     /**
      * Get date1 as a String in the format dd-MM-yyyy G, or null if that is not possible.
      *
@@ -609,7 +637,7 @@ public class TimelineDate implements Comparable<TimelineDate> {
      */
     public String getDate1FormattedDayMonthYear() {
         try {
-            return (date1 != null) ? dayMonthYearFormat.format(date1) : null;
+            return (date1 != null) ? getDayMonthYearFormat().format(date1) : null;
         } catch (Exception e) {
             return null;
         }
@@ -622,7 +650,7 @@ public class TimelineDate implements Comparable<TimelineDate> {
      */
     public String getDate2FormattedDayMonthYear() {
         try {
-            return (date2 != null) ? dayMonthYearFormat.format(date2) : null;
+            return (date2 != null) ? getDayMonthYearFormat().format(date2) : null;
         } catch (Exception e) {
             return null;
         }
@@ -0,0 +1,240 @@
+package backend.ranges;
+
+import backend.process.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A forest of Range trees flattened into a list of rows, in the order they are shown in the Range view of the Timeline
+ * (each Range, followed by its Results, followed by its children). This lets the Range view be shown by a single
+ * (virtualized) list, which only builds the layouts of the rows on screen, instead of building the layout of every
+ * Range in the forest.
+ * <p>
+ * Only the rows of expanded Ranges' Results and children are held: at first only the roots of the trees are, and the
+ * rows below a Range are made when it is expanded (and dropped when it is collapsed).
+ */
+public class FlatRangeTree {
+    private final List<Row> rows = new ArrayList<>();
+    private final Set<Range> expanded = Collections.newSetFromMap(new IdentityHashMap<Range, Boolean>());
+
+    /**
+     * One row of the flattened forest: either the header of a Range, or one of the Results of a Range.
+     */
+    public static class Row {
+        private final Range range;
+        private final Result result;
+        private final int depth;
+        private final int position;
+
+        /**
+         * Create a Row.
+         *
+         * @param range    the Range of the row (or the Range holding the Result).
+         * @param result   the Result of the row, or null if the row is the header of the Range.
+         * @param depth    the depth of the Range in its tree (0 for the root).
+         * @param position the position of the Range among its siblings.
+         */
+        private Row(Range range, Result result, int depth, int position) {
+            this.range = range;
+            this.result = result;
+            this.depth = depth;
+            this.position = position;
+        }
+
+        /**
+         * Get the Range of the row (for a Result row, the Range holding the Result).
+         *
+         * @return the Range of the row.
+         */
+        public Range getRange() {
+            return range;
+        }
+
+        /**
+         * Get the Result of the row.
+         *
+         * @return the Result of the row, or null if the row is the header of a Range.
+         */
+        public Result getResult() {
+            return result;
+        }
+
+        /**
+         * Whether or not the row is the header of a Range (as opposed to one of its Results).
+         *
+         * @return true if the row is the header of a Range; false otherwise.
+         */
+        public boolean isRange() {
+            return result == null;
+        }
+
+        /**
+         * Get the depth of the Range of the row in its tree (0 for the root), used to indent the row.
+         *
+         * @return the depth of the Range.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Get the position of the Range of the row among its siblings (i.e. the other children of its parent, or the
+         * other trees of the forest).
+         *
+         * @return the position of the Range.
+         */
+        public int getPosition() {
+            return position;
+        }
+    }
+
+    /**
+     * Flatten the given forest of Range trees, with all the Ranges collapsed (i.e. only the roots of the trees are
+     * rows). The order of the trees, and of the children of each Range, is kept.
+     *
+     * @param trees the given forest of Range trees.
+     */
+    public FlatRangeTree(List<Range> trees) {
+        for (int i = 0; i < trees.size(); i++) {
+            rows.add(new Row(trees.get(i), null, 0, i));
+        }
+    }
+
+    /**
+     * Expand the Range of the row at the given index, adding the rows of its Results and children (collapsed) after it.
+     *
+     * @param index the index of the row of the Range.
+     * @return the rows added (empty if the row is not a Range, is already expanded, or the Range has nothing below it).
+     */
+    public List<Row> expand(int index) {
+        Row row = rows.get(index);
+        if (!row.isRange() || !expanded.add(row.getRange())) {
+            return Collections.emptyList();
+        }
+        Range range = row.getRange();
+        List<Row> added = new ArrayList<>(range.getResults().size() + range.getChildren().size());
+        for (Result result : range.getResults()) {
+            added.add(new Row(range, result, row.getDepth(), row.getPosition()));
+        }
+        for (int i = 0; i < range.getChildren().size(); i++) {
+            added.add(new Row(range.getChildren().get(i), null, row.getDepth() + 1, i));
+        }
+        rows.addAll(index + 1, added);
+        return added;
+    }
+
+    /**
+     * Collapse the Range of the row at the given index, removing the rows below it (its Results, and its children and
+     * their rows). The Ranges below it are collapsed as well, so they are collapsed when it is expanded again.
+     *
+     * @param index the index of the row of the Range.
+     * @return the number of rows removed (after the given index).
+     */
+    public int collapse(int index) {
+        Row row = rows.get(index);
+        if (!row.isRange() || !expanded.remove(row.getRange())) {
+            return 0;
+        }
+        int end = index + 1;
+        while (end < rows.size() && isBelow(rows.get(end), row)) {
+            expanded.remove(rows.get(end).getRange());
+            end++;
+        }
+        rows.subList(index + 1, end).clear();
+        return end - index - 1;
+    }
+
+    /**
+     * Expand every Range in the forest, so that all the rows are held.
+     */
+    public void expandAll() {
+        List<Range> trees = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.getDepth() == 0 && row.isRange()) {
+                trees.add(row.getRange());
+            }
+        }
+        rows.clear();//made again in one pass, rather than inserting the rows below each Range one Range at a time
+        addExpanded(trees, 0);
+    }
+
+    /**
+     * Add the rows of the given Ranges, expanded (and, recursively, of their children).
+     *
+     * @param ranges the given Ranges (siblings).
+     * @param depth  the depth of the given Ranges.
+     */
+    private void addExpanded(List<Range> ranges, int depth) {
+        for (int i = 0; i < ranges.size(); i++) {
+            Range range = ranges.get(i);
+            rows.add(new Row(range, null, depth, i));
+            expanded.add(range);
+            for (Result result : range.getResults()) {
+                rows.add(new Row(range, result, depth, i));
+            }
+            addExpanded(range.getChildren(), depth + 1);
+        }
+    }
+
+    /**
+     * Whether the given row (after the given Range row) is in the subtree of the Range: either one of its Results, or a
+     * row deeper than it.
+     *
+     * @param row      the given row.
+     * @param rangeRow the row of the Range.
+     * @return true if the row is below the Range; false otherwise.
+     */
+    private boolean isBelow(Row row, Row rangeRow) {
+        if (row.getDepth() > rangeRow.getDepth()) {
+            return true;
+        }
+        return row.getDepth() == rangeRow.getDepth() && !row.isRange() && row.getRange() == rangeRow.getRange();
+    }
+
+    /**
+     * Whether or not the Range of the given row is expanded.
+     *
+     * @param row the given row.
+     * @return true if the row is a Range that is expanded; false otherwise.
+     */
+    public boolean isExpanded(Row row) {
+        return row.isRange() && expanded.contains(row.getRange());
+    }
+
+    /**
+     * Get the index of the given row.
+     *
+     * @param row the given row.
+     * @return the index of the row, or -1 if it is not held (i.e. a Range above it was collapsed).
+     */
+    public int indexOf(Row row) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i) == row) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the rows of the flattened forest, in the order they are shown.
+     *
+     * @return the (unmodifiable) List of rows.
+     */
+    public List<Row> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * Get the number of rows in the flattened forest.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return rows.size();
+    }
+}
@@ -1,5 +1,6 @@
 package backend.ranges;
 
+import backend.helpers.Sort;
 import backend.process.Result;
 
 import java.util.*;
@@ -33,18 +34,16 @@ public class ProduceRanges {
     }
 
     /**
-     * For the given list of Results, sort them by the number of days in between their first range of dates and second.
+     * For the given list of Results, sort them by the number of days in between their first range of dates and second
+     * (then by their dates, so Results with the same dates are next to each other).
      *
      * @param inputResults the given list of Results.
      * @return the list of Results sorted by their Range (descending)
      */
     private List<Result> sortByRange(List<Result> inputResults) {
-        Collections.sort(inputResults);//java +7 mergesort with O(nlogn) but if its almost sorted its closer to O(n)
+        Sort.sortByRange(inputResults);//by the SortKeys of the dates, which are only worked out once
         Collections.reverse(inputResults);//as the list has been sorted in ascending order and we want descending
-        System.out.println("Sorted by Range");
-        for(Result result: inputResults){
-            System.out.println(result+" "+result.getTimelineDate().getRange());
-        }
+        System.out.println("Sorted " + inputResults.size() + " Results by Range");
         return inputResults;
     }
 
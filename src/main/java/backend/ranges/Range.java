@@ -316,6 +316,24 @@ public class Range implements Cloneable, Comparable<Range> {
         return 1;
     }
 
+    /**
+     * Get the start Date of this Range.
+     *
+     * @return the Date for date1.
+     */
+    public Date getDate1() {
+        return date1;
+    }
+
+    /**
+     * Get the end Date of this Range.
+     *
+     * @return the Date for date2, or null if the Range is of one Date.
+     */
+    public Date getDate2() {
+        return date2;
+    }
+
     /**
      * Get the list of Range children held by this Range.
      *
@@ -0,0 +1,378 @@
+package backend.search;
+
+import backend.process.Result;
+import backend.process.TimelineDate;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over a collection of Results, used to filter the Timeline without scanning every event.
+ * Each Result added is given an id (its position in the order it was added), and the index holds:
+ * <ul>
+ * <li>subject -> posting list of the ids of the Results that have that subject,</li>
+ * <li>term -> posting list of the ids of the Results that have that term in their event, original sentence or
+ * subjects,</li>
+ * <li>date1 -> ids of the Results that start on that date (with the longest range seen, to answer overlap queries).</li>
+ * </ul>
+ * Posting lists are sorted as ids are handed out in increasing order, so queries are answered by intersecting sorted
+ * int arrays. The index is not thread-safe, it is expected to be built and queried from the same (UI) Thread.
+ */
+public class ResultIndex {
+    private final static Pattern termSplitPattern = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private final static int[] noIds = new int[0];
+    private List<Result> results = new ArrayList<>();//id -> Result
+    private Map<Result, Integer> ids = new IdentityHashMap<>();//Result -> id (by reference, as Results can be equal)
+    private Map<String, PostingList> subjectPostings = new HashMap<>();
+    private TreeMap<String, PostingList> termPostings = new TreeMap<>();//sorted to answer prefix queries
+    private TreeMap<Long, PostingList> dateIndex = new TreeMap<>();//date1 (in ms) -> ids
+    private long longestRange = 0;//longest date1 -> date2 seen (in ms), bounds the date1 values an overlap can have
+
+    /**
+     * Add the given Result to the index.
+     *
+     * @param result the given Result.
+     * @return the id given to the Result, or its previous id if it had already been added.
+     */
+    public int add(Result result) {
+        Integer existingId = ids.get(result);
+        if (existingId != null) {
+            return existingId;
+        }
+        int id = results.size();
+        results.add(result);
+        ids.put(result, id);
+        for (String subject : result.getSubjects()) {
+            addPosting(subjectPostings, normalize(subject), id);
+            addTerms(subject, id);
+        }
+        addTerms(result.getEvent(), id);
+        addTerms(result.getOriginalString(), id);
+        addDate(result.getTimelineDate(), id);
+        return id;
+    }
+
+    /**
+     * Add all the given Results to the index (in the order of the given Collection).
+     *
+     * @param results the given Results.
+     */
+    public void addAll(Collection<Result> results) {
+        for (Result result : results) {
+            add(result);
+        }
+    }
+
+    /**
+     * Get the ids of the Results that have exactly the given subject (ignoring case).
+     *
+     * @param subject the given subject.
+     * @return a sorted array of the ids of the Results with that subject.
+     */
+    public int[] searchSubject(String subject) {
+        PostingList postingList = subjectPostings.get(normalize(subject));
+        return (postingList != null) ? postingList.toArray() : noIds;
+    }
+
+    /**
+     * Get the ids of the Results that match every term in the given text. A term matches a Result if it is in its
+     * event, its original sentence or its subjects. The last term is treated as a prefix, so that the results can be
+     * updated as the user types.
+     *
+     * @param text the given text.
+     * @return a sorted array of the ids of the Results that match all the terms; all ids if the text has no terms.
+     */
+    public int[] searchText(String text) {
+        List<String> terms = getTerms(text);
+        if (terms.isEmpty()) {
+            return allIds();
+        }
+        int[] toReturn = null;
+        for (int i = 0; i < terms.size(); i++) {
+            int[] termIds = (i == terms.size() - 1) ? searchPrefix(terms.get(i)) : searchTerm(terms.get(i));
+            toReturn = (toReturn == null) ? termIds : intersect(toReturn, termIds);
+            if (toReturn.length == 0) {//no point in looking at the other terms
+                break;
+            }
+        }
+        return toReturn;
+    }
+
+    /**
+     * Get the ids of the Results whose TimelineDate overlaps the given range of Dates (both inclusive). A Result with
+     * no date2 is treated as the single day of its date1.
+     *
+     * @param from the start of the range, or null for no lower limit.
+     * @param to   the end of the range, or null for no upper limit.
+     * @return a sorted array of the ids of the Results in the given range of Dates.
+     */
+    public int[] searchDates(Date from, Date to) {
+        if (from == null && to == null) {
+            return allIds();
+        }
+        long fromTime = (from != null) ? from.getTime() : Long.MIN_VALUE;
+        long toTime = (to != null) ? to.getTime() : Long.MAX_VALUE;
+        if (fromTime > toTime) {
+            return noIds;
+        }
+        //a Result that overlaps must start before "to", and can not start more than the longest range before "from"
+        long lowestDate1 = (fromTime > Long.MIN_VALUE + longestRange) ? fromTime - longestRange : Long.MIN_VALUE;
+        PostingList matches = new PostingList();
+        for (PostingList postingList : dateIndex.subMap(lowestDate1, true, toTime, true).values()) {
+            for (int i = 0; i < postingList.size; i++) {
+                int id = postingList.ids[i];
+                TimelineDate timelineDate = results.get(id).getTimelineDate();
+                long end = (timelineDate.getDate2() != null) ? timelineDate.getDate2().getTime() : timelineDate.getDate1().getTime();
+                if (end >= fromTime) {
+                    matches.add(id);
+                }
+            }
+        }
+        int[] toReturn = matches.toArray();
+        Arrays.sort(toReturn);
+        return toReturn;
+    }
+
+    /**
+     * Get the ids of the Results that match the given text (see searchText) and overlap the given range of Dates (see
+     * searchDates). Any of the arguments can be null/empty, in which case it is not used to filter the Results.
+     *
+     * @param text the text the Results need to match.
+     * @param from the start of the range of Dates, or null.
+     * @param to   the end of the range of Dates, or null.
+     * @return a sorted array of the ids of the Results that match the query.
+     */
+    public int[] query(String text, Date from, Date to) {
+        int[] toReturn = searchText(text);
+        if (from != null || to != null) {
+            toReturn = intersect(toReturn, searchDates(from, to));
+        }
+        return toReturn;
+    }
+
+    /**
+     * Get the Result with the given id.
+     *
+     * @param id the given id.
+     * @return the Result that was given that id when added.
+     */
+    public Result getResult(int id) {
+        return results.get(id);
+    }
+
+    /**
+     * Get the id of the given Result (the same Object that was added, not an equal one).
+     *
+     * @param result the given Result.
+     * @return the id of the Result, or -1 if it is not in the index.
+     */
+    public int getId(Result result) {
+        Integer id = ids.get(result);
+        return (id != null) ? id : -1;
+    }
+
+    /**
+     * Get the Results for the given ids.
+     *
+     * @param ids the given ids.
+     * @return a List of the Results, in the order of the given ids.
+     */
+    public List<Result> getResults(int[] ids) {
+        List<Result> toReturn = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            toReturn.add(results.get(id));
+        }
+        return toReturn;
+    }
+
+    /**
+     * Get the number of Results in the index.
+     *
+     * @return the number of Results added.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Get the ids of the Results that have the exact given term.
+     *
+     * @param term a normalized term.
+     * @return a sorted array of the ids of the Results with the term.
+     */
+    private int[] searchTerm(String term) {
+        PostingList postingList = termPostings.get(term);
+        return (postingList != null) ? postingList.toArray() : noIds;
+    }
+
+    /**
+     * Get the ids of the Results that have a term starting with the given prefix.
+     *
+     * @param prefix a normalized prefix of a term.
+     * @return a sorted array of the ids of the Results with a term starting with the prefix.
+     */
+    private int[] searchPrefix(String prefix) {
+        SortedMap<String, PostingList> matchingTerms = termPostings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (matchingTerms.size() == 1) {
+            return matchingTerms.values().iterator().next().toArray();
+        }
+        BitSet union = new BitSet(results.size());
+        for (PostingList postingList : matchingTerms.values()) {
+            for (int i = 0; i < postingList.size; i++) {
+                union.set(postingList.ids[i]);
+            }
+        }
+        return union.stream().toArray();
+    }
+
+    /**
+     * Get the ids of every Result in the index.
+     *
+     * @return a sorted array of all the ids.
+     */
+    private int[] allIds() {
+        int[] toReturn = new int[results.size()];
+        for (int i = 0; i < toReturn.length; i++) {
+            toReturn[i] = i;
+        }
+        return toReturn;
+    }
+
+    /**
+     * Add the terms in the given text to the term postings of the given id.
+     *
+     * @param text the given text (can be null).
+     * @param id   the id of the Result that holds the text.
+     */
+    private void addTerms(String text, int id) {
+        for (String term : getTerms(text)) {
+            addPosting(termPostings, term, id);
+        }
+    }
+
+    /**
+     * Add the given TimelineDate to the date index.
+     *
+     * @param timelineDate the TimelineDate of the Result.
+     * @param id           the id of the Result.
+     */
+    private void addDate(TimelineDate timelineDate, int id) {
+        if (timelineDate != null && timelineDate.getDate1() != null) {
+            long date1 = timelineDate.getDate1().getTime();
+            addPosting(dateIndex, date1, id);
+            if (timelineDate.getDate2() != null) {
+                longestRange = Math.max(longestRange, timelineDate.getDate2().getTime() - date1);
+            }
+        }
+    }
+
+    /**
+     * Add the given id to the posting list of the given key, creating the posting list if needed.
+     *
+     * @param postings the map of postings to add to.
+     * @param key      the given key.
+     * @param id       the given id.
+     * @param <K>      the type of the key.
+     */
+    private static <K> void addPosting(Map<K, PostingList> postings, K key, int id) {
+        PostingList postingList = postings.get(key);
+        if (postingList == null) {
+            postingList = new PostingList();
+            postings.put(key, postingList);
+        }
+        postingList.addIfLast(id);
+    }
+
+    /**
+     * Split the given text into normalized terms (lower case letters and digits).
+     *
+     * @param text the given text (can be null).
+     * @return the list of terms in the text.
+     */
+    private static List<String> getTerms(String text) {
+        List<String> toReturn = new ArrayList<>();
+        if (text != null) {
+            for (String term : termSplitPattern.split(text.toLowerCase(Locale.ROOT))) {
+                if (!term.isEmpty()) {
+                    toReturn.add(term);
+                }
+            }
+        }
+        return toReturn;
+    }
+
+    /**
+     * Normalize a subject, so that the subject lookup ignores case and surrounding whitespace.
+     *
+     * @param subject the given subject.
+     * @return the normalized subject.
+     */
+    private static String normalize(String subject) {
+        return (subject != null) ? subject.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Intersect two sorted arrays of ids.
+     *
+     * @param a a sorted array of ids.
+     * @param b a sorted array of ids.
+     * @return a sorted array of the ids in both arrays.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] toReturn = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                toReturn[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(toReturn, k);
+    }
+
+    /**
+     * A growable list of ids (avoids boxing every id in a List of Integers).
+     */
+    private static class PostingList {
+        int[] ids = new int[4];
+        int size = 0;
+
+        /**
+         * Add the given id to the end of the list.
+         *
+         * @param id the given id.
+         */
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * Add the given id, unless it is already the last id of the list (i.e. the same term appearing twice in one
+         * Result).
+         *
+         * @param id the given id.
+         */
+        void addIfLast(int id) {
+            if (size == 0 || ids[size - 1] != id) {
+                add(id);
+            }
+        }
+
+        /**
+         * Get a copy of the ids in this list.
+         *
+         * @return an array with the ids held.
+         */
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package backend.service;
+
+import backend.helpers.ToJSON;
+import backend.process.Engine;
+import backend.process.EngineMetrics;
+import backend.process.Hashing;
+import backend.process.ProcessFiles;
+import backend.process.Result;
+import backend.system.BackEndSystem;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lightweight HTTP server (bound to localhost only) that lets other tools extract a timeline from text or documents
+ * without the JavaFX application. The models of the BackEndSystem are loaded once when the server starts, and stay
+ * loaded for every request.
+ * <p>
+ * Endpoints:
+ * <ul>
+ * <li>POST /extract?date=yyyy-MM-dd[&amp;filename=name.pdf][&amp;format=ndjson]: the body is the text to process
+ * (UTF-8), or the bytes of a document if a filename with a .pdf/.docx/.txt extension is given. The date is the base
+ * date the dates of the text are resolved against (today if not given). Returns the Results in the format of ToJSON
+ * (JSON by default, or NDJSON).</li>
+ * <li>GET /health: the SystemState of the BackEndSystem, the number of requests waiting for their Results, the number of
+ * distinct requests queued and being processed, and how the sentences with dates were summarized (see EngineMetrics),
+ * as JSON.</li>
+ * </ul>
+ * Requests are put on a queue that a fixed pool of pipeline Threads (Settings.getMaxNoOfThreads) drains, one request
+ * per Thread at a time, so many concurrent requests do not start more pipelines than the pool allows, and distinct
+ * requests are processed in parallel. The text of a document is also extracted (by PDFBox or POI) on the pipeline
+ * Thread, within the same limit. A request identical to one still waiting or being processed (the same body, filename
+ * extension and base date) is not queued again: it shares the Results of that one.
+ */
+public class ExtractionServer {
+    public final static int DEFAULT_PORT = 8765;
+    private final static int MAX_BODY_BYTES = 64 << 20;
+    private final HttpServer httpServer;
+    private final Extractor extractor;
+    private final LinkedBlockingQueue<ExtractionRequest> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String, ExtractionRequest> requests = new ConcurrentHashMap<>();//waiting or being processed, by key
+    private final List<Thread> pipelineThreads = new ArrayList<>();
+    private final AtomicInteger processing = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();//HTTP requests waiting for their Results
+    private volatile boolean running;
+
+    /**
+     * What produces the Results of a text (an Engine, unless told otherwise).
+     */
+    public interface Extractor {
+        /**
+         * Produce the Results of the given text. Called by many pipeline Threads at the same time.
+         *
+         * @param text     the given text.
+         * @param baseDate the base date the dates of the text are resolved against (yyyy-MM-dd).
+         * @return the Results of the text.
+         */
+        List<Result> extract(String text, String baseDate);
+    }
+
+    /**
+     * A body waiting to be processed, and the Results the requests with the same key wait for.
+     */
+    private static class ExtractionRequest {
+        private final byte[] body;
+        private final String filename;
+        private final String baseDate;
+        private final String key;
+        private final CompletableFuture<List<Result>> results = new CompletableFuture<>();
+
+        /**
+         * Create an ExtractionRequest.
+         *
+         * @param body     the body of the request: the text to process (UTF-8), or the bytes of a document.
+         * @param filename the filename of the document in the body, or null if the body is the text.
+         * @param baseDate the base date of the text (yyyy-MM-dd).
+         */
+        ExtractionRequest(byte[] body, String filename, String baseDate) {
+            this.body = body;
+            this.filename = filename;
+            this.baseDate = baseDate;
+            String extension = (filename != null) ? filename.substring(filename.lastIndexOf('.')).toLowerCase() : "";
+            this.key = baseDate + "\n" + extension + "\n" + Hashing.sha256(body);
+        }
+
+        /**
+         * Get the key of the request: requests with the same key have the same Results.
+         *
+         * @return the key of the request.
+         */
+        String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Create an ExtractionServer on localhost. It does not accept requests until it is started.
+     *
+     * @param port        the port to listen on (0 for any free port, see getPort).
+     * @param extractor   what produces the Results of each text.
+     * @param noOfThreads the number of pipeline Threads (texts processed at the same time).
+     * @throws IOException if the port could not be bound to.
+     */
+    public ExtractionServer(int port, Extractor extractor, int noOfThreads) throws IOException {
+        this.extractor = extractor;
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/extract", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleExtract(exchange);
+            }
+        });
+        httpServer.createContext("/health", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleHealth(exchange);
+            }
+        });
+        httpServer.setExecutor(Executors.newCachedThreadPool());//the handlers only wait for the pipeline Threads
+        for (int i = 0; i < Math.max(1, noOfThreads); i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drainQueue();
+                }
+            }, "ExtractionServer-pipeline-" + i);
+            thread.setDaemon(true);
+            pipelineThreads.add(thread);
+        }
+    }
+
+    /**
+     * Create an ExtractionServer on localhost that processes texts with an Engine (with the Settings as they are now),
+     * with as many pipeline Threads as the Settings allow.
+     *
+     * @param port the port to listen on (0 for any free port, see getPort).
+     * @return the ExtractionServer.
+     * @throws IOException if the port could not be bound to.
+     */
+    public static ExtractionServer withEngine(int port) throws IOException {
+        final Engine engine = new Engine();//loads the models now, and is shared by the pipeline Threads
+        return new ExtractionServer(port, new Extractor() {
+            @Override
+            public List<Result> extract(String text, String baseDate) {
+                return engine.getResults(text, baseDate);
+            }
+        }, BackEndSystem.getInstance().getSettings().getMaxNoOfThreads());
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        running = true;
+        for (Thread thread : pipelineThreads) {
+            thread.start();
+        }
+        httpServer.start();
+        System.out.println("Extraction server listening on http://localhost:" + getPort());
+    }
+
+    /**
+     * Stop accepting requests, and fail the requests still waiting.
+     */
+    public void stop() {
+        running = false;
+        httpServer.stop(0);
+        for (Thread thread : pipelineThreads) {
+            thread.interrupt();
+        }
+        List<ExtractionRequest> waiting = new ArrayList<>();
+        queue.drainTo(waiting);
+        for (ExtractionRequest request : waiting) {
+            requests.remove(request.getKey(), request);
+            request.results.completeExceptionally(new IllegalStateException("The server stopped."));
+        }
+        ((ExecutorService) httpServer.getExecutor()).shutdownNow();
+    }
+
+    /**
+     * Get the port the server listens on.
+     *
+     * @return the port.
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Queue the given request, unless an identical request is still waiting or being processed.
+     *
+     * @param request the given request.
+     * @return the request whose Results the given request should wait for (the given request, or the identical one).
+     */
+    private ExtractionRequest submit(ExtractionRequest request) {
+        ExtractionRequest same = requests.putIfAbsent(request.getKey(), request);
+        if (same != null) {
+            return same;
+        }
+        queue.add(request);
+        return request;
+    }
+
+    /**
+     * Run on each pipeline Thread: take the requests waiting one at a time (leaving the rest to the other Threads), and
+     * process each.
+     */
+    private void drainQueue() {
+        while (running) {
+            ExtractionRequest request;
+            try {
+                request = queue.take();
+            } catch (InterruptedException e) {
+                return;//stopped
+            }
+            processing.incrementAndGet();
+            List<Result> results = null;
+            Throwable failure = null;
+            try {
+                results = extractor.extract(getText(request.body, request.filename), request.baseDate);
+            } catch (Throwable e) {//even an Error (i.e. a StackOverflowError on a malformed document) is answered, and the Thread goes on
+                failure = e;
+            }
+            requests.remove(request.getKey(), request);//a request made from now on is processed again
+            processing.decrementAndGet();
+            if (failure != null) {
+                request.results.completeExceptionally(failure);
+            } else {
+                request.results.complete(results);
+            }
+        }
+    }
+
+    /**
+     * Handle a request to the /extract endpoint.
+     *
+     * @param exchange the request, and its response.
+     * @throws IOException if the response could not be sent.
+     */
+    private void handleExtract(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendText(exchange, 405, "Use POST, with the text to process as the body.");
+            return;
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String baseDate = query.get("date");
+        if (baseDate == null) {
+            baseDate = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
+        } else if (!isDate(baseDate)) {
+            sendText(exchange, 400, "The date must be given as yyyy-MM-dd.");
+            return;
+        }
+        ToJSON.Format format = "ndjson".equalsIgnoreCase(query.get("format")) ? ToJSON.Format.NDJSON : ToJSON.Format.JSON;
+        byte[] body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            sendText(exchange, 413, "The body can be at most " + MAX_BODY_BYTES + " bytes.");
+            return;
+        }
+        String filename = query.get("filename");
+        if (filename != null && !isDocument(filename)) {
+            sendText(exchange, 415, "Only .pdf, .docx and .txt documents can be processed.");
+            return;
+        }
+
+        ExtractionRequest request = submit(new ExtractionRequest(body, filename, baseDate));
+        List<Result> results;
+        waiting.incrementAndGet();
+        try {
+            results = request.results.get();
+        } catch (InterruptedException e) {
+            sendText(exchange, 503, "The server is stopping.");
+            return;
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            sendText(exchange, 500, "Could not process the text: " + e.getCause());
+            return;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        StringWriter json = new StringWriter();
+        ToJSON.write(results, json, format);
+        send(exchange, 200, format == ToJSON.Format.NDJSON ? "application/x-ndjson" : "application/json", json.toString());
+    }
+
+    /**
+     * Handle a request to the /health endpoint.
+     *
+     * @param exchange the request, and its response.
+     * @throws IOException if the response could not be sent.
+     */
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendText(exchange, 405, "Use GET.");
+            return;
+        }
+        JsonObject health = new JsonObject();
+        health.addProperty("state", BackEndSystem.getInstance().getSystemState().toString());
+        health.addProperty("waiting", waiting.get());
+        health.addProperty("queued", queue.size());
+        health.addProperty("processing", processing.get());
+        health.addProperty("threads", pipelineThreads.size());
+        EngineMetrics engineMetrics = BackEndSystem.getInstance().getEngineMetrics();
+        health.addProperty("sentencesParsed", engineMetrics.getParsed());
+        health.addProperty("sentencesTooLong", engineMetrics.getTooLong());
+        health.addProperty("sentencesTimedOut", engineMetrics.getTimedOut());
+        send(exchange, 200, "application/json", health.toString());
+    }
+
+    /**
+     * Get the text of the body of a request: the body itself (UTF-8), or the text of the document it holds if it has
+     * a filename.
+     *
+     * @param body     the body of the request.
+     * @param filename the filename of the document in the body, or null if the body is the text.
+     * @return the text to process.
+     * @throws IOException if the document could not be written to a temporary File.
+     */
+    private static String getText(byte[] body, String filename) throws IOException {
+        if (filename == null) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        String name = filename.toLowerCase();
+        File file = File.createTempFile("extract", name.substring(name.lastIndexOf('.')));
+        try {
+            Files.write(file.toPath(), body);
+            return new ProcessFiles().extractText(file);
+        } finally {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Check that the given filename is of a document that can be processed.
+     *
+     * @param filename the given filename.
+     * @return true if it is a .pdf, .docx or .txt document; false otherwise.
+     */
+    private static boolean isDocument(String filename) {
+        String name = filename.toLowerCase();
+        return name.endsWith(".pdf") || name.endsWith(".docx") || name.endsWith(".txt");
+    }
+
+    /**
+     * Read the body of a request.
+     *
+     * @param in the body of the request.
+     * @return the bytes of the body, or null if it is larger than MAX_BODY_BYTES.
+     * @throws IOException if the body could not be read.
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1 << 16];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (bytes.size() + read > MAX_BODY_BYTES) {
+                return null;
+            }
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Parse the query of a request URI.
+     *
+     * @param rawQuery the query, still URL encoded (can be null).
+     * @return the parameters of the query, by their name.
+     * @throws IOException if the query is not valid UTF-8.
+     */
+    private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                            URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Check that the given String is a valid date of the format yyyy-MM-dd.
+     *
+     * @param date the given String.
+     * @return true if it is a valid date; false otherwise.
+     */
+    private static boolean isDate(String date) {
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        simpleDateFormat.setLenient(false);
+        try {
+            return date.matches("\\d{4}-\\d{2}-\\d{2}") && simpleDateFormat.parse(date) != null;
+        } catch (ParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Send a plain text response.
+     *
+     * @param exchange the request, and its response.
+     * @param status   the HTTP status code.
+     * @param message  the text of the response.
+     * @throws IOException if the response could not be sent.
+     */
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "text/plain", message);
+    }
+
+    /**
+     * Send a response.
+     *
+     * @param exchange    the request, and its response.
+     * @param status      the HTTP status code.
+     * @param contentType the type of the body (sent as UTF-8).
+     * @param body        the body of the response.
+     * @throws IOException if the response could not be sent.
+     */
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Start an ExtractionServer that processes texts with an Engine, and run it until the JVM is stopped.
+     * <p>
+     * Usage: ExtractionServer [port]
+     *
+     * @param args the port to listen on (DEFAULT_PORT if not given).
+     * @throws IOException if the port could not be bound to.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        final ExtractionServer extractionServer = withEngine(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                extractionServer.stop();
+            }
+        }));
+        extractionServer.start();
+    }
+}
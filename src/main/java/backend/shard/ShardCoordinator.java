@@ -0,0 +1,403 @@
+package backend.shard;
+
+import backend.helpers.ProjectFile;
+import backend.helpers.Sort;
+import backend.process.FileData;
+import backend.process.ProcessProgress;
+import backend.process.Result;
+import backend.ranges.ProduceRanges;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes a corpus too large for one JVM, by sharding its Files across a number of local worker JVMs (each running
+ * ShardWorker, so each has its own heap and StanfordCoreNLP) and merging the Results they stream back over their
+ * standard output into a single list, in the order of the Files.
+ * <p>
+ * Files are handed out in small batches to whichever worker is free, so that each worker processes the Files of its
+ * batch in parallel (with the Threads of its ProcessFiles), and a worker given large Files does not hold up the rest.
+ * By default a batch has as many Files as each worker has processors. If a worker crashes (i.e. its output ends before
+ * it sent the Results of its batch), a new worker is started in its place and the Files not received are given out
+ * again, each on its own (so that the File that crashed it does not take the others down with it again). A File that
+ * crashes maxAttempts workers on its own is left out (see getLeftOut), so it can not stop the rest of the corpus from
+ * being processed. If no worker can be started at all, processFiles throws instead of returning the Results of only
+ * some of the Files.
+ * <p>
+ * The progress of the corpus (see ProcessProgress) is updated as each File is done, and printed every PROGRESS_MS when
+ * run from the command line.
+ */
+public class ShardCoordinator {
+    private final static long POLL_MS = 200;
+    private final static long PROGRESS_MS = 10000;
+    private final int noOfWorkers;
+    private final int filesPerBatch;//the most Files given to a worker at a time
+    private final int maxAttempts;
+    private final List<String> jvmOptions;
+    private final String workerClass;//the main class of the worker JVMs
+    private List<File> files;
+    private List<FileData> fileDatas;
+    private List<Result>[] fileResults;//the Results of each File, by its index
+    private int[] attempts;//the number of times each File was given to a worker that crashed
+    private LinkedBlockingQueue<Integer> toProcess;//the indexes of the Files that have not been given out
+    private LinkedBlockingQueue<Integer> toRetry;//the indexes of the Files to give out again, each on its own
+    private final List<File> leftOut = new ArrayList<>();//the Files that crashed every worker they were given to
+    private AtomicInteger filesToGo;
+    private volatile ProcessProgress progress;//of the Files being processed, null until they are started
+
+    /**
+     * Create a ShardCoordinator.
+     *
+     * @param noOfWorkers the number of worker JVMs run at the same time.
+     * @param maxAttempts the number of times a File is given to a worker on its own before it is left out.
+     * @param jvmOptions  the options the worker JVMs are started with (eg "-Xmx3g").
+     */
+    public ShardCoordinator(int noOfWorkers, int maxAttempts, List<String> jvmOptions) {
+        this(noOfWorkers, Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, noOfWorkers)), maxAttempts,
+                jvmOptions, ShardWorker.class.getName());
+    }
+
+    /**
+     * Create a ShardCoordinator whose worker JVMs run the given main class instead of ShardWorker (i.e. a stub that
+     * crashes on purpose, to test the coordinator).
+     *
+     * @param noOfWorkers   the number of worker JVMs run at the same time.
+     * @param filesPerBatch the most Files given to a worker at a time.
+     * @param maxAttempts   the number of times a File is given to a worker on its own before it is left out.
+     * @param jvmOptions    the options the worker JVMs are started with (eg "-Xmx3g").
+     * @param workerClass   the name of the main class of the worker JVMs, which must follow the protocol of ShardWorker.
+     */
+    public ShardCoordinator(int noOfWorkers, int filesPerBatch, int maxAttempts, List<String> jvmOptions, String workerClass) {
+        this.noOfWorkers = Math.max(1, noOfWorkers);
+        this.filesPerBatch = Math.max(1, filesPerBatch);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.jvmOptions = new ArrayList<>(jvmOptions);
+        this.workerClass = workerClass;
+    }
+
+    /**
+     * Create a ShardCoordinator that gives each File to at most 3 workers, which are started with the default options.
+     *
+     * @param noOfWorkers the number of worker JVMs run at the same time.
+     */
+    public ShardCoordinator(int noOfWorkers) {
+        this(noOfWorkers, 3, Collections.<String>emptyList());
+    }
+
+    /**
+     * Process the given Files in the worker JVMs, and wait until all of them are processed (or left out).
+     *
+     * @param files     the Files to process.
+     * @param fileDatas the FileData of each File (at the same index), which the Results produced reference.
+     * @return the Results of all the Files, sorted by their date1 (those with the same date1 in the order of their Files).
+     * @throws IOException if workers could not be started to process all the Files.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Result> processFiles(List<File> files, List<FileData> fileDatas) throws IOException {
+        if (files.size() != fileDatas.size()) {
+            throw new IllegalArgumentException("There must be a FileData for each File.");
+        }
+        this.files = files;
+        this.fileDatas = fileDatas;
+        fileResults = new List[files.size()];
+        attempts = new int[files.size()];
+        toProcess = new LinkedBlockingQueue<>();
+        toRetry = new LinkedBlockingQueue<>();
+        synchronized (leftOut) {
+            leftOut.clear();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            toProcess.add(i);
+        }
+        filesToGo = new AtomicInteger(files.size());
+        long bytesTotal = 0;
+        for (File file : files) {
+            bytesTotal += file.length();
+        }
+        progress = new ProcessProgress(files.size(), bytesTotal);
+        int noOfThreads = Math.min(noOfWorkers, files.size());
+        System.out.println("Sharding " + files.size() + " Files across " + noOfThreads + " workers, in batches of up to " + filesPerBatch);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < noOfThreads; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runWorkers();
+                }
+            }, "ShardCoordinator-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        if (filesToGo.get() > 0) {//every Thread gave up, as it could not start a worker
+            throw new IOException("Could not start the workers, " + filesToGo.get() + " of " + files.size() + " Files were not processed");
+        }
+        List<List<Result>> sortedRuns = new ArrayList<>();
+        for (List<Result> fileResult : fileResults) {
+            if (fileResult != null) {
+                sortedRuns.add(fileResult);//each worker sorts the Results of its File
+            }
+        }
+        return Sort.mergeByDate1(sortedRuns);
+    }
+
+    /**
+     * Get the Files that were left out of the last Files processed, as they crashed every worker they were given to.
+     *
+     * @return the Files left out, in the order they were left out.
+     */
+    public List<File> getLeftOut() {
+        synchronized (leftOut) {
+            return new ArrayList<>(leftOut);
+        }
+    }
+
+    /**
+     * Get the progress of the Files being processed.
+     *
+     * @return the progress, or null if the Files have not been started.
+     */
+    public ProcessProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Run on a Thread of the coordinator: start a worker, give it Files until there are none left, and start a new
+     * worker whenever it crashes.
+     */
+    private void runWorkers() {
+        while (filesToGo.get() > 0 && !Thread.currentThread().isInterrupted()) {
+            Process worker;
+            try {
+                worker = startWorker();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;//a worker can not be started at all, the other Threads carry on if they can
+            }
+            boolean crashed = runWorker(worker);
+            if (crashed) {
+                worker.destroy();
+            }
+            try {
+                worker.waitFor();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Give the given worker batches of Files until there are none left or it crashes.
+     *
+     * @param worker the given worker.
+     * @return true if the worker crashed; false if there are no Files left.
+     */
+    private boolean runWorker(Process worker) {
+        DataOutputStream toWorker = new DataOutputStream(new BufferedOutputStream(worker.getOutputStream()));
+        DataInputStream fromWorker = new DataInputStream(new BufferedInputStream(worker.getInputStream(), 1 << 16));
+        while (filesToGo.get() > 0) {
+            List<Integer> batch = new ArrayList<>();
+            Integer index = toRetry.poll();
+            if (index != null) {
+                batch.add(index);//given out on its own
+            } else {
+                try {
+                    index = toProcess.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();//so the worker is not replaced
+                    break;
+                }
+                if (index == null) {
+                    continue;//all given out, but a File could come back if another worker crashes
+                }
+                batch.add(index);
+                toProcess.drainTo(batch, filesPerBatch - 1);
+            }
+            int received = 0;
+            try {
+                send(toWorker, batch);
+                for (; received < batch.size(); received++) {
+                    receive(fromWorker, batch.get(received));
+                    filesToGo.decrementAndGet();
+                    progress.documentDone(files.get(batch.get(received)).length());
+                }
+            } catch (IOException e) {
+                crashed(batch.subList(received, batch.size()), batch.size() > 1, e);
+                return true;
+            }
+        }
+        try {
+            toWorker.close();//the worker exits when its input is closed
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Send the given batch of Files to a worker.
+     *
+     * @param toWorker the standard input of the worker.
+     * @param batch    the indexes of the Files.
+     * @throws IOException if the worker can not be written to.
+     */
+    private void send(DataOutputStream toWorker, List<Integer> batch) throws IOException {
+        toWorker.writeInt(batch.size());
+        for (int index : batch) {
+            Date creationDate = fileDatas.get(index).getCreationDate();
+            toWorker.writeInt(index);
+            toWorker.writeUTF(files.get(index).getAbsolutePath());
+            toWorker.writeLong((creationDate != null) ? creationDate.getTime() : ShardWorker.NO_DATE);
+        }
+        toWorker.flush();
+    }
+
+    /**
+     * Receive the Results of the given File from a worker, and point them to the FileData of the File given by the
+     * User (instead of the copy made by the worker).
+     *
+     * @param fromWorker the standard output of the worker.
+     * @param index      the index of the File.
+     * @throws IOException if the worker crashed or sent something other than the Results of the File.
+     */
+    private void receive(DataInputStream fromWorker, int index) throws IOException {
+        int receivedIndex = fromWorker.readInt();
+        byte[] bytes = new byte[fromWorker.readInt()];
+        fromWorker.readFully(bytes);
+        if (receivedIndex != index) {
+            throw new IOException("Expected the Results of File " + index + " but got those of " + receivedIndex);
+        }
+        List<Result> results = ProjectFile.fromBytes(bytes).getResults();
+        for (Result result : results) {
+            result.setFileData(fileDatas.get(index));
+        }
+        fileResults[index] = results;
+        System.out.println("Received " + results.size() + " Results for: " + files.get(index).getName());
+    }
+
+    /**
+     * Called when a worker crashed while processing the given Files (whose Results were not received): give out each
+     * File again on its own. Only a crash while processing a File on its own counts as an attempt, as it is then known
+     * to be the File that crashed the worker; a File is left out once it has crashed maxAttempts workers.
+     *
+     * @param indexes the indexes of the Files.
+     * @param batched whether the Files were given out with others (so it is not known which crashed the worker).
+     * @param e       what went wrong.
+     */
+    private void crashed(List<Integer> indexes, boolean batched, IOException e) {
+        for (int index : indexes) {
+            File file = files.get(index);
+            if (batched) {
+                System.out.println("Worker crashed processing a batch with " + file.getName() + ", retrying it on its own: " + e.getMessage());
+                toRetry.add(index);
+                continue;
+            }
+            int attempt;
+            synchronized (this) {
+                attempt = ++attempts[index];
+            }
+            if (attempt < maxAttempts) {
+                System.out.println("Worker crashed processing " + file.getName() + " (attempt " + attempt + "), retrying: " + e.getMessage());
+                toRetry.add(index);
+            } else {
+                System.out.println("Worker crashed processing " + file.getName() + " " + attempt + " times, leaving it out: " + e.getMessage());
+                synchronized (leftOut) {
+                    leftOut.add(file);
+                }
+                filesToGo.decrementAndGet();
+                progress.documentDone(file.length());
+            }
+        }
+    }
+
+    /**
+     * Start a worker JVM running the worker class, with the class path of this JVM. Its standard error (its logging) is shown with that of this
+     * JVM.
+     *
+     * @return the worker Process.
+     * @throws IOException if the JVM could not be started.
+     */
+    private Process startWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(workerClass);
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return processBuilder.start();
+    }
+
+    /**
+     * Process the given Files in worker JVMs and save the merged Timeline as a project file.
+     * <p>
+     * Usage: ShardCoordinator noOfWorkers output.tlp file...
+     *
+     * @param args the number of workers, the project file to save to, and the Files to process.
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: ShardCoordinator noOfWorkers output." + ProjectFile.EXTENSION + " file...");
+            return;
+        }
+        List<File> files = new ArrayList<>();
+        List<FileData> fileDatas = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            File file = new File(args[i]);
+            files.add(file);
+            fileDatas.add(new FileData(file));
+        }
+        final ShardCoordinator shardCoordinator = new ShardCoordinator(Integer.parseInt(args[0]));
+        Timer progressTimer = new Timer("ShardCoordinator-progress", true);
+        progressTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                ProcessProgress progress = shardCoordinator.getProgress();
+                if (progress != null) {
+                    System.out.println("Progress: " + progress);
+                }
+            }
+        }, PROGRESS_MS, PROGRESS_MS);
+        List<Result> results;
+        try {
+            results = shardCoordinator.processFiles(files, fileDatas);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            progressTimer.cancel();
+        }
+        for (File file : shardCoordinator.getLeftOut()) {
+            System.out.println("Left out: " + file);
+        }
+        System.out.println("Processed: " + shardCoordinator.getProgress() + " in "
+                + ProcessProgress.formatDuration(shardCoordinator.getProgress().getElapsed(System.currentTimeMillis())));
+        ProduceRanges produceRanges = new ProduceRanges();
+        produceRanges.produceRanges(new ArrayList<>(results));//sorts the list it is given
+        try {
+            ProjectFile.save(new File(args[1]), results, fileDatas, produceRanges.getTrees());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
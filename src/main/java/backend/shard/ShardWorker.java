@@ -0,0 +1,110 @@
+package backend.shard;
+
+import backend.helpers.ProjectFile;
+import backend.process.FileData;
+import backend.process.ProcessFiles;
+import backend.process.Result;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The main class of a worker JVM started by the ShardCoordinator. It reads batches of Files to process from its
+ * standard input, processes each batch with the headless ProcessFiles (so the Files of a batch are processed in
+ * parallel, by as many Threads as the Settings allow), and writes the Results of each File back to its standard output.
+ * <p>
+ * Protocol (both ways as a DataOutputStream writes it):
+ * <ul>
+ * <li>in: the number of Files in the batch, then for each File its index (in the list of the coordinator), its path,
+ * and its creation date in ms (NO_DATE if it has none). The worker exits when its input is closed.</li>
+ * <li>out: for each File of the batch, in the order they were sent: the index of the File, then the length and bytes
+ * of the Results of the File in the layout of a project file (see ProjectFile.toBytes).</li>
+ * </ul>
+ * Everything printed to System.out (the logging of the System) is sent to the standard error instead, so it can not
+ * be mixed up with the Results.
+ */
+public class ShardWorker {
+    final static long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * Run the worker until its standard input is closed.
+     *
+     * @param args not used.
+     */
+    public static void main(String[] args) {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.err), true));//the logging goes to stderr
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(System.in))) {
+            while (true) {
+                int noOfFiles;
+                try {
+                    noOfFiles = in.readInt();
+                } catch (EOFException e) {
+                    break;//the coordinator has no more Files for this worker
+                }
+                int[] indexes = new int[noOfFiles];
+                List<File> files = new ArrayList<>();
+                List<FileData> fileDatas = new ArrayList<>();
+                for (int i = 0; i < noOfFiles; i++) {
+                    indexes[i] = in.readInt();
+                    File file = new File(in.readUTF());
+                    long creationDate = in.readLong();
+                    FileData fileData = new FileData(file);
+                    if (creationDate != NO_DATE) {
+                        fileData.setCreationDate(new Date(creationDate));
+                    }
+                    files.add(file);
+                    fileDatas.add(fileData);
+                }
+                List<List<Result>> fileResults = process(files, fileDatas);
+                for (int i = 0; i < noOfFiles; i++) {
+                    byte[] bytes = ProjectFile.toBytes(fileResults.get(i), Collections.singletonList(fileDatas.get(i)));
+                    out.writeInt(indexes[i]);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();//the coordinator went away, there is no one to send the Results to
+        }
+        System.exit(0);//the StanfordCoreNLP can leave non daemon Threads behind
+    }
+
+    /**
+     * Process the given batch of Files with the headless ProcessFiles, and split the Results by their File.
+     *
+     * @param files     the given Files.
+     * @param fileDatas the FileData of each File (at the same index).
+     * @return the Results of each File (at the same index), sorted by their date1.
+     */
+    private static List<List<Result>> process(List<File> files, List<FileData> fileDatas) {
+        Map<FileData, Integer> indexes = new IdentityHashMap<>();//the Results point to the FileData they were given
+        List<List<Result>> fileResults = new ArrayList<>();
+        for (int i = 0; i < fileDatas.size(); i++) {
+            indexes.put(fileDatas.get(i), i);
+            fileResults.add(new ArrayList<Result>());
+        }
+        List<Result> results = new ProcessFiles().processFiles(files, fileDatas);
+        if (results != null) {
+            for (Result result : results) {//sorted by date1, so the Results of each File are too
+                fileResults.get(indexes.get(result.getFileData())).add(result);
+            }
+        }
+        return fileResults;
+    }
+}
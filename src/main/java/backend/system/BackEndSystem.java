@@ -1,8 +1,19 @@
 package backend.system;
 
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import backend.process.CoreNLPPipeline;
+import backend.process.EngineMetrics;
+import backend.process.EngineOptions;
+import edu.stanford.nlp.time.TimeAnnotator;
 import edu.stanford.nlp.util.PropertiesUtils;
 
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * Holds all the data needed by the entire Back-end: the StanfordCoreNLP used to process text, the System state, etc.
  * Follows a Singleton design pattern, as there should be just one backend.system.BackEndSystem during the entire lifetime of the
@@ -10,10 +21,17 @@ import edu.stanford.nlp.util.PropertiesUtils;
  * Before the Object is created the backend.system.SystemState is NOT_STARTED, it moves to STARTED when it is created.
  */
 public class BackEndSystem {
+    private final static String SUTIME_RULES = "edu/stanford/nlp/models/sutime/defs.sutime.txt,"
+            + "edu/stanford/nlp/models/sutime/english.sutime.txt,edu/stanford/nlp/models/sutime/english.holidays.sutime.txt";
     private static BackEndSystem ourInstance = new BackEndSystem();
-    private StanfordCoreNLP coreNLP;
+    private final Map<String, WeakReference<CoreNLPPipeline>> coreNLPs = new HashMap<>();//by their key, while in use
+    private CoreNLPPipeline currentCoreNLP;//that of the current Settings, kept even while no Engine uses it
+    private String currentKey;//the key of currentCoreNLP
+    private TimeAnnotator timeAnnotator;//only SUTime, to resolve dates again against another base date
+    private final EngineMetrics engineMetrics = new EngineMetrics();//of all the Engines
     private SystemState systemState = SystemState.NOT_STARTED;
-    private Settings settings;
+    private volatile Settings settings;
+    private final List<SettingsListener> settingsListeners = new CopyOnWriteArrayList<>();//can be added while being informed
 
     /**
      * Will make a new backend.system.BackEndSystem if one has not been created yet, or else return the one that was previously
@@ -29,24 +47,122 @@ public class BackEndSystem {
      * Initialises the StanfordCoreNLP and sets the backend.system.SystemState to STARTED.
      */
     private BackEndSystem() {
-        coreNLP = new StanfordCoreNLP(PropertiesUtils.asProperties(
-                "annotators",
-                "tokenize,ssplit,pos,lemma,ner,entitymentions,parse,dcoref",
-                "tokenize.language", "en"
-        ));
-        systemState = SystemState.STARTED;
         settings = new Settings(true);//load the settings of the file, or use default Settings
+        getCoreNLP();//loaded now, as it is the one used unless told otherwise
+        systemState = SystemState.STARTED;
     }
 
     /**
-     * Get a reference to the StandfordCoreNLP that has already been loaded with all the models.
+     * Get a reference to the CoreNLPPipeline (running the annotators of the Settings) that has already been loaded
+     * with all the models.
      *
-     * @return a StanfordCoreNLP with all the models loaded.
+     * @return a CoreNLPPipeline with all the models loaded.
      */
-    public StanfordCoreNLP getCoreNLP() {
+    public CoreNLPPipeline getCoreNLP() {
+        return getCoreNLP(EngineOptions.fromSettings(settings));
+    }
+
+    /**
+     * Get a reference to the CoreNLPPipeline that runs the annotators (and NER models) of the given EngineOptions, with
+     * their limits on parsing a sentence. Each is loaded when it is first needed, and then shared (by all the Engines
+     * running the same annotators with the same limits).
+     * <p>
+     * Only the CoreNLPPipeline of the current Settings is kept by the System. The others (i.e. of the Settings before
+     * they were changed) are only kept while an Engine uses them, so that changing the Settings many times does not
+     * fill the heap with pipelines no one uses.
+     *
+     * @param options the given EngineOptions.
+     * @return a CoreNLPPipeline with the models of the annotators loaded.
+     */
+    public synchronized CoreNLPPipeline getCoreNLP(EngineOptions options) {
+        String key = getKey(options);
+        WeakReference<CoreNLPPipeline> reference = coreNLPs.get(key);
+        CoreNLPPipeline coreNLP = (reference != null) ? reference.get() : null;
+        if (coreNLP == null) {
+            Iterator<WeakReference<CoreNLPPipeline>> iterator = coreNLPs.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().get() == null) {
+                    iterator.remove();//no longer used, so it was collected
+                }
+            }
+            String maxSentenceLength = Integer.toString(options.getMaxSentenceLength());
+            String maxParseTime = Long.toString(options.getMaxParseTime());
+            Properties properties = getSUTimeProperties();
+            properties.putAll(PropertiesUtils.asProperties(
+                    "ner.model", options.getNERModels(),
+                    "parse.maxlen", maxSentenceLength,//longer sentences are given a flat tree instead of being parsed
+                    "parse.maxtime", maxParseTime,//as are the sentences that take longer to parse
+                    "tokenize.language", "en"
+            ));
+            coreNLP = new CoreNLPPipeline(options.getAnnotatorProfile(), properties);
+            coreNLPs.put(key, new WeakReference<>(coreNLP));
+        }
+        if (key.equals(getKey(EngineOptions.fromSettings(settings)))) {
+            currentCoreNLP = coreNLP;
+            currentKey = key;
+        }
         return coreNLP;
     }
 
+    /**
+     * Get the properties of SUTime, shared by the NER annotator of every CoreNLPPipeline and by the TimeAnnotator, so
+     * that dates resolved again against another base date are found by the same rules as when the text was annotated.
+     *
+     * @return a new Properties holding the SUTime settings.
+     */
+    private static Properties getSUTimeProperties() {
+        return PropertiesUtils.asProperties(
+                "ner.applyNumericClassifiers", "true",//the NUMBER, MONEY, etc. classifiers, which SUTime runs among
+                "ner.useSUTime", "true",//SUTime finds the DATEs (and TIMEs, DURATIONs and SETs)
+                "sutime.rules", SUTIME_RULES
+        );
+    }
+
+    /**
+     * Get the key of the CoreNLPPipeline of the given EngineOptions: the options with the same key share one.
+     *
+     * @param options the given EngineOptions.
+     * @return the key, made of the annotators, NER models and parse limits of the options.
+     */
+    private static String getKey(EngineOptions options) {
+        return options.getAnnotatorProfile().getAnnotators() + "\n" + options.getNERModels() + "\n"
+                + options.getMaxSentenceLength() + "\n" + options.getMaxParseTime();
+    }
+
+    /**
+     * Stop keeping the CoreNLPPipeline of the Settings before they were changed, if the current Settings need another
+     * one (it is kept from now on only while an Engine uses it).
+     */
+    private synchronized void dropOldCoreNLP() {
+        if (currentKey != null && !currentKey.equals(getKey(EngineOptions.fromSettings(settings)))) {
+            currentCoreNLP = null;
+            currentKey = null;
+        }
+    }
+
+    /**
+     * Get the counts of how the sentences with dates were summarized, by all the Engines of the System.
+     *
+     * @return the EngineMetrics of the System.
+     */
+    public EngineMetrics getEngineMetrics() {
+        return engineMetrics;
+    }
+
+    /**
+     * Get a reference to the SUTime annotator, used to resolve the dates in text that has already been annotated
+     * against a different base date (without running the rest of the StanfordCoreNLP pipeline). It is loaded when it is
+     * first needed, with the same SUTime properties as the NER annotator of the CoreNLPPipelines.
+     *
+     * @return a TimeAnnotator with the SUTime rules loaded.
+     */
+    public synchronized TimeAnnotator getTimeAnnotator() {
+        if (timeAnnotator == null) {
+            timeAnnotator = new TimeAnnotator("sutime", getSUTimeProperties());
+        }
+        return timeAnnotator;
+    }
+
     /**
      * Get the current state of the System according to the backend.system.SystemState enum.
      *
@@ -77,12 +193,36 @@ public class BackEndSystem {
     }
 
     /**
-     * Set the Settings that this System uses.
+     * Set the Settings that this System uses, and inform the SettingsListeners (i.e. Files being processed adopt the
+     * new maximum number of Threads straight away).
      *
      * @param settings the Settings used by this System.
      */
     public void setSettings(Settings settings) {
+        Settings oldSettings = this.settings;
         this.settings = settings;
         this.settings.saveSettingsFile();
+        dropOldCoreNLP();
+        for (SettingsListener settingsListener : settingsListeners) {
+            settingsListener.settingsChanged(oldSettings, settings);
+        }
+    }
+
+    /**
+     * Add a SettingsListener, to be informed whenever the Settings are changed.
+     *
+     * @param settingsListener the SettingsListener to add.
+     */
+    public void addSettingsListener(SettingsListener settingsListener) {
+        settingsListeners.add(settingsListener);
+    }
+
+    /**
+     * Remove a SettingsListener, so it is no longer informed when the Settings are changed.
+     *
+     * @param settingsListener the SettingsListener to remove.
+     */
+    public void removeSettingsListener(SettingsListener settingsListener) {
+        settingsListeners.remove(settingsListener);
     }
 }
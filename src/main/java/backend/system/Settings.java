@@ -1,12 +1,17 @@
 package backend.system;
 
 
+import backend.process.EngineOptions;
+import backend.process.EntityType;
 import com.google.gson.*;
 import com.google.gson.annotations.Expose;
 
 import java.io.*;
 import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Scanner;
+import java.util.Set;
 
 /**
  * Class that represents the possible Settings of the System.
@@ -18,10 +23,21 @@ public class Settings implements Cloneable {
     public final static int defaultThresholdSummary = 10;
     public final static int defaultWidth = 1024;
     public final static int defaultHeight = 800;
+    public final static boolean defaultMergeSimilarEvents = true;
+    public final static boolean defaultAutoThreads = false;
+    public final static int defaultMaxSentenceLength = EngineOptions.DEFAULT_MAX_SENTENCE_LENGTH;
+    public final static long defaultMaxParseTime = EngineOptions.DEFAULT_MAX_PARSE_TIME;
+    public final static long defaultMaxDocumentTime = 5 * 60 * 1000;
     private final static String threadTag = "maxNoOfThreads";
     private final static String thresholdTag = "thresholdSummary";
     private final static String widthTag = "width";
     private final static String heightTag = "height";
+    private final static String subjectTypesTag = "subjectTypes";
+    private final static String mergeSimilarEventsTag = "mergeSimilarEvents";
+    private final static String autoThreadsTag = "autoThreads";
+    private final static String maxSentenceLengthTag = "maxSentenceLength";
+    private final static String maxParseTimeTag = "maxParseTime";
+    private final static String maxDocumentTimeTag = "maxDocumentTime";
     //actual values
     @Expose(deserialize = false)
     private int maxNoOfThreads;
@@ -31,6 +47,18 @@ public class Settings implements Cloneable {
     private int width;
     @Expose(deserialize = false)
     private int height;
+    @Expose(deserialize = false)
+    private EnumSet<EntityType> subjectTypes;
+    @Expose(deserialize = false)
+    private boolean mergeSimilarEvents;
+    @Expose(deserialize = false)
+    private boolean autoThreads;
+    @Expose(deserialize = false)
+    private int maxSentenceLength;
+    @Expose(deserialize = false)
+    private long maxParseTime;
+    @Expose(deserialize = false)
+    private long maxDocumentTime;
 
     /**
      * Used to create an instance of the Settings of this System, by attempting to load the Settings file.
@@ -101,12 +129,40 @@ public class Settings implements Cloneable {
         thresholdSummary = (jsonObject.get(thresholdTag) != null) ? jsonObject.get(thresholdTag).getAsInt() : defaultThresholdSummary;
         width = (jsonObject.get(widthTag) != null) ? jsonObject.get(widthTag).getAsInt() : defaultWidth;
         height = (jsonObject.get(heightTag) != null) ? jsonObject.get(heightTag).getAsInt() : defaultHeight;
+        subjectTypes = (jsonObject.get(subjectTypesTag) != null) ? getSubjectTypes(jsonObject.get(subjectTypesTag).getAsJsonArray())
+                : EnumSet.copyOf(EngineOptions.DEFAULT_SUBJECT_TYPES);
+        mergeSimilarEvents = (jsonObject.get(mergeSimilarEventsTag) != null) ? jsonObject.get(mergeSimilarEventsTag).getAsBoolean()
+                : defaultMergeSimilarEvents;
+        autoThreads = (jsonObject.get(autoThreadsTag) != null) ? jsonObject.get(autoThreadsTag).getAsBoolean() : defaultAutoThreads;
+        maxSentenceLength = (jsonObject.get(maxSentenceLengthTag) != null) ? jsonObject.get(maxSentenceLengthTag).getAsInt()
+                : defaultMaxSentenceLength;
+        maxParseTime = (jsonObject.get(maxParseTimeTag) != null) ? jsonObject.get(maxParseTimeTag).getAsLong() : defaultMaxParseTime;
+        maxDocumentTime = (jsonObject.get(maxDocumentTimeTag) != null) ? jsonObject.get(maxDocumentTimeTag).getAsLong()
+                : defaultMaxDocumentTime;
         if (!isConstrained()) {//if constraints have not been set then reset
             reset();
         }
     }
 
 
+    /**
+     * Get the EntityTypes named in the given JsonArray (names that are not of an EntityType are skipped).
+     *
+     * @param jsonArray the given JsonArray of EntityType names.
+     * @return the EntityTypes named.
+     */
+    private EnumSet<EntityType> getSubjectTypes(JsonArray jsonArray) {
+        EnumSet<EntityType> entityTypes = EnumSet.noneOf(EntityType.class);
+        for (JsonElement jsonElement : jsonArray) {
+            try {
+                entityTypes.add(EntityType.valueOf(jsonElement.getAsString()));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Unknown subject type: " + jsonElement);
+            }
+        }
+        return entityTypes;
+    }
+
     /**
      * For the Settings fields in this case, store them in JSON format in the Settings File.
      *
@@ -147,6 +203,12 @@ public class Settings implements Cloneable {
         thresholdSummary = defaultThresholdSummary;
         width = defaultWidth;
         height = defaultHeight;
+        subjectTypes = EnumSet.copyOf(EngineOptions.DEFAULT_SUBJECT_TYPES);
+        mergeSimilarEvents = defaultMergeSimilarEvents;
+        autoThreads = defaultAutoThreads;
+        maxSentenceLength = defaultMaxSentenceLength;
+        maxParseTime = defaultMaxParseTime;
+        maxDocumentTime = defaultMaxDocumentTime;
     }
 
     /**
@@ -229,6 +291,128 @@ public class Settings implements Cloneable {
         }
     }
 
+    /**
+     * Getter for the named entity types whose mentions are kept as the subjects of events.
+     *
+     * @return the (unmodifiable) Set of named entity types kept as subjects.
+     */
+    public Set<EntityType> getSubjectTypes() {
+        return Collections.unmodifiableSet(subjectTypes);
+    }
+
+    /**
+     * Setter for the named entity types whose mentions are kept as the subjects of events. Only the NER models that
+     * tag these types are run when processing Files.
+     *
+     * @param subjectTypes the named entity types kept as subjects.
+     */
+    public void setSubjectTypes(Set<EntityType> subjectTypes) {
+        this.subjectTypes = EnumSet.noneOf(EntityType.class);
+        this.subjectTypes.addAll(subjectTypes);
+        this.subjectTypes.remove(EntityType.DATE);
+    }
+
+    /**
+     * Getter for whether the Results of the same event found in different Files are merged into one (see
+     * EventClusterer).
+     *
+     * @return whether the Results of the same event are merged.
+     */
+    public boolean isMergeSimilarEvents() {
+        return mergeSimilarEvents;
+    }
+
+    /**
+     * Setter for whether the Results of the same event found in different Files are merged into one.
+     *
+     * @param mergeSimilarEvents whether the Results of the same event are merged.
+     */
+    public void setMergeSimilarEvents(boolean mergeSimilarEvents) {
+        this.mergeSimilarEvents = mergeSimilarEvents;
+    }
+
+    /**
+     * Getter for whether the number of Threads running in parallel is chosen by the System (see ThreadTuner), from
+     * the available processors and the heap, instead of the Max Number of Threads.
+     *
+     * @return whether the number of Threads is chosen by the System.
+     */
+    public boolean isAutoThreads() {
+        return autoThreads;
+    }
+
+    /**
+     * Setter for whether the number of Threads running in parallel is chosen by the System.
+     *
+     * @param autoThreads whether the number of Threads is chosen by the System.
+     */
+    public void setAutoThreads(boolean autoThreads) {
+        this.autoThreads = autoThreads;
+    }
+
+    /**
+     * Getter for the most words (tokens) of a sentence that is parsed. The events of longer sentences (i.e. tables and
+     * lists taken from PDFs as one sentence) are taken from the words around their dates instead.
+     *
+     * @return the most words of a sentence parsed.
+     */
+    public int getMaxSentenceLength() {
+        return maxSentenceLength;
+    }
+
+    /**
+     * Setter for the most words (tokens) of a sentence that is parsed.
+     *
+     * @param maxSentenceLength the most words of a sentence parsed.
+     */
+    public void setMaxSentenceLength(int maxSentenceLength) {
+        if (isMaxSentenceLengthConstrained(maxSentenceLength)) {
+            this.maxSentenceLength = maxSentenceLength;
+        }
+    }
+
+    /**
+     * Getter for the most time spent parsing a sentence. The events of sentences that take longer are taken from the
+     * words around their dates instead.
+     *
+     * @return the most time spent parsing a sentence, in ms.
+     */
+    public long getMaxParseTime() {
+        return maxParseTime;
+    }
+
+    /**
+     * Setter for the most time spent parsing a sentence.
+     *
+     * @param maxParseTime the most time spent parsing a sentence, in ms.
+     */
+    public void setMaxParseTime(long maxParseTime) {
+        if (isMaxParseTimeConstrained(maxParseTime)) {
+            this.maxParseTime = maxParseTime;
+        }
+    }
+
+    /**
+     * Getter for the most time spent processing a document. Documents that take longer are given up on, and recorded
+     * in the Quarantine.
+     *
+     * @return the most time spent processing a document, in ms.
+     */
+    public long getMaxDocumentTime() {
+        return maxDocumentTime;
+    }
+
+    /**
+     * Setter for the most time spent processing a document.
+     *
+     * @param maxDocumentTime the most time spent processing a document, in ms.
+     */
+    public void setMaxDocumentTime(long maxDocumentTime) {
+        if (isMaxDocumentTimeConstrained(maxDocumentTime)) {
+            this.maxDocumentTime = maxDocumentTime;
+        }
+    }
+
     /**
      * Produce a clone of this Object, such that the populated data in the clone is a clone of the data in this Object.
      *
@@ -243,6 +427,12 @@ public class Settings implements Cloneable {
         clonedSettings.setMaxNoOfThreads(maxNoOfThreads);
         clonedSettings.setThresholdSummary(thresholdSummary);
         clonedSettings.setWidth(width);
+        clonedSettings.setSubjectTypes(subjectTypes);
+        clonedSettings.setMergeSimilarEvents(mergeSimilarEvents);
+        clonedSettings.setAutoThreads(autoThreads);
+        clonedSettings.setMaxSentenceLength(maxSentenceLength);
+        clonedSettings.setMaxParseTime(maxParseTime);
+        clonedSettings.setMaxDocumentTime(maxDocumentTime);
         return clonedSettings;
     }
 
@@ -266,6 +456,36 @@ public class Settings implements Cloneable {
         return maxNoOfThreads > 0 && maxNoOfThreads <= 20;
     }
 
+    /**
+     * Whether or not the given most words of a sentence parsed is within the constraints.
+     *
+     * @param maxSentenceLength the given most words of a sentence parsed.
+     * @return true if the most words of a sentence parsed is within the constraints; false otherwise.
+     */
+    private boolean isMaxSentenceLengthConstrained(int maxSentenceLength) {
+        return maxSentenceLength >= 10 && maxSentenceLength <= 500;
+    }
+
+    /**
+     * Whether or not the given most time spent parsing a sentence is within the constraints.
+     *
+     * @param maxParseTime the given most time spent parsing a sentence, in ms.
+     * @return true if the most time spent parsing a sentence is within the constraints; false otherwise.
+     */
+    private boolean isMaxParseTimeConstrained(long maxParseTime) {
+        return maxParseTime >= 1000 && maxParseTime <= 600000;
+    }
+
+    /**
+     * Whether or not the given most time spent processing a document is within the constraints.
+     *
+     * @param maxDocumentTime the given most time spent processing a document, in ms.
+     * @return true if the most time spent processing a document is within the constraints; false otherwise.
+     */
+    private boolean isMaxDocumentTimeConstrained(long maxDocumentTime) {
+        return maxDocumentTime >= 60000 && maxDocumentTime <= 3600000;
+    }
+
     /**
      * Whether or not the given width is within the constraints.
      *
@@ -293,7 +513,8 @@ public class Settings implements Cloneable {
      */
     private boolean isConstrained() {
         return isThresholdConstrained(thresholdSummary) && isMaxNoOfThreadsConstrained(maxNoOfThreads)
-                && isWidthConstrained(width) && isHeightConstrained(height);
+                && isWidthConstrained(width) && isHeightConstrained(height) && isMaxSentenceLengthConstrained(maxSentenceLength)
+                && isMaxParseTimeConstrained(maxParseTime) && isMaxDocumentTimeConstrained(maxDocumentTime);
     }
 
 }
@@ -0,0 +1,16 @@
+package backend.system;
+
+/**
+ * Interface to be implemented, to be informed when the Settings of the BackEndSystem are changed (i.e. saved in the
+ * Preferences dialog), so that work in progress can adopt them without being restarted.
+ */
+public interface SettingsListener {
+    /**
+     * Inform the Listener that the Settings of the BackEndSystem were replaced. Called on the Thread that changed them,
+     * so it should not do any long running work.
+     *
+     * @param oldSettings the Settings used before.
+     * @param newSettings the Settings used from now on.
+     */
+    void settingsChanged(Settings oldSettings, Settings newSettings);
+}
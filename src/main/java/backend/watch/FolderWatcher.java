@@ -0,0 +1,281 @@
+package backend.watch;
+
+import backend.process.FileData;
+import backend.process.FileFingerprint;
+import backend.process.ProcessFiles;
+import backend.process.Result;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a folder (not its sub folders) for documents (.pdf/.txt/.docx) being added, changed or deleted, so that the
+ * Timeline can be kept up to date without loading every document again. Only the documents that changed are processed
+ * (by the Processor, ProcessFiles by default), and the FolderWatcherCallback is told of their Results (not merged
+ * with the events already in the Timeline, which only the Listener knows), and of the documents deleted.
+ * <p>
+ * Changes are debounced: the documents that changed are only processed once no change has been seen in the folder for
+ * debounceMs (or at most MAX_DEBOUNCE_FACTOR times that, if the folder keeps changing), so a document that is still
+ * being copied in, or a batch of documents dropped in together, are processed once. A document is only processed
+ * again if its last modified time or size changed since it was last processed.
+ */
+public class FolderWatcher implements Runnable {
+    public final static long DEFAULT_DEBOUNCE_MS = 2000;
+    private final static int MAX_DEBOUNCE_FACTOR = 10;
+    private final File folder;
+    private final long debounceMs;
+    private final FolderWatcherCallback callback;
+    private final Processor processor;
+    private final Map<String, FileFingerprint> known = new HashMap<>();//the documents processed (or already loaded), by path
+    private final Set<String> pending = new LinkedHashSet<>();//the paths that changed since the last flush
+    private final Set<String> alreadyLoaded = new HashSet<>();
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * What produces the Results of the documents that changed (ProcessFiles, unless told otherwise).
+     */
+    public interface Processor {
+        /**
+         * Produce the Results of the given documents. Called from the Thread of the FolderWatcher.
+         *
+         * @param files     the documents to process.
+         * @param fileDatas the FileData of the documents, in the same order.
+         * @return the Results of the documents, or null if they can not be processed now (i.e. other documents are
+         * being processed).
+         */
+        List<Result> process(List<File> files, List<FileData> fileDatas);
+    }
+
+    /**
+     * Create a FolderWatcher that processes the documents with ProcessFiles. It does not watch the folder until it is
+     * started.
+     *
+     * @param folder     the folder to watch.
+     * @param debounceMs how long the folder has to be left unchanged before the documents that changed are processed.
+     * @param callback   who to inform of the documents that changed.
+     */
+    public FolderWatcher(File folder, long debounceMs, FolderWatcherCallback callback) {
+        this(folder, debounceMs, callback, new Processor() {
+            @Override
+            public List<Result> process(List<File> files, List<FileData> fileDatas) {
+                return new ProcessFiles().processFiles(files, fileDatas);
+            }
+        });
+    }
+
+    /**
+     * Create a FolderWatcher. It does not watch the folder until it is started.
+     *
+     * @param folder     the folder to watch.
+     * @param debounceMs how long the folder has to be left unchanged before the documents that changed are processed.
+     * @param callback   who to inform of the documents that changed.
+     * @param processor  what produces the Results of the documents that changed.
+     */
+    public FolderWatcher(File folder, long debounceMs, FolderWatcherCallback callback, Processor processor) {
+        this.folder = folder;
+        this.debounceMs = debounceMs;
+        this.callback = callback;
+        this.processor = processor;
+    }
+
+    /**
+     * Check whether the given File is a document that can be processed (by its extension).
+     *
+     * @param file the given File.
+     * @return true if it is a .pdf/.txt/.docx document; false otherwise.
+     */
+    public static boolean isDocument(File file) {
+        String name = file.getName().toLowerCase();
+        if (name.startsWith(".") || name.startsWith("~$")) {//hidden files, and the lock files of Word
+            return false;
+        }
+        return name.endsWith(".pdf") || name.endsWith(".txt") || name.endsWith(".docx");
+    }
+
+    /**
+     * Start watching the folder on a separate Thread. The documents in the folder that are not already loaded are
+     * processed straight away (after the debounce), as if they had just been added.
+     *
+     * @param alreadyLoaded the paths of the documents already in the Timeline (they are only processed again if they
+     *                      change).
+     * @throws IOException if the folder can not be watched.
+     */
+    public void start(Collection<String> alreadyLoaded) throws IOException {
+        this.alreadyLoaded.addAll(alreadyLoaded);
+        watchService = FileSystems.getDefault().newWatchService();
+        folder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        running = true;
+        thread = new Thread(this, "FolderWatcher-" + folder.getName());
+        thread.setDaemon(true);//does not keep the program running
+        thread.start();
+        System.out.println("Watching folder: " + folder);
+    }
+
+    /**
+     * Stop watching the folder. Documents being processed are still reported.
+     */
+    public void stop() {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close();//wakes up the Thread waiting for changes
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        System.out.println("Stopped watching folder: " + folder);
+    }
+
+    /**
+     * Get the folder watched.
+     *
+     * @return the folder watched.
+     */
+    public File getFolder() {
+        return folder;
+    }
+
+    /**
+     * What runs on the Thread of the FolderWatcher: wait for changes in the folder, and process the documents that
+     * changed once the folder has been left unchanged for debounceMs.
+     */
+    @Override
+    public void run() {
+        scan(true);
+        long firstChange = System.currentTimeMillis();//the time of the first change not flushed yet
+        long lastChange = firstChange;
+        try {
+            while (running) {
+                WatchKey watchKey;
+                if (pending.isEmpty()) {
+                    watchKey = watchService.take();
+                    firstChange = System.currentTimeMillis();
+                    lastChange = firstChange;
+                } else {
+                    long now = System.currentTimeMillis();
+                    long wait = Math.min(lastChange + debounceMs, firstChange + debounceMs * MAX_DEBOUNCE_FACTOR) - now;
+                    watchKey = (wait > 0) ? watchService.poll(wait, TimeUnit.MILLISECONDS) : null;
+                }
+                if (watchKey == null) {//the folder was left unchanged long enough
+                    flush();
+                    firstChange = System.currentTimeMillis();//in case documents could not be processed yet
+                    lastChange = firstChange;
+                    continue;
+                }
+                for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                    if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        scan(false);//events were lost, so look at every document
+                    } else {
+                        File file = folder.toPath().resolve((Path) watchEvent.context()).toFile();
+                        if (isDocument(file)) {
+                            pending.add(file.getAbsolutePath());
+                        }
+                    }
+                }
+                lastChange = System.currentTimeMillis();
+                if (!watchKey.reset()) {//the folder is gone
+                    running = false;
+                    callback.stopped(null);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            //stopped
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            running = false;
+            callback.stopped(e);
+        }
+    }
+
+    /**
+     * Look at every document in the folder, and every document processed before (which could have been deleted).
+     *
+     * @param first whether this is the first scan, when the documents already loaded are taken as processed.
+     */
+    private void scan(boolean first) {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && isDocument(file)) {
+                    String path = file.getAbsolutePath();
+                    if (first && alreadyLoaded.contains(path)) {
+                        known.put(path, new FileFingerprint(file));
+                    } else {
+                        pending.add(path);
+                    }
+                }
+            }
+        }
+        pending.addAll(known.keySet());
+    }
+
+    /**
+     * Process the documents that changed since the last flush, and inform the FolderWatcherCallback. If the documents
+     * can not be processed now (i.e. other documents are being processed), they are kept to be processed at the next
+     * flush.
+     */
+    private void flush() {
+        List<File> changedFiles = new ArrayList<>();
+        List<FileFingerprint> changedFingerprints = new ArrayList<>();
+        List<String> deletedPaths = new ArrayList<>();
+        for (String path : pending) {
+            File file = new File(path);
+            if (file.isFile()) {
+                FileFingerprint fileFingerprint = new FileFingerprint(file);
+                if (!fileFingerprint.equals(known.get(path))) {
+                    changedFiles.add(file);
+                    changedFingerprints.add(fileFingerprint);//as it is before it is processed, so a change meanwhile is seen
+                }
+            } else if (known.remove(path) != null) {
+                deletedPaths.add(path);
+            }
+        }
+        pending.clear();
+        if (changedFiles.isEmpty() && deletedPaths.isEmpty()) {
+            return;
+        }
+        System.out.println("Folder changed: " + changedFiles.size() + " documents to process, " + deletedPaths.size() + " deleted");
+        List<FileData> changedFileDatas = new ArrayList<>();
+        for (File file : changedFiles) {
+            changedFileDatas.add(new FileData(file));
+        }
+        List<Result> results = new ArrayList<>();
+        if (!changedFiles.isEmpty()) {
+            results = processor.process(changedFiles, changedFileDatas);
+            if (results == null) {//other documents are being processed, so try again later
+                System.out.println("Could not process the documents that changed yet, will try again");
+                for (File file : changedFiles) {
+                    pending.add(file.getAbsolutePath());
+                }
+                results = new ArrayList<>();
+                changedFileDatas.clear();
+            } else {
+                for (int i = 0; i < changedFiles.size(); i++) {
+                    known.put(changedFiles.get(i).getAbsolutePath(), changedFingerprints.get(i));
+                }
+            }
+        }
+        if (!changedFileDatas.isEmpty() || !deletedPaths.isEmpty()) {
+            callback.filesChanged(results, changedFileDatas, deletedPaths);
+        }
+    }
+}
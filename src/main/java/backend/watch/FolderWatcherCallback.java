@@ -0,0 +1,30 @@
+package backend.watch;
+
+import backend.process.FileData;
+import backend.process.Result;
+
+import java.util.List;
+
+/**
+ * Interface to be implemented, to inform the Listener of a FolderWatcher of the documents that changed in the folder.
+ * The methods are called from the Thread of the FolderWatcher.
+ */
+public interface FolderWatcherCallback {
+    /**
+     * Inform the Listener that documents were added to, changed in or deleted from the folder. The Results of the
+     * documents added or changed replace any Results they had before.
+     *
+     * @param results          the Results of processing the documents added or changed.
+     * @param changedFileDatas the FileData of the documents added or changed.
+     * @param deletedPaths     the paths of the documents deleted (as in FileData.getFilePath).
+     */
+    void filesChanged(List<Result> results, List<FileData> changedFileDatas, List<String> deletedPaths);
+
+    /**
+     * Inform the Listener that the folder can not be watched any more (i.e. it was deleted), so the FolderWatcher has
+     * stopped.
+     *
+     * @param exception the reason it stopped, or null if the folder is gone.
+     */
+    void stopped(Exception exception);
+}
@@ -1,20 +1,34 @@
 package frontend;
 
-import backend.helpers.ToJSON;
+import backend.export.ExportJob;
+import backend.export.ExportJobCallback;
+import backend.export.ExportJobs;
+import backend.helpers.FromJSON;
+import backend.helpers.ProjectFile;
 import backend.helpers.ToPDF;
+import backend.process.Engine;
+import backend.process.EventClusterer;
 import backend.process.FileData;
 import backend.process.ProcessFiles;
+import backend.process.ProcessProgress;
+import backend.process.ProgressListener;
+import backend.process.Quarantine;
 import backend.process.Result;
+import backend.ranges.Range;
 import backend.system.BackEndSystem;
 import backend.system.Settings;
+import backend.watch.FolderWatcher;
+import backend.watch.FolderWatcherCallback;
 import frontend.controllers.ListViewController;
 import frontend.controllers.StartUpController;
 import frontend.dialogs.AboutDialog;
 import frontend.dialogs.FileConfirmationDialog;
+import frontend.dialogs.QuarantineDialog;
 import frontend.dialogs.SettingsDialog;
 import frontend.observers.StartUpObserver;
 import frontend.observers.TimelineObserver;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.concurrent.WorkerStateEvent;
 import javafx.event.EventHandler;
@@ -23,13 +37,14 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.Dialog;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -44,6 +59,9 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
     private Stage primaryStage;
     private StartUpController startUpController;
     private ListViewController listViewController;
+    private final ExportJobs exportJobs = new ExportJobs(2);
+    private final List<ExportJob> runningExportJobs = new ArrayList<>();//only accessed on the UI Thread
+    private FolderWatcher folderWatcher;//the folder watched for new documents, if any (only accessed on the UI Thread)
 
     /**
      * Called to start showing the window of the program (i.e. the please load documents layout).
@@ -105,7 +123,9 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
     /**
      * Called to produce a Task object, that will run a set of operations, when given to a Thread, in parallel. This
      * Task object will, for the given Lists of Files and FileData, produce the List of Results that emerge from
-     * processing the text in the Files, and linking each Result object to its corresponding FileData.
+     * processing the text in the Files, and linking each Result object to its corresponding FileData. If the Settings say
+     * so, the Results of the same event found in different Files are merged into one. The Task reports the progress of
+     * the Files being processed (see ProcessProgress), so that it can be shown by the loading dialog.
      *
      * @param files     the given List of Files.
      * @param fileDatas the given List of FileData.
@@ -116,11 +136,35 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
             @Override
             protected List<Result> call() throws Exception {
                 ProcessFiles processFiles = new ProcessFiles();
-                return processFiles.processFiles(files, fileDatas);
+                processFiles.setProgressListener(new ProgressListener() {
+                    @Override
+                    public void progressChanged(ProcessProgress progress) {
+                        updateProgress(progress.getFraction(), 1);
+                        updateMessage("Processing Files... " + progress.toString());
+                    }
+                });
+                List<Result> results = processFiles.processFiles(files, fileDatas);
+                if (results != null && BackEndSystem.getInstance().getSettings().isMergeSimilarEvents()) {
+                    results = new EventClusterer().cluster(results);//the same event reported by several Files is shown once
+                }
+                return results;
             }
         };
     }
 
+    /**
+     * If any of the given Files (just loaded) could not be processed, or were skipped as they are quarantined, show
+     * them to the user separately from the Timeline.
+     *
+     * @param files the given Files.
+     */
+    private void reportNotProcessed(List<File> files) {
+        List<Quarantine.Entry> entries = Quarantine.getInstance().getEntries(files);
+        if (!entries.isEmpty()) {
+            new QuarantineDialog().showQuarantineDialog(entries);
+        }
+    }
+
     /**
      * For the global Stage, load the listView layout, set its Observer as Main.this, and hold its controller.
      *
@@ -132,6 +176,7 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
             primaryStage.setScene(new Scene(fxmlLoader.load(), primaryStage.getWidth(), primaryStage.getHeight()));
             listViewController = fxmlLoader.getController();
             listViewController.setTimelineObserver(this);
+            listViewController.setWatchingFolder(folderWatcher != null);
             primaryStage.show();
         } catch (IOException e) {
             e.printStackTrace();
@@ -168,13 +213,14 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
                         startUpController.removeLoadingDialog();
                         startUpController = null;
                         primaryStage.show();
+                        reportNotProcessed(files);
                     }
                 });
                 task.setOnRunning(new EventHandler<WorkerStateEvent>() {
                     @Override
                     public void handle(WorkerStateEvent event) {
                         //show loading dialog
-                        startUpController.showLoadingDialog();
+                        startUpController.showLoadingDialog(task);
                     }
                 });
                 new Thread(task).start();
@@ -225,7 +271,11 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
                 @Override
                 public void accept(Settings settings) {
                     if (settings != null) {//then the user decided to save the settings
+                        int previousThreshold = BackEndSystem.getInstance().getSettings().getThresholdSummary();
                         BackEndSystem.getInstance().setSettings(settings);
+                        if (settings.getThresholdSummary() != previousThreshold && listViewController != null) {
+                            retrimEvents(settings.getThresholdSummary());
+                        }
                     }//else dont apply the Settings to the System.
                 }
             });
@@ -234,6 +284,37 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
         }
     }
 
+    /**
+     * Trim the events in the Timeline again to the given threshold, from the parse trees of their sentences, in a
+     * separate Thread (the documents are not processed again). The Timeline is shown again once they are trimmed.
+     *
+     * @param threshold the given threshold.
+     */
+    private void retrimEvents(int threshold) {
+        List<Result> results = new ArrayList<>(listViewController.getResults());//the Timeline could change meanwhile
+        Task<String[]> task = new Task<String[]>() {
+            @Override
+            protected String[] call() throws Exception {
+                return Engine.retrimEvents(results, threshold);
+            }
+        };
+        task.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                String[] events = task.getValue();
+                for (int i = 0; i < events.length; i++) {
+                    if (events[i] != null) {
+                        results.get(i).setEvent(events[i]);
+                    }
+                }
+                if (listViewController != null) {
+                    listViewController.eventsChanged();
+                }
+            }
+        });
+        new Thread(task).start();
+    }
+
     /**
      * Called by the StartUpController, to indicate to Main, to allow the User to pick Files (from the File Chooser),
      * process them, and add them to the timeline (instead of setting them like in the previous method). The layout is
@@ -258,13 +339,14 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
                             //stop showing loading dialog as we have added the results
                             listViewController.removeLoadingDialog();
                         }
+                        reportNotProcessed(files);
                     }
                 });
                 task.setOnRunning(new EventHandler<WorkerStateEvent>() {
                     @Override
                     public void handle(WorkerStateEvent event) {
                         //show loading dialog
-                        listViewController.showLoadingDialog();
+                        listViewController.showLoadingDialog(task);
                     }
                 });
                 new Thread(task).start();
@@ -275,6 +357,144 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
     }
 
 
+    /**
+     * Called when the Open Project MenuItem is pressed. Lets the user pick a project file, which is loaded in a separate
+     * Thread, and then shown as the Timeline (replacing the Timeline shown, if any).
+     */
+    @Override
+    public void openProject() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Project");
+        fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Timeline Project", "*." + ProjectFile.EXTENSION));
+        File file = fileChooser.showOpenDialog(primaryStage);
+        if (file != null) {
+            System.out.println(TAG + "Open project: " + file);
+            runLoadTask(new Task<ProjectFile>() {
+                @Override
+                protected ProjectFile call() throws Exception {
+                    return ProjectFile.load(file);
+                }
+            }, file);
+        }
+    }
+
+    /**
+     * Called when the Import JSON MenuItem is pressed. Lets the user pick a JSON file (as produced by Save to JSON),
+     * which is read in a separate Thread, and then shown as the Timeline (replacing the Timeline shown, if any).
+     */
+    @Override
+    public void importJSON() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import JSON");
+        fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON File", "*.json", "*.ndjson", "*.json.gz", "*.ndjson.gz"));
+        File file = fileChooser.showOpenDialog(primaryStage);
+        if (file != null) {
+            System.out.println(TAG + "Import JSON: " + file);
+            runLoadTask(new Task<ProjectFile>() {
+                @Override
+                protected ProjectFile call() throws Exception {
+                    List<Result> results = FromJSON.fromJSON(file);
+                    return ProjectFile.of(results, FromJSON.getFileDatas(results));
+                }
+            }, file);
+        }
+    }
+
+    /**
+     * Run the given Task, which loads a Timeline from the given File, in a separate Thread while showing the loading
+     * dialog. When it succeeds the Timeline is shown, if it fails the user is informed.
+     *
+     * @param task the Task that loads the Timeline.
+     * @param file the File being loaded.
+     */
+    private void runLoadTask(Task<ProjectFile> task, File file) {
+        task.setOnRunning(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                showLoadingDialog();
+            }
+        });
+        task.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                ProjectFile projectFile = task.getValue();
+                removeLoadingDialog();
+                if (listViewController == null) {
+                    listViewController = showListView();
+                    startUpController = null;
+                }
+                listViewController.setTimelineListView(projectFile.getResults(), projectFile.getFileDatas(), projectFile.getTrees());
+            }
+        });
+        task.setOnFailed(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                removeLoadingDialog();
+                task.getException().printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Could Not Open File");
+                alert.setHeaderText(null);
+                alert.setContentText("The file: " + file.getName() + " could not be opened.");
+                alert.showAndWait();
+            }
+        });
+        new Thread(task).start();
+    }
+
+    /**
+     * Show the loading dialog on the layout being shown.
+     */
+    private void showLoadingDialog() {
+        if (listViewController != null) {
+            listViewController.showLoadingDialog();
+        } else if (startUpController != null) {
+            startUpController.showLoadingDialog();
+        }
+    }
+
+    /**
+     * Remove the loading dialog from the layout being shown.
+     */
+    private void removeLoadingDialog() {
+        if (listViewController != null) {
+            listViewController.removeLoadingDialog();
+        } else if (startUpController != null) {
+            startUpController.removeLoadingDialog();
+        }
+    }
+
+    /**
+     * Called when the Save Project MenuItem is pressed. Lets the user pick the location of the project file, and saves
+     * the Timeline to it. An Alert is shown if the File could not be written.
+     *
+     * @param results   the List of Results in the Timeline.
+     * @param fileDatas the List of FileData of the documents loaded.
+     * @param trees     the forest of Range trees of the Timeline, or null if it has not been produced.
+     */
+    @Override
+    public void saveProject(List<Result> results, List<FileData> fileDatas, List<Range> trees) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Project As...");
+        fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Timeline Project", "*." + ProjectFile.EXTENSION));
+        File file = fileChooser.showSaveDialog(primaryStage);
+        if (file != null) {
+            try {
+                ProjectFile.save(file, results, fileDatas, trees);
+            } catch (IOException e) {
+                e.printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);//then inform the user,
+                alert.setTitle("File In Use");
+                alert.setHeaderText(null);
+                alert.setContentText("The file: " + file.getName() + " is in use by another process.");
+                alert.getDialogPane().getButtonTypes().setAll(ButtonType.OK);
+                Optional<ButtonType> response = alert.showAndWait();
+                if (response.isPresent() && response.get() == ButtonType.OK) {//and if they press OK, ie want to save
+                    saveProject(results, fileDatas, trees);//show them the file chooser to let them pick a different location
+                }
+            }
+        }
+    }
+
     /**
      * Used to show the Alert the dialog to allow the User to pick in what format to save the List of Results (JSON or
      * PDF). Depending on the option selected, the FileChooser is shown, and then the User picks the location to save
@@ -311,27 +531,15 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
      * @param results the given List of Result objects.
      */
     private void saveToJSON(List<Result> results) {
-        String json = ToJSON.toJSON(results);
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Timeline As...");
-        fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON File", "*.json"));
+        fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("JSON File", "*.json"),
+                new FileChooser.ExtensionFilter("Newline Delimited JSON File", "*.ndjson"),
+                new FileChooser.ExtensionFilter("Compressed JSON File", "*.json.gz", "*.ndjson.gz"));
         File file = fileChooser.showSaveDialog(primaryStage);
         if (file != null && listViewController != null) {
-            try {
-                PrintWriter printWriter = new PrintWriter(file);
-                printWriter.write(json);
-                printWriter.close();
-            } catch (Exception e) {
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);//then inform the user,
-                alert.setTitle("File In Use");
-                alert.setHeaderText(null);
-                alert.setContentText("The file: " + file.getName() + " is in use by another process.");
-                alert.getDialogPane().getButtonTypes().setAll(ButtonType.OK);
-                Optional<ButtonType> response = alert.showAndWait();
-                if (response.isPresent() && response.get() == ButtonType.OK) {//and if they press OK, ie want to save
-                    saveToJSON(results);//show them the file chooser to let them pick a different (or same location, if
-                }
-            }
+            //the format is picked from the extension of the file
+            startExport(ExportJob.toJSON(results, file, exportJobCallback()));
         }
     }
 
@@ -345,24 +553,199 @@ public class Main extends Application implements StartUpObserver, TimelineObserv
      */
     private void saveToPDF(List<Result> results) {
         System.out.println(TAG + "Save To PDF pressed");
+        ChoiceDialog<ToPDF.Layout> layoutDialog = new ChoiceDialog<>(ToPDF.Layout.TIMELINE, ToPDF.Layout.values());
+        layoutDialog.setTitle("Save to PDF");
+        layoutDialog.setHeaderText(null);
+        layoutDialog.setContentText("Layout of the PDF:");
+        Optional<ToPDF.Layout> layout = layoutDialog.showAndWait();
+        if (layout.isPresent()) {
+            saveToPDF(results, layout.get());
+        }
+    }
+
+    /**
+     * Lets the user pick the location to save the PDF of the Timeline, and saves it with the given Layout.
+     *
+     * @param results the given List of Result objects.
+     * @param layout  the Layout to draw the Results with.
+     */
+    private void saveToPDF(List<Result> results, ToPDF.Layout layout) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Timeline As...");
         fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("PDF File", "*.pdf"));
         File file = fileChooser.showSaveDialog(primaryStage);
         if (file != null && listViewController != null) {
-            try {
-                new ToPDF().saveToPDF(results, file);
-            } catch (IOException e) {//if cant save the file, because it is most probably in use or it has been deleted
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);//then inform the user,
-                alert.setTitle("File In Use");
-                alert.setHeaderText(null);
-                alert.setContentText("The file: " + file.getName() + " is in use by another process.");
-                alert.getDialogPane().getButtonTypes().setAll(ButtonType.OK);
-                Optional<ButtonType> response = alert.showAndWait();
-                if (response.isPresent() && response.get() == ButtonType.OK) {//and if they press OK, ie want to save
-                    saveToPDF(results);//show them the file chooser to let them pick a different (or same location, if
-                }                               //they closed the process
+            startExport(ExportJob.toPDF(results, file, layout, exportJobCallback()));
+        }
+    }
+
+    /**
+     * Submit the given ExportJob to run in the background, and show its progress below the Timeline.
+     *
+     * @param exportJob the given ExportJob.
+     */
+    private void startExport(ExportJob exportJob) {
+        runningExportJobs.add(exportJobs.submit(exportJob));
+        listViewController.showExportProgress(exportJob.getFile().getName(), 0, exportJob.getResults().size(), 0);
+    }
+
+    /**
+     * Called when the "Cancel" button of the export status bar is pressed, to cancel the running ExportJobs (the Files
+     * they were saving to are left as they were).
+     */
+    @Override
+    public void cancelExport() {
+        for (ExportJob exportJob : runningExportJobs) {
+            exportJob.cancel();
+        }
+        if (!runningExportJobs.isEmpty()) {
+            listViewController.showExportCancelling();
+        }
+    }
+
+    /**
+     * Called when the "Watch Folder..." menu item is checked or unchecked. When checked, lets the user pick a folder,
+     * whose documents are then added to the Timeline as they are added to (or changed in) the folder, and removed from
+     * it when they are deleted from the folder. Only the documents that changed are processed.
+     *
+     * @param watch true to pick a folder and start watching it; false to stop watching the folder watched.
+     */
+    @Override
+    public void watchFolder(boolean watch) {
+        if (folderWatcher != null) {
+            folderWatcher.stop();
+            folderWatcher = null;
+        }
+        if (watch) {
+            DirectoryChooser directoryChooser = new DirectoryChooser();
+            directoryChooser.setTitle("Watch Folder");
+            File folder = directoryChooser.showDialog(primaryStage);
+            if (folder != null) {
+                FolderWatcher watcher = new FolderWatcher(folder, FolderWatcher.DEFAULT_DEBOUNCE_MS, folderWatcherCallback(folder));
+                try {
+                    watcher.start(listViewController.getFilePaths());
+                    folderWatcher = watcher;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    Alert alert = new Alert(Alert.AlertType.ERROR, "Could not watch the folder: " + folder.getName());
+                    alert.showAndWait();
+                }
+            }
+        }
+        listViewController.setWatchingFolder(folderWatcher != null);
+    }
+
+    /**
+     * Make the FolderWatcherCallback that updates the Timeline (on the UI Thread) with the documents that changed in
+     * the folder watched.
+     *
+     * @param folder the folder watched.
+     * @return the FolderWatcherCallback.
+     */
+    private FolderWatcherCallback folderWatcherCallback(File folder) {
+        return new FolderWatcherCallback() {
+            @Override
+            public void filesChanged(List<Result> results, List<FileData> changedFileDatas, List<String> deletedPaths) {
+                Platform.runLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (listViewController != null) {
+                            listViewController.updateFromFolder(results, changedFileDatas, deletedPaths);
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void stopped(Exception exception) {
+                Platform.runLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (folderWatcher != null && folderWatcher.getFolder().equals(folder)) {//not watching another folder since
+                            folderWatcher = null;
+                            if (listViewController != null) {
+                                listViewController.setWatchingFolder(false);
+                            }
+                        }
+                    }
+                });
             }
+        };
+    }
+
+    /**
+     * Called on the UI Thread once the given ExportJob is no longer running, to hide the status bar if it was the last
+     * one.
+     *
+     * @param exportJob the given ExportJob.
+     */
+    private void exportEnded(ExportJob exportJob) {
+        runningExportJobs.remove(exportJob);
+        if (runningExportJobs.isEmpty() && listViewController != null) {
+            listViewController.removeExportProgress();
         }
     }
+
+    /**
+     * Create the ExportJobCallback for the ExportJobs started by the UI. As the ExportJobs are run on worker Threads,
+     * each call is passed to the UI Thread to update the status bar. If an ExportJob fails, because the File is most
+     * probably in use or it has been deleted, the User is informed and given the option to pick another location.
+     *
+     * @return the ExportJobCallback.
+     */
+    private ExportJobCallback exportJobCallback() {
+        return new ExportJobCallback() {
+            @Override
+            public void progress(ExportJob exportJob, int written, int total, int pages) {
+                Platform.runLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runningExportJobs.contains(exportJob) && !exportJob.isCancelled()) {
+                            listViewController.showExportProgress(exportJob.getFile().getName(), written, total, pages);
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void finished(ExportJob exportJob) {
+                Platform.runLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        exportEnded(exportJob);
+                    }
+                });
+            }
+
+            @Override
+            public void cancelled(ExportJob exportJob) {
+                finished(exportJob);
+            }
+
+            @Override
+            public void failed(ExportJob exportJob, Exception exception) {
+                Platform.runLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        exportEnded(exportJob);
+                        File file = exportJob.getFile();
+                        Alert alert = new Alert(Alert.AlertType.INFORMATION);//then inform the user,
+                        alert.setTitle("File In Use");
+                        alert.setHeaderText(null);
+                        alert.setContentText("The file: " + file.getName() + " is in use by another process.");
+                        alert.getDialogPane().getButtonTypes().setAll(ButtonType.OK);
+                        Optional<ButtonType> response = alert.showAndWait();
+                        if (response.isPresent() && response.get() == ButtonType.OK) {//and if they press OK, ie want to save
+                            //show them the file chooser to let them pick a different (or same location, if they closed the process)
+                            if (exportJob.getLayout() != null) {
+                                saveToPDF(exportJob.getResults(), exportJob.getLayout());
+                            } else {
+                                saveToJSON(exportJob.getResults());
+                            }
+                        }
+                    }
+                });
+            }
+        };
+    }
 }
@@ -41,27 +41,36 @@ public class CustomResultRowController {
     private TimelineRowObserver timelineRowObserver;
     private int rangePosition;
     /**
-     * For the given Result, set up the data to be shown for this row, and the onclick events.
-     * Builds a layout that shows the subjects, and the event of the given Result, along with buttons to view the
-     * original document that produced this Result and the edit dialog to edit the Result.
+     * Loads the layout of a Result row, with labels for the subjects, and the event of a Result, along with buttons to
+     * view the original document that produced the Result and the edit dialog to edit the Result. The layout is loaded
+     * once, and then reused for whichever Result the row it is in shows (see setData).
      *
-     * @param result the given Result.
+     * @param timelineRowObserver the Observer informed when the Result is edited or deleted.
      */
-    public CustomResultRowController(Result result, TimelineRowObserver timelineRowObserver, int rangePosition) {
-        this.result = result;
+    public CustomResultRowController(TimelineRowObserver timelineRowObserver) {
         this.timelineRowObserver = timelineRowObserver;
-        this.rangePosition = rangePosition;
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("customResultRow.fxml"));
         fxmlLoader.setController(this);
         try {
             rootVBox = fxmlLoader.load();//set the root layout
-            setUpData();//set the data
-            setUpOnClicks();//set the onclicks
+            setUpOnClicks();//set the onclicks (they act on the Result currently shown)
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Set the Result shown by this row.
+     *
+     * @param result        the given Result.
+     * @param rangePosition the position of the Range holding the Result among its siblings.
+     */
+    public void setData(Result result, int rangePosition) {
+        this.result = result;
+        this.rangePosition = rangePosition;
+        setUpData();
+    }
+
     /**
      * Set the data held by the Result in the appropriate labels.
      */
@@ -71,8 +80,12 @@ public class CustomResultRowController {
             eventLabel.setText(result.getEvent());
             if(result.getFileData() != null){
                 FileData fileData = result.getFileData();
-                fromLabel.setText(fileData.getFileName()+" ("+fileData.getCreationDateFormattedDayMonthYear()+")");
+                fromLabel.setText(fileData.getFileName()+(result.getPage() > 0 ? ", p. "+result.getPage() : "")+" ("+fileData.getCreationDateFormattedDayMonthYear()+")"
+                        +(result.getSources().size() > 1 ? " (+"+(result.getSources().size()-1)+" more)" : ""));
+            } else {//the row could be showing another Result before
+                fromLabel.setText("");
             }
+            viewButton.setDisable(result.getFileData() == null);//there is no document to read
         }
     }
 
@@ -104,6 +117,7 @@ public class CustomResultRowController {
         editButton.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
+                Result result = CustomResultRowController.this.result;//the row can be reused for another Result while the dialog is open
                 System.out.println("Clicked Event on: " + result);
                 Dialog dialog = EditEventDialog.getEditEventDialog(result, (rangePosition + 1));
                 Optional<EditEventDialog.DialogResult> response = dialog.showAndWait();
@@ -4,8 +4,11 @@ import backend.process.FileData;
 import backend.process.ProcessFiles;
 import backend.process.Result;
 import frontend.observers.DocumentReaderObserver;
+import javafx.animation.AnimationTimer;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
@@ -26,6 +29,8 @@ import java.io.IOException;
  * Controller for the layout of the Document Reader
  */
 public class DocumentReaderController {
+    private final static int CHUNK_SIZE = 64 * 1024;//chars added to the text area per frame
+    private final static int MAX_PARAGRAPH = 2000;//chars in a paragraph before it is broken at the end of a sentence
     @FXML
     private InlineCssTextArea documentInlineCssTextArea;
     @FXML
@@ -35,10 +40,13 @@ public class DocumentReaderController {
     @FXML
     private BorderPane rootBorderPane;
     private DocumentReaderObserver documentReaderObserver;
+    private AnimationTimer renderTimer;//adds the text to the text area a chunk at a time
 
     /**
      * Called to create the layout for the Document Reader. It creates a text area with the text of the File where the
      * given Result originates from, and it highlights the specific sentence that produced the given Result.
+     * The text is loaded in a separate Thread (from the TextCache if the File was read before) and then shown in chunks,
+     * so the window opens straight away even for long documents.
      * The Observer is used to inform the creator of the window that uses this layout, to inform them when the Close
      * menu item was pressed (to close the window).
      *
@@ -61,50 +69,209 @@ public class DocumentReaderController {
 
     /**
      * Called to set the data displayed in the layout, which in this case is the text of the File set in the text area
-     * with the relevant sentence that produced the given result highlighted.
+     * with the relevant sentence that produced the given result highlighted. The text is loaded in the background.
      *
      * @param result the given Result (used to determine the File and sentence that produced this Result).
      */
     private void setData(Result result) {
-        String stringInFile;
-        if ((stringInFile = getStringInFile(result.getFileData())) != null) {
-            documentInlineCssTextArea.clear();
-            documentInlineCssTextArea.replaceText(stringInFile);
-            ContextMenu contextMenu = new ContextMenu();
-            MenuItem menuItemCopy = new MenuItem("Copy");
-            menuItemCopy.setDisable(true);//initially cant copy as no text is selected
-            copyMenuItem.setDisable(true);
-            menuItemCopy.setOnAction(new EventHandler<ActionEvent>() {
-                @Override
-                public void handle(ActionEvent event) {
-                    copy();//copy the selected text
-                }
-            });
-            contextMenu.getItems().setAll(menuItemCopy);
-            documentInlineCssTextArea.selectedTextProperty().addListener(new ChangeListener<String>() {
-                @Override
-                public void changed(ObservableValue<? extends String> observable, String oldValue, String newValue) {
-                    if (newValue.equals("")) {
-                        menuItemCopy.setDisable(true);
-                        copyMenuItem.setDisable(true);
-                    } else {
-                        menuItemCopy.setDisable(false);
-                        copyMenuItem.setDisable(false);
-                    }
-                }
-            });
-            documentInlineCssTextArea.setContextMenu(contextMenu);
-            highlightText(result.getOriginalString(), stringInFile);
+        File file = getFile(result.getFileData());
+        if (file != null) {
+            documentInlineCssTextArea.replaceText("Loading " + file.getName() + "...");
+            setUpCopy();
+            loadText(file, result);
         } else {
-            System.out.println("File is unavailable, cant be read");
-            documentInlineCssTextArea.replaceText("");
-            Alert documentUnvailable = documentUnavailableDialog(result.getFileData());
-            documentUnvailable.showAndWait();
+            showDocumentUnavailable(result.getFileData());
             //should close this window, as the file is unavailable
             rootBorderPane = null;
         }
     }
 
+    /**
+     * Set up the context menu of the text area, and the Copy menu items (enabled only when text is selected).
+     */
+    private void setUpCopy() {
+        ContextMenu contextMenu = new ContextMenu();
+        MenuItem menuItemCopy = new MenuItem("Copy");
+        menuItemCopy.setDisable(true);//initially cant copy as no text is selected
+        copyMenuItem.setDisable(true);
+        menuItemCopy.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                copy();//copy the selected text
+            }
+        });
+        contextMenu.getItems().setAll(menuItemCopy);
+        documentInlineCssTextArea.selectedTextProperty().addListener(new ChangeListener<String>() {
+            @Override
+            public void changed(ObservableValue<? extends String> observable, String oldValue, String newValue) {
+                if (newValue.equals("")) {
+                    menuItemCopy.setDisable(true);
+                    copyMenuItem.setDisable(true);
+                } else {
+                    menuItemCopy.setDisable(false);
+                    copyMenuItem.setDisable(false);
+                }
+            }
+        });
+        documentInlineCssTextArea.setContextMenu(contextMenu);
+    }
+
+    /**
+     * Load the text of the given File in a separate Thread, along with where the sentence of the given Result is in it,
+     * and then show it in the text area.
+     *
+     * @param file   the given File.
+     * @param result the given Result.
+     */
+    private void loadText(File file, Result result) {
+        Task<DocumentText> task = new Task<DocumentText>() {
+            @Override
+            protected DocumentText call() throws Exception {
+                String text = new ProcessFiles().getTextInFile(file);
+                if (text == null || text.isEmpty()) {
+                    return null;
+                }
+                return new DocumentText(text, result);
+            }
+        };
+        task.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                DocumentText documentText = task.getValue();
+                if (documentText != null) {
+                    showText(documentText);
+                } else {
+                    System.out.println("File is unavailable, cant be read");
+                    documentInlineCssTextArea.replaceText("");
+                    showDocumentUnavailable(result.getFileData());
+                    close();
+                }
+            }
+        });
+        task.setOnFailed(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                task.getException().printStackTrace();
+                documentInlineCssTextArea.replaceText("");
+                showDocumentUnavailable(result.getFileData());
+                close();
+            }
+        });
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);//so an open reader does not stop the program from closing
+        thread.start();
+    }
+
+    /**
+     * Show the given text in the text area a chunk at a time (one chunk per frame), so the UI is never blocked by adding
+     * the whole of a long document at once. The sentence is highlighted, and scrolled to, as soon as it has been added.
+     *
+     * @param documentText the text to show, and where the sentence is in it.
+     */
+    private void showText(DocumentText documentText) {
+        String text = documentText.text;
+        renderTimer = new AnimationTimer() {
+            private int shown = 0;
+            private boolean highlighted = documentText.start < 0;//nothing to highlight
+
+            @Override
+            public void handle(long now) {
+                int end = Math.min(text.length(), shown + CHUNK_SIZE);
+                int newLine = text.indexOf('\n', end);//end the chunk at the end of a paragraph
+                if (newLine != -1 && newLine - end < CHUNK_SIZE) {
+                    end = newLine + 1;
+                }
+                if (shown == 0) {
+                    documentInlineCssTextArea.replaceText(text.substring(0, end));//replaces the loading text
+                } else {
+                    documentInlineCssTextArea.appendText(text.substring(shown, end));
+                }
+                shown = end;
+                if (!highlighted && shown >= documentText.end) {
+                    highlighted = true;
+                    documentInlineCssTextArea.setStyle(documentText.start, documentText.end, "-fx-fill: blue; -fx-font-weight: bold");
+                    documentInlineCssTextArea.moveTo(documentText.start);
+                    documentInlineCssTextArea.requestFollowCaret();
+                }
+                if (shown >= text.length()) {
+                    stop();
+                }
+            }
+        };
+        renderTimer.start();
+    }
+
+    /**
+     * The text of a document, ready to be shown: long paragraphs are broken into shorter ones (the text area lays out a
+     * whole paragraph at a time), and where the sentence to highlight is in it.
+     */
+    private static class DocumentText {
+        private final String text;
+        private final int start;//-1 if the sentence was not found
+        private final int end;
+
+        /**
+         * Prepare the given text of a document to be shown, finding where the sentence of the given Result is in it. The
+         * offsets of the sentence are used if the Result has them and the sentence is at them (they are wrong if the text
+         * changed since the Result was produced), otherwise the sentence is searched for.
+         *
+         * @param text   the given text.
+         * @param result the Result whose sentence is highlighted.
+         */
+        DocumentText(String text, Result result) {
+            this.text = toParagraphs(text);
+            String sentence = result.getOriginalString();
+            int start;
+            int end;
+            if (result.hasOffsets() && result.getEndOffset() <= text.length()
+                    && (sentence == null || text.regionMatches(result.getBeginOffset(), sentence, 0, sentence.length()))) {
+                start = result.getBeginOffset();
+                end = result.getEndOffset();
+            } else {
+                start = sentence != null ? text.indexOf(sentence) : -1;//first occurrence of the sentence
+                end = start >= 0 ? Math.min(text.length(), start + sentence.length()) : -1;
+            }
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Break the long paragraphs of the given text into shorter ones, by turning the first whitespace after the end of
+         * a sentence into a new line, once a paragraph is long enough. As one character replaces another, the positions
+         * in the text are kept.
+         *
+         * @param text the given text.
+         * @return the text with paragraphs of around MAX_PARAGRAPH characters at most.
+         */
+        private static String toParagraphs(String text) {
+            char[] chars = text.toCharArray();
+            int paragraphStart = 0;
+            for (int i = 1; i < chars.length; i++) {
+                if (chars[i] == '\n') {
+                    paragraphStart = i;
+                } else if (i - paragraphStart >= MAX_PARAGRAPH && Character.isWhitespace(chars[i])) {
+                    char previous = chars[i - 1];
+                    //after a sentence, or anywhere if the paragraph is far too long (i.e. text without punctuation)
+                    if (previous == '.' || previous == '!' || previous == '?' || i - paragraphStart >= 2 * MAX_PARAGRAPH) {
+                        chars[i] = '\n';
+                        paragraphStart = i;
+                    }
+                }
+            }
+            return new String(chars);
+        }
+    }
+
+    /**
+     * Show the Alert that informs the User the File they wish to read is unavailable.
+     *
+     * @param fileData the FileData of the File.
+     */
+    private void showDocumentUnavailable(FileData fileData) {
+        Alert documentUnvailable = documentUnavailableDialog(fileData);
+        documentUnvailable.showAndWait();
+    }
+
     /**
      * For the given FileData (holds the Files name, and represents it), produce an Alert Dialog to show to the User,
      * to inform them that the File which they wish to read is unavailable.
@@ -140,36 +307,16 @@ public class DocumentReaderController {
     }
 
     /**
-     * Called to highlight the text "textToHighlight" in the "from" text, in the text area of this layout.
-     *
-     * @param textToHighlight the given text that needs to be highlighted. Part of the "from" text
-     * @param from            the full text, that contains the text that needs to be highlighted.
-     */
-    private void highlightText(String textToHighlight, String from) {//highlight first occurrence of the text to highlight
-        int startHighlight = from.indexOf(textToHighlight);
-        int endHighlight = startHighlight + textToHighlight.length();//as we highlight the original sentence, which we know its length, and its start index
-        if (endHighlight > from.length()) {//if we are over the limit of the text, then we go up to that point
-            endHighlight = documentInlineCssTextArea.getText().length();
-        }
-        System.out.println("EndHighlight: " + endHighlight);
-        if (startHighlight >= 0 && startHighlight < from.length() && endHighlight >= 0) {
-            documentInlineCssTextArea.setStyle(startHighlight, endHighlight, "-fx-fill: blue; -fx-font-weight: bold");
-        }
-    }
-
-    /**
-     * Called to extract the text in the File which the given FileData represents.
+     * Called to get the File which the given FileData represents, if it can be read.
      *
      * @param fileData the FileData that represents the File from which we are extracting text from.
-     * @return null, if the File has been moved/deleted or we don't have read rights; otherwise the text of the File is
-     * returned.
+     * @return null, if the File has been moved/deleted or we don't have read rights; otherwise the File is returned.
      */
-    private String getStringInFile(FileData fileData) {
+    private File getFile(FileData fileData) {
         if (fileData != null) {
             File file = new File(fileData.getFilePath());
             if (file.exists() && file.isFile() && file.canRead()) {
-                ProcessFiles processFiles = new ProcessFiles();
-                return processFiles.getTextInFile(file);
+                return file;
             }
         }
         return null;
@@ -181,6 +328,9 @@ public class DocumentReaderController {
      */
     private void close() {
         System.out.println("Close Window");
+        if (renderTimer != null) {
+            renderTimer.stop();
+        }
         if (documentReaderObserver != null) {
             documentReaderObserver.close();
         }
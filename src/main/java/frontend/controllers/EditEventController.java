@@ -214,6 +214,9 @@ public class EditEventController {
                 //save the event once we leave it
                 if (textFieldStates.size() == 3 && textFieldStates.get(2) == TextFieldState.CORRECT) {
                     System.out.println("Saving result event: " + eventTextArea.getText());
+                    if (!eventTextArea.getText().equals(result.getEvent())) {
+                        result.setParseTree(null);//written by the user, so it is not trimmed again if the threshold changes
+                    }
                     result.setEvent(eventTextArea.getText());
                 }
             }
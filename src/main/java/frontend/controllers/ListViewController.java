@@ -1,43 +1,57 @@
 package frontend.controllers;
 
 import backend.helpers.Sort;
+import backend.process.EventClusterer;
 import backend.process.FileData;
 import backend.process.Result;
+import backend.ranges.FlatRangeTree;
 import backend.ranges.ProduceRanges;
 import backend.ranges.Range;
+import backend.search.ResultIndex;
+import backend.system.BackEndSystem;
 import frontend.dialogs.LoadingDialog;
 import frontend.dialogs.RemoveConfirmationDialog;
 import frontend.observers.DocumentsLoadedObserver;
+import frontend.observers.RangeRowObserver;
 import frontend.observers.TimelineObserver;
 import frontend.observers.TimelineRowObserver;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
-import javafx.geometry.Insets;
+import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.util.Callback;
 
 import java.net.URL;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 
 
 /**
  * Controller for the layout where the ListView is shown. Allows the listview to be populated with Result data.
  */
-public class ListViewController implements Initializable, MenuBarControllerInter, DocumentsLoadedObserver, TimelineRowObserver {
+public class ListViewController implements Initializable, MenuBarControllerInter, DocumentsLoadedObserver, TimelineRowObserver, RangeRowObserver {
     private enum ViewType {
         RANGE, DATE
     }
 
     private final static double MAX_ZOOM = 1.0d;
     private final static double MIN_ZOOM = 0.75d;
+    private final static double RANGE_INDENT = 30.0d;//indent of each level of the Range trees, in the Range view
+    private final static double RESULT_INDENT = 15.0d;//extra indent of the Results under their Range
 
     @FXML
     private StackPane stackPane;
@@ -56,7 +70,23 @@ public class ListViewController implements Initializable, MenuBarControllerInter
     @FXML
     private RadioMenuItem rangeView;
     @FXML
-    private ScrollPane scrollPane;
+    private CheckMenuItem watchFolderMenuItem;
+    @FXML
+    private TextField filterTextField;
+    @FXML
+    private DatePicker fromDatePicker;
+    @FXML
+    private DatePicker toDatePicker;
+    @FXML
+    private Button clearFilterButton;
+    @FXML
+    private HBox exportStatusBar;
+    @FXML
+    private Label exportStatusLabel;
+    @FXML
+    private ProgressBar exportProgressBar;
+    @FXML
+    private Button cancelExportButton;
     private List<Result> results;
     private List<FileData> fileDatas;
     private ObservableList<Object> timelineObservableList = FXCollections.observableArrayList();
@@ -65,6 +95,11 @@ public class ListViewController implements Initializable, MenuBarControllerInter
     private LoadingDialog loadingDialog;
     private ToggleGroup radioMenuItemGroup;
     private ViewType viewType = ViewType.DATE;
+    private ResultIndex resultIndex = new ResultIndex();
+    private List<Range> rangeTrees;//the Range forest of all the (unfiltered) Results, once it has been produced
+    private FlatRangeTree flatRangeTree;//the rows of the Range view
+    private Map<Object, Double> rowHeights = new IdentityHashMap<>();//the measured heights of the rows of the timeline
+    private double zoom = MAX_ZOOM;//the scale of the rows of the Range view
 
 
     /**
@@ -96,7 +131,92 @@ public class ListViewController implements Initializable, MenuBarControllerInter
                 showDateTimeline();
             }
         });
+        setUpFilter();
+        setUpTimelineListView();
+    }
+
+    /**
+     * Set up the filter bar above the timeline: any change to the filter text or the range of dates updates the
+     * timeline to only show the Results that match them (looked up in the ResultIndex).
+     */
+    private void setUpFilter() {
+        filterTextField.textProperty().addListener(new ChangeListener<String>() {
+            @Override
+            public void changed(ObservableValue<? extends String> observable, String oldValue, String newValue) {
+                applyFilter();
+            }
+        });
+        ChangeListener<LocalDate> dateChangeListener = new ChangeListener<LocalDate>() {
+            @Override
+            public void changed(ObservableValue<? extends LocalDate> observable, LocalDate oldValue, LocalDate newValue) {
+                applyFilter();
+            }
+        };
+        fromDatePicker.valueProperty().addListener(dateChangeListener);
+        toDatePicker.valueProperty().addListener(dateChangeListener);
+        clearFilterButton.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                filterTextField.clear();
+                fromDatePicker.setValue(null);
+                toDatePicker.setValue(null);
+            }
+        });
+    }
+
+    /**
+     * Called when the filter changes, to show the Results that match the filter in the timeline.
+     */
+    private void applyFilter() {
+        if (results != null) {
+            setTimelineList(filterResults(results));
+        }
+    }
 
+    /**
+     * Whether or not the user has set any filter (text or range of dates) in the filter bar.
+     *
+     * @return true if a filter is set; false otherwise.
+     */
+    private boolean isFiltering() {
+        return !filterTextField.getText().trim().isEmpty() || fromDatePicker.getValue() != null
+                || toDatePicker.getValue() != null;
+    }
+
+    /**
+     * For the given List of Results (which have been added to the ResultIndex), get the Results that match the filter
+     * set in the filter bar, keeping the order of the given List.
+     *
+     * @param results the given List of Results.
+     * @return a new List with the Results that match the filter, or the given List if there is no filter.
+     */
+    private List<Result> filterResults(List<Result> results) {
+        if (!isFiltering()) {
+            return results;
+        }
+        int[] ids = resultIndex.query(filterTextField.getText(), toDate(fromDatePicker.getValue()), toDate(toDatePicker.getValue()));
+        BitSet matches = new BitSet(resultIndex.size());
+        for (int id : ids) {
+            matches.set(id);
+        }
+        List<Result> toReturn = new ArrayList<>(ids.length);
+        for (Result result : results) {
+            int id = resultIndex.getId(result);
+            if (id != -1 && matches.get(id)) {
+                toReturn.add(result);
+            }
+        }
+        return toReturn;
+    }
+
+    /**
+     * Turn the given LocalDate (from a DatePicker) into a Date at the start of that day.
+     *
+     * @param localDate the given LocalDate (can be null).
+     * @return the Date at the start of the given day, or null if no LocalDate was given.
+     */
+    private Date toDate(LocalDate localDate) {
+        return (localDate != null) ? Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant()) : null;
     }
 
     /**
@@ -124,29 +244,24 @@ public class ListViewController implements Initializable, MenuBarControllerInter
                 }
             }
         });
+        cancelExportButton.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                if (timelineObserver != null) {
+                    timelineObserver.cancelExport();
+                }
+            }
+        });
     }
 
     /**
-     * For the input List, sort and reverse it.
-     * O(n)
+     * For the input List, sort and reverse it (so the latest Results are first).
+     * O(n) if it is already sorted, either way (i.e. the Results of ProcessFiles, or Results shown before).
      *
      * @param results the input List.
      */
     private void sortAndReverse(List<Result> results) {
-        Sort.sortByDate1(results);//sort the results by their date1 value
-        Collections.reverse(results);
-    }
-
-    /**
-     * For the given Node make it visible and enable it depending on shouldShow. If shouldShow is true then make the
-     * node visible and enable it; if it false make the node invisible and disable it.
-     *
-     * @param node       the given Node.
-     * @param shouldShow whether or not the Node should be shown and enabled or not.
-     */
-    private void show(Node node, boolean shouldShow) {
-        node.setVisible(shouldShow);
-        node.setDisable(!shouldShow);
+        Sort.sortByDate1Descending(results);//sort the results by their date1 value
     }
 
     /**
@@ -168,93 +283,216 @@ public class ListViewController implements Initializable, MenuBarControllerInter
      * Ranges and setting them to the ListView would throw an exception of the Casting failing of a Range to a Result
      * (this also happens vice versa).
      * <p>
-     * The timeline for the Range view is a ScrollPane that can be zoomed in/out.
+     * The timeline for the Range view is the forest of Range trees flattened into rows (see FlatRangeTree), that can be
+     * zoomed in/out.
      *
      * @param results the input List.
      */
     private void setTimelineList(List<Result> results) {
-        //should show loading dialog while its setting the timeline
-        timelineObservableList.clear();
+        rowHeights.clear();//the rows are for different items now
         //check what kind of view we need to show
         if (viewType == ViewType.RANGE) {
-            //we need to show the range view, which supports zooming in and out (so we need to use a vbox and scrollpane,
-            //to be able to zoom)
-            ProduceRanges produceRanges = new ProduceRanges();
-            produceRanges.produceRanges(results);//produce the results
-
-            VBox listVBox = new VBox();//the vbox that holds the Ranges
-            listVBox.setPadding(new Insets(10));
-            for (Range range : produceRanges.getTrees()) {//for each tree build its layout and add it to the vbox (row by row)
-                CustomTimelineRow customTimelineRow = new CustomTimelineRow(range, this);
-                listVBox.getChildren().add(customTimelineRow.getPane());
-            }
-            scrollPane.setContent(listVBox);//set the content of the scrollpane
-            scrollPane.addEventFilter(ScrollEvent.ANY, new EventHandler<ScrollEvent>() {//add the event handler for the zooming
-                @Override
-                public void handle(ScrollEvent event) {
-                    if (event.isControlDown()) {//if we are holding the control button
-                        double scale = getScale(event, listVBox);//get the value by which we scale
-                        listVBox.setScaleX(scale);//and set it
-                        listVBox.setScaleY(scale);
-                        event.consume();
-                    }
+            List<Range> trees = rangeTrees;
+            if (trees == null || isFiltering()) {//the forest held is only for all the Results
+                ProduceRanges produceRanges = new ProduceRanges();
+                produceRanges.produceRanges(results);//produce the results
+                trees = produceRanges.getTrees();
+                if (!isFiltering()) {
+                    rangeTrees = trees;
                 }
-
-                private double getScale(ScrollEvent scrollEvent, Node node) {
-                    double scale = node.getScaleX() + scrollEvent.getDeltaY() / 100;
-                    if (scale <= MIN_ZOOM) {//we only want the user to zoom out (not in, hence the scale is never over 1)
-                        scale = MIN_ZOOM;
-                    } else if (scale >= MAX_ZOOM) {
-                        scale = MAX_ZOOM;
-                    }
-                    return scale;
-                }
-            });
-            show(scrollPane, true);//show the scrollpane
-            show(timelineListView, false);//and hide the timeline list view
-            return;//no need to follow the rest
+            }
+            //the forest is flattened into rows, so only the rows on screen have a layout (instead of the whole forest),
+            //and only the roots are shown at first (the rows below a Range are made when it is expanded)
+            timelineListView.getStylesheets().setAll(getClass().getResource("listViewThemeTimeline.css").toExternalForm());
+            flatRangeTree = new FlatRangeTree(trees);
+            timelineObservableList.setAll(flatRangeTree.getRows());
         } else if (viewType == ViewType.DATE) {//if we have to show a date timeline
-            show(scrollPane, false);//hide the scrollpane
-            show(timelineListView, true);//show the timeline
             timelineListView.getStylesheets().setAll(getClass().getResource("listViewTheme.css").toExternalForm());
+            flatRangeTree = null;
             timelineObservableList.setAll(results);//add the results
         }
         //assuming the observable list items have been set
-        timelineListView.setItems(timelineObservableList);
+        if (timelineListView.getItems() != timelineObservableList) {
+            timelineListView.setItems(timelineObservableList);
+        }
+    }
+
+    /**
+     * Set up the timelineListView: its cells (which are reused as the list is scrolled, see TimelineCell), the cache of
+     * the heights of its rows, and the zooming in/out of the Range view.
+     */
+    private void setUpTimelineListView() {
         timelineListView.setCellFactory(new Callback<ListView<Object>, ListCell<Object>>() {
             @Override
             public ListCell<Object> call(ListView<Object> param) {
-                return new ListCell<Object>() {
-                    /**
-                     * Called whenever a row needs to be shown/created on the screen.
-                     * @param item the Range object for which this row has to be displayed for.
-                     * @param empty whether or nor the row is empty.
-                     */
-                    @Override
-                    protected void updateItem(Object item, boolean empty) {
-                        super.updateItem(item, empty);
-                        if (item != null && !empty) {
-                            if (item instanceof Range) {
-                                Range range = (Range) item;
-                                CustomTimelineRow customTimelineRow = new CustomTimelineRow(range, ListViewController.this);
-                                setGraphic(customTimelineRow.getPane());
-                            } else if (item instanceof Result) {
-                                Result result = (Result) item;
-                                TimelineRowController timelineRowController = new TimelineRowController(getIndex(), ListViewController.this);
-                                timelineRowController.setData(result);
-                                setGraphic(timelineRowController.getGroup());
-                            } else {
-                                setGraphic(null);
-                            }
-                        } else {
-                            setGraphic(null);
-                        }
+                return new TimelineCell();
+            }
+        });
+        timelineListView.widthProperty().addListener(new ChangeListener<Number>() {
+            @Override
+            public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+                rowHeights.clear();//the rows wrap their text differently
+            }
+        });
+        timelineListView.addEventFilter(ScrollEvent.ANY, new EventHandler<ScrollEvent>() {//add the event handler for the zooming
+            @Override
+            public void handle(ScrollEvent event) {
+                if (viewType == ViewType.RANGE && event.isControlDown()) {//if we are holding the control button
+                    double scale = getScale(event);//get the value by which we scale
+                    if (scale != zoom) {
+                        zoom = scale;
+                        rowHeights.clear();
+                        timelineListView.refresh();//rebind the rows on screen, which scale their layouts
                     }
-                };
+                    event.consume();
+                }
+            }
+
+            private double getScale(ScrollEvent scrollEvent) {
+                double scale = zoom + scrollEvent.getDeltaY() / 100;
+                if (scale <= MIN_ZOOM) {//we only want the user to zoom out (not in, hence the scale is never over 1)
+                    scale = MIN_ZOOM;
+                } else if (scale >= MAX_ZOOM) {
+                    scale = MAX_ZOOM;
+                }
+                return scale;
             }
         });
     }
 
+    /**
+     * Called by the header of a Range in the Range view, to expand it (show its Results and children) if it is
+     * collapsed, or collapse it (remove the rows below it) if it is expanded. Only the rows that changed are added to or
+     * removed from the timeline.
+     *
+     * @param row the row of the Range.
+     */
+    @Override
+    public void toggle(FlatRangeTree.Row row) {
+        if (flatRangeTree == null) {
+            return;
+        }
+        int index = flatRangeTree.indexOf(row);
+        if (index == -1) {
+            return;
+        }
+        if (flatRangeTree.isExpanded(row)) {
+            int removed = flatRangeTree.collapse(index);
+            timelineObservableList.remove(index + 1, index + 1 + removed);
+        } else {
+            timelineObservableList.addAll(index + 1, flatRangeTree.expand(index));
+        }
+        timelineListView.refresh();//so the header is shown again, with its button changed (cells of the same item are not updated otherwise)
+    }
+
+    /**
+     * A cell of the timelineListView. Loading a row layout from FXML is slow, so each cell loads the layouts it needs
+     * the first time it needs them, and from then on only sets the data of the item it is showing in them (as the
+     * ListView reuses its cells while it is scrolled). The height of each row is cached, so the ListView does not lay
+     * out a row again just to measure it (which it does often while scrolling).
+     */
+    private class TimelineCell extends ListCell<Object> {
+        private TimelineRowController evenRowController;//the rows of the Date view have a different layout when odd/even
+        private TimelineRowController oddRowController;
+        private RangeDataController rangeDataController;
+        private CustomResultRowController customResultRowController;
+        private final Region indent = new Region();
+        private final HBox indentedRow = new HBox(indent);//used to indent the rows of the Range view by their depth
+        private final Group zoomedRow = new Group(indentedRow);//lays out the rows of the Range view scaled by the zoom
+
+        /**
+         * Called whenever a row needs to be shown on the screen.
+         *
+         * @param item  the Result (Date view) or FlatRangeTree.Row (Range view) for which this row has to be displayed for.
+         * @param empty whether or nor the row is empty.
+         */
+        @Override
+        protected void updateItem(Object item, boolean empty) {
+            super.updateItem(item, empty);
+            if (item != null && !empty) {
+                if (item instanceof FlatRangeTree.Row) {
+                    FlatRangeTree.Row row = (FlatRangeTree.Row) item;
+                    Node rowLayout;
+                    double indentWidth = row.getDepth() * RANGE_INDENT;
+                    if (row.isRange()) {
+                        if (rangeDataController == null) {
+                            rangeDataController = new RangeDataController(ListViewController.this);
+                        }
+                        rangeDataController.setData(row, flatRangeTree != null && flatRangeTree.isExpanded(row));
+                        rowLayout = rangeDataController.getRootBorderPane();
+                    } else {
+                        if (customResultRowController == null) {
+                            customResultRowController = new CustomResultRowController(ListViewController.this);
+                        }
+                        customResultRowController.setData(row.getResult(), row.getPosition());
+                        rowLayout = customResultRowController.getRootLayout();
+                        indentWidth += RESULT_INDENT;
+                    }
+                    indent.setMinWidth(indentWidth);
+                    indent.setPrefWidth(indentWidth);
+                    if (indentedRow.getChildren().size() == 1) {
+                        indentedRow.getChildren().add(rowLayout);
+                    } else if (indentedRow.getChildren().get(1) != rowLayout) {
+                        indentedRow.getChildren().set(1, rowLayout);
+                    }
+                    indentedRow.setScaleX(zoom);
+                    indentedRow.setScaleY(zoom);
+                    setGraphic(zoomedRow);
+                } else if (item instanceof Result) {
+                    Result result = (Result) item;
+                    TimelineRowController timelineRowController = getTimelineRowController(getIndex());
+                    timelineRowController.setPosition(getIndex());
+                    timelineRowController.setData(result);
+                    setGraphic(timelineRowController.getGroup());
+                } else {
+                    setGraphic(null);
+                }
+            } else {
+                setGraphic(null);
+            }
+        }
+
+        /**
+         * Get the row layout (of the Date view) for the given position, loading it if this cell has not needed it
+         * before.
+         *
+         * @param position the position of the row in the timeline.
+         * @return the TimelineRowController of the row layout for the position.
+         */
+        private TimelineRowController getTimelineRowController(int position) {
+            if (position % 2 == 0) {
+                if (evenRowController == null) {
+                    evenRowController = new TimelineRowController(position, ListViewController.this);
+                }
+                return evenRowController;
+            }
+            if (oddRowController == null) {
+                oddRowController = new TimelineRowController(position, ListViewController.this);
+            }
+            return oddRowController;
+        }
+
+        /**
+         * Get the height of the row, from the cache if it has been measured before (for the same item, width and zoom).
+         *
+         * @param width the width the row is given.
+         * @return the height of the row.
+         */
+        @Override
+        protected double computePrefHeight(double width) {
+            Object item = getItem();
+            if (item == null || isEmpty()) {
+                return super.computePrefHeight(width);
+            }
+            Double height = rowHeights.get(item);
+            if (height == null) {
+                height = super.computePrefHeight(width);
+                rowHeights.put(item, height);
+            }
+            return height;
+        }
+    }
+
     /**
      * For the input List of FileData, set it as the items of the Documents Loaded List.
      *
@@ -290,17 +528,109 @@ public class ListViewController implements Initializable, MenuBarControllerInter
      * @param fileDatas a list of FileData objects which needs to populate the rows in the documentListView.
      */
     public void setTimelineListView(List<Result> results, List<FileData> fileDatas) {
+        setTimelineListView(results, fileDatas, null);
+    }
+
+    /**
+     * For the given Results and FileData, set the data of the timelineListView and documentListView with them. If the
+     * forest of Range trees for the Results is given (i.e. loaded from a project file), it is used for the Range view
+     * instead of producing it again.
+     *
+     * @param results   a list of Result objects which contain data to populate the rows of the timelineListView with.
+     * @param fileDatas a list of FileData objects which needs to populate the rows in the documentListView.
+     * @param trees     the forest of Range trees produced from the given Results, or null if it has to be produced.
+     */
+    public void setTimelineListView(List<Result> results, List<FileData> fileDatas, List<Range> trees) {
         this.results = results;
+        this.rangeTrees = trees;
         if (viewType == ViewType.DATE) {//to not waste time sorting Results that will be sorted by their Ranges later anyways
             sortAndReverse(this.results);
         }
-        setTimelineList(this.results);
+        resultIndex = new ResultIndex();//the Results could have been edited or removed, so index them again
+        resultIndex.addAll(this.results);
+        setTimelineList(filterResults(this.results));
 
         this.fileDatas = fileDatas;
         Collections.sort(this.fileDatas);
         setDocumentListView(this.fileDatas);
     }
 
+    /**
+     * Get the Results in the Timeline (including those the filter hides).
+     *
+     * @return the Results in the Timeline.
+     */
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Called when the events of the Results in the Timeline have changed (i.e. they were trimmed to another threshold),
+     * to index them and show them again. Their dates have not changed, so the Range forest is kept.
+     */
+    public void eventsChanged() {
+        setTimelineListView(results, fileDatas, rangeTrees);
+    }
+
+    /**
+     * Get the paths of the documents loaded in the Timeline.
+     *
+     * @return the paths of the documents loaded.
+     */
+    public List<String> getFilePaths() {
+        List<String> filePaths = new ArrayList<>();
+        for (FileData fileData : fileDatas) {
+            filePaths.add(fileData.getFilePath());
+        }
+        return filePaths;
+    }
+
+    /**
+     * Called when documents in the folder watched were added, changed or deleted: the Results of the documents changed
+     * or deleted are removed from the Timeline, and the Results of the documents added or changed are added to it (merged
+     * with the events of the Timeline, if the Settings merge similar events).
+     *
+     * @param results          the Results of the documents added or changed.
+     * @param changedFileDatas the FileData of the documents added or changed.
+     * @param deletedPaths     the paths of the documents deleted.
+     */
+    public void updateFromFolder(List<Result> results, List<FileData> changedFileDatas, List<String> deletedPaths) {
+        Set<String> replacedPaths = new HashSet<>(deletedPaths);
+        for (FileData fileData : changedFileDatas) {
+            replacedPaths.add(fileData.getFilePath());
+        }
+        Iterator<FileData> fileDataIterator = fileDatas.iterator();
+        while (fileDataIterator.hasNext()) {
+            FileData fileData = fileDataIterator.next();
+            if (replacedPaths.contains(fileData.getFilePath())) {
+                fileDataIterator.remove();
+                removeResults(this.results, fileData);
+            }
+        }
+        List<Result> added = new ArrayList<>(results);
+        if (!added.isEmpty() && BackEndSystem.getInstance().getSettings().isMergeSimilarEvents()) {
+            //merged with the events shown (as the Results of a load are), so a new report of an event is not another row
+            List<Result> clustered = new EventClusterer().cluster(this.results, added);
+            this.results.clear();
+            this.results.addAll(clustered);
+            Sort.sortByDate1Descending(this.results);
+            added.clear();//they are all in the Results now
+        }
+        resultIndex = new ResultIndex();//Results were removed (or merged), so index them again
+        resultIndex.addAll(this.results);
+        addToTimelineListView(added, new ArrayList<>(changedFileDatas));
+    }
+
+    /**
+     * Set whether the "Watch Folder..." menu item is checked (i.e. unchecked if no folder was picked, or the folder
+     * watched is gone).
+     *
+     * @param watching whether a folder is being watched.
+     */
+    public void setWatchingFolder(boolean watching) {
+        watchFolderMenuItem.setSelected(watching);
+    }
+
     /**
      * For the given input, add it to their appropriate lists.
      *
@@ -310,9 +640,20 @@ public class ListViewController implements Initializable, MenuBarControllerInter
     public void addToTimelineListView(List<Result> results, List<FileData> fileDatas) {
         cleanRepeatedResults(results, this.fileDatas);
         cleanRepeatedFileData(this.fileDatas, fileDatas);
-        this.results.addAll(results);
-        sortAndReverse(this.results);
-        setTimelineList(this.results);
+        resultIndex.addAll(results);//only the new Results need to be indexed
+        rangeTrees = null;
+        //the new Results are merged in instead of sorting them all again; the Results shown are usually sorted already
+        //(so this only checks them), but not after the Range view sorted them by their ranges
+        Sort.sortByDate1Descending(this.results);
+        List<List<Result>> sortedRuns = new ArrayList<>();
+        Collections.reverse(this.results);
+        sortedRuns.add(this.results);
+        sortedRuns.add(Sort.sortByDate1(results));
+        List<Result> merged = Sort.mergeByDate1(sortedRuns);
+        this.results.clear();
+        this.results.addAll(merged);
+        Collections.reverse(this.results);
+        setTimelineList(filterResults(this.results));
 
         this.fileDatas.addAll(fileDatas);
         Collections.sort(this.fileDatas);
@@ -326,10 +667,11 @@ public class ListViewController implements Initializable, MenuBarControllerInter
      * @param newFileData the given newFileData.
      */
     private void cleanRepeatedFileData(List<FileData> oldFileData, List<FileData> newFileData) {
+        Set<FileData> oldFileDataSet = new HashSet<>(oldFileData);//so each look up is O(1) instead of O(n)
         Iterator<FileData> newFileDataIterator = newFileData.iterator();
         while (newFileDataIterator.hasNext()) {//for each new result
             FileData fileData = newFileDataIterator.next();
-            if (oldFileData.contains(fileData)) {//if its in the old list
+            if (oldFileDataSet.contains(fileData)) {//if its in the old list
                 newFileDataIterator.remove();//then dont add it to it (so remove it)
             }
         }
@@ -343,11 +685,12 @@ public class ListViewController implements Initializable, MenuBarControllerInter
      * @param fileDatas the given FileData list.
      */
     private void cleanRepeatedResults(List<Result> results, List<FileData> fileDatas) {
+        Set<FileData> fileDataSet = new HashSet<>(fileDatas);//so each look up is O(1) instead of O(n)
         Iterator<Result> resultIterator = results.iterator();
         while (resultIterator.hasNext()) {
             //for each result, check it with the filedata, if its filedata is already there, then remove it
             Result result = resultIterator.next();
-            if (fileDatas.contains(result.getFileData())) {
+            if (fileDataSet.contains(result.getFileData())) {
                 //this file data already exists, so remove the result
                 resultIterator.remove();
                 System.out.println("Removed: " + result + " from results to be added");
@@ -398,6 +741,44 @@ public class ListViewController implements Initializable, MenuBarControllerInter
         }
     }
 
+    /**
+     * When the open project menu item is pressed.
+     */
+    @Override
+    public void openProject() {
+        if (timelineObserver != null) {
+            timelineObserver.openProject();
+        }
+    }
+
+    /**
+     * When the save project menu item is pressed. The Range forest is saved with the project if it has been produced.
+     */
+    public void saveProject() {
+        if (timelineObserver != null) {
+            timelineObserver.saveProject(results, fileDatas, rangeTrees);
+        }
+    }
+
+    /**
+     * When the import JSON menu item is pressed.
+     */
+    @Override
+    public void importJSON() {
+        if (timelineObserver != null) {
+            timelineObserver.importJSON();
+        }
+    }
+
+    /**
+     * When the watch folder menu item is checked or unchecked.
+     */
+    public void watchFolder() {
+        if (timelineObserver != null) {
+            timelineObserver.watchFolder(watchFolderMenuItem.isSelected());
+        }
+    }
+
     /**
      * Called when a given row in the Loaded Documents listview is removed.
      *
@@ -416,20 +797,32 @@ public class ListViewController implements Initializable, MenuBarControllerInter
     }
 
     /**
-     * Removes the given FileData from the FileData list and all the Results linked to it in the Results list.
+     * Removes the given FileData from the FileData list and all the Results linked to it in the Results list. The
+     * Results of other Files that were merged with them are merged again, and the Results are left sorted as the
+     * Timeline shows them.
      *
      * @param results  list of Results for which we we need to delete the Results linked to the given FileData.
      * @param fileData FileData for which in the given Results list we need to remove the linked Results.
      */
     private void removeResults(List<Result> results, FileData fileData) {
+        List<Result> unmerged = new ArrayList<>();//the Results of other Files that were merged with one of the FileData
         Iterator<Result> resultIterator = results.iterator();
         while (resultIterator.hasNext()) {
             Result result = resultIterator.next();
-            if (result.getFileData().equals(fileData)) {
+            if (result.getSources().contains(fileData)) {
                 System.out.println("Need to remove: " + result);
                 resultIterator.remove();
+                for (Result mergedResult : result.getMergedResults()) {
+                    if (!fileData.equals(mergedResult.getFileData())) {
+                        unmerged.add(mergedResult);
+                    }
+                }
             }
         }
+        if (!unmerged.isEmpty()) {//merge what is left of them again, keeping the Results in the order they are shown
+            results.addAll(new EventClusterer().cluster(unmerged));
+            Sort.sortByDate1Descending(results);
+        }
     }
 
     /**
@@ -504,6 +897,16 @@ public class ListViewController implements Initializable, MenuBarControllerInter
         loadingDialog.showLoadingDialog();
     }
 
+    /**
+     * Called to show the loading dialog, with the progress and message of the given Worker. (Only if the layouts have
+     * been passed to LoadingDialog)
+     *
+     * @param worker the given Worker.
+     */
+    public void showLoadingDialog(Worker<?> worker) {
+        loadingDialog.showLoadingDialog(worker);
+    }
+
     /**
      * Called to remove the loading dialog.
      */
@@ -511,6 +914,48 @@ public class ListViewController implements Initializable, MenuBarControllerInter
         loadingDialog.removeLoadingDialog();
     }
 
+    /**
+     * Called to show (or update) the progress of an export in the status bar below the Timeline. Unlike the loading
+     * dialog, the rest of the layout can still be used while the export runs.
+     *
+     * @param fileName the name of the File being exported to.
+     * @param written  the number of Results written so far.
+     * @param total    the number of Results being written.
+     * @param pages    the number of pages written so far (0 when exporting to JSON).
+     */
+    public void showExportProgress(String fileName, int written, int total, int pages) {
+        exportStatusBar.setManaged(true);
+        exportStatusBar.setVisible(true);
+        cancelExportButton.setDisable(false);
+        String status = "Saving " + fileName + ": " + written + " of " + total + " events";
+        if (pages > 0) {
+            status += " (" + pages + (pages == 1 ? " page)" : " pages)");
+        }
+        exportStatusLabel.setText(status);
+        if (total > 0) {
+            exportProgressBar.setProgress((double) written / total);
+        } else {
+            exportProgressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        }
+    }
+
+    /**
+     * Called when the export has been cancelled, but is still stopping.
+     */
+    public void showExportCancelling() {
+        exportStatusLabel.setText("Cancelling...");
+        cancelExportButton.setDisable(true);
+    }
+
+    /**
+     * Called to hide the status bar once no exports are running.
+     */
+    public void removeExportProgress() {
+        exportStatusBar.setVisible(false);
+        exportStatusBar.setManaged(false);
+        exportProgressBar.setProgress(0);
+    }
+
     /**
      * Called to show the Timeline with the individual dates and events in separate rows.
      */
@@ -23,4 +23,14 @@ public interface MenuBarControllerInter {
      * Called when the preferences menu item is selected.
      */
     void preferences();
+
+    /**
+     * Called when the open project menu item is selected.
+     */
+    void openProject();
+
+    /**
+     * Called when the import JSON menu item is selected.
+     */
+    void importJSON();
 }
@@ -1,98 +1,88 @@
 package frontend.controllers;
 
-import backend.process.Result;
+import backend.ranges.FlatRangeTree;
 import backend.ranges.Range;
-import frontend.observers.TimelineRowObserver;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import frontend.observers.RangeRowObserver;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.control.ListCell;
-import javafx.scene.control.ListView;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
-import javafx.util.Callback;
 
 import java.io.IOException;
 
 /**
- * Controller for the layout that represents the data held by a Range (i.e. its Data and its Results).
+ * Controller for the layout of the header of a Range in the Range view of the Timeline (i.e. its dates, how much is
+ * below it, and a button to expand/collapse it). The layout is loaded once, and then reused for whichever Range the
+ * row it is in shows (see setData).
  */
 public class RangeDataController {
-    private Range range;
+    private FlatRangeTree.Row row;
     @FXML
     private VBox rootVBox;
     @FXML
-    private ListView<Result> resultsListView;
-    @FXML
     private Label dateLabel;
-    private ObservableList<Result> results;
-    private TimelineRowObserver timelineRowObserver;
-    private int rangePosition;
+    @FXML
+    private Label countLabel;
+    @FXML
+    private Button expandButton;
+    private RangeRowObserver rangeRowObserver;
 
     /**
-     * Constructor that sets up the layout to represent the data held by the given Range.
+     * Constructor that loads the layout used to represent the header of a Range.
      *
-     * @param range the given Range.
+     * @param rangeRowObserver the Observer informed when the expand button is pressed.
      */
-    public RangeDataController(Range range, TimelineRowObserver timelineRowObserver, int rangePosition) {
-        this.range = range;
-        this.timelineRowObserver = timelineRowObserver;
-        this.rangePosition = rangePosition;
+    public RangeDataController(RangeRowObserver rangeRowObserver) {
+        this.rangeRowObserver = rangeRowObserver;
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("rangeDataLayout.fxml"));//load the base layout
         fxmlLoader.setController(this);
         try {
             rootVBox = fxmlLoader.load();
-            setUp();//set the data in the layout
+            expandButton.setOnAction(new EventHandler<ActionEvent>() {
+                @Override
+                public void handle(ActionEvent event) {
+                    if (row != null) {
+                        RangeDataController.this.rangeRowObserver.toggle(row);
+                    }
+                }
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Set up the data shown in this layout. This means setting the date that this Range layout is representing, and the
-     * list of Result objects held by the given Range (in the constructor).
+     * Set the Range shown in this layout (i.e. set the dates of the Range of the given row in the date label, and how
+     * many events and Ranges are directly below it).
+     *
+     * @param row      the given row of a Range.
+     * @param expanded whether or not the Range is expanded.
      */
-    private void setUp() {
-        if (range != null) {
-            dateLabel.setText(range.getDateRange());//set the date text
-            if (range.getResults().size() > 0) {//if we have results then show the list
-                results = FXCollections.observableArrayList();
-                results.addAll(range.getResults());//set up the observable list of Results used to add to the listView
-                resultsListView.setItems(results);
-                resultsListView.setCellFactory(new Callback<ListView<Result>, ListCell<Result>>() {
-                    @Override
-                    public ListCell<Result> call(ListView<Result> param) {
-                        return new ListCell<Result>() {//set up the listcell used in this listview
-                            @Override
-                            protected void updateItem(Result item, boolean empty) {
-                                super.updateItem(item, empty);
-                                if (item != null) {//if we have a valid item, build its layout and set it
-                                    CustomResultRowController customResultRowController = new CustomResultRowController(item, timelineRowObserver, rangePosition);
-                                    setGraphic(customResultRowController.getRootLayout());//set the layout built with the result
-                                } else {//dont have a valid result so dont show anything
-                                    setGraphic(null);
-                                }
-                            }
-                        };
-                    }
-                });
-            } else {//dont have results then dont show the list
-                rootVBox.getChildren().remove(resultsListView);
-            }
+    public void setData(FlatRangeTree.Row row, boolean expanded) {
+        this.row = row;
+        Range range = row.getRange();
+        dateLabel.setText(range.getDateRange());//set the date text
+        int events = range.getResults().size();
+        int ranges = range.getChildren().size();
+        String count = events + (events == 1 ? " event" : " events");
+        if (ranges > 0) {
+            count += ", " + ranges + (ranges == 1 ? " range" : " ranges");
         }
+        countLabel.setText("(" + count + ")");
+        expandButton.setText(expanded ? "-" : "+");
+        expandButton.setDisable(events == 0 && ranges == 0);//nothing to expand
     }
 
     /**
-     * Get the root layout that this Controller controls (ie a VBox with the Date of the given Range - passed in the
-     * constructor; and a list of the Results held by the Range).
+     * Get the root layout that this Controller controls (ie a VBox with the Date of the Range set with setData).
      *
      * @return the root layout that this Controller represents.
      */
     public Pane getRootBorderPane() {
         return rootVBox;
     }
-
-
 }
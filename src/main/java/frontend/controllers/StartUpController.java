@@ -2,6 +2,7 @@ package frontend.controllers;
 
 import frontend.dialogs.LoadingDialog;
 import frontend.observers.StartUpObserver;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
@@ -96,6 +97,26 @@ public class StartUpController implements Initializable, MenuBarControllerInter
         }
     }
 
+    /**
+     * When the open project menu item is pressed.
+     */
+    @Override
+    public void openProject() {
+        if (observer != null) {
+            observer.openProject();
+        }
+    }
+
+    /**
+     * When the import JSON menu item is pressed.
+     */
+    @Override
+    public void importJSON() {
+        if (observer != null) {
+            observer.importJSON();
+        }
+    }
+
     /**
      * Set whether or not the Load Documents Button should be disabled (so that it cannot be pressed)
      *
@@ -112,6 +133,16 @@ public class StartUpController implements Initializable, MenuBarControllerInter
         loadingDialog.showLoadingDialog();
     }
 
+    /**
+     * Called to show the loading dialog, with the progress and message of the given Worker. (Only if the layouts have
+     * been passed to LoadingDialog)
+     *
+     * @param worker the given Worker.
+     */
+    public void showLoadingDialog(Worker<?> worker) {
+        loadingDialog.showLoadingDialog(worker);
+    }
+
     /**
      * Called to remove the loading dialog.
      */
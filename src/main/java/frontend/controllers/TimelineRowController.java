@@ -1,5 +1,6 @@
 package frontend.controllers;
 
+import backend.process.FileData;
 import backend.process.Result;
 import frontend.dialogs.EditEventDialog;
 import frontend.observers.DocumentReaderObserver;
@@ -65,14 +66,26 @@ public class TimelineRowController {
         fxmlLoader.setController(this);
         try {
             fxmlLoader.load();
+            borderPane.setStyle("-fx-border-color: black; -fx-border-width: 4; -fx-border-style: solid inside;");
+            setUpOnClicks();//set the onclicks (they act on the Result currently shown)
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * For the row, where the layout has already been loaded, set the values at the labels, and the event handlers for
-     * the buttons.
+     * Set the position this row is in the timeline (to display its index). The layout loaded is kept, so the row is
+     * expected to be reused only for positions that are odd (or even) like the one given to the constructor.
+     *
+     * @param position the position this row is in the timeline.
+     */
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     * For the row, where the layout has already been loaded, set the values at the labels. The row can be reused for
+     * another Result by calling this again.
      *
      * @param result the Result object with wich the values of the labels will be populated (e.g. date, subjects, event,
      *               etc.).
@@ -83,11 +96,24 @@ public class TimelineRowController {
         dateLabel.setText("Date: " + result.getTimelineDate().toString());
         subjectsLabel.setText("Subjects: " + result.getSubjectsAsString());
         eventLabel.setText("Event: " + result.getEvent());
-        fromLabel.setText("From: " + result.getFileData().getFileName() + " (" + result.getFileData().getCreationDateFormattedDayMonthYear() + ")");
-        borderPane.setStyle("-fx-border-color: black; -fx-border-width: 4; -fx-border-style: solid inside;");
+        FileData fileData = result.getFileData();
+        if (fileData != null) {
+            fromLabel.setText("From: " + fileData.getFileName() + (result.getPage() > 0 ? ", p. " + result.getPage() : "") + " (" + fileData.getCreationDateFormattedDayMonthYear() + ")"
+                    + (result.getSources().size() > 1 ? " (+" + (result.getSources().size() - 1) + " more)" : ""));
+        } else {//i.e. imported from JSON without the File it was found in
+            fromLabel.setText("From: unknown");
+        }
+        viewButton.setDisable(fileData == null);//there is no document to read
+    }
+
+    /**
+     * Set the EventHandlers for the onClicks of the buttons of this row, acting on the Result last set with setData.
+     */
+    private void setUpOnClicks() {
         editButton.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
+                Result result = TimelineRowController.this.result;//the row can be reused for another Result while the dialog is open
                 System.out.println("Edit button for timeline event: " + result.getTimelineDate() + " has been pressed");
                 Dialog dialog = EditEventDialog.getEditEventDialog(result, (position + 1));
                 Optional<EditEventDialog.DialogResult> response = dialog.showAndWait();
@@ -96,11 +122,11 @@ public class TimelineRowController {
                     public void accept(EditEventDialog.DialogResult dialogResult) {
                         if (dialogResult.getResultType() == EditEventDialog.DialogResult.ResultType.DELETE) {
                             System.out.println("Delete the event");
-                            timelineRowObserver.delete(position);
+                            timelineRowObserver.delete(result);//by Result, as the position is in the (possibly filtered) timeline shown
                         } else if (dialogResult.getResultType() == EditEventDialog.DialogResult.ResultType.SAVE) {
                             System.out.println("Update the timeline");
                             Result copy = dialogResult.getResult();
-                            timelineRowObserver.update(copy, position);
+                            timelineRowObserver.update(result, copy);
                         } else if (dialogResult.getResultType() == EditEventDialog.DialogResult.ResultType.CANCEL) {
                             System.out.println("Dont do anything");
                         }
@@ -1,5 +1,7 @@
 package frontend.dialogs;
 
+import javafx.beans.binding.Bindings;
+import javafx.concurrent.Worker;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.ProgressIndicator;
@@ -7,12 +9,16 @@ import javafx.scene.layout.*;
 import javafx.scene.text.Text;
 
 /**
- * Class used to show/hide the loading dialog in the current shown screen
+ * Class used to show/hide the loading dialog in the current shown screen. When shown for a Worker (i.e. the Task that
+ * processes the Files), its progress and message are shown, instead of a spinning wheel.
  */
 public class LoadingDialog {
+    private final static String PROCESSING_TEXT = "Processing Files... ";
     private StackPane stackPane;
     private VBox loadingDialog;
     private Pane mainLayout;
+    private ProgressIndicator progressIndicator;
+    private Text processingText;
 
     /**
      * Creates a constructor used to show a loading dialog, and remove it.
@@ -48,12 +54,13 @@ public class LoadingDialog {
             gridPane.setVgap(10);
             gridPane.setHgap(28);
             //add progress circle
-            ProgressIndicator progressIndicator = new ProgressIndicator();
+            progressIndicator = new ProgressIndicator();
             progressIndicator.setProgress(-1.0f);
             gridPane.add(progressIndicator, 0, 0, 1, 1);
             //add the text
-            Text processingText = new Text("Processing Files... ");
+            processingText = new Text(PROCESSING_TEXT);
             processingText.getStyleClass().add("processing-text");
+            processingText.setWrappingWidth(320);//the message of a Worker can be long
             gridPane.add(processingText, 1, 0, 2, 1);//want the text to be wider than the progress indicator
             //add the body
             loadingDialog.getChildren().add(gridPane);
@@ -78,6 +85,19 @@ public class LoadingDialog {
         }
     }
 
+    /**
+     * Show the loading dialog (as showLoadingDialog does), with the progress and message of the given Worker. Until
+     * the Worker reports its progress, a spinning wheel is shown.
+     *
+     * @param worker the given Worker.
+     */
+    public void showLoadingDialog(Worker<?> worker) {
+        showLoadingDialog();
+        progressIndicator.progressProperty().bind(worker.progressProperty());
+        processingText.textProperty().bind(Bindings.when(worker.messageProperty().isEmpty()).then(PROCESSING_TEXT)
+                .otherwise(worker.messageProperty()));
+    }
+
     /**
      * Used to indicate the System has finished "loading". If the Pane's aren't null then the main layout Pane will be
      * enabled again, and the loading dialog will be removed from on top of the Stack Pane.
@@ -89,6 +109,11 @@ public class LoadingDialog {
             mainLayout.setDisable(false);
             if (loadingDialog != null) {
                 stackPane.getChildren().remove(loadingDialog);
+                //stop showing the Worker, if it was shown for one
+                progressIndicator.progressProperty().unbind();
+                progressIndicator.setProgress(-1.0f);
+                processingText.textProperty().unbind();
+                processingText.setText(PROCESSING_TEXT);
             }
         }
     }
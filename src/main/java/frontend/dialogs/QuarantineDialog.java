@@ -0,0 +1,66 @@
+package frontend.dialogs;
+
+import backend.process.Quarantine;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Used to create the dialog that reports the documents of a load that could not be processed (see Quarantine):
+ * those that failed this time, and those quarantined (skipped, as they failed too many times). The user can choose to
+ * retry the quarantined documents the next time they are loaded.
+ */
+public class QuarantineDialog {
+
+    /**
+     * For the given Quarantine Entries, show a dialog listing the documents, the stage they failed at and why, and
+     * take the documents out of the Quarantine if the user chooses to retry them.
+     *
+     * @param entries the Entries of the documents of the load that could not be processed (not empty).
+     */
+    public void showQuarantineDialog(List<Quarantine.Entry> entries) {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Documents not Processed");
+        alert.setHeaderText(null);
+        alert.setContentText(entries.size() + " of the Documents could not be processed. Documents that fail "
+                + Quarantine.MAX_FAILURES + " times are skipped when loaded again, unless they are retried.");
+
+        ScrollPane scrollPane = new ScrollPane();
+        scrollPane.setPadding(new Insets(10));
+        scrollPane.setFitToWidth(true);
+        GridPane gridPane = new GridPane();
+        gridPane.setMaxWidth(Double.MAX_VALUE);
+        gridPane.setPadding(new Insets(10));
+        gridPane.setHgap(10);
+        gridPane.setVgap(10);
+        scrollPane.setContent(gridPane);
+        List<String> quarantinedPaths = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Quarantine.Entry entry = entries.get(i);
+            String status = entry.isQuarantined() ? "Skipped" : "Failed";
+            if (entry.isQuarantined()) {
+                quarantinedPaths.add(entry.getPath());
+            }
+            gridPane.add(new Label(entry.getName()), 0, i);
+            gridPane.add(new Label(status + " while " + entry.getStage().toString().toLowerCase()), 1, i);
+            gridPane.add(new Label(entry.getReason()), 2, i);
+        }
+        alert.getDialogPane().setExpandableContent(scrollPane);
+        alert.getDialogPane().setExpanded(true);
+
+        ButtonType buttonTypeRetry = new ButtonType("Retry Skipped Next Time", ButtonBar.ButtonData.LEFT);
+        if (quarantinedPaths.isEmpty()) {
+            alert.getButtonTypes().setAll(ButtonType.OK);
+        } else {
+            alert.getButtonTypes().setAll(buttonTypeRetry, ButtonType.OK);
+        }
+        Optional<ButtonType> response = alert.showAndWait();
+        if (response.isPresent() && response.get() == buttonTypeRetry) {
+            Quarantine.getInstance().retry(quarantinedPaths);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package frontend.dialogs;
 
+import backend.process.EntityType;
 import backend.system.BackEndSystem;
 import backend.system.Settings;
 import javafx.event.EventHandler;
@@ -7,11 +8,16 @@ import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.text.Text;
 import javafx.util.Callback;
 import javafx.util.StringConverter;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -19,9 +25,15 @@ import java.util.Optional;
  */
 public class SettingsDialog {
     private Spinner<Integer> threadCountSpinner;
+    private CheckBox autoThreadsCheckBox;
     private Spinner<Integer> thresholdSpinner;
     private Spinner<Integer> widthSpinner;
     private Spinner<Integer> heightSpinner;
+    private Map<EntityType, CheckBox> subjectTypeCheckBoxes;
+    private CheckBox mergeCheckBox;
+    private Spinner<Integer> sentenceLengthSpinner;
+    private Spinner<Integer> parseTimeSpinner;
+    private Spinner<Integer> documentTimeSpinner;
 
     /**
      * Get a Settings Dialog, that will allow the user to change the Settings of the System and either Save them or
@@ -73,6 +85,18 @@ public class SettingsDialog {
                     copy.setHeight(heightSpinner.getValue());
                     copy.setThresholdSummary(thresholdSpinner.getValue());
                     copy.setMaxNoOfThreads(threadCountSpinner.getValue());
+                    copy.setAutoThreads(autoThreadsCheckBox.isSelected());
+                    EnumSet<EntityType> subjectTypes = EnumSet.noneOf(EntityType.class);
+                    for (Map.Entry<EntityType, CheckBox> entry : subjectTypeCheckBoxes.entrySet()) {
+                        if (entry.getValue().isSelected()) {
+                            subjectTypes.add(entry.getKey());
+                        }
+                    }
+                    copy.setSubjectTypes(subjectTypes);
+                    copy.setMergeSimilarEvents(mergeCheckBox.isSelected());
+                    copy.setMaxSentenceLength(sentenceLengthSpinner.getValue());
+                    copy.setMaxParseTime(parseTimeSpinner.getValue() * 1000L);
+                    copy.setMaxDocumentTime(documentTimeSpinner.getValue() * 60000L);
                     return copy;
                 }
                 return null;
@@ -105,8 +129,12 @@ public class SettingsDialog {
         spinnerValueFactory.setConverter(new IntegerStringConverter(threadCountSpinner));
         threadCountSpinner.setValueFactory(spinnerValueFactory);
         threadCountSpinner.setEditable(true);
+        autoThreadsCheckBox = new CheckBox("Automatic");//from the processors and memory available
+        autoThreadsCheckBox.setSelected(settings.isAutoThreads());
+        threadCountSpinner.disableProperty().bind(autoThreadsCheckBox.selectedProperty());
+        HBox threadBox = new HBox(10, threadCountSpinner, autoThreadsCheckBox);
         gridPane.add(threadText, 0, 1);
-        gridPane.add(threadCountSpinner, 1, 1);
+        gridPane.add(threadBox, 1, 1);
 
         Text thresholdText = new Text("Threshold of Text Summary: ");
         thresholdSpinner = new Spinner<>();
@@ -118,11 +146,61 @@ public class SettingsDialog {
         gridPane.add(thresholdText, 0, 2);
         gridPane.add(thresholdSpinner, 1, 2);
 
+        Text subjectsText = new Text("Subjects of Events: ");
+        FlowPane subjectsPane = new FlowPane(10, 5);
+        subjectTypeCheckBoxes = new EnumMap<>(EntityType.class);
+        for (EntityType entityType : EntityType.values()) {
+            if (entityType != EntityType.DATE) {//DATEs are always found, as they are the dates of the events
+                CheckBox checkBox = new CheckBox(entityType.getTag());
+                checkBox.setSelected(settings.getSubjectTypes().contains(entityType));
+                subjectTypeCheckBoxes.put(entityType, checkBox);
+                subjectsPane.getChildren().add(checkBox);
+            }
+        }
+        gridPane.add(subjectsText, 0, 3);
+        gridPane.add(subjectsPane, 1, 3);
+
+        Text mergeText = new Text("Merge the same Event from different Files: ");
+        mergeCheckBox = new CheckBox();
+        mergeCheckBox.setSelected(settings.isMergeSimilarEvents());
+        gridPane.add(mergeText, 0, 4);
+        gridPane.add(mergeCheckBox, 1, 4);
+
+        Text sentenceLengthText = new Text("Longest Sentence parsed (words): ");
+        sentenceLengthSpinner = new Spinner<>();
+        spinnerValueFactory = new SpinnerValueFactory.IntegerSpinnerValueFactory(10, 500, settings.getMaxSentenceLength());
+        spinnerValueFactory.setAmountToStepBy(10);
+        spinnerValueFactory.setConverter(new IntegerStringConverter(sentenceLengthSpinner));
+        sentenceLengthSpinner.setValueFactory(spinnerValueFactory);
+        sentenceLengthSpinner.setEditable(true);
+        gridPane.add(sentenceLengthText, 0, 5);
+        gridPane.add(sentenceLengthSpinner, 1, 5);
+
+        Text parseTimeText = new Text("Longest time parsing a Sentence (seconds): ");
+        parseTimeSpinner = new Spinner<>();
+        spinnerValueFactory = new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 600, (int) (settings.getMaxParseTime() / 1000));
+        spinnerValueFactory.setAmountToStepBy(1);
+        spinnerValueFactory.setConverter(new IntegerStringConverter(parseTimeSpinner));
+        parseTimeSpinner.setValueFactory(spinnerValueFactory);
+        parseTimeSpinner.setEditable(true);
+        gridPane.add(parseTimeText, 0, 6);
+        gridPane.add(parseTimeSpinner, 1, 6);
+
+        Text documentTimeText = new Text("Longest time processing a Document (minutes): ");
+        documentTimeSpinner = new Spinner<>();
+        spinnerValueFactory = new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 60, (int) (settings.getMaxDocumentTime() / 60000));
+        spinnerValueFactory.setAmountToStepBy(1);
+        spinnerValueFactory.setConverter(new IntegerStringConverter(documentTimeSpinner));
+        documentTimeSpinner.setValueFactory(spinnerValueFactory);
+        documentTimeSpinner.setEditable(true);
+        gridPane.add(documentTimeText, 0, 7);
+        gridPane.add(documentTimeSpinner, 1, 7);
+
         Separator separator = new Separator();//by default its horizontal
-        gridPane.add(separator, 0, 3, 2, 1);
+        gridPane.add(separator, 0, 8, 2, 1);
 
         Text appearanceText = new Text("Appearance");
-        gridPane.add(appearanceText, 0, 4);
+        gridPane.add(appearanceText, 0, 9);
 
         Text widthText = new Text("Width at Startup: ");
         widthSpinner = new Spinner<>();
@@ -131,8 +209,8 @@ public class SettingsDialog {
         spinnerValueFactory.setConverter(new IntegerStringConverter(widthSpinner));
         widthSpinner.setValueFactory(spinnerValueFactory);
         widthSpinner.setEditable(true);
-        gridPane.add(widthText, 0, 5);
-        gridPane.add(widthSpinner, 1, 5);
+        gridPane.add(widthText, 0, 10);
+        gridPane.add(widthSpinner, 1, 10);
 
         Text heightText = new Text("Height at Startup: ");
         heightSpinner = new Spinner<>();
@@ -141,8 +219,8 @@ public class SettingsDialog {
         spinnerValueFactory.setConverter(new IntegerStringConverter(heightSpinner));
         heightSpinner.setValueFactory(spinnerValueFactory);
         heightSpinner.setEditable(true);
-        gridPane.add(heightText, 0, 6);
-        gridPane.add(heightSpinner, 1, 6);
+        gridPane.add(heightText, 0, 11);
+        gridPane.add(heightSpinner, 1, 11);
 
         return gridPane;
     }
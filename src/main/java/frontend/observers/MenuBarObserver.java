@@ -23,4 +23,14 @@ public interface MenuBarObserver {
      * Called when the preferences menu item is pressed.
      */
     void preferences();
+
+    /**
+     * Called when the open project menu item is pressed.
+     */
+    void openProject();
+
+    /**
+     * Called when the import JSON menu item is pressed.
+     */
+    void importJSON();
 }
@@ -0,0 +1,17 @@
+package frontend.observers;
+
+import backend.ranges.FlatRangeTree;
+
+/**
+ * Implemented by the Observer of the Range rows (that is the holder of the ListView), so that the header of a Range can
+ * have the Range expanded or collapsed.
+ */
+public interface RangeRowObserver {
+    /**
+     * Called by the header of a Range to inform the Observer (holder of the ListView), that the Range needs to be
+     * expanded if it is collapsed, or collapsed if it is expanded.
+     *
+     * @param row the row of the Range.
+     */
+    void toggle(FlatRangeTree.Row row);
+}
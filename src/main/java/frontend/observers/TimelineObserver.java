@@ -1,6 +1,8 @@
 package frontend.observers;
 
+import backend.process.FileData;
 import backend.process.Result;
+import backend.ranges.Range;
 
 import java.util.List;
 
@@ -18,4 +20,25 @@ public interface TimelineObserver extends MenuBarObserver {
      * @param resultList the List of Results to save.
      */
     void saveTo(List<Result> resultList);
+
+    /**
+     * Called when the "Save Project..." menu item is pressed.
+     *
+     * @param resultList   the List of Results in the Timeline.
+     * @param fileDataList the List of FileData of the documents loaded.
+     * @param trees        the forest of Range trees of the Timeline, or null if it has not been produced.
+     */
+    void saveProject(List<Result> resultList, List<FileData> fileDataList, List<Range> trees);
+
+    /**
+     * Called when the "Cancel" button of the export status bar is pressed.
+     */
+    void cancelExport();
+
+    /**
+     * Called when the "Watch Folder..." menu item is checked or unchecked.
+     *
+     * @param watch true to pick a folder and start watching it; false to stop watching the folder watched.
+     */
+    void watchFolder(boolean watch);
 }
@@ -0,0 +1,97 @@
+package backend;
+
+import backend.process.DuplicateDetector;
+import backend.process.FileData;
+import backend.process.Result;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test for finding copies of documents (backend.process.DuplicateDetector), and for the hash codes of FileData and
+ * Result that let them be looked up in a HashSet.
+ */
+public class DuplicateDetectorTest {
+    private final static String STORY = "The council approved the new bridge on Monday. Work will start in March 2017. "
+            + "It is expected to cost 40 million pounds! The mayor said the bridge was long overdue. "
+            + "Opponents said the money should be spent on schools. A final vote is due next year. "
+            + "The old bridge will close when the new one opens. Traffic will be diverted during the works. "
+            + "Local businesses welcomed the decision. The bridge is due to open in 2019.";
+
+    /**
+     * Checks that a copy that only differs by whitespace and case is found.
+     */
+    @Test
+    public void testExactCopy() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        Assert.assertNull(duplicateDetector.findDuplicate("wire.txt", STORY));
+        Assert.assertEquals("wire.txt", duplicateDetector.findDuplicate("copy.txt", "  " + STORY.toUpperCase().replace(" ", "\n  ")));
+    }
+
+    /**
+     * Checks that a copy with a headline added is found, as most of its sentences are the same.
+     */
+    @Test
+    public void testNearCopy() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        Assert.assertNull(duplicateDetector.findDuplicate("wire.txt", STORY));
+        String nearCopy = "Bridge approved.\n" + STORY;
+        Assert.assertEquals("wire.txt", duplicateDetector.findDuplicate("syndicated.txt", nearCopy));
+    }
+
+    /**
+     * Checks that different documents, and documents that only share a few sentences, are not taken as copies.
+     */
+    @Test
+    public void testDifferentDocuments() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        Assert.assertNull(duplicateDetector.findDuplicate("wire.txt", STORY));
+        Assert.assertNull(duplicateDetector.findDuplicate("party.txt", "On Valentines Day we had a huge party! "
+                + "Everyone came. It went on until 2am. We will do it again next year."));
+        Assert.assertNull(duplicateDetector.findDuplicate("follow-up.txt", "The council approved the new bridge on Monday. "
+                + "Work will start in March 2017. Since then the costs have doubled. The council is to meet again. "
+                + "Residents have started a petition. The contractor blamed the price of steel. A report is due in May."));
+        Assert.assertNull(duplicateDetector.findDuplicate("short.txt", "Work will start in March 2017."));
+    }
+
+    /**
+     * Checks that a near copy is still found among many different documents, which it is only compared to if they
+     * share a bucket.
+     */
+    @Test
+    public void testNearCopyAmongMany() {
+        DuplicateDetector duplicateDetector = new DuplicateDetector();
+        for (int i = 0; i < 200; i++) {
+            Assert.assertNull(duplicateDetector.findDuplicate("report" + i + ".txt", "Report " + i + " was written. "
+                    + "It covers week " + i + ". Sales rose by " + i + " percent. The next report is number " + (i + 1) + "."));
+        }
+        Assert.assertNull(duplicateDetector.findDuplicate("wire.txt", STORY));
+        Assert.assertEquals("wire.txt", duplicateDetector.findDuplicate("syndicated.txt", "Bridge approved.\n" + STORY));
+        Assert.assertEquals("report7.txt", duplicateDetector.findDuplicate("copy.txt", "Report 7 was written. "
+                + "It covers week 7. Sales rose by 7 percent. The next report is number 8."));
+    }
+
+    /**
+     * Checks that equal FileData and Results have the same hash code, so they are found in a HashSet.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testHashCodes() throws ParseException {
+        Set<FileData> fileDatas = new HashSet<>();
+        Set<Result> results = new HashSet<>();
+        for (int i = 0; i < 2; i++) {//equal, but not the same objects
+            FileData fileData = TestData.makeFileData("party.txt", "02-02-2017");
+            fileDatas.add(fileData);
+            results.add(TestData.makeResult("On Valentines Day we had a huge party!", "2016-02-14", null, fileData, "Party"));
+        }
+        Assert.assertEquals(1, fileDatas.size());
+        Assert.assertEquals(1, results.size());
+        FileData other = new FileData("party.txt", "/documents/other/party.txt");
+        other.setCreationDate("02-02-2017");
+        Assert.assertFalse(fileDatas.contains(other));
+    }
+}
@@ -0,0 +1,72 @@
+package backend;
+
+import backend.process.AnnotatorProfile;
+import backend.process.EngineOptions;
+import backend.process.EntityType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+/**
+ * Test for the options an Engine processes text with (backend.process.EngineOptions), and the mapping of named entity
+ * tags to their types (backend.process.EntityType).
+ */
+public class EngineOptionsTest {
+
+    /**
+     * Checks that the named entity tags the Engine makes use of are mapped to their EntityType, and other tags are not.
+     */
+    @Test
+    public void testFromTag() {
+        for (EntityType entityType : EntityType.values()) {
+            Assert.assertSame(entityType, EntityType.fromTag(entityType.getTag()));
+        }
+        Assert.assertNull(EntityType.fromTag("NUMBER"));
+        Assert.assertNull(EntityType.fromTag("O"));
+        Assert.assertNull(EntityType.fromTag(null));
+    }
+
+    /**
+     * Checks that only the NER models of the subject types are run (in the default order), that DATE is never a
+     * subject type, and that the with methods leave the options they are called on as they were.
+     */
+    @Test
+    public void testSubjectTypes() {
+        EngineOptions options = new EngineOptions(10);
+        Assert.assertEquals(EngineOptions.DEFAULT_SUBJECT_TYPES, options.getSubjectTypes());
+        Assert.assertEquals(EntityType.PERSON.getNERModel() + "," + EntityType.MONEY.getNERModel() + "," +
+                EntityType.MISC.getNERModel(), options.getNERModels());
+
+        EngineOptions people = options.withSubjectTypes(EnumSet.of(EntityType.PERSON, EntityType.LOCATION, EntityType.DATE));
+        Assert.assertEquals(EnumSet.of(EntityType.PERSON, EntityType.LOCATION), people.getSubjectTypes());
+        Assert.assertEquals(EntityType.PERSON.getNERModel(), people.getNERModels());
+        Assert.assertEquals(EngineOptions.DEFAULT_SUBJECT_TYPES, options.getSubjectTypes());
+
+        EngineOptions none = options.withSubjectTypes(EnumSet.noneOf(EntityType.class)).withThreshold(5)
+                .withAnnotatorProfile(AnnotatorProfile.FULL);
+        Assert.assertTrue(none.getSubjectTypes().isEmpty());
+        Assert.assertEquals(EntityType.PERSON.getNERModel(), none.getNERModels());//the NER annotator needs a model
+        Assert.assertEquals(5, none.getThreshold());
+        Assert.assertEquals(AnnotatorProfile.FULL, none.getAnnotatorProfile());
+        Assert.assertEquals(10, options.getThreshold());
+    }
+
+    /**
+     * Checks that the limits on parsing a sentence are kept by the with methods, and that options with other limits
+     * are not equal (so an Engine with them is made when they change).
+     */
+    @Test
+    public void testParseLimits() {
+        EngineOptions options = new EngineOptions(10);
+        Assert.assertEquals(EngineOptions.DEFAULT_MAX_SENTENCE_LENGTH, options.getMaxSentenceLength());
+        Assert.assertEquals(EngineOptions.DEFAULT_MAX_PARSE_TIME, options.getMaxParseTime());
+
+        EngineOptions limited = options.withParseLimits(50, 2000).withThreshold(5);
+        Assert.assertEquals(50, limited.getMaxSentenceLength());
+        Assert.assertEquals(2000, limited.getMaxParseTime());
+        Assert.assertFalse(options.withThreshold(5).equals(limited));
+        Assert.assertEquals(options.withParseLimits(50, 2000), limited.withThreshold(10));
+        Assert.assertEquals(options.withParseLimits(50, 2000).hashCode(), limited.withThreshold(10).hashCode());
+    }
+}
@@ -1,6 +1,9 @@
 package backend;
 
+import backend.process.DocumentAnnotations;
 import backend.process.Engine;
+import backend.process.EngineOptions;
+import backend.process.EntityType;
 import backend.process.Result;
 import backend.process.TimelineDate;
 import org.junit.Assert;
@@ -9,6 +12,13 @@ import org.junit.Test;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Test class for the backend.process.Engine. Gives in a sample text, and compares that the generated and predicted backend.process.Result objects are equal
@@ -88,6 +98,121 @@ public class EngineTest {
         compareExpectedToActualSubject(actualResults, expectedResults);
     }
 
+    /**
+     * Annotates a sample text with one base date, then resolves its dates against another, checking that the relative
+     * dates move with the base date (and the absolute ones do not), and that the events are the same as before.
+     *
+     * @throws ParseException thrown when we create the Dates for the expected TimelineDates.
+     */
+    @Test
+    public void testResolveDates() throws ParseException {
+        String sampleText = "On the 12th of December I ran tests on my final year project. Yesterday I played games.";
+        Engine engine = new Engine();
+        DocumentAnnotations documentAnnotations = new DocumentAnnotations("2016-12-23", engine.getOptions());
+        ArrayList<Result> results = engine.getResults(sampleText, "2016-12-23", documentAnnotations);
+        Assert.assertEquals(results.size(), documentAnnotations.getDatedSentences().size());
+
+        ArrayList<Result> resolved = engine.resolveDates(documentAnnotations, "2016-12-30");
+        Assert.assertEquals(results.size(), resolved.size());
+        Assert.assertEquals(simpleDateFormat.parse("2016-12-12"), resolved.get(0).getTimelineDate().getDate1());
+        Assert.assertEquals(simpleDateFormat.parse("2016-12-29"), resolved.get(1).getTimelineDate().getDate1());
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(results.get(i).getEvent(), resolved.get(i).getEvent());
+            Assert.assertEquals(results.get(i).getDates(), resolved.get(i).getDates());
+            Assert.assertEquals(results.get(i).getBeginOffset(), resolved.get(i).getBeginOffset());
+        }
+
+        //the same base date gives the same dates as before
+        ArrayList<Result> same = engine.resolveDates(documentAnnotations, "2016-12-23");
+        compareExpectedToActualDate(same, results);
+    }
+
+    /**
+     * Trims the events of a sample text again to a smaller and a larger threshold, checking that the events are no
+     * longer than before (and the same as processing with that threshold), and that an edited event is left as it is.
+     */
+    @Test
+    public void testRetrimEvents() {
+        String sampleText = "On the 12th of December I ran many long and difficult tests on my final year project in the lab " +
+                "with my friends. Yesterday I played games at the house of my friend, who lives near the park by the river.";
+        ArrayList<Result> results = new Engine(20).getResults(sampleText, "2016-12-23");
+        ArrayList<Result> shortResults = new Engine(5).getResults(sampleText, "2016-12-23");
+        Assert.assertEquals(2, results.size());
+        results.get(1).setParseTree(null);//as if it was edited
+
+        String[] events = Engine.retrimEvents(results, 5);
+        Assert.assertEquals(results.size(), events.length);
+        Assert.assertEquals(shortResults.get(0).getEvent(), events[0]);
+        Assert.assertTrue(events[0].split(" ").length <= results.get(0).getEvent().split(" ").length);
+        Assert.assertNull(events[1]);
+        Assert.assertEquals(results.get(0).getEvent(), Engine.retrimEvents(results, 20)[0]);
+    }
+
+    /**
+     * Runs one Engine (and a second one with other options) from many Threads at once, over texts with different base
+     * dates, checking that every run gives the same Results as running it alone: the Engines must not share, or keep,
+     * any state between runs.
+     *
+     * @throws InterruptedException when the Threads are interrupted while waiting for them.
+     * @throws ExecutionException   when a run throws an Exception.
+     */
+    @Test
+    public void testConcurrentEngines() throws InterruptedException, ExecutionException {
+        final String sampleText = "Yesterday I ran many long and difficult tests on my final year project in the lab with " +
+                "my friends from Manchester. Tomorrow I am going to study at the library of the University of London.";
+        final String[] baseDates = {"2016-12-23", "2017-02-14", "2015-06-30", "2016-01-01"};
+        final Engine engine = new Engine(new EngineOptions(20));
+        final Engine shortEngine = new Engine(new EngineOptions(5).withSubjectTypes(Collections.singleton(EntityType.LOCATION)));
+        final List<ArrayList<Result>> expected = new ArrayList<>();
+        final List<ArrayList<Result>> shortExpected = new ArrayList<>();
+        for (String baseDate : baseDates) {//each run alone
+            expected.add(engine.getResults(sampleText, baseDate));
+            shortExpected.add(shortEngine.getResults(sampleText, baseDate));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            final int run = i;
+            futures.add(executorService.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    int date = run % baseDates.length;
+                    if (run % 2 == 0) {
+                        return sameResults(expected.get(date), engine.getResults(sampleText, baseDates[date]));
+                    }
+                    return sameResults(shortExpected.get(date), shortEngine.getResults(sampleText, baseDates[date]));
+                }
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            Assert.assertTrue(future.get());
+        }
+        executorService.shutdown();
+    }
+
+    /**
+     * Whether the given lists of Results have the same dates, events and subjects (in order).
+     *
+     * @param expectedResults the expected Results.
+     * @param actualResults   the actual Results.
+     * @return true if they are the same; false otherwise.
+     */
+    private boolean sameResults(List<Result> expectedResults, List<Result> actualResults) {
+        if (expectedResults.size() != actualResults.size()) {
+            return false;
+        }
+        for (int i = 0; i < expectedResults.size(); i++) {
+            Result expected = expectedResults.get(i);
+            Result actual = actualResults.get(i);
+            if (!expected.getTimelineDate().equals(actual.getTimelineDate()) || !expected.getEvent().equals(actual.getEvent())
+                    || !expected.getSubjects().equals(actual.getSubjects())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 
     /**
      * Compares an actual list of Results with a expected one, by just looking at the dates picked out. Checking that the backend.process.Engine
@@ -0,0 +1,127 @@
+package backend;
+
+import backend.process.EventClusterer;
+import backend.process.FileData;
+import backend.process.Result;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test for merging the Results of the same event found in different Files (backend.process.EventClusterer).
+ */
+public class EventClustererTest {
+
+    /**
+     * Checks that the same event reported by three Files is merged into one Result, that keeps the Results it was
+     * merged from and has the most precise date.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testMergeSameEvent() throws ParseException {
+        FileData bbc = TestData.makeFileData("bbc.txt", "20-01-2017");
+        FileData cnn = TestData.makeFileData("cnn.txt", "20-01-2017");
+        FileData times = TestData.makeFileData("times.txt", "20-01-2017");
+        List<Result> results = new ArrayList<>();
+        results.add(TestData.makeResult("Trump was inaugurated as president in Washington.", "2017-01-01", "2017-01-31", bbc, "Trump"));
+        results.add(TestData.makeResult("Trump was inaugurated as the president.", "2017-01-20", null, cnn, "Trump", "Washington"));
+        results.add(TestData.makeResult("Trump was inaugurated as president.", "2017-01-20", null, times, "Trump"));
+
+        List<Result> clustered = new EventClusterer().cluster(results);
+
+        Assert.assertEquals(1, clustered.size());
+        Result merged = clustered.get(0);
+        Assert.assertEquals(3, merged.getMergedResults().size());
+        Assert.assertEquals(3, merged.getSources().size());
+        Assert.assertEquals(cnn, merged.getFileData());//the first with the most precise date, and the most subjects
+        Assert.assertEquals(0, merged.getTimelineDate().getRange());
+        Assert.assertEquals(2, merged.getSubjects().size());
+        Assert.assertTrue(results.get(0).getMergedResults().isEmpty());//the given Results are not changed
+    }
+
+    /**
+     * Checks that Results are not merged if their dates do not overlap, their events or subjects differ, or they come
+     * from the same File.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testKeepDifferentEvents() throws ParseException {
+        FileData bbc = TestData.makeFileData("bbc.txt", "20-01-2017");
+        FileData cnn = TestData.makeFileData("cnn.txt", "20-01-2017");
+        List<Result> results = new ArrayList<>();
+        results.add(TestData.makeResult("Trump was inaugurated as president.", "2017-01-20", null, bbc, "Trump"));
+        results.add(TestData.makeResult("Trump was inaugurated as president.", "2017-01-21", null, cnn, "Trump"));//other date
+        results.add(TestData.makeResult("The stock market fell sharply.", "2017-01-20", null, cnn, "Trump"));//other event
+        results.add(TestData.makeResult("Obama was inaugurated as president.", "2017-01-20", null, cnn, "Obama"));//other subject
+        results.add(TestData.makeResult("Trump was inaugurated as president again.", "2017-01-20", null, bbc, "Trump"));//same File
+
+        List<Result> clustered = new EventClusterer().cluster(results);
+
+        Assert.assertEquals(results, clustered);
+        for (Result result : clustered) {
+            Assert.assertTrue(result.getMergedResults().isEmpty());
+        }
+    }
+
+    /**
+     * Checks that Results added to a Timeline are merged into the events already in it (replacing an event merged
+     * before with one holding every Result), and with each other, while the events already in it are kept.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testClusterAdded() throws ParseException {
+        FileData bbc = TestData.makeFileData("bbc.txt", "20-01-2017");
+        FileData cnn = TestData.makeFileData("cnn.txt", "20-01-2017");
+        FileData times = TestData.makeFileData("times.txt", "20-01-2017");
+        FileData wire = TestData.makeFileData("wire.txt", "20-01-2017");
+        List<Result> existing = new ArrayList<>();
+        existing.add(TestData.makeResult("The stock market fell sharply.", "2017-01-18", null, bbc, "Market"));
+        List<Result> inaugurations = new ArrayList<>();
+        inaugurations.add(TestData.makeResult("Trump was inaugurated as president.", "2017-01-20", null, bbc, "Trump"));
+        inaugurations.add(TestData.makeResult("Trump was inaugurated as the president.", "2017-01-20", null, cnn, "Trump"));
+        existing.addAll(new EventClusterer().cluster(inaugurations));
+        List<Result> added = new ArrayList<>();
+        added.add(TestData.makeResult("Trump was inaugurated as president today.", "2017-01-20", null, times, "Trump"));
+        added.add(TestData.makeResult("A storm hit the coast.", "2017-01-22", null, times));
+        added.add(TestData.makeResult("A big storm hit the coast.", "2017-01-22", null, wire));
+
+        List<Result> clustered = new EventClusterer().cluster(existing, added);
+
+        Assert.assertEquals(3, clustered.size());
+        Assert.assertSame(existing.get(0), clustered.get(0));
+        Result inauguration = clustered.get(1);
+        Assert.assertEquals(3, inauguration.getMergedResults().size());//not nested in the event merged before
+        Assert.assertEquals(3, inauguration.getSources().size());
+        Assert.assertEquals(2, existing.get(1).getMergedResults().size());//the events given are not changed
+        Assert.assertEquals(2, clustered.get(2).getMergedResults().size());
+    }
+
+    /**
+     * Checks that many Results of distinct events are kept in their order, and that Results of the same event among
+     * them are still merged where the first of them was.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testManyResults() throws ParseException {
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            FileData fileData = TestData.makeFileData("file" + i + ".txt", "20-01-2017");
+            results.add(TestData.makeResult("Event number " + i + " happened in town" + i + ".", "2017-01-20", null, fileData));
+        }
+        FileData copy = TestData.makeFileData("copy.txt", "20-01-2017");
+        results.add(TestData.makeResult("Event number 500 happened in town500!", "2017-01-20", null, copy));
+
+        List<Result> clustered = new EventClusterer().cluster(results);
+
+        Assert.assertEquals(1000, clustered.size());
+        Assert.assertEquals(2, clustered.get(500).getMergedResults().size());
+        Assert.assertEquals(results.get(999), clustered.get(999));
+    }
+}
@@ -0,0 +1,157 @@
+package backend;
+
+import backend.export.ExportJob;
+import backend.export.ExportJobCallback;
+import backend.helpers.FromJSON;
+import backend.helpers.ToJSON;
+import backend.process.FileData;
+import backend.process.Result;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Test for running an export in the background (backend.export.ExportJob).
+ */
+public class ExportJobTest {
+
+    /**
+     * Runs an ExportJob to JSON, checking that the File is written, that the callback is told it finished (with the
+     * last progress update being for all the Results), and that no temporary File is left behind.
+     *
+     * @throws IOException    when the test directory can not be created or read.
+     * @throws ParseException when parsing the dates of the test Results.
+     */
+    @Test
+    public void testExportToJSON() throws IOException, ParseException {
+        File directory = Files.createTempDirectory("export").toFile();
+        File file = new File(directory, "timeline.json");
+        List<Result> results = makeResults(1000);
+        RecordingCallback callback = new RecordingCallback();
+        ExportJob.toJSON(results, file, callback).run();
+        Assert.assertEquals("finished", callback.ended);
+        Assert.assertEquals(results.size(), callback.lastWritten);
+        Assert.assertEquals(results.size(), callback.lastTotal);
+        Assert.assertEquals(ToJSON.toJSON(results), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        Assert.assertEquals(results.size(), FromJSON.fromJSON(file).size());
+        Assert.assertEquals(Collections.singletonList("timeline.json"), Arrays.asList(directory.list()));
+        deleteDirectory(directory);
+    }
+
+    /**
+     * Runs an ExportJob that is cancelled part way through, checking that the File it would have replaced is left as it
+     * was, and that no temporary File is left behind.
+     *
+     * @throws IOException    when the test directory can not be created or read.
+     * @throws ParseException when parsing the dates of the test Results.
+     */
+    @Test
+    public void testCancelExport() throws IOException, ParseException {
+        File directory = Files.createTempDirectory("export").toFile();
+        File file = new File(directory, "timeline.json");
+        TestData.writeFile(file, "[]");
+        List<Result> results = makeResults(1000);
+        RecordingCallback callback = new RecordingCallback() {
+            @Override
+            public void progress(ExportJob exportJob, int written, int total, int pages) {
+                super.progress(exportJob, written, total, pages);
+                exportJob.cancel();
+            }
+        };
+        ExportJob.toJSON(results, file, callback).run();
+        Assert.assertEquals("cancelled", callback.ended);
+        Assert.assertTrue(callback.lastWritten < results.size());
+        Assert.assertEquals("[]", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        Assert.assertEquals(Collections.singletonList("timeline.json"), Arrays.asList(directory.list()));
+        deleteDirectory(directory);
+    }
+
+    /**
+     * Runs an ExportJob to a File that can not be written (its directory does not exist), checking that the callback
+     * is told it failed.
+     *
+     * @throws ParseException when parsing the dates of the test Results.
+     */
+    @Test
+    public void testExportFailed() throws ParseException {
+        File file = new File(new File(System.getProperty("java.io.tmpdir"), "no-such-directory-" + System.nanoTime()), "timeline.json");
+        RecordingCallback callback = new RecordingCallback();
+        ExportJob.toJSON(makeResults(10), file, callback).run();
+        Assert.assertEquals("failed", callback.ended);
+        Assert.assertFalse(file.exists());
+    }
+
+    /**
+     * Make the given number of Results, from the same file, one day apart.
+     *
+     * @param count the number of Results to make.
+     * @return the List of Results.
+     * @throws ParseException when parsing the dates of the Results.
+     */
+    private List<Result> makeResults(int count) throws ParseException {
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        FileData fileData = TestData.makeFileData("diary.txt", "01-01-2017");
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String date1 = simpleDateFormat.format(new Date(1000L * 60 * 60 * 24 * i));
+            results.add(TestData.makeResult("Event number " + i + ".", date1, null, fileData, "Subject " + (i % 10)));
+        }
+        return results;
+    }
+
+    /**
+     * Delete the given directory and the Files in it.
+     *
+     * @param directory the given directory.
+     */
+    private void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * ExportJobCallback that records the last progress update, and how the ExportJob ended.
+     */
+    private static class RecordingCallback implements ExportJobCallback {
+        private int lastWritten = -1;
+        private int lastTotal = -1;
+        private String ended;
+
+        @Override
+        public void progress(ExportJob exportJob, int written, int total, int pages) {
+            lastWritten = written;
+            lastTotal = total;
+        }
+
+        @Override
+        public void finished(ExportJob exportJob) {
+            ended = "finished";
+        }
+
+        @Override
+        public void cancelled(ExportJob exportJob) {
+            ended = "cancelled";
+        }
+
+        @Override
+        public void failed(ExportJob exportJob, Exception exception) {
+            ended = "failed";
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package backend;
+
+import backend.helpers.FromJSON;
+import backend.process.Result;
+import backend.service.ExtractionServer;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test for the local HTTP extraction service (backend.service.ExtractionServer), with an Extractor that makes one
+ * Result per text, so that only the HTTP side is tested (on localhost, without the StanfordCoreNLP).
+ */
+public class ExtractionServerTest {
+    private ExtractionServer extractionServer;
+    private AtomicInteger extractions = new AtomicInteger();
+
+    /**
+     * Start an ExtractionServer on a free port, whose Extractor makes a Result whose event is the text, dated on the
+     * base date.
+     *
+     * @throws IOException when the server can not be started.
+     */
+    private void startServer() throws IOException {
+        startServer(new ExtractionServer.Extractor() {
+            @Override
+            public List<Result> extract(String text, String baseDate) {
+                return ExtractionServerTest.this.extract(text, baseDate);
+            }
+        });
+    }
+
+    /**
+     * Start an ExtractionServer on a free port, with the given Extractor and 2 pipeline Threads.
+     *
+     * @param extractor the given Extractor.
+     * @throws IOException when the server can not be started.
+     */
+    private void startServer(ExtractionServer.Extractor extractor) throws IOException {
+        extractionServer = new ExtractionServer(0, extractor, 2);
+        extractionServer.start();
+    }
+
+    /**
+     * Count an extraction, and make the Result (from TestData) whose event is the given text, dated on the given base
+     * date.
+     *
+     * @param text     the given text.
+     * @param baseDate the given base date (yyyy-MM-dd).
+     * @return the Result made, in a List.
+     */
+    private List<Result> extract(String text, String baseDate) {
+        extractions.incrementAndGet();
+        List<Result> results = new ArrayList<>();
+        try {
+            results.add(TestData.makeResult(text, baseDate, null, null));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return results;
+    }
+
+    /**
+     * Posts a text and checks that its Results are returned in the JSON format of ToJSON.
+     *
+     * @throws IOException when the request fails.
+     */
+    @Test
+    public void testExtractText() throws IOException {
+        startServer();
+        try {
+            HttpURLConnection connection = post("/extract?date=2017-02-14", "We had a huge party!");
+            Assert.assertEquals(200, connection.getResponseCode());
+            List<Result> results = FromJSON.fromJSON(read(connection.getInputStream()));
+            Assert.assertEquals(1, results.size());
+            Assert.assertEquals("We had a huge party!", results.get(0).getEvent());
+            Assert.assertEquals("2017-02-14", new SimpleDateFormat("yyyy-MM-dd").format(results.get(0).getTimelineDate().getDate1()));
+        } finally {
+            extractionServer.stop();
+        }
+    }
+
+    /**
+     * Posts a text asking for NDJSON, checking that each Result is on its own line.
+     *
+     * @throws IOException when the request fails.
+     */
+    @Test
+    public void testExtractNDJSON() throws IOException {
+        startServer();
+        try {
+            HttpURLConnection connection = post("/extract?date=2017-02-14&format=ndjson", "Ünïcödé event.");
+            Assert.assertEquals(200, connection.getResponseCode());
+            String ndjson = read(connection.getInputStream());
+            Assert.assertTrue(ndjson.startsWith("{") && ndjson.endsWith("}\n"));
+            Assert.assertEquals("Ünïcödé event.", FromJSON.fromJSON(ndjson).get(0).getEvent());
+        } finally {
+            extractionServer.stop();
+        }
+    }
+
+    /**
+     * Checks that invalid requests are refused without reaching the Extractor.
+     *
+     * @throws IOException when the request fails.
+     */
+    @Test
+    public void testInvalidRequests() throws IOException {
+        startServer();
+        try {
+            Assert.assertEquals(400, post("/extract?date=2017-02-30", "text").getResponseCode());
+            Assert.assertEquals(415, post("/extract?filename=image.png", "text").getResponseCode());
+            HttpURLConnection connection = (HttpURLConnection) getURL("/extract").openConnection();
+            Assert.assertEquals(405, connection.getResponseCode());
+            Assert.assertEquals(0, extractions.get());
+        } finally {
+            extractionServer.stop();
+        }
+    }
+
+    /**
+     * Sends a text that makes the Extractor throw an Error more times than there are pipeline Threads, checking that
+     * each request is answered (the same text again is processed again), and that the Threads still process the next.
+     *
+     * @throws IOException when the request fails.
+     */
+    @Test
+    public void testErrorAnswered() throws IOException {
+        startServer(new ExtractionServer.Extractor() {
+            @Override
+            public List<Result> extract(String text, String baseDate) {
+                if (text.equals("Malformed")) {
+                    extractions.incrementAndGet();
+                    throw new StackOverflowError();
+                }
+                return ExtractionServerTest.this.extract(text, baseDate);
+            }
+        });
+        try {
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(500, post("/extract?date=2017-02-14", "Malformed").getResponseCode());
+            }
+            Assert.assertEquals(3, extractions.get());
+            Assert.assertEquals(200, post("/extract?date=2017-02-14", "We had a huge party!").getResponseCode());
+        } finally {
+            extractionServer.stop();
+        }
+    }
+
+    /**
+     * Sends many requests at the same time, checking each gets the Results of its own text.
+     *
+     * @throws IOException          when the server can not be started.
+     * @throws InterruptedException when the Threads sending the requests are interrupted.
+     */
+    @Test
+    public void testConcurrentRequests() throws IOException, InterruptedException {
+        startServer();
+        try {
+            final String[] events = new String[16];
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < events.length; i++) {
+                final int index = i;
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            HttpURLConnection connection = post("/extract?date=2017-02-14", "Event " + (index % 4));
+                            events[index] = FromJSON.fromJSON(read(connection.getInputStream())).get(0).getEvent();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (int i = 0; i < events.length; i++) {
+                Assert.assertEquals("Event " + (i % 4), events[i]);
+            }
+        } finally {
+            extractionServer.stop();
+        }
+    }
+
+    /**
+     * Sends the same request while it is being processed (the Extractor waits until it is released), checking that the
+     * requests made meanwhile share its Results instead of being processed again.
+     *
+     * @throws IOException          when the server can not be started.
+     * @throws InterruptedException when the Threads sending the requests are interrupted.
+     */
+    @Test
+    public void testSameRequestsMerged() throws IOException, InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        startServer(new ExtractionServer.Extractor() {
+            @Override
+            public List<Result> extract(String text, String baseDate) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return ExtractionServerTest.this.extract(text, baseDate);
+            }
+        });
+        try {
+            final String[] events = new String[4];
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < events.length; i++) {
+                threads.add(postInThread("/extract?date=2017-02-14", "The same event.", events, i));
+                if (i == 0) {
+                    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));//the first is being processed
+                }
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (getHealth().get("waiting").getAsInt() < events.length && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(0, getHealth().get("queued").getAsInt());//none were queued again
+            release.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (String event : events) {
+                Assert.assertEquals("The same event.", event);
+            }
+            Assert.assertEquals(1, extractions.get());
+        } finally {
+            release.countDown();
+            extractionServer.stop();
+        }
+    }
+
+    /**
+     * Queues two different requests while both pipeline Threads are busy, checking that once the Threads are free the
+     * requests are processed in parallel, one by each Thread (the Extractor only returns once both are being
+     * processed), rather than one after the other by the same Thread.
+     *
+     * @throws IOException          when the server can not be started.
+     * @throws InterruptedException when the Threads sending the requests are interrupted.
+     */
+    @Test
+    public void testDistinctRequestsParallel() throws IOException, InterruptedException {
+        final CountDownLatch busy = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        startServer(new ExtractionServer.Extractor() {
+            @Override
+            public List<Result> extract(String text, String baseDate) {
+                try {
+                    if (text.startsWith("Busy")) {
+                        busy.countDown();
+                        release.await();
+                    } else {
+                        bothRunning.countDown();
+                        if (!bothRunning.await(10, TimeUnit.SECONDS)) {
+                            throw new IllegalStateException("The other request was not processed in parallel.");
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return ExtractionServerTest.this.extract(text, baseDate);
+            }
+        });
+        try {
+            String[] events = new String[4];
+            List<Thread> threads = new ArrayList<>();
+            threads.add(postInThread("/extract?date=2017-02-14", "Busy one.", events, 2));
+            threads.add(postInThread("/extract?date=2017-02-14", "Busy two.", events, 3));
+            Assert.assertTrue(busy.await(10, TimeUnit.SECONDS));//both pipeline Threads are busy
+            threads.add(postInThread("/extract?date=2017-02-14", "The first event.", events, 0));
+            threads.add(postInThread("/extract?date=2017-02-14", "The second event.", events, 1));
+            long deadline = System.currentTimeMillis() + 10000;
+            while (getHealth().get("queued").getAsInt() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            release.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assert.assertEquals("The first event.", events[0]);
+            Assert.assertEquals("The second event.", events[1]);
+            Assert.assertEquals(4, extractions.get());
+        } finally {
+            release.countDown();
+            extractionServer.stop();
+        }
+    }
+
+    /**
+     * Post the given text to the given path on the server from a new Thread, keeping the event of the first Result
+     * returned.
+     *
+     * @param path   the given path (and query).
+     * @param text   the text posted (UTF-8).
+     * @param events where the event is kept.
+     * @param index  the index of the event in events.
+     * @return the Thread started.
+     */
+    private Thread postInThread(final String path, final String text, final String[] events, final int index) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    HttpURLConnection connection = post(path, text);
+                    events[index] = FromJSON.fromJSON(read(connection.getInputStream())).get(0).getEvent();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Get the health of the server.
+     *
+     * @return the JSON returned by /health.
+     * @throws IOException when the request fails.
+     */
+    private JsonObject getHealth() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) getURL("/health").openConnection();
+        return new JsonParser().parse(read(connection.getInputStream())).getAsJsonObject();
+    }
+
+    /**
+     * Get the URL of the given path on the server.
+     *
+     * @param path the given path (and query).
+     * @return the URL.
+     * @throws IOException when the URL is not valid.
+     */
+    private URL getURL(String path) throws IOException {
+        return new URL("http://localhost:" + extractionServer.getPort() + path);
+    }
+
+    /**
+     * Post the given text to the given path on the server.
+     *
+     * @param path the given path (and query).
+     * @param text the text posted (UTF-8).
+     * @return the connection, with the request sent.
+     * @throws IOException when the request fails.
+     */
+    private HttpURLConnection post(String path, String text) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) getURL(path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    /**
+     * Read the given stream as UTF-8 text.
+     *
+     * @param in the given stream.
+     * @return the text read.
+     * @throws IOException when the stream can not be read.
+     */
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        in.close();
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
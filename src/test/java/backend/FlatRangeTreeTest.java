@@ -0,0 +1,172 @@
+package backend;
+
+import backend.process.Result;
+import backend.ranges.FlatRangeTree;
+import backend.ranges.ProduceRanges;
+import backend.ranges.Range;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test for flattening a forest of Range trees into the rows of the Range view (backend.ranges.FlatRangeTree).
+ */
+public class FlatRangeTreeTest {
+    /**
+     * Flattens (and expands) the forest produced from Results in two trees (one with a child Range), checking that each
+     * Range is followed by its Results and then its children, with their depth and position among their siblings.
+     *
+     * @throws ParseException when setting the Dates for the test Results.
+     */
+    @Test
+    public void testFlatten() throws ParseException {
+        List<Result> results = new ArrayList<>();
+        Result decade = TestData.makeResult("Event 1980-01-01", "1980-01-01", "1989-12-31", null);
+        Result year = TestData.makeResult("Event 1985-01-01", "1985-01-01", "1985-12-31", null);
+        Result day = TestData.makeResult("Event 1985-02-14", "1985-02-14", null, null);
+        Result later = TestData.makeResult("Event 2015-01-01", "2015-01-01", null, null);
+        results.add(decade);
+        results.add(year);
+        results.add(day);
+        results.add(later);
+        ProduceRanges produceRanges = new ProduceRanges();
+        produceRanges.produceRanges(results);
+        List<Range> trees = produceRanges.getTrees();
+
+        FlatRangeTree flatRangeTree = new FlatRangeTree(trees);
+        flatRangeTree.expandAll();
+        List<FlatRangeTree.Row> rows = flatRangeTree.getRows();
+        int expectedRows = 0;
+        for (Range tree : trees) {
+            expectedRows += countRows(tree);
+        }
+        Assert.assertEquals(expectedRows, rows.size());
+        //the rows follow the trees in order: a Range, its Results, then its children
+        int index = 0;
+        for (int i = 0; i < trees.size(); i++) {
+            index = checkRows(rows, index, trees.get(i), 0, i);
+        }
+        Assert.assertEquals(rows.size(), index);
+        //each Result is shown once
+        List<Result> shown = new ArrayList<>();
+        for (FlatRangeTree.Row row : rows) {
+            if (!row.isRange()) {
+                shown.add(row.getResult());
+            }
+        }
+        Assert.assertEquals(results.size(), shown.size());
+        Assert.assertTrue(shown.containsAll(results));
+    }
+
+    /**
+     * Checks that only the roots are rows at first, that expanding a Range adds its Results and children after it, and
+     * that collapsing it removes everything below it (including the rows of its expanded children).
+     *
+     * @throws ParseException when setting the Dates for the test Results.
+     */
+    @Test
+    public void testExpandAndCollapse() throws ParseException {
+        List<Result> results = new ArrayList<>();
+        Result decade = TestData.makeResult("Event 1980-01-01", "1980-01-01", "1989-12-31", null);
+        Result year = TestData.makeResult("Event 1985-01-01", "1985-01-01", "1985-12-31", null);
+        Result day = TestData.makeResult("Event 1985-02-14", "1985-02-14", null, null);
+        Result later = TestData.makeResult("Event 2015-01-01", "2015-01-01", null, null);
+        results.add(decade);
+        results.add(year);
+        results.add(day);
+        results.add(later);
+        ProduceRanges produceRanges = new ProduceRanges();
+        produceRanges.produceRanges(results);
+        List<Range> trees = produceRanges.getTrees();
+
+        FlatRangeTree flatRangeTree = new FlatRangeTree(trees);
+        Assert.assertEquals(trees.size(), flatRangeTree.size());
+        int decadeIndex = -1;
+        for (int i = 0; i < flatRangeTree.size(); i++) {
+            Assert.assertSame(trees.get(i), flatRangeTree.getRows().get(i).getRange());
+            Assert.assertFalse(flatRangeTree.isExpanded(flatRangeTree.getRows().get(i)));
+            if (trees.get(i).getResults().contains(decade)) {
+                decadeIndex = i;
+            }
+        }
+        Assert.assertTrue(decadeIndex != -1);
+        Range decadeRange = trees.get(decadeIndex);
+
+        List<FlatRangeTree.Row> added = flatRangeTree.expand(decadeIndex);
+        Assert.assertEquals(decadeRange.getResults().size() + decadeRange.getChildren().size(), added.size());
+        Assert.assertEquals(trees.size() + added.size(), flatRangeTree.size());
+        Assert.assertTrue(flatRangeTree.isExpanded(flatRangeTree.getRows().get(decadeIndex)));
+        Assert.assertSame(added.get(0), flatRangeTree.getRows().get(decadeIndex + 1));
+        Assert.assertSame(decade, added.get(0).getResult());
+        Assert.assertTrue(flatRangeTree.expand(decadeIndex).isEmpty());//already expanded
+
+        //expand the child Range too, then collapse the root
+        FlatRangeTree.Row child = added.get(added.size() - 1);
+        Assert.assertTrue(child.isRange());
+        Assert.assertEquals(1, child.getDepth());
+        int childRows = flatRangeTree.expand(flatRangeTree.indexOf(child)).size();
+        Assert.assertTrue(childRows > 0);
+        Assert.assertEquals(added.size() + childRows, flatRangeTree.collapse(decadeIndex));
+        Assert.assertEquals(trees.size(), flatRangeTree.size());
+        Assert.assertEquals(-1, flatRangeTree.indexOf(child));
+        Assert.assertEquals(0, flatRangeTree.collapse(decadeIndex));//already collapsed
+
+        //expanding the root again shows its child collapsed
+        added = flatRangeTree.expand(decadeIndex);
+        Assert.assertFalse(flatRangeTree.isExpanded(added.get(added.size() - 1)));
+    }
+
+    /**
+     * Flattening an empty forest gives no rows.
+     */
+    @Test
+    public void testEmptyForest() {
+        Assert.assertEquals(0, new FlatRangeTree(new ArrayList<Range>()).size());
+    }
+
+    /**
+     * Check that the rows from the given index are the rows of the given Range (and its subtree).
+     *
+     * @param rows     the flattened rows.
+     * @param index    the index of the row of the given Range.
+     * @param range    the given Range.
+     * @param depth    the expected depth of the Range.
+     * @param position the expected position of the Range among its siblings.
+     * @return the index of the row after the rows of the subtree.
+     */
+    private int checkRows(List<FlatRangeTree.Row> rows, int index, Range range, int depth, int position) {
+        FlatRangeTree.Row row = rows.get(index++);
+        Assert.assertTrue(row.isRange());
+        Assert.assertSame(range, row.getRange());
+        Assert.assertEquals(depth, row.getDepth());
+        Assert.assertEquals(position, row.getPosition());
+        for (Result result : range.getResults()) {
+            row = rows.get(index++);
+            Assert.assertFalse(row.isRange());
+            Assert.assertSame(result, row.getResult());
+            Assert.assertSame(range, row.getRange());
+            Assert.assertEquals(depth, row.getDepth());
+        }
+        for (int i = 0; i < range.getChildren().size(); i++) {
+            index = checkRows(rows, index, range.getChildren().get(i), depth + 1, i);
+        }
+        return index;
+    }
+
+    /**
+     * Count the rows of the given Range and its subtree.
+     *
+     * @param range the given Range.
+     * @return the number of rows.
+     */
+    private int countRows(Range range) {
+        int count = 1 + range.getResults().size();
+        for (Range child : range.getChildren()) {
+            count += countRows(child);
+        }
+        return count;
+    }
+}
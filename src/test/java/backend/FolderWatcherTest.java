@@ -0,0 +1,241 @@
+package backend;
+
+import backend.process.FileData;
+import backend.process.Result;
+import backend.watch.FolderWatcher;
+import backend.watch.FolderWatcherCallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test for watching a folder for documents being added, changed or deleted (backend.watch.FolderWatcher).
+ */
+public class FolderWatcherTest {
+
+    /**
+     * Watches a folder holding a document that is already loaded, deletes the document and adds a file that is not a
+     * document, checking that only the deletion is reported (and the loaded document is not processed again).
+     *
+     * @throws IOException          when the test folder can not be written to.
+     * @throws InterruptedException when waiting for the FolderWatcher is interrupted.
+     */
+    @Test
+    public void testDeleteLoadedDocument() throws IOException, InterruptedException {
+        File folder = Files.createTempDirectory("watch").toFile();
+        File document = new File(folder, "party.txt");
+        Files.write(document.toPath(), "On Valentines Day we had a huge party!".getBytes(StandardCharsets.UTF_8));
+        RecordingCallback callback = new RecordingCallback();
+        FolderWatcher folderWatcher = new FolderWatcher(folder, 100, callback);
+        folderWatcher.start(Collections.singletonList(document.getAbsolutePath()));
+        try {
+            Files.write(new File(folder, "image.png").toPath(), new byte[]{1, 2, 3});
+            Assert.assertTrue(document.delete());
+            Change change = callback.changes.poll(10, TimeUnit.SECONDS);
+            Assert.assertNotNull(change);
+            Assert.assertEquals(0, change.changedFileDatas.size());
+            Assert.assertEquals(Collections.singletonList(document.getAbsolutePath()), change.deletedPaths);
+            Assert.assertNull(callback.changes.poll(500, TimeUnit.MILLISECONDS));
+        } finally {
+            folderWatcher.stop();
+        }
+        new File(folder, "image.png").delete();
+        folder.delete();
+    }
+
+    /**
+     * Watches an empty folder, adds a document and then changes it, checking that each time it is processed (by the
+     * Processor) and reported with its Results, and that it is not processed again when it has not changed.
+     *
+     * @throws IOException          when the test folder can not be written to.
+     * @throws InterruptedException when waiting for the FolderWatcher is interrupted.
+     */
+    @Test
+    public void testAddAndChangeDocument() throws IOException, InterruptedException {
+        File folder = Files.createTempDirectory("watch").toFile();
+        File document = new File(folder, "party.txt");
+        RecordingCallback callback = new RecordingCallback();
+        RecordingProcessor processor = new RecordingProcessor(0);
+        FolderWatcher folderWatcher = new FolderWatcher(folder, 100, callback, processor);
+        folderWatcher.start(Collections.<String>emptyList());
+        try {
+            TestData.writeFile(document, "On Valentines Day we had a huge party!");
+            Change change = callback.changes.poll(10, TimeUnit.SECONDS);
+            Assert.assertNotNull(change);
+            Assert.assertEquals(1, change.changedFileDatas.size());
+            Assert.assertEquals(document.getAbsolutePath(), change.changedFileDatas.get(0).getFilePath());
+            Assert.assertEquals(1, change.results.size());
+            Assert.assertSame(change.changedFileDatas.get(0), change.results.get(0).getFileData());
+            Assert.assertEquals(0, change.deletedPaths.size());
+
+            TestData.writeFile(document, "On Valentines Day we had a huge party! Everyone came.");
+            change = callback.changes.poll(10, TimeUnit.SECONDS);
+            Assert.assertNotNull(change);
+            Assert.assertEquals(document.getAbsolutePath(), change.changedFileDatas.get(0).getFilePath());
+            Assert.assertEquals(2, processor.calls.get());
+            Assert.assertNull(callback.changes.poll(500, TimeUnit.MILLISECONDS));
+        } finally {
+            folderWatcher.stop();
+        }
+        document.delete();
+        folder.delete();
+    }
+
+    /**
+     * Adds documents one after the other, each before the debounce time is over, checking that they are all processed
+     * together in one call once the folder is left unchanged.
+     *
+     * @throws IOException          when the test folder can not be written to.
+     * @throws InterruptedException when waiting for the FolderWatcher is interrupted.
+     */
+    @Test
+    public void testDebounce() throws IOException, InterruptedException {
+        File folder = Files.createTempDirectory("watch").toFile();
+        RecordingCallback callback = new RecordingCallback();
+        RecordingProcessor processor = new RecordingProcessor(0);
+        FolderWatcher folderWatcher = new FolderWatcher(folder, 500, callback, processor);
+        folderWatcher.start(Collections.<String>emptyList());
+        try {
+            for (int i = 0; i < 4; i++) {
+                TestData.writeFile(new File(folder, "part" + i + ".txt"), "Part " + i + " was written in 2017.");
+                Thread.sleep(100);
+            }
+            Change change = callback.changes.poll(10, TimeUnit.SECONDS);
+            Assert.assertNotNull(change);
+            Assert.assertEquals(4, change.changedFileDatas.size());
+            Assert.assertEquals(1, processor.calls.get());
+            Assert.assertNull(callback.changes.poll(1000, TimeUnit.MILLISECONDS));
+        } finally {
+            folderWatcher.stop();
+        }
+        for (int i = 0; i < 4; i++) {
+            new File(folder, "part" + i + ".txt").delete();
+        }
+        folder.delete();
+    }
+
+    /**
+     * Adds a document while the Processor can not process it (as other documents are being processed), checking that it
+     * is tried again after each debounce, and reported once it is processed.
+     *
+     * @throws IOException          when the test folder can not be written to.
+     * @throws InterruptedException when waiting for the FolderWatcher is interrupted.
+     */
+    @Test
+    public void testRetryWhileProcessing() throws IOException, InterruptedException {
+        File folder = Files.createTempDirectory("watch").toFile();
+        File document = new File(folder, "party.txt");
+        RecordingCallback callback = new RecordingCallback();
+        RecordingProcessor processor = new RecordingProcessor(2);
+        FolderWatcher folderWatcher = new FolderWatcher(folder, 100, callback, processor);
+        folderWatcher.start(Collections.<String>emptyList());
+        try {
+            TestData.writeFile(document, "On Valentines Day we had a huge party!");
+            Change change = callback.changes.poll(10, TimeUnit.SECONDS);
+            Assert.assertNotNull(change);
+            Assert.assertEquals(3, processor.calls.get());//busy twice, then processed
+            Assert.assertEquals(1, change.changedFileDatas.size());
+            Assert.assertEquals(1, change.results.size());
+            Assert.assertNull(callback.changes.poll(500, TimeUnit.MILLISECONDS));
+        } finally {
+            folderWatcher.stop();
+        }
+        document.delete();
+        folder.delete();
+    }
+
+    /**
+     * Checks which Files are taken as documents.
+     */
+    @Test
+    public void testIsDocument() {
+        Assert.assertTrue(FolderWatcher.isDocument(new File("report.PDF")));
+        Assert.assertTrue(FolderWatcher.isDocument(new File("notes.docx")));
+        Assert.assertFalse(FolderWatcher.isDocument(new File("~$notes.docx")));
+        Assert.assertFalse(FolderWatcher.isDocument(new File(".party.txt")));
+        Assert.assertFalse(FolderWatcher.isDocument(new File("image.png")));
+    }
+
+    /**
+     * What a FolderWatcher reported in one call.
+     */
+    private static class Change {
+        private final List<Result> results;
+        private final List<FileData> changedFileDatas;
+        private final List<String> deletedPaths;
+
+        /**
+         * Create a Change.
+         *
+         * @param results          the Results of the documents added or changed.
+         * @param changedFileDatas the FileData of the documents added or changed.
+         * @param deletedPaths     the paths of the documents deleted.
+         */
+        Change(List<Result> results, List<FileData> changedFileDatas, List<String> deletedPaths) {
+            this.results = results;
+            this.changedFileDatas = changedFileDatas;
+            this.deletedPaths = deletedPaths;
+        }
+    }
+
+    /**
+     * FolderWatcherCallback that records what it is told.
+     */
+    private static class RecordingCallback implements FolderWatcherCallback {
+        private final LinkedBlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+
+        @Override
+        public void filesChanged(List<Result> results, List<FileData> changedFileDatas, List<String> deletedPaths) {
+            changes.add(new Change(results, changedFileDatas, deletedPaths));
+        }
+
+        @Override
+        public void stopped(Exception exception) {
+        }
+    }
+
+    /**
+     * Processor that makes one Result per document (without the StanfordCoreNLP), and counts its calls. It can be told
+     * to be busy (return null) for its first calls.
+     */
+    private static class RecordingProcessor implements FolderWatcher.Processor {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final int busyCalls;
+
+        /**
+         * Create a RecordingProcessor.
+         *
+         * @param busyCalls the number of calls it is busy for before processing any documents.
+         */
+        RecordingProcessor(int busyCalls) {
+            this.busyCalls = busyCalls;
+        }
+
+        @Override
+        public List<Result> process(List<File> files, List<FileData> fileDatas) {
+            if (calls.incrementAndGet() <= busyCalls) {
+                return null;
+            }
+            List<Result> results = new ArrayList<>();
+            try {
+                for (FileData fileData : fileDatas) {
+                    results.add(TestData.makeResult("Event in " + fileData.getFileName(), "2017-02-14", null, fileData));
+                }
+            } catch (ParseException e) {
+                throw new IllegalArgumentException(e);
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package backend;
+
+import backend.process.Hashing;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test for the hashing shared by the classes that compare or look up texts (backend.process.Hashing).
+ */
+public class HashingTest {
+
+    /**
+     * Checks the SHA-256 hash of a known text, in lower case hexadecimal, of the text and of its bytes.
+     */
+    @Test
+    public void testSha256() {
+        String abc = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+        Assert.assertEquals(abc, Hashing.sha256("abc"));
+        Assert.assertEquals(abc, Hashing.sha256("abc".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Checks that the seeds made are the same each time for the same initial seed, and all different.
+     */
+    @Test
+    public void testMakeSeeds() {
+        long[] seeds = Hashing.makeSeeds(42, 128);
+        Assert.assertArrayEquals(seeds, Hashing.makeSeeds(42, 128));
+        Set<Long> distinct = new HashSet<>();
+        for (long seed : seeds) {
+            distinct.add(seed);
+        }
+        Assert.assertEquals(128, distinct.size());
+        Assert.assertTrue(seeds[0] != Hashing.makeSeeds(43, 1)[0]);
+    }
+}
@@ -0,0 +1,73 @@
+package backend;
+
+import backend.process.ProcessProgress;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for the progress of processing a batch of documents (backend.process.ProcessProgress).
+ */
+public class ProcessProgressTest {
+
+    /**
+     * Checks the share done, the smoothed throughput and the estimated time left as documents are done.
+     */
+    @Test
+    public void testProgress() {
+        ProcessProgress progress = new ProcessProgress(4, 4000, 0);
+        Assert.assertEquals(0, progress.getFraction(), 0.001);
+        Assert.assertEquals(ProcessProgress.UNKNOWN, progress.getThroughput());
+        Assert.assertEquals(ProcessProgress.UNKNOWN, progress.getEta());
+
+        progress.documentDone(1000, 1000);//1 byte per ms
+        Assert.assertEquals(1, progress.getDocumentsDone());
+        Assert.assertEquals(0.25, progress.getFraction(), 0.001);
+        Assert.assertEquals(1000, progress.getThroughput());
+        Assert.assertEquals(3000, progress.getEta());
+
+        progress.documentDone(1000, 31000);//much slower, the throughput follows it part of the way
+        Assert.assertEquals(389, progress.getThroughput());
+        Assert.assertEquals(5142, progress.getEta(), 1);
+
+        progress.documentDone(1000, 31000);//done in the same ms, measured with the next document
+        Assert.assertEquals(389, progress.getThroughput());
+        Assert.assertEquals(0.75, progress.getFraction(), 0.001);
+
+        progress.documentDone(1000, 32000);
+        Assert.assertEquals(0, progress.getEta());
+        Assert.assertEquals(1, progress.getFraction(), 0.001);
+        Assert.assertEquals(32000, progress.getElapsed(32000));
+    }
+
+    /**
+     * Checks that a batch of empty documents is measured by the documents done.
+     */
+    @Test
+    public void testEmptyDocuments() {
+        ProcessProgress progress = new ProcessProgress(2, 0, 0);
+        progress.documentDone(0, 10);
+        Assert.assertEquals(0.5, progress.getFraction(), 0.001);
+        Assert.assertEquals(ProcessProgress.UNKNOWN, progress.getEta());
+    }
+
+    /**
+     * Checks how the progress, bytes and durations are shown.
+     */
+    @Test
+    public void testToString() {
+        Assert.assertEquals("512 B", ProcessProgress.formatBytes(512));
+        Assert.assertEquals("1.5 KB", ProcessProgress.formatBytes(1536));
+        Assert.assertEquals("2.0 MB", ProcessProgress.formatBytes(2 * 1024 * 1024));
+        Assert.assertEquals("12s", ProcessProgress.formatDuration(12000));
+        Assert.assertEquals("2m 30s", ProcessProgress.formatDuration(150000));
+        Assert.assertEquals("1h 5m", ProcessProgress.formatDuration(3900000));
+
+        ProcessProgress progress = new ProcessProgress(2, 2048, 0);
+        Assert.assertEquals("0/2 documents, 0 B/2.0 KB, time left unknown", progress.toString());
+        progress.documentDone(1024, 1000);
+        progress.addSentences(40);
+        Assert.assertEquals("1/2 documents, 1.0 KB/2.0 KB, 40 sentences, 1.0 KB/s, 1s left", progress.toString());
+        progress.documentDone(1024, 2000);
+        Assert.assertEquals("2/2 documents, 2.0 KB/2.0 KB, 40 sentences, 1.0 KB/s", progress.toString());
+    }
+}
@@ -0,0 +1,199 @@
+package backend;
+
+import backend.helpers.ProjectFile;
+import backend.process.FileData;
+import backend.process.Result;
+import backend.ranges.ProduceRanges;
+import backend.ranges.Range;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test for saving a Timeline to a project file and loading it back (backend.helpers.ProjectFile).
+ */
+public class ProjectFileTest {
+
+    /**
+     * Saves a list of Results (with FileData shared between them, and one FileData that has no Results) and loads them
+     * back, checking that all the data is kept and that Results of the same file still share their FileData.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     * @throws IOException    when the project file can not be written or read.
+     */
+    @Test
+    public void testSaveAndLoad() throws ParseException, IOException {
+        FileData party = TestData.makeFileData("party.txt", "02-02-2017");
+        FileData empty = new FileData("empty.txt", "/documents/empty.txt");
+        List<Result> results = new ArrayList<>();
+        results.add(TestData.makeResult("On Valentines Day we had a huge party!", "2016-02-14", "2016-02-15", party, "Valentines Day", "Party"));
+        results.add(TestData.makeResult("Ünïcödé event.", "2017-02-14", null, party));
+        results.get(1).getTimelineDate().setDurationData("Period: 1 Year(s)");
+        results.get(1).addDate("2017-02-14");
+        results.get(1).setOffsets(120, 134);
+        results.get(1).setPage(3);
+        results.get(1).setParseTree("(ROOT (S (NP (PRP I)) (VP (VBD ran) (NP (NNS tests))) (. .)))");
+        List<FileData> fileDatas = new ArrayList<>();
+        fileDatas.add(party);
+        fileDatas.add(empty);
+
+        File file = File.createTempFile("timeline", "." + ProjectFile.EXTENSION);
+        file.deleteOnExit();
+        ProjectFile.save(file, results, fileDatas, null);
+        ProjectFile projectFile = ProjectFile.load(file);
+
+        Assert.assertEquals(results, projectFile.getResults());
+        Assert.assertEquals(null, projectFile.getTrees());
+        Assert.assertEquals(2, projectFile.getFileDatas().size());
+        Assert.assertEquals("/documents/empty.txt", projectFile.getFileDatas().get(1).getFilePath());
+        Assert.assertEquals(null, projectFile.getFileDatas().get(1).getCreationDate());
+        Result loaded = projectFile.getResults().get(1);
+        Assert.assertSame(projectFile.getResults().get(0).getFileData(), loaded.getFileData());
+        Assert.assertEquals("Period: 1 Year(s)", loaded.getTimelineDate().getDurationData());
+        Assert.assertEquals(results.get(1).getDates(), loaded.getDates());
+        Assert.assertEquals(120, loaded.getBeginOffset());
+        Assert.assertEquals(134, loaded.getEndOffset());
+        Assert.assertEquals(3, loaded.getPage());
+        Assert.assertEquals(results.get(1).getParseTree(), loaded.getParseTree());
+        Assert.assertNull(projectFile.getResults().get(0).getParseTree());
+        Assert.assertFalse(projectFile.getResults().get(0).hasOffsets());
+        Assert.assertEquals(-1, projectFile.getResults().get(0).getPage());
+    }
+
+    /**
+     * Gets a list of Results as bytes (as a ShardWorker sends them) and reads them back, checking that all the data is
+     * kept.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     * @throws IOException    when the bytes can not be read.
+     */
+    @Test
+    public void testToAndFromBytes() throws ParseException, IOException {
+        FileData party = TestData.makeFileData("party.txt", "02-02-2017");
+        List<Result> results = new ArrayList<>();
+        results.add(TestData.makeResult("On Valentines Day we had a huge party!", "2016-02-14", "2016-02-15", party, "Party"));
+        results.get(0).setOffsets(10, 48);
+        results.get(0).setParseTree("(ROOT (S (NP (PRP We)) (VP (VBD had) (NP (DT a) (NN party))) (. !)))");
+        List<FileData> fileDatas = new ArrayList<>();
+        fileDatas.add(party);
+
+        ProjectFile projectFile = ProjectFile.fromBytes(ProjectFile.toBytes(results, fileDatas));
+
+        Assert.assertEquals(results, projectFile.getResults());
+        Assert.assertEquals(null, projectFile.getTrees());
+        Assert.assertEquals(1, projectFile.getFileDatas().size());
+        Assert.assertEquals(party.getCreationDate(), projectFile.getFileDatas().get(0).getCreationDate());
+        Result read = projectFile.getResults().get(0);
+        Assert.assertEquals(48, read.getEndOffset());
+        Assert.assertEquals(results.get(0).getParseTree(), read.getParseTree());
+        Assert.assertEquals(results.get(0).getSubjects(), read.getSubjects());
+    }
+
+    /**
+     * Saves a Result merged from the Results of two files (one of which is not in the FileData given), checking that
+     * the Results it was merged from, and their files, are kept.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     * @throws IOException    when the bytes can not be read.
+     */
+    @Test
+    public void testMergedResults() throws ParseException, IOException {
+        FileData bbc = TestData.makeFileData("bbc.txt", "20-01-2017");
+        FileData cnn = TestData.makeFileData("cnn.txt", "20-01-2017");
+        Result fromBBC = TestData.makeResult("The president was inaugurated.", "2017-01-20", null, bbc, "Trump");
+        Result fromCNN = TestData.makeResult("The president was inaugurated in Washington.", "2017-01-20", null, cnn, "Trump");
+        Result merged = TestData.makeResult("The president was inaugurated.", "2017-01-20", null, bbc, "Trump");
+        merged.setMergedResults(Arrays.asList(fromBBC, fromCNN));
+        List<FileData> fileDatas = new ArrayList<>();
+        fileDatas.add(bbc);
+
+        ProjectFile projectFile = ProjectFile.fromBytes(ProjectFile.toBytes(Collections.singletonList(merged), fileDatas));
+
+        Assert.assertEquals(2, projectFile.getFileDatas().size());
+        Result read = projectFile.getResults().get(0);
+        Assert.assertEquals(merged, read);
+        Assert.assertEquals(merged.getMergedResults(), read.getMergedResults());
+        Assert.assertEquals(2, read.getSources().size());
+        Assert.assertEquals("cnn.txt", read.getSources().get(1).getFileName());
+    }
+
+    /**
+     * Reads bytes that are not those of a project file.
+     *
+     * @throws IOException as the bytes are not those of a project file.
+     */
+    @Test(expected = IOException.class)
+    public void testFromInvalidBytes() throws IOException {
+        ProjectFile.fromBytes(new byte[]{0x54, 0x4C, 0x50});
+    }
+
+    /**
+     * Reads bytes of a project file whose first String claims to be far larger than the file, which must be reported
+     * as an invalid project file rather than allocated.
+     *
+     * @throws IOException as the bytes are not those of a valid project file.
+     */
+    @Test(expected = IOException.class)
+    public void testFromCorruptLength() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x544C5046);//magic
+        out.writeInt(4);//version
+        out.writeInt(0);//flags
+        out.writeInt(1);//FileData count
+        out.writeInt(Integer.MAX_VALUE);//length of its name
+        ProjectFile.fromBytes(bytes.toByteArray());
+    }
+
+    /**
+     * Saves a list of Results with the forest of Ranges produced from them, and checks that the loaded forest is equal
+     * and points to the loaded Results.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     * @throws IOException    when the project file can not be written or read.
+     */
+    @Test
+    public void testSaveAndLoadForest() throws ParseException, IOException {
+        List<Result> results = new ArrayList<>();
+        results.add(TestData.makeResult("The war lasted years.", "1990-01-01", "1999-12-31", null));
+        results.add(TestData.makeResult("A party.", "1995-06-01", null, null));
+        results.add(TestData.makeResult("A meeting.", "2005-06-01", null, null));
+        ProduceRanges produceRanges = new ProduceRanges();
+        produceRanges.produceRanges(results);
+
+        File file = File.createTempFile("timeline", "." + ProjectFile.EXTENSION);
+        file.deleteOnExit();
+        ProjectFile.save(file, results, new ArrayList<FileData>(), produceRanges.getTrees());
+        ProjectFile projectFile = ProjectFile.load(file);
+
+        List<Range> trees = projectFile.getTrees();
+        Assert.assertEquals(produceRanges.getTrees(), trees);
+        Result inForest = trees.get(0).getChildren().get(0).getResults().get(0);
+        Assert.assertSame(projectFile.getResults().get(projectFile.getResults().indexOf(inForest)), inForest);
+    }
+
+    /**
+     * Checks that loading a file that is not a project file throws an IOException.
+     *
+     * @throws IOException when the test file can not be written.
+     */
+    @Test(expected = IOException.class)
+    public void testLoadInvalidFile() throws IOException {
+        File file = File.createTempFile("timeline", ".txt");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("Not a project file".getBytes("UTF-8"));
+        }
+        ProjectFile.load(file);
+    }
+}
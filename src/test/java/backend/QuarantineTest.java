@@ -0,0 +1,111 @@
+package backend;
+
+import backend.process.Quarantine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test for recording the documents that could not be processed (backend.process.Quarantine).
+ */
+public class QuarantineTest {
+
+    /**
+     * Checks that a document is only quarantined once it failed MAX_FAILURES times, that this is kept in the File of the
+     * Quarantine, and that it is taken out once it is processed.
+     *
+     * @throws IOException when the test Files can not be written.
+     */
+    @Test
+    public void testRecordFailures() throws IOException {
+        File quarantineFile = newQuarantineFile();
+        File document = TestData.writeFile("A broken document.");
+        Quarantine quarantine = new Quarantine(quarantineFile);
+        quarantine.recordFailure(document, Quarantine.Stage.EXTRACTING, "java.lang.IllegalStateException");
+        Assert.assertFalse(quarantine.isQuarantined(document));
+        quarantine.recordFailure(document, Quarantine.Stage.ANNOTATING, "Timed out after 300s");
+        Assert.assertTrue(quarantine.isQuarantined(document));
+
+        Quarantine loaded = new Quarantine(quarantineFile);//as on a later run
+        Assert.assertTrue(loaded.isQuarantined(document));
+        List<Quarantine.Entry> entries = loaded.getEntries(Arrays.asList(document, TestData.writeFile("A fine document.")));
+        Assert.assertEquals(1, entries.size());
+        Assert.assertEquals(document.getName(), entries.get(0).getName());
+        Assert.assertEquals(Quarantine.Stage.ANNOTATING, entries.get(0).getStage());
+        Assert.assertEquals("Timed out after 300s", entries.get(0).getReason());
+        Assert.assertEquals(2, entries.get(0).getFailures());
+
+        loaded.recordSuccess(document);
+        Assert.assertFalse(loaded.isQuarantined(document));
+        Assert.assertTrue(new Quarantine(quarantineFile).getEntries(Collections.singletonList(document)).isEmpty());
+    }
+
+    /**
+     * Checks that a quarantined document is processed again if the user retries it, or if it changes.
+     *
+     * @throws IOException when the test Files can not be written.
+     */
+    @Test
+    public void testRetryAndChange() throws IOException {
+        Quarantine quarantine = new Quarantine(newQuarantineFile());
+        File retried = TestData.writeFile("A broken document.");
+        File changed = TestData.writeFile("Another broken document.");
+        for (int i = 0; i < Quarantine.MAX_FAILURES; i++) {
+            quarantine.recordFailure(retried, Quarantine.Stage.EXTRACTING, "java.lang.StackOverflowError");
+            quarantine.recordFailure(changed, Quarantine.Stage.EXTRACTING, "java.lang.StackOverflowError");
+        }
+
+        quarantine.retry(Collections.singletonList(retried.getAbsolutePath()));
+        Assert.assertFalse(quarantine.isQuarantined(retried));
+        Assert.assertTrue(quarantine.isQuarantined(changed));
+
+        TestData.writeFile(changed, "The document, fixed and longer than it was.");//the size changes
+        Assert.assertFalse(quarantine.isQuarantined(changed));
+    }
+
+    /**
+     * Checks that two Quarantines kept in the same File (as in two processes) keep each other's changes, each reading
+     * the File again before changing it.
+     *
+     * @throws IOException when the test Files can not be written.
+     */
+    @Test
+    public void testSharedFile() throws IOException {
+        File quarantineFile = newQuarantineFile();
+        Quarantine first = new Quarantine(quarantineFile);
+        Quarantine second = new Quarantine(quarantineFile);
+        File firstDocument = TestData.writeFile("A broken document.");
+        File secondDocument = TestData.writeFile("Another broken document.");
+        for (int i = 0; i < Quarantine.MAX_FAILURES; i++) {
+            first.recordFailure(firstDocument, Quarantine.Stage.EXTRACTING, "java.lang.StackOverflowError");
+            second.recordFailure(secondDocument, Quarantine.Stage.ANNOTATING, "Timed out after 300s");
+        }
+        second.recordFailure(firstDocument, Quarantine.Stage.EXTRACTING, "java.lang.StackOverflowError");
+
+        Quarantine loaded = new Quarantine(quarantineFile);
+        List<Quarantine.Entry> entries = loaded.getEntries(Arrays.asList(firstDocument, secondDocument));
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals(3, entries.get(0).getFailures());
+        Assert.assertEquals(2, entries.get(1).getFailures());
+        Assert.assertFalse(new File(quarantineFile.getPath() + ".tmp").exists());
+    }
+
+    /**
+     * Get a File for a Quarantine that does not exist yet.
+     *
+     * @return the File.
+     * @throws IOException when the File can not be created.
+     */
+    private File newQuarantineFile() throws IOException {
+        File file = File.createTempFile("quarantine", ".json");
+        file.deleteOnExit();
+        Assert.assertTrue(file.delete());
+        new File(file.getPath() + ".lock").deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,42 @@
+package backend;
+
+import backend.process.ResizableSemaphore;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for changing the number of permits of a Semaphore while they are held (backend.process.ResizableSemaphore).
+ */
+public class ResizableSemaphoreTest {
+    /**
+     * Grows and shrinks the permits while some are held, checking how many can be acquired.
+     *
+     * @throws InterruptedException when acquiring a permit.
+     */
+    @Test
+    public void testSetPermits() throws InterruptedException {
+        ResizableSemaphore semaphore = new ResizableSemaphore(2);
+        semaphore.acquire();
+        semaphore.acquire();
+        Assert.assertFalse(semaphore.tryAcquire());
+
+        semaphore.setPermits(3);//one more can run straight away
+        Assert.assertTrue(semaphore.tryAcquire());
+        Assert.assertEquals(3, semaphore.getPermits());
+
+        semaphore.setPermits(1);//three are held, so none can run until two more are released
+        semaphore.release();
+        semaphore.release();
+        Assert.assertFalse(semaphore.tryAcquire());
+        semaphore.release();
+        Assert.assertTrue(semaphore.tryAcquire());
+    }
+
+    /**
+     * Checks that there must be at least one permit.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoPermits() {
+        new ResizableSemaphore(2).setPermits(0);
+    }
+}
@@ -0,0 +1,91 @@
+package backend;
+
+import backend.process.Result;
+import backend.search.ResultIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Test for the queries answered by backend.search.ResultIndex (subject, text and date range lookups).
+ */
+public class ResultIndexTest {
+    private SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+    /**
+     * Adds Results with different subjects, and checks that a subject lookup returns only the Results with that
+     * subject (ignoring case).
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testSearchSubject() throws ParseException {
+        ResultIndex resultIndex = new ResultIndex();
+        resultIndex.add(TestData.makeResult("Bob went to London.", "2016-01-01", null, null, "Bob", "London"));
+        resultIndex.add(TestData.makeResult("Alice went to Paris.", "2016-02-01", null, null, "Alice", "Paris"));
+        resultIndex.add(TestData.makeResult("Bob met Alice.", "2016-03-01", null, null, "Bob", "Alice"));
+
+        Assert.assertArrayEquals(new int[]{0, 2}, resultIndex.searchSubject("bob"));
+        Assert.assertArrayEquals(new int[]{1, 2}, resultIndex.searchSubject("Alice"));
+        Assert.assertArrayEquals(new int[0], resultIndex.searchSubject("Carol"));
+    }
+
+    /**
+     * Checks that a text search requires every term to match, and that the last term is matched as a prefix.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testSearchText() throws ParseException {
+        ResultIndex resultIndex = new ResultIndex();
+        resultIndex.add(TestData.makeResult("Bob went to London.", "2016-01-01", null, null, "Bob"));
+        resultIndex.add(TestData.makeResult("Bob went to Paris.", "2016-02-01", null, null, "Bob"));
+        resultIndex.add(TestData.makeResult("Alice stayed in London.", "2016-03-01", null, null, "Alice"));
+
+        Assert.assertArrayEquals(new int[]{0, 2}, resultIndex.searchText("london"));
+        Assert.assertArrayEquals(new int[]{0}, resultIndex.searchText("bob lon"));
+        Assert.assertArrayEquals(new int[]{0, 1}, resultIndex.searchText("went"));
+        Assert.assertArrayEquals(new int[0], resultIndex.searchText("alice paris"));
+        Assert.assertArrayEquals(new int[]{0, 1, 2}, resultIndex.searchText("  "));//no terms, no filter
+    }
+
+    /**
+     * Checks that a date range search returns the Results whose dates overlap the range, including Results with a
+     * date range that starts before the given range.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testSearchDates() throws ParseException {
+        ResultIndex resultIndex = new ResultIndex();
+        resultIndex.add(TestData.makeResult("The war lasted years.", "1990-01-01", "1999-12-31", null));
+        resultIndex.add(TestData.makeResult("A party.", "1995-06-01", null, null));
+        resultIndex.add(TestData.makeResult("A meeting.", "2005-06-01", null, null));
+
+        Date from = simpleDateFormat.parse("1998-01-01");
+        Date to = simpleDateFormat.parse("2006-01-01");
+        Assert.assertArrayEquals(new int[]{0, 2}, resultIndex.searchDates(from, to));
+        Assert.assertArrayEquals(new int[]{0, 1}, resultIndex.searchDates(null, simpleDateFormat.parse("2000-01-01")));
+        Assert.assertArrayEquals(new int[]{2}, resultIndex.searchDates(simpleDateFormat.parse("2000-01-01"), null));
+        Assert.assertArrayEquals(new int[]{2}, resultIndex.query("a", from, to));
+    }
+
+    /**
+     * Checks that adding the same Result twice keeps its first id, and that ids map back to the Results.
+     *
+     * @throws ParseException when creating the dates of the test Results.
+     */
+    @Test
+    public void testIds() throws ParseException {
+        ResultIndex resultIndex = new ResultIndex();
+        Result result = TestData.makeResult("Bob went to London.", "2016-01-01", null, null, "Bob");
+        Assert.assertEquals(0, resultIndex.add(result));
+        Assert.assertEquals(0, resultIndex.add(result));
+        Assert.assertEquals(1, resultIndex.size());
+        Assert.assertSame(result, resultIndex.getResult(0));
+        Assert.assertEquals(-1, resultIndex.getId(new Result()));
+    }
+}
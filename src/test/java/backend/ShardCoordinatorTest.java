@@ -0,0 +1,62 @@
+package backend;
+
+import backend.process.FileData;
+import backend.process.Result;
+import backend.shard.ShardCoordinator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test for processing Files across worker JVMs (backend.shard.ShardCoordinator), with workers (StubShardWorker) that
+ * crash on purpose.
+ */
+public class ShardCoordinatorTest {
+
+    /**
+     * Processes, in batches of 2, a File that crashes every worker, one that crashes only the first worker it is
+     * processed by, and two that do not. Checks that the first is processed on its own maxAttempts times (after the
+     * batch it was in, if it was not already on its own) and then left out, that the second is retried and kept, that
+     * the Files in a batch that crashed are retried on their own, and that the Results of all the Files kept are merged
+     * by date and then in the order of their Files.
+     *
+     * @throws IOException when the test Files can not be written, or the workers can not be started.
+     */
+    @Test
+    public void testRetryAndLeaveOut() throws IOException {
+        File second = TestData.writeFile("2017-01-20 Second first\n");
+        File first = TestData.writeFile("2017-01-20 First first\n2017-03-01 First later\n");
+        File crash = TestData.writeFile("CRASH\n2017-01-01 Never\n");
+        File flaky = TestData.writeFile("CRASH ONCE\n2017-02-01 Flaky\n");
+        List<File> files = Arrays.asList(second, first, crash, flaky);
+        List<FileData> fileDatas = new ArrayList<>();
+        for (File file : files) {
+            StubShardWorker.getAttemptsFile(file).deleteOnExit();
+            fileDatas.add(new FileData(file));
+        }
+
+        ShardCoordinator shardCoordinator = new ShardCoordinator(2, 2, 2, Collections.<String>emptyList(),
+                StubShardWorker.class.getName());
+        List<Result> results = shardCoordinator.processFiles(files, fileDatas);
+
+        List<String> events = new ArrayList<>();
+        for (Result result : results) {
+            events.add(result.getEvent());
+        }
+        Assert.assertEquals(Arrays.asList("Second first", "First first", "Flaky", "First later"), events);
+        Assert.assertSame(fileDatas.get(3), results.get(2).getFileData());//pointed to the FileData given
+        Assert.assertEquals(Collections.singletonList(crash), shardCoordinator.getLeftOut());
+        long crashAttempts = StubShardWorker.getAttemptsFile(crash).length();
+        Assert.assertTrue(crashAttempts == 2 || crashAttempts == 3);//plus once in a batch, if it was given out in one
+        Assert.assertEquals(2, StubShardWorker.getAttemptsFile(flaky).length());
+        Assert.assertTrue(StubShardWorker.getAttemptsFile(first).length() <= 2);//again on its own, if its batch crashed
+        Assert.assertTrue(StubShardWorker.getAttemptsFile(second).length() <= 2);
+        Assert.assertEquals(4, shardCoordinator.getProgress().getDocumentsDone());
+    }
+}
@@ -0,0 +1,100 @@
+package backend;
+
+import backend.helpers.Sort;
+import backend.process.Result;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test for sorting and merging Results by their date1 (backend.helpers.Sort).
+ */
+public class SortTest {
+    /**
+     * Sorts a List with Results without a date1 and Results with the same date1, checking those without a date1 go
+     * first and those with the same date1 keep their order.
+     *
+     * @throws ParseException when parsing the dates of the test Results.
+     */
+    @Test
+    public void testSortByDate1() throws ParseException {
+        List<Result> results = new ArrayList<>();
+        results.add(TestData.makeResult("c", "2017-01-03", null, null));
+        results.add(TestData.makeResult("a1", "2017-01-01", null, null));
+        results.add(TestData.makeResult("none", null, null, null));
+        results.add(TestData.makeResult("a2", "2017-01-01", null, null));
+        results.add(TestData.makeResult("b", "2017-01-02", null, null));
+
+        Sort.sortByDate1(results);
+
+        Assert.assertEquals("[none, a1, a2, b, c]", getEvents(results));
+        Sort.sortByDate1Descending(results);
+        Assert.assertEquals("[c, b, a2, a1, none]", getEvents(results));
+    }
+
+    /**
+     * Sorts a List long enough to be sorted in parallel, checking it is in order.
+     *
+     * @throws ParseException when parsing the dates of the test Results.
+     */
+    @Test
+    public void testParallelSort() throws ParseException {
+        Random random = new Random(42);
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            results.add(TestData.makeResult("event", String.format("%04d-%02d-%02d", 1900 + random.nextInt(200),
+                    1 + random.nextInt(12), 1 + random.nextInt(28)), null, null));
+        }
+
+        Sort.sortByDate1(results);
+
+        for (int i = 1; i < results.size(); i++) {
+            Assert.assertTrue(!results.get(i).getTimelineDate().getDate1().before(results.get(i - 1).getTimelineDate().getDate1()));
+        }
+    }
+
+    /**
+     * Merges sorted Lists (one of them empty), checking Results with the same date1 are in the order of their Lists.
+     *
+     * @throws ParseException when parsing the dates of the test Results.
+     */
+    @Test
+    public void testMergeByDate1() throws ParseException {
+        List<List<Result>> sortedLists = new ArrayList<>();
+        List<Result> first = new ArrayList<>();
+        first.add(TestData.makeResult("a", "2017-01-01", null, null));
+        first.add(TestData.makeResult("c1", "2017-01-03", null, null));
+        List<Result> second = new ArrayList<>();
+        second.add(TestData.makeResult("none", null, null, null));
+        second.add(TestData.makeResult("b", "2017-01-02", null, null));
+        second.add(TestData.makeResult("c2", "2017-01-03", null, null));
+        second.add(TestData.makeResult("d", "2017-01-04", null, null));
+        sortedLists.add(first);
+        sortedLists.add(new ArrayList<Result>());
+        sortedLists.add(second);
+
+        List<Result> merged = Sort.mergeByDate1(sortedLists);
+
+        Assert.assertEquals("[none, a, b, c1, c2, d]", getEvents(merged));
+        Assert.assertEquals(2, first.size());//the given Lists are not changed
+        Assert.assertEquals(0, Sort.mergeByDate1(new ArrayList<List<Result>>()).size());
+    }
+
+    /**
+     * Get the events of the given Results.
+     *
+     * @param results the given Results.
+     * @return the events, as the String of a List.
+     */
+    private String getEvents(List<Result> results) {
+        List<String> events = new ArrayList<>();
+        for (Result result : results) {
+            events.add(result.getEvent());
+        }
+        return events.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package backend;
+
+import backend.helpers.ProjectFile;
+import backend.process.FileData;
+import backend.process.Result;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A worker JVM for the ShardCoordinator tests, following the protocol of backend.shard.ShardWorker without the
+ * StanfordCoreNLP. The Files of a batch are processed in order, and each line of a File ("yyyy-MM-dd event") becomes a
+ * Result. A File whose first line is CRASH makes the worker exit partway through sending the Results of the batch,
+ * every time; one whose first line is CRASH ONCE does so only the first time it is processed. Each time a File is
+ * processed is recorded in "<path>.attempts" (one byte per attempt).
+ */
+public class StubShardWorker {
+
+    /**
+     * Run the worker until its standard input is closed, or it crashes on purpose.
+     *
+     * @param args not used.
+     * @throws IOException    when a File can not be read, or the coordinator went away.
+     * @throws ParseException when a line of a File does not start with a date.
+     */
+    public static void main(String[] args) throws IOException, ParseException {
+        DataOutputStream out = new DataOutputStream(System.out);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        while (true) {
+            int noOfFiles;
+            try {
+                noOfFiles = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            int[] indexes = new int[noOfFiles];
+            File[] files = new File[noOfFiles];
+            for (int i = 0; i < noOfFiles; i++) {
+                indexes[i] = in.readInt();
+                files[i] = new File(in.readUTF());
+                in.readLong();//the creation date
+            }
+            ByteArrayOutputStream batchBytes = new ByteArrayOutputStream();//sent once the whole batch is processed
+            DataOutputStream batchOut = new DataOutputStream(batchBytes);
+            for (int i = 0; i < noOfFiles; i++) {
+                int attempt = recordAttempt(files[i]);
+                List<String> lines = Files.readAllLines(files[i].toPath(), StandardCharsets.UTF_8);
+                if (lines.get(0).equals("CRASH") || (lines.get(0).equals("CRASH ONCE") && attempt == 1)) {
+                    out.writeInt(indexes[0]);
+                    out.writeInt(1024);
+                    out.write(new byte[10]);//only part of the Results
+                    out.flush();
+                    System.exit(1);
+                }
+                FileData fileData = new FileData(files[i]);
+                List<Result> results = new ArrayList<>();
+                for (String line : lines) {
+                    if (!line.startsWith("CRASH")) {
+                        results.add(TestData.makeResult(line.substring(11), line.substring(0, 10), null, fileData));
+                    }
+                }
+                byte[] bytes = ProjectFile.toBytes(results, Collections.singletonList(fileData));
+                batchOut.writeInt(indexes[i]);
+                batchOut.writeInt(bytes.length);
+                batchOut.write(bytes);
+            }
+            batchBytes.writeTo(out);
+            out.flush();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Record that the given File was given out again.
+     *
+     * @param file the given File.
+     * @return the number of times it was given out, including this one.
+     * @throws IOException when the attempts can not be recorded.
+     */
+    private static int recordAttempt(File file) throws IOException {
+        File attempts = getAttemptsFile(file);
+        try (FileOutputStream attemptsOut = new FileOutputStream(attempts, true)) {
+            attemptsOut.write(1);
+        }
+        return (int) attempts.length();
+    }
+
+    /**
+     * Get the File the attempts of the given File are recorded in.
+     *
+     * @param file the given File.
+     * @return the File of the attempts.
+     */
+    static File getAttemptsFile(File file) {
+        return new File(file.getPath() + ".attempts");
+    }
+}
@@ -0,0 +1,89 @@
+package backend;
+
+import backend.process.FileData;
+import backend.process.Result;
+import backend.process.TimelineDate;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+/**
+ * The Results, FileData and documents shared by the tests, so that each test makes them in the same way.
+ */
+public class TestData {
+
+    /**
+     * Make the FileData of a document in "/documents", with the given creation date.
+     *
+     * @param fileName     the name of the document.
+     * @param creationDate the creation date in the format dd-MM-yyyy.
+     * @return the FileData produced.
+     */
+    public static FileData makeFileData(String fileName, String creationDate) {
+        FileData fileData = new FileData(fileName, "/documents/" + fileName);
+        fileData.setCreationDate(creationDate);
+        return fileData;
+    }
+
+    /**
+     * Make a Result with the given data (the event is also used as its original sentence).
+     *
+     * @param event    the event of the Result.
+     * @param date1    the start date in the format yyyy-MM-dd, or null.
+     * @param date2    the end date in the format yyyy-MM-dd, or null.
+     * @param fileData the FileData of the Result (not changed), or null.
+     * @param subjects the subjects of the Result.
+     * @return the Result produced.
+     * @throws ParseException when parsing the given dates.
+     */
+    public static Result makeResult(String event, String date1, String date2, FileData fileData, String... subjects) throws ParseException {
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        Result result = new Result();
+        result.setEvent(event);
+        result.setOriginalString(event);
+        result.setFileData(fileData);
+        TimelineDate timelineDate = new TimelineDate();
+        if (date1 != null) {
+            timelineDate.setDate1(simpleDateFormat.parse(date1));
+        }
+        if (date2 != null) {
+            timelineDate.setDate2(simpleDateFormat.parse(date2));
+        }
+        result.setTimelineDate(timelineDate);
+        for (String subject : subjects) {
+            result.addSubject(subject);
+        }
+        return result;
+    }
+
+    /**
+     * Write the given text to a new temporary File.
+     *
+     * @param text the given text.
+     * @return the File.
+     * @throws IOException when the File can not be written.
+     */
+    public static File writeFile(String text) throws IOException {
+        File file = File.createTempFile("document", ".txt");
+        file.deleteOnExit();
+        writeFile(file, text);
+        return file;
+    }
+
+    /**
+     * Write the given text to the given File.
+     *
+     * @param file the given File.
+     * @param text the given text.
+     * @throws IOException when the File can not be written.
+     */
+    public static void writeFile(File file, String text) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package backend;
+
+import backend.process.TextCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Test for the cache of the text extracted from Files (backend.process.TextCache).
+ */
+public class TextCacheTest {
+
+    /**
+     * Checks that the text held for a File is returned until the File changes.
+     *
+     * @throws IOException when the test File can not be written.
+     */
+    @Test
+    public void testGetAndInvalidate() throws IOException {
+        TextCache textCache = new TextCache(1000);
+        File file = TestData.writeFile("The first text.");
+        Assert.assertNull(textCache.get(file));
+        textCache.put(file, "The first text.");
+        Assert.assertEquals("The first text.", textCache.get(file));
+        Assert.assertEquals(15, textCache.size());
+
+        TestData.writeFile(file, "A different, longer text.");//the size changes, so the text held is dropped
+        Assert.assertNull(textCache.get(file));
+        Assert.assertEquals(0, textCache.size());
+    }
+
+    /**
+     * Checks that when more than the max number of characters are held, the text of the File used least recently is
+     * dropped.
+     *
+     * @throws IOException when the test Files can not be written.
+     */
+    @Test
+    public void testLeastRecentlyUsedDropped() throws IOException {
+        TextCache textCache = new TextCache(25);
+        File first = TestData.writeFile("0123456789");
+        File second = TestData.writeFile("abcdefghij");
+        File third = TestData.writeFile("ABCDEFGHIJ");
+        textCache.put(first, "0123456789");
+        textCache.put(second, "abcdefghij");
+        Assert.assertNotNull(textCache.get(first));//so the second File is the least recently used
+        textCache.put(third, "ABCDEFGHIJ");
+        Assert.assertEquals("0123456789", textCache.get(first));
+        Assert.assertNull(textCache.get(second));
+        Assert.assertEquals("ABCDEFGHIJ", textCache.get(third));
+        Assert.assertEquals(20, textCache.size());
+
+        textCache.put(first, "too long to be held in the cache at all");
+        Assert.assertEquals("0123456789", textCache.get(first));//text over the max is not held
+    }
+}
@@ -0,0 +1,89 @@
+package backend;
+
+import backend.process.ResizableSemaphore;
+import backend.process.ThreadTuner;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for choosing the number of Threads from the heap and garbage collector (backend.process.ThreadTuner).
+ */
+public class ThreadTunerTest {
+    private final static long MB = 1024 * 1024;
+
+    /**
+     * Checks that a Thread is added only while every Thread is busy, there is room in the heap for another and the
+     * garbage collector is not busy, and never beyond the maximum.
+     */
+    @Test
+    public void testRampUp() {
+        Assert.assertEquals(3, ThreadTuner.chooseThreads(2, 2, 1000 * MB, 4000 * MB, 500 * MB, 0.01, 8));
+        Assert.assertEquals(2, ThreadTuner.chooseThreads(2, 1, 1000 * MB, 4000 * MB, 500 * MB, 0.01, 8));//a Thread is idle
+        Assert.assertEquals(2, ThreadTuner.chooseThreads(2, 2, 2500 * MB, 4000 * MB, 500 * MB, 0.01, 8));//no room
+        Assert.assertEquals(2, ThreadTuner.chooseThreads(2, 2, 1000 * MB, 4000 * MB, 500 * MB, 0.15, 8));//collecting
+        Assert.assertEquals(8, ThreadTuner.chooseThreads(8, 8, 1000 * MB, 4000 * MB, 500 * MB, 0.01, 8));
+    }
+
+    /**
+     * Checks that a Thread is taken away when the heap is nearly full or the garbage collector is busy, but that there
+     * is always at least one.
+     */
+    @Test
+    public void testBackOff() {
+        Assert.assertEquals(3, ThreadTuner.chooseThreads(4, 4, 3600 * MB, 4000 * MB, 500 * MB, 0.01, 8));
+        Assert.assertEquals(3, ThreadTuner.chooseThreads(4, 2, 1000 * MB, 4000 * MB, 500 * MB, 0.5, 8));
+        Assert.assertEquals(1, ThreadTuner.chooseThreads(1, 1, 3900 * MB, 4000 * MB, 500 * MB, 0.5, 8));
+        Assert.assertEquals(8, ThreadTuner.chooseThreads(12, 12, 1000 * MB, 4000 * MB, 500 * MB, 0.01, 8));//fewer processors now
+    }
+
+    /**
+     * Samples a Heap whose live heap, max and time spent collecting garbage are set by the test, checking that the heap
+     * of a Thread is estimated from the live heap above the baseline shared by the Threads running, that the time spent
+     * collecting garbage is measured since the last sample, and that the semaphore is resized by what is chosen.
+     *
+     * @throws InterruptedException when acquiring the permits is interrupted.
+     */
+    @Test
+    public void testSample() throws InterruptedException {
+        final long[] heap = {100 * MB, 4000 * MB, 0};//live, max and time spent collecting garbage
+        ResizableSemaphore semaphore = new ResizableSemaphore(2);
+        ThreadTuner threadTuner = new ThreadTuner(semaphore, new ThreadTuner.Heap() {
+            @Override
+            public long getLive() {
+                return heap[0];
+            }
+
+            @Override
+            public long getMax() {
+                return heap[1];
+            }
+
+            @Override
+            public long getGcTime() {
+                return heap[2];
+            }
+        });
+        threadTuner.startSampling(0);
+        semaphore.acquire(2);//both Threads running
+
+        heap[0] = 500 * MB;//200MB live per Thread
+        threadTuner.sample(2000, 8);
+        Assert.assertEquals((long) (0.3 * 200 * MB + 0.7 * ThreadTuner.DEFAULT_THREAD_HEAP), threadTuner.getThreadHeap());
+        Assert.assertEquals(3, semaphore.getPermits());//room for another
+
+        heap[2] = 1000;//half of the time since the last sample spent collecting garbage
+        threadTuner.sample(4000, 8);
+        Assert.assertEquals(2, semaphore.getPermits());
+
+        heap[0] = 3500 * MB;//nearly full, even once collected
+        threadTuner.sample(6000, 8);
+        Assert.assertEquals(1, semaphore.getPermits());
+
+        semaphore.release(2);
+        heap[0] = 100 * MB;
+        long threadHeap = threadTuner.getThreadHeap();
+        threadTuner.sample(8000, 8);
+        Assert.assertEquals(threadHeap, threadTuner.getThreadHeap());//not estimated with no Thread running
+        Assert.assertEquals(1, semaphore.getPermits());//no Thread is waiting for another
+    }
+}
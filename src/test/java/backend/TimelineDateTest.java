@@ -411,4 +411,31 @@ public class TimelineDateTest {
         Assert.assertEquals(expectedDate2, timelineDate.getDate2());
     }
 
+    /**
+     * Checks that the SortKey of a TimelineDate orders by the size of its range, then date1, then date2, and is made
+     * again when the dates change (by a setter or by parsing another date).
+     *
+     * @throws ParseException when creating the Dates.
+     */
+    @Test
+    public void testSortKey() throws ParseException {
+        TimelineDate day = new TimelineDate();
+        day.setDate1(simpleDateFormat.parse("2017-02-14"));
+        TimelineDate earlierDay = new TimelineDate();
+        earlierDay.setDate1(simpleDateFormat.parse("2016-02-14"));
+        TimelineDate week = new TimelineDate();
+        week.setDate1(simpleDateFormat.parse("2010-02-14"));
+        week.setDate2(simpleDateFormat.parse("2010-02-21"));
+        Assert.assertEquals(0, day.getRange());
+        Assert.assertEquals(7, week.getRange());
+        Assert.assertTrue(earlierDay.compareTo(day) < 0);
+        Assert.assertTrue(day.compareTo(week) < 0);
+        Assert.assertEquals(0, day.compareTo(day));
+
+        day.setDate2(simpleDateFormat.parse("2017-03-14"));
+        Assert.assertEquals(28, day.getRange());
+        Assert.assertTrue(day.compareTo(week) > 0);
+        earlierDay.parse("2016-12-31", baseDate);//a later date becomes date2
+        Assert.assertEquals(321, earlierDay.getRange());
+    }
 }
@@ -1,5 +1,6 @@
 package backend;
 
+import backend.helpers.FromJSON;
 import backend.helpers.ToJSON;
 import backend.process.FileData;
 import backend.process.Result;
@@ -7,9 +8,12 @@ import backend.process.TimelineDate;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Test Class to test the toJSON class (ie taking a list of Results and producing JSON Strings).
@@ -136,6 +140,73 @@ public class ToJSONTest {
         Assert.assertEquals(expectedJson, actualResultJson);
     }
 
+    /**
+     * Tests that the JSON String produced for a List of Results can be imported back with FromJSON, producing the same
+     * JSON String when exported again (and Results from the same file sharing one FileData).
+     *
+     * @throws ParseException when producing the dates for the test Result objects.
+     * @throws IOException    when the produced JSON can not be imported.
+     */
+    @Test
+    public void testJSONRoundTrip() throws ParseException, IOException {
+        String json = "[{\"subjects\":[],\"event\":\"\",\"from\":{}},{\"date1\":\"14-02-2016 AD\",\"date2\":\"15-02-2016 AD\",\"subjects\":[\"Party\"],\"event\":\"We had a \\\"huge\\\" party!\",\"from\":{\"filename\":\"party.txt\",\"baseDate\":\"02-02-2017\"}},{\"date1\":\"14-02-2017 AD\",\"subjects\":[],\"event\":\"Another party.\",\"from\":{\"filename\":\"party.txt\",\"baseDate\":\"02-02-2017\"}}]";
+        List<Result> results = FromJSON.fromJSON(json);
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(null, results.get(0).getFileData());
+        Assert.assertEquals(simpleDateFormat.parse(returnDate("2016", "02", "15", false)), results.get(1).getTimelineDate().getDate2());
+        Assert.assertSame(results.get(1).getFileData(), results.get(2).getFileData());
+        Assert.assertEquals(1, FromJSON.getFileDatas(results).size());
+        Assert.assertEquals(json, ToJSON.toJSON(results));
+    }
+
+    /**
+     * Tests that writing Results as newline delimited JSON (compressed with gzip) produces one JSON object per line,
+     * that it can be imported back, and that the order of the given List is not changed.
+     *
+     * @throws ParseException when producing the dates for the test Result objects.
+     * @throws IOException    when the JSON can not be written or read.
+     */
+    @Test
+    public void testNDJSONGzip() throws ParseException, IOException {
+        ArrayList<Result> results = new ArrayList<>();
+        for (String year : new String[]{"2017", "2015", "2016"}) {
+            Result result = new Result();
+            result.getTimelineDate().setDate1(simpleDateFormat.parse(returnDate(year, "02", "14", false)));
+            result.setEvent("Party in " + year + " <with> friends & family");
+            results.add(result);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ToJSON.write(results, outputStream, ToJSON.Format.NDJSON, true);
+        String ndjson = readGzip(outputStream.toByteArray());
+        String expectedNdjson = "{\"date1\":\"14-02-2015 AD\",\"subjects\":[],\"event\":\"Party in 2015 \\u003cwith\\u003e friends \\u0026 family\",\"from\":{}}\n"
+                + "{\"date1\":\"14-02-2016 AD\",\"subjects\":[],\"event\":\"Party in 2016 \\u003cwith\\u003e friends \\u0026 family\",\"from\":{}}\n"
+                + "{\"date1\":\"14-02-2017 AD\",\"subjects\":[],\"event\":\"Party in 2017 \\u003cwith\\u003e friends \\u0026 family\",\"from\":{}}\n";
+        Assert.assertEquals(expectedNdjson, ndjson);
+        Assert.assertEquals("Party in 2017 <with> friends & family", results.get(0).getEvent());//input not sorted
+        Assert.assertEquals(ToJSON.toJSON(results), ToJSON.toJSON(FromJSON.fromJSON(ndjson)));
+    }
+
+    /**
+     * Decompress the given gzip bytes into a UTF-8 String.
+     *
+     * @param bytes the given gzip bytes.
+     * @return the decompressed String.
+     * @throws IOException when the bytes are not valid gzip.
+     */
+    private String readGzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+        return new String(outputStream.toByteArray(), "UTF-8");
+    }
+
     /**
      * Produces a date String of the format yyyy-MM-dd, for the given input.
      *